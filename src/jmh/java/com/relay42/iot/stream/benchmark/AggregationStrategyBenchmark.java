@@ -0,0 +1,92 @@
+package com.relay42.iot.stream.benchmark;
+
+import com.relay42.iot.stream.aggregation.TemperatureAggregationStrategy;
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.model.MetricSummary;
+import com.relay42.iot.stream.util.DoubleList;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares aggregating a range that arrives as JPA entities with aggregating a primitive value column.
+ * `entityRows` materializes one SensorData per row before aggregating, as the entity query does, while
+ * `valueColumn` collects the same rows into a DoubleList, as the scalar projection does.
+ * `entityList` and `primitiveColumn` aggregate already loaded data through the bridged and primitive APIs.
+ * Run with `-prof gc` to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class AggregationStrategyBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private final TemperatureAggregationStrategy strategy = new TemperatureAggregationStrategy();
+
+    private double[] rows;
+    private List<SensorData> entities;
+    private double[] scratch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.of(2025, 4, 10, 0, 0);
+        rows = new double[size];
+        entities = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            rows[i] = 20 + random.nextGaussian() * 5;
+            entities.add(entity(i, start, rows[i]));
+        }
+        scratch = new double[size];
+    }
+
+    @Benchmark
+    public MetricSummary entityRows() {
+        LocalDateTime start = LocalDateTime.of(2025, 4, 10, 0, 0);
+        List<SensorData> dataList = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            dataList.add(entity(i, start, rows[i]));
+        }
+        return strategy.aggregateMetrics("temperature", dataList);
+    }
+
+    @Benchmark
+    public MetricSummary valueColumn() {
+        DoubleList values = new DoubleList();
+        for (int i = 0; i < size; i++) {
+            values.add(rows[i]);
+        }
+        return strategy.aggregateMetrics("temperature", values.array(), values.size());
+    }
+
+    @Benchmark
+    public MetricSummary entityList() {
+        return strategy.aggregateMetrics("temperature", entities);
+    }
+
+    @Benchmark
+    public MetricSummary primitiveColumn() {
+        // The strategy reorders its input, so each invocation works on a fresh copy in a reused buffer
+        System.arraycopy(rows, 0, scratch, 0, size);
+        return strategy.aggregateMetrics("temperature", scratch, size);
+    }
+
+    private static SensorData entity(int index, LocalDateTime start, double value) {
+        return SensorData.builder()
+                .id((long) index)
+                .deviceId("thermostat-1")
+                .metric("temperature")
+                .metricValue(value)
+                .dataTimestamp(start.plusSeconds(index))
+                .build();
+    }
+}
@@ -0,0 +1,79 @@
+package com.relay42.iot.stream.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.relay42.iot.stream.controller.SensorDataControllerV1;
+import com.relay42.iot.stream.model.SensorRequest;
+import com.relay42.iot.stream.repository.SensorDataRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares rows/sec of the single-record ingest path against the JDBC batch ingest path.
+ * Both benchmarks insert {@link #ROWS} readings per invocation, so the reported throughput is rows per second.
+ * The batch path includes parsing its JSON body, as it streams the readings out of the request itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchIngestBenchmark {
+
+    private static final int ROWS = 1000;
+
+    private ConfigurableApplicationContext context;
+    private SensorDataControllerV1 controller;
+    private SensorDataRepository repository;
+    private List<SensorRequest> requests;
+    private byte[] batchBody;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start();
+        controller = context.getBean(SensorDataControllerV1.class);
+        repository = context.getBean(SensorDataRepository.class);
+
+        LocalDateTime now = LocalDateTime.now();
+        requests = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            requests.add(new SensorRequest("thermostat-" + (i % 50), "temperature", 20.0 + (i % 10),
+                    now.plusSeconds(i), "thermostat"));
+        }
+        batchBody = context.getBean(ObjectMapper.class).writeValueAsBytes(requests);
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanUp() {
+        repository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void singleRecordIngest() {
+        for (SensorRequest request : requests) {
+            controller.ingestSensorData(request);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public Object batchIngest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/sensors/data/batch");
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(batchBody);
+        return controller.ingestSensorDataBatch(request);
+    }
+}
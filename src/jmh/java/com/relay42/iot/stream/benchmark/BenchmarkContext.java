@@ -0,0 +1,55 @@
+package com.relay42.iot.stream.benchmark;
+
+import com.relay42.iot.stream.IotDataStreamingApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts the application against the embedded H2 database for benchmarks that need real beans.
+ * The simulator, Kafka listeners and SQL logging are switched off so they do not skew measurements.
+ */
+final class BenchmarkContext {
+
+    private static final List<String> DEFAULTS = List.of(
+            "server.port=0",
+            "simulator.enabled=false",
+            "spring.kafka.listener.auto-startup=false",
+            "spring.jpa.show-sql=false",
+            "spring.jpa.properties.hibernate.format_sql=false",
+            "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+            "logging.level.root=WARN");
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * Starts the application. Properties are passed as command-line arguments so they override application.yml.
+     * An extra property with the same key as a default replaces it, since repeated arguments would be joined
+     * into one comma-separated value.
+     *
+     * @param extraProperties additional `key=value` properties for the benchmark.
+     * @return the running application context.
+     */
+    static ConfigurableApplicationContext start(String... extraProperties) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        for (String property : DEFAULTS) {
+            put(properties, property);
+        }
+        for (String property : extraProperties) {
+            put(properties, property);
+        }
+        String[] args = properties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(IotDataStreamingApplication.class).run(args);
+    }
+
+    private static void put(Map<String, String> properties, String property) {
+        int separator = property.indexOf('=');
+        properties.put(property.substring(0, separator), property.substring(separator + 1));
+    }
+}
@@ -0,0 +1,156 @@
+package com.relay42.iot.stream.benchmark;
+
+import com.relay42.iot.stream.config.IngestConfig;
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.repository.SensorDataBatchRepository;
+import com.relay42.iot.stream.repository.SensorDimensionRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the previous layout, with the device id, metric and device type stored as VARCHAR in every row, to the
+ * dictionary-encoded `sensor_data` table holding integer dimension keys.
+ * Each trial loads the same readings from {@link #DEVICES} devices with UUID ids into a file-based H2 database;
+ * the `keys` layout is written through {@link SensorDataBatchRepository}, so ingest interns names as in production.
+ * The primary score is a full scan delivering the device id, metric, timestamp and value of every row, as used to
+ * rebuild the in-memory aggregates. The `tableBytes` secondary result is the on-disk size of the table and its
+ * index as reported by H2; run with `-prof gc` to compare the bytes allocated per scan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class DimensionEncodingBenchmark {
+
+    private static final int DEVICES = 1000;
+    private static final String[] METRICS = {"temperature", "humidity", "co2", "battery-level", "signal-strength"};
+    private static final String[] DEVICE_TYPES = {"thermostat", "air-quality-sensor", "gateway"};
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final int CHUNK = 10_000;
+
+    @Param({"1000000"})
+    private int rows;
+
+    @Param({"strings", "keys"})
+    private String layout;
+
+    private Path directory;
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private SensorDataBatchRepository batchRepository;
+    private long tableBytes;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Storage {
+
+        public long tableBytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("dimension-benchmark");
+        dataSource = new SingleConnectionDataSource(
+                "jdbc:h2:file:" + directory.resolve("sensors") + ";CACHE_SIZE=262144", "sa", "", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        IngestConfig ingestConfig = new IngestConfig();
+        SensorDimensionRepository dimensions = new SensorDimensionRepository(jdbcTemplate);
+        batchRepository = new SensorDataBatchRepository(jdbcTemplate, ingestConfig, dimensions);
+
+        String table = "sensor_data";
+        if (layout.equals("strings")) {
+            table = "sensor_data_strings";
+            jdbcTemplate.execute("CREATE TABLE sensor_data_strings (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "device_id VARCHAR(255) NOT NULL, metric VARCHAR(255) NOT NULL, metric_value DOUBLE NOT NULL, "
+                    + "device_type VARCHAR(255), data_timestamp TIMESTAMP NOT NULL)");
+            jdbcTemplate.execute("CREATE INDEX idx_strings_device_metric_ts ON sensor_data_strings "
+                    + "(device_id, metric, data_timestamp)");
+        }
+
+        String[] deviceIds = new String[DEVICES];
+        for (int d = 0; d < DEVICES; d++) {
+            deviceIds[d] = UUID.nameUUIDFromBytes(("device-" + d).getBytes(StandardCharsets.UTF_8)).toString();
+        }
+        List<SensorData> chunk = new ArrayList<>(CHUNK);
+        for (int i = 0; i < rows; i++) {
+            int device = i % DEVICES;
+            chunk.add(SensorData.builder()
+                    .deviceId(deviceIds[device])
+                    .metric(METRICS[(i / DEVICES) % METRICS.length])
+                    .metricValue(20 + (i % 100) / 10.0)
+                    .dataTimestamp(START.plusSeconds(i))
+                    .deviceType(DEVICE_TYPES[device % DEVICE_TYPES.length])
+                    .build());
+            if (chunk.size() == CHUNK || i == rows - 1) {
+                if (layout.equals("strings")) {
+                    insertStrings(chunk);
+                } else {
+                    batchRepository.saveAll(chunk);
+                }
+                chunk.clear();
+            }
+        }
+        jdbcTemplate.execute("CHECKPOINT SYNC");
+        tableBytes = jdbcTemplate.queryForObject("SELECT DISK_SPACE_USED(?)", Long.class, table.toUpperCase());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.destroy();
+        FileSystemUtils.deleteRecursively(directory.toFile());
+    }
+
+    @Benchmark
+    public void fullScan(Storage storage, Blackhole blackhole) {
+        storage.tableBytes = tableBytes;
+        if (layout.equals("keys")) {
+            batchRepository.scanValues((deviceId, metric, timestamp, value) -> consume(blackhole, deviceId, metric, timestamp, value));
+            return;
+        }
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(
+                    "SELECT device_id, metric, data_timestamp, metric_value FROM sensor_data_strings");
+            statement.setFetchSize(CHUNK);
+            return statement;
+        }, (RowCallbackHandler) rs -> consume(blackhole,
+                rs.getString(1), rs.getString(2), rs.getTimestamp(3).toLocalDateTime(), rs.getDouble(4)));
+    }
+
+    private static void consume(Blackhole blackhole, String deviceId, String metric, LocalDateTime timestamp, double value) {
+        blackhole.consume(deviceId);
+        blackhole.consume(metric);
+        blackhole.consume(timestamp);
+        blackhole.consume(value);
+    }
+
+    private void insertStrings(List<SensorData> chunk) {
+        jdbcTemplate.batchUpdate("INSERT INTO sensor_data_strings (device_id, metric, metric_value, data_timestamp, device_type) "
+                + "VALUES (?, ?, ?, ?, ?)", chunk, CHUNK, (ps, data) -> {
+            ps.setString(1, data.getDeviceId());
+            ps.setString(2, data.getMetric());
+            ps.setDouble(3, data.getMetricValue());
+            ps.setTimestamp(4, Timestamp.valueOf(data.getDataTimestamp()));
+            ps.setString(5, data.getDeviceType());
+        });
+    }
+}
@@ -0,0 +1,100 @@
+package com.relay42.iot.stream.benchmark;
+
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.storage.SeriesRingBuffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the retained heap of one million readings held as a list of JPA entities with the same readings
+ * held in the primitive ring buffers of the hot window.
+ * The `retainedBytes` secondary result is the heap still in use after a full GC, measured around the build;
+ * the primary score is the time to build the structure.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-XX:+UseSerialGC"})
+public class HotWindowFootprintBenchmark {
+
+    private static final int READINGS = 1_000_000;
+    private static final int SERIES = 100;
+    private static final String[] DEVICE_IDS = new String[SERIES];
+
+    static {
+        for (int s = 0; s < SERIES; s++) {
+            DEVICE_IDS[s] = "thermostat-" + s;
+        }
+    }
+
+    private final LocalDateTime start = LocalDateTime.of(2025, 4, 10, 0, 0);
+
+    private Object retained;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+
+        public long retainedBytes;
+    }
+
+    @TearDown(Level.Invocation)
+    public void release() {
+        retained = null;
+    }
+
+    @Benchmark
+    public void entityList(Footprint footprint) {
+        long before = usedHeap();
+        Random random = new Random(42);
+        List<SensorData> entities = new ArrayList<>(READINGS);
+        for (int i = 0; i < READINGS; i++) {
+            entities.add(SensorData.builder()
+                    .id((long) i)
+                    .deviceId(deviceId(i))
+                    .metric("temperature")
+                    .metricValue(20 + random.nextGaussian() * 5)
+                    .dataTimestamp(start.plusSeconds(i))
+                    .deviceType("thermostat")
+                    .build());
+        }
+        retained = entities;
+        footprint.retainedBytes = usedHeap() - before;
+    }
+
+    @Benchmark
+    public void ringBuffers(Footprint footprint) {
+        long before = usedHeap();
+        Random random = new Random(42);
+        SeriesRingBuffer[] buffers = new SeriesRingBuffer[SERIES];
+        for (int s = 0; s < SERIES; s++) {
+            buffers[s] = new SeriesRingBuffer(READINGS / SERIES, 0);
+        }
+        long startMillis = start.toInstant(ZoneOffset.UTC).toEpochMilli();
+        for (int i = 0; i < READINGS; i++) {
+            buffers[i % SERIES].add(startMillis + i * 1000L, 20 + random.nextGaussian() * 5);
+        }
+        retained = buffers;
+        footprint.retainedBytes = usedHeap() - before;
+    }
+
+    private static String deviceId(int reading) {
+        return DEVICE_IDS[reading % SERIES];
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,89 @@
+package com.relay42.iot.stream.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.relay42.iot.stream.model.SensorBatchFrame;
+import com.relay42.iot.stream.model.SensorRequest;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-reading decode cost of a batch of 1000 readings (100 devices, 3 metrics) in each ingest encoding:
+ * an array of SensorRequest objects or a dictionary-encoded {@link SensorBatchFrame}, each as JSON, CBOR and Smile.
+ * Frame decoding includes expanding every reading back into a SensorRequest, as the ingest endpoint does.
+ * The payload size of each encoding is printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestFormatBenchmark {
+
+    private static final int READINGS = 1000;
+    private static final int DEVICES = 100;
+    private static final String[][] PROFILES = {
+            {"thermostat", "temperature"}, {"wearable", "heart-rate"}, {"vehicle", "fuel-level"}};
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"array", "frame"})
+    public String shape;
+
+    private ObjectReader reader;
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder builder = switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile();
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+        ObjectMapper objectMapper = builder.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+
+        List<SensorRequest> requests = new ArrayList<>(READINGS);
+        LocalDateTime start = LocalDateTime.of(2025, 4, 10, 10, 0);
+        for (int i = 0; i < READINGS; i++) {
+            String[] profile = PROFILES[i % PROFILES.length];
+            requests.add(new SensorRequest(profile[0] + "-" + (i % DEVICES), profile[1], 20 + (i % 70) * 0.37,
+                    start.plusNanos(i * 1_500_000L), profile[0]));
+        }
+
+        if (shape.equals("frame")) {
+            reader = objectMapper.readerFor(SensorBatchFrame.class);
+            payload = objectMapper.writeValueAsBytes(SensorBatchFrame.of(requests));
+        } else {
+            reader = objectMapper.readerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, SensorRequest.class));
+            payload = objectMapper.writeValueAsBytes(requests);
+        }
+        System.out.printf("%n%s %s: %d bytes for %d readings (%.1f bytes/reading)%n",
+                format, shape, payload.length, READINGS, payload.length / (double) READINGS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(READINGS)
+    public void decode(Blackhole blackhole) throws IOException {
+        if (shape.equals("frame")) {
+            SensorBatchFrame frame = reader.readValue(payload);
+            int size = frame.size();
+            for (int i = 0; i < size; i++) {
+                blackhole.consume(frame.reading(i));
+            }
+        } else {
+            List<SensorRequest> requests = reader.readValue(payload);
+            blackhole.consume(requests);
+        }
+    }
+}
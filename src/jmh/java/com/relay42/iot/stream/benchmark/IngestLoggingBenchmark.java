@@ -0,0 +1,77 @@
+package com.relay42.iot.stream.benchmark;
+
+import com.relay42.iot.stream.controller.SensorDataControllerV1;
+import com.relay42.iot.stream.model.SensorRequest;
+import com.relay42.iot.stream.repository.SensorDataRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what request logging costs the single-record ingest path, with the root logger at INFO as in production.
+ * `verbose` restores the previous behaviour: SQL echo with formatting, the hot-path lines at DEBUG, and a log
+ * line per request. `lean` is the shipped configuration. Both write to the async console and file appenders.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestLoggingBenchmark {
+
+    private static final int ROWS = 1000;
+
+    @Param({"verbose", "lean"})
+    public String logging;
+
+    private ConfigurableApplicationContext context;
+    private SensorDataControllerV1 controller;
+    private SensorDataRepository repository;
+    private List<SensorRequest> requests;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (logging.equals("verbose")) {
+            context = BenchmarkContext.start(
+                    "logging.level.root=INFO",
+                    "logging.level.com.relay42.iot.stream=DEBUG",
+                    "spring.jpa.show-sql=true",
+                    "spring.jpa.properties.hibernate.format_sql=true",
+                    "ingest.logging.sample-every=1");
+        } else {
+            context = BenchmarkContext.start("logging.level.root=INFO");
+        }
+        controller = context.getBean(SensorDataControllerV1.class);
+        repository = context.getBean(SensorDataRepository.class);
+
+        LocalDateTime now = LocalDateTime.now();
+        requests = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            requests.add(new SensorRequest("thermostat-" + (i % 50), "temperature", 20.0 + (i % 10),
+                    now.plusSeconds(i), "thermostat"));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanUp() {
+        repository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void singleRecordIngest() {
+        for (SensorRequest request : requests) {
+            controller.ingestSensorData(request);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.relay42.iot.stream.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.mapper.SensorDataMapper;
+import com.relay42.iot.stream.mapper.SensorDataMapperImpl;
+import com.relay42.iot.stream.model.SensorRequest;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-reading CPU cost of the ingest path before the database: decoding a SensorRequest from JSON with an
+ * ObjectMapper configured like Spring Boot's, and mapping it to a SensorData entity with the generated mapper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestMappingBenchmark {
+
+    private final SensorDataMapper mapper = new SensorDataMapperImpl();
+
+    private ObjectReader requestReader;
+    private byte[] json;
+    private SensorRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        requestReader = objectMapper.readerFor(SensorRequest.class);
+        json = ("{\"deviceId\":\"thermostat-1\",\"metric\":\"temperature\",\"metricValue\":23.5," +
+                "\"dataTimestamp\":\"" + LocalDateTime.of(2025, 4, 10, 10, 0) + "\",\"deviceType\":\"thermostat\"}")
+                .getBytes(StandardCharsets.UTF_8);
+        request = requestReader.readValue(json);
+    }
+
+    @Benchmark
+    public SensorRequest deserializeRequest() throws IOException {
+        return requestReader.readValue(json);
+    }
+
+    @Benchmark
+    public SensorData mapToEntity() {
+        return mapper.toEntity(request);
+    }
+
+    @Benchmark
+    public SensorData deserializeAndMap() throws IOException {
+        return mapper.toEntity(requestReader.readValue(json));
+    }
+}
@@ -0,0 +1,60 @@
+package com.relay42.iot.stream.benchmark;
+
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.util.MedianCalculator;
+import com.relay42.iot.stream.util.StreamingMedian;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the sort-based reference median with the selection-based and streaming medians.
+ * Run with `-prof gc` to compare allocation rates as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MedianBenchmark {
+
+    @Param({"1000", "100000", "10000000"})
+    private int size;
+
+    private double[] values;
+    private List<SensorData> entities;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        values = new double[size];
+        entities = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values[i] = 20 + random.nextGaussian() * 5;
+            entities.add(SensorData.builder().metricValue(values[i]).build());
+        }
+    }
+
+    @Benchmark
+    public double sortedListReference() {
+        return MedianCalculator.calculate(entities);
+    }
+
+    @Benchmark
+    public double quickselectArray() {
+        return MedianCalculator.median(values);
+    }
+
+    @Benchmark
+    public double streamingTwoHeap() {
+        StreamingMedian median = new StreamingMedian();
+        for (double value : values) {
+            median.add(value);
+        }
+        return median.median();
+    }
+}
@@ -0,0 +1,146 @@
+package com.relay42.iot.stream.benchmark;
+
+import com.relay42.iot.stream.config.IngestConfig;
+import com.relay42.iot.stream.config.StorageConfig;
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.repository.MetricStats;
+import com.relay42.iot.stream.repository.SensorDataPartitionRepository;
+import com.relay42.iot.stream.repository.SensorDimensionRepository;
+import com.relay42.iot.stream.repository.SensorDimensionRepository.Dimension;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a one-day range stats query for one device on a flat table without an index, a flat table with the
+ * composite (device_key, metric_key, data_timestamp) index, and the daily partitioned layout. All three store
+ * dimension keys, resolved through {@link SensorDimensionRepository} as the application does.
+ * Readings are spread evenly over {@link #DAYS} days and {@link #DEVICES} devices in a file-based H2 database,
+ * so 10M rows do not have to fit in the heap. Use `-p rows=1000000` for a quicker run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class PartitionedQueryBenchmark {
+
+    private static final int DAYS = 100;
+    private static final int DEVICES = 100;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime FROM = START.plusDays(DAYS / 2);
+    private static final LocalDateTime TO = FROM.plusDays(1).minusNanos(1000);
+
+    private static final String STATS_SQL = "SELECT COUNT(*), MIN(metric_value), MAX(metric_value), AVG(metric_value), "
+            + "PERCENTILE_CONT(0.5) WITHIN GROUP (ORDER BY metric_value) FROM sensor_data_flat "
+            + "WHERE device_key = ? AND metric_key = ? AND data_timestamp BETWEEN ? AND ?";
+
+    @Param({"10000000"})
+    private int rows;
+
+    @Param({"flat", "indexed", "partitioned"})
+    private String layout;
+
+    private Path directory;
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private SensorDimensionRepository dimensions;
+    private SensorDataPartitionRepository partitionRepository;
+    private int invocation;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("partition-benchmark");
+        dataSource = new SingleConnectionDataSource(
+                "jdbc:h2:file:" + directory.resolve("sensors") + ";CACHE_SIZE=262144", "sa", "", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        dimensions = new SensorDimensionRepository(jdbcTemplate);
+
+        int firstDevice = dimensions.intern(Dimension.DEVICE, "device-0");
+        for (int device = 1; device < DEVICES; device++) {
+            if (dimensions.intern(Dimension.DEVICE, "device-" + device) != firstDevice + device) {
+                throw new IllegalStateException("Device keys are expected to be consecutive in a fresh database");
+            }
+        }
+        jdbcTemplate.execute("CREATE TABLE sensor_data_flat (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "device_key INT NOT NULL, metric_key INT NOT NULL, metric_value DOUBLE NOT NULL, "
+                + "device_type_key INT, data_timestamp TIMESTAMP NOT NULL)");
+        jdbcTemplate.update("INSERT INTO sensor_data_flat (device_key, metric_key, metric_value, device_type_key, data_timestamp) "
+                        + "SELECT ? + MOD(X, " + DEVICES + "), ?, 20 + RAND() * 10, ?, "
+                        + "DATEADD(MILLISECOND, X * CAST(? AS BIGINT), CAST(? AS TIMESTAMP)) FROM SYSTEM_RANGE(0, CAST(? AS BIGINT))",
+                firstDevice, dimensions.intern(Dimension.METRIC, "temperature"),
+                dimensions.intern(Dimension.DEVICE_TYPE, "thermostat"),
+                DAYS * 86_400_000L / rows, Timestamp.valueOf(START), rows - 1);
+
+        if (!layout.equals("flat")) {
+            jdbcTemplate.execute("CREATE INDEX idx_flat_device_metric_ts ON sensor_data_flat (device_key, metric_key, data_timestamp)");
+        }
+        if (layout.equals("partitioned")) {
+            partitionRepository = createPartitions();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.destroy();
+        FileSystemUtils.deleteRecursively(directory.toFile());
+    }
+
+    /**
+     * Queries a different device on each invocation, so H2 cannot answer from the result of the previous run.
+     */
+    @Benchmark
+    public Object rangeStats() {
+        String deviceId = "device-" + (invocation++ % DEVICES);
+        if (partitionRepository != null) {
+            return partitionRepository.findStatsInRange(deviceId, "temperature", FROM, TO);
+        }
+        return jdbcTemplate.queryForMap(STATS_SQL, dimensions.keyOf(Dimension.DEVICE, deviceId),
+                dimensions.keyOf(Dimension.METRIC, "temperature"), Timestamp.valueOf(FROM), Timestamp.valueOf(TO));
+    }
+
+    /**
+     * Creates one daily partition per day through the repository, then copies each day of the flat table into it.
+     */
+    private SensorDataPartitionRepository createPartitions() {
+        StorageConfig storageConfig = new StorageConfig();
+        storageConfig.getPartitioning().setEnabled(true);
+        SensorDataPartitionRepository repository = new SensorDataPartitionRepository(jdbcTemplate, storageConfig,
+                new IngestConfig(), dimensions);
+
+        List<SensorData> oneReadingPerDay = new ArrayList<>(DAYS);
+        for (int day = 0; day < DAYS; day++) {
+            oneReadingPerDay.add(SensorData.builder().deviceId("seed").metric("temperature").metricValue(0.0)
+                    .deviceType("thermostat").dataTimestamp(START.plusDays(day)).build());
+        }
+        repository.saveAll(oneReadingPerDay);
+
+        for (int i = 0; i < DAYS; i++) {
+            LocalDateTime day = START.plusDays(i);
+            String partition = repository.partitionsOverlapping(day, day).get(0);
+            jdbcTemplate.update("INSERT INTO " + partition + " (device_key, metric_key, metric_value, device_type_key, data_timestamp) "
+                            + "SELECT device_key, metric_key, metric_value, device_type_key, data_timestamp FROM sensor_data_flat "
+                            + "WHERE data_timestamp >= ? AND data_timestamp < ?",
+                    Timestamp.valueOf(day), Timestamp.valueOf(day.plusDays(1)));
+        }
+        MetricStats check = repository.findStatsInRange("device-7", "temperature", FROM, TO);
+        if (check.getCount() == 0) {
+            throw new IllegalStateException("Partitioned layout returned no rows for the benchmark window");
+        }
+        return repository;
+    }
+}
@@ -0,0 +1,112 @@
+package com.relay42.iot.stream.benchmark;
+
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.repository.MetricStats;
+import com.relay42.iot.stream.repository.SensorDataBatchRepository;
+import com.relay42.iot.stream.repository.SensorDataRepository;
+import com.relay42.iot.stream.repository.SensorDataSeriesRepository;
+import com.relay42.iot.stream.util.DoubleList;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserts into and queries `sensor_data` on embedded H2 through the application's repositories, with the table
+ * holding {@link #rows} readings of one series, one per second. Each insert writes a JDBC batch of
+ * {@link #INSERT_BATCH} readings of another device; the range queries read the middle tenth of the series as
+ * entities, as one aggregate row, and as a primitive value column.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RepositoryBenchmark {
+
+    private static final int INSERT_BATCH = 1000;
+    private static final int SEED_CHUNK = 10_000;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private SensorDataRepository repository;
+    private SensorDataBatchRepository batchRepository;
+    private SensorDataSeriesRepository seriesRepository;
+    private JdbcTemplate jdbcTemplate;
+    private List<SensorData> insertBatch;
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("storage.hot-window.enabled=false", "aggregation.rollup.enabled=false");
+        repository = context.getBean(SensorDataRepository.class);
+        batchRepository = context.getBean(SensorDataBatchRepository.class);
+        seriesRepository = context.getBean(SensorDataSeriesRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        for (int offset = 0; offset < rows; offset += SEED_CHUNK) {
+            List<SensorData> chunk = new ArrayList<>(SEED_CHUNK);
+            for (int i = offset; i < Math.min(rows, offset + SEED_CHUNK); i++) {
+                chunk.add(reading("thermostat-1", i));
+            }
+            batchRepository.saveAll(chunk);
+        }
+
+        insertBatch = new ArrayList<>(INSERT_BATCH);
+        for (int i = 0; i < INSERT_BATCH; i++) {
+            insertBatch.add(reading("thermostat-insert", i));
+        }
+        from = START.plusSeconds(rows * 45L / 100);
+        to = START.plusSeconds(rows * 55L / 100);
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanUp() {
+        jdbcTemplate.update("DELETE FROM sensor_data WHERE device_key = "
+                + "(SELECT id FROM sensor_device WHERE name = 'thermostat-insert')");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int insertBatch() {
+        return batchRepository.saveAll(insertBatch);
+    }
+
+    @Benchmark
+    public List<SensorData> queryEntities() {
+        return repository.findByDeviceIdAndMetricAndTimestampRange("thermostat-1", "temperature", from, to);
+    }
+
+    @Benchmark
+    public MetricStats queryStats() {
+        return repository.findStatsByDeviceIdAndMetricAndTimestampRange("thermostat-1", "temperature", from, to);
+    }
+
+    @Benchmark
+    public DoubleList queryValues() {
+        return seriesRepository.findValues("thermostat-1", "temperature", from, to);
+    }
+
+    private static SensorData reading(String deviceId, int index) {
+        return SensorData.builder()
+                .deviceId(deviceId)
+                .metric("temperature")
+                .metricValue(20.0 + (index % 10))
+                .dataTimestamp(START.plusSeconds(index))
+                .deviceType("thermostat")
+                .build();
+    }
+}
@@ -0,0 +1,131 @@
+package com.relay42.iot.stream.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Compares the servlet stack (Tomcat + JDBC) with the `reactive` profile (Netty + R2DBC) over real HTTP.
+ * Each invocation fires {@link #concurrency} requests at once from one client thread and waits for all of them,
+ * so requests per second are the reported score multiplied by `concurrency`. Ingest posts an NDJSON batch of
+ * {@link #BATCH_SIZE} readings per request; the range query reads a window a week old, outside the hot window,
+ * so it reaches the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ServingModeBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+    private static final int DEVICES = 100;
+
+    @Param({"servlet", "reactive"})
+    public String mode;
+
+    @Param({"64", "1024"})
+    public int concurrency;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String authorization;
+    private String baseUrl;
+    private String ndjsonBatch;
+    private LocalDateTime historyStart;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Same database as the JDBC URL set by BenchmarkContext; each trial runs in its own fork
+        List<String> properties = new ArrayList<>(List.of(
+                "spring.r2dbc.url=r2dbc:h2:mem:///benchmark?options=DB_CLOSE_DELAY=-1",
+                "stats-cache.enabled=false"));
+        if (mode.equals("reactive")) {
+            properties.add("spring.profiles.active=reactive");
+        }
+        context = BenchmarkContext.start(properties.toArray(String[]::new));
+
+        int port = Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port"));
+        baseUrl = "http://localhost:" + port + "/api/v1/sensors";
+        authorization = "Basic " + Base64.getEncoder().encodeToString("admin:password".getBytes(StandardCharsets.UTF_8));
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        historyStart = LocalDateTime.now().minusDays(7).withNano(0);
+        StringBuilder batch = new StringBuilder();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.append("{\"deviceId\":\"device-").append(i % DEVICES)
+                    .append("\",\"metric\":\"temperature\",\"metricValue\":").append(20.0 + (i % 10))
+                    .append(",\"dataTimestamp\":\"").append(historyStart.plusSeconds(i)).append("\"}\n");
+        }
+        ndjsonBatch = batch.toString();
+
+        // Seed history for the range query
+        for (int i = 0; i < 36; i++) {
+            send(ingestRequest()).join();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int ndjsonIngest() {
+        return runConcurrently(this::ingestRequest);
+    }
+
+    @Benchmark
+    public int rangeStats() {
+        return runConcurrently(() -> {
+            String device = "device-" + (int) (Math.random() * DEVICES);
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/data/stats/range?deviceId=" + device
+                            + "&metric=temperature&from=" + historyStart + "&to=" + historyStart.plusHours(1)))
+                    .header("Authorization", authorization)
+                    .GET()
+                    .build();
+        });
+    }
+
+    private HttpRequest ingestRequest() {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/data/batch"))
+                .header("Authorization", authorization)
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(ndjsonBatch))
+                .build();
+    }
+
+    /**
+     * Sends {@link #concurrency} requests at once and waits for all of them; fails on any non-2xx status.
+     */
+    private int runConcurrently(Supplier<HttpRequest> requests) {
+        CompletableFuture<?>[] inFlight = new CompletableFuture<?>[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            inFlight[i] = send(requests.get());
+        }
+        CompletableFuture.allOf(inFlight).join();
+        return inFlight.length;
+    }
+
+    private CompletableFuture<Integer> send(HttpRequest request) {
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).thenApply(response -> {
+            if (response.statusCode() / 100 != 2) {
+                throw new IllegalStateException("HTTP " + response.statusCode() + " from " + request.uri());
+            }
+            return response.statusCode();
+        });
+    }
+}
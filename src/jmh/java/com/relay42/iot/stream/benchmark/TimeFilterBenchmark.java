@@ -0,0 +1,50 @@
+package com.relay42.iot.stream.benchmark;
+
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.util.TimeFilter;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filters loaded readings to the middle half of their time span with {@link TimeFilter#filterByRange}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class TimeFilterBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    private List<SensorData> readings;
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LocalDateTime start = LocalDateTime.of(2025, 4, 10, 0, 0);
+        readings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            readings.add(SensorData.builder()
+                    .deviceId("thermostat-1")
+                    .metric("temperature")
+                    .metricValue(20.0 + (i % 10))
+                    .dataTimestamp(start.plusSeconds(i))
+                    .build());
+        }
+        from = start.plusSeconds(size / 4);
+        to = start.plusSeconds(size * 3L / 4);
+    }
+
+    @Benchmark
+    public List<SensorData> filterByRange() {
+        return TimeFilter.filterByRange(readings, from, to);
+    }
+}
@@ -0,0 +1,16 @@
+package com.relay42.iot.stream.aggregation;
+
+import com.relay42.iot.stream.repository.SensorDataBatchRepository;
+
+/**
+ * A rebuild of in-memory aggregates in progress.
+ * It receives every stored reading from a scan and, once the scan has completed, replaces the live aggregates
+ * with the ones it has built, so several stores can be rebuilt from one pass over the database.
+ */
+public interface AggregateRebuild extends SensorDataBatchRepository.ValueConsumer {
+
+    /**
+     * Replaces the live aggregates with the rebuilt ones. Called once, after the last reading.
+     */
+    void complete();
+}
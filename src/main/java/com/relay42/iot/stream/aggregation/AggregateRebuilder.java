@@ -0,0 +1,65 @@
+package com.relay42.iot.stream.aggregation;
+
+import com.relay42.iot.stream.repository.SensorDataBatchRepository;
+import com.relay42.iot.stream.repository.SensorDataPartitionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rebuilds the running aggregates and the rollup tiers on startup, before the web server and Kafka listeners
+ * start accepting readings. Both stores are fed from a single scan of the stored rows, so startup reads the
+ * history once rather than once per store.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AggregateRebuilder implements SmartInitializingSingleton {
+
+    private final SensorDataBatchRepository batchRepository;
+    private final SensorDataPartitionRepository partitionRepository;
+    private final RunningAggregateStore runningAggregates;
+    private final RollupStore rollupStore;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the running aggregates and, if rollups are enabled, the rollup tiers from one scan of the database.
+     * Readings stored with a NaN or infinite value, before ingest rejected them, are skipped.
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        List<AggregateRebuild> rebuilds = new ArrayList<>(2);
+        rebuilds.add(runningAggregates.startRebuild());
+        if (rollupStore.isEnabled()) {
+            rebuilds.add(rollupStore.startRebuild());
+        }
+        long[] nonFinite = new long[1];
+        SensorDataBatchRepository.ValueConsumer consumer = (deviceId, metric, timestamp, value) -> {
+            if (!Double.isFinite(value)) {
+                nonFinite[0]++;
+                return;
+            }
+            for (AggregateRebuild rebuild : rebuilds) {
+                rebuild.accept(deviceId, metric, timestamp, value);
+            }
+        };
+        if (partitionRepository.isEnabled()) {
+            partitionRepository.scanValues(consumer);
+        } else {
+            batchRepository.scanValues(consumer);
+        }
+        rebuilds.forEach(AggregateRebuild::complete);
+        if (nonFinite[0] > 0) {
+            log.warn("Skipped {} stored readings with a NaN or infinite value while rebuilding the aggregates", nonFinite[0]);
+        }
+        log.info("Rebuilt {} aggregate stores from one scan in {} ms", rebuilds.size(), System.currentTimeMillis() - start);
+    }
+}
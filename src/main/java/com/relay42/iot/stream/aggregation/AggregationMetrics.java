@@ -0,0 +1,137 @@
+package com.relay42.iot.stream.aggregation;
+
+import com.relay42.iot.stream.repository.MetricStats;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times aggregations and records how many readings each one covered, per source that answered it and per
+ * aggregation strategy. The strategy tag is derived from the strategy class, not the metric name, so the number
+ * of time series is bounded by the sources times the strategy implementations.
+ */
+@Component
+public class AggregationMetrics {
+
+    /**
+     * Strategy tag of aggregations spanning several metrics, such as bulk statistics.
+     */
+    public static final String MIXED_STRATEGY = "mixed";
+
+    private static final String STRATEGY_SUFFIX = "AggregationStrategy";
+
+    /**
+     * Where or how the statistics were computed.
+     */
+    public enum Source {
+        /** From the in-memory ring buffers of the hot window. */
+        HOT_WINDOW,
+        /** Merged from rollup buckets, with the partial edges read from the database. */
+        ROLLUP,
+        /** By one aggregate query in the database. */
+        PUSHDOWN,
+        /** By streaming the readings and folding them in the JVM. */
+        FOLD,
+        /** By streaming the readings through the strategy's accumulator, for aggregates range statistics cannot answer. */
+        ACCUMULATOR,
+        /** The buckets or downsampled points of a time series. */
+        SERIES,
+        /** The statistics of many devices and metrics in one request. */
+        BULK;
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final AggregationStrategyFactory strategyFactory;
+    private final Map<MeterKey, Meters> meters = new ConcurrentHashMap<>();
+
+    public AggregationMetrics(MeterRegistry meterRegistry, AggregationStrategyFactory strategyFactory) {
+        this.meterRegistry = meterRegistry;
+        this.strategyFactory = strategyFactory;
+    }
+
+    /**
+     * Records a finished range aggregation, tagged with the strategy of the metric.
+     *
+     * @param source where the statistics were computed.
+     * @param metric the metric the statistics belong to.
+     * @param stats the computed statistics.
+     * @param startNanos the {@link System#nanoTime()} at which the aggregation started.
+     * @return the given statistics, so the call can wrap a return statement.
+     */
+    public MetricStats record(Source source, String metric, MetricStats stats, long startNanos) {
+        record(source, strategyFactory.getStrategy(metric), stats.getCount() != null ? stats.getCount() : 0, startNanos);
+        return stats;
+    }
+
+    /**
+     * Records a finished aggregation that covered the given number of readings.
+     *
+     * @param source where the statistics were computed.
+     * @param strategy the strategy that aggregated the readings, or null if several strategies were involved.
+     * @param readings the number of readings covered.
+     * @param startNanos the {@link System#nanoTime()} at which the aggregation started.
+     */
+    public void record(Source source, AggregationStrategy strategy, long readings, long startNanos) {
+        Meters recorded = meters(source, strategy);
+        recorded.timer().record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        recorded.rows().record(readings);
+    }
+
+    /**
+     * Records the duration of a finished aggregation whose reading count is not known, such as a series.
+     *
+     * @param source what was computed.
+     * @param strategy the strategy of the metric, or null if several metrics were involved.
+     * @param startNanos the {@link System#nanoTime()} at which the aggregation started.
+     */
+    public void recordDuration(Source source, AggregationStrategy strategy, long startNanos) {
+        meters(source, strategy).timer().record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Meters meters(Source source, AggregationStrategy strategy) {
+        return meters.computeIfAbsent(new MeterKey(source, strategyTag(strategy)), key -> new Meters(
+                Timer.builder("aggregation.duration")
+                        .tag("source", key.source().tag())
+                        .tag("strategy", key.strategy())
+                        .description("Time taken to compute an aggregation")
+                        .register(meterRegistry),
+                DistributionSummary.builder("aggregation.rows")
+                        .tag("source", key.source().tag())
+                        .tag("strategy", key.strategy())
+                        .baseUnit("readings")
+                        .description("Readings covered by an aggregation")
+                        .register(meterRegistry)));
+    }
+
+    /**
+     * Returns the tag of a strategy: its class name without the `AggregationStrategy` suffix, e.g. `temperature`
+     * or `configurable`.
+     */
+    static String strategyTag(AggregationStrategy strategy) {
+        if (strategy == null) {
+            return MIXED_STRATEGY;
+        }
+        String name = ClassUtils.getUserClass(strategy).getSimpleName();
+        if (name.endsWith(STRATEGY_SUFFIX) && name.length() > STRATEGY_SUFFIX.length()) {
+            name = name.substring(0, name.length() - STRATEGY_SUFFIX.length());
+        }
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private record MeterKey(Source source, String strategy) {
+    }
+
+    private record Meters(Timer timer, DistributionSummary rows) {
+    }
+}
@@ -2,6 +2,7 @@ package com.relay42.iot.stream.aggregation;
 
 import com.relay42.iot.stream.entity.SensorData;
 import com.relay42.iot.stream.model.MetricSummary;
+import com.relay42.iot.stream.repository.MetricStats;
 
 
 import java.util.List;
@@ -14,15 +15,86 @@ import java.util.List;
  */
 public interface AggregationStrategy {
 
+    /**
+     * Calculates the aggregation result for a specific metric from a column of raw metric values.
+     * This is the primitive entry point: callers pass values streamed from the database or the hot window
+     * without materializing entities. The implementation may reorder the first `length` values in place.
+     *
+     * @param metric the name of the metric to aggregate (e.g., temperature, humidity).
+     * @param values the metric values; only the first `length` entries are aggregated.
+     * @param length the number of values to aggregate.
+     * @return an AggregationResult containing the calculated values (e.g., min, max, avg, median).
+     */
+    MetricSummary aggregateMetrics(String metric, double[] values, int length);
+
     /**
      * Calculates the aggregation result for a specific metric using the provided sensor data.
-     * The implementation of this method depends on the specific aggregation strategy.
+     * Copies the metric values into a column and delegates to {@link #aggregateMetrics(String, double[], int)}.
      *
      * @param metric the name of the metric to aggregate (e.g., temperature, humidity).
      * @param data the list of SensorData entities to be aggregated.
      * @return an AggregationResult containing the calculated values (e.g., min, max, avg, median).
      */
-    MetricSummary aggregateMetrics(String metric, List<SensorData> data);
+    default MetricSummary aggregateMetrics(String metric, List<SensorData> data) {
+        if (data == null) {
+            return aggregateMetrics(metric, new double[0], 0);
+        }
+        double[] values = new double[data.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = data.get(i).getMetricValue();
+        }
+        return aggregateMetrics(metric, values, values.length);
+    }
+
+    /**
+     * Builds the aggregation result from statistics already computed by the database.
+     * Used when the aggregation is pushed down, so that only one row is transferred instead of every reading.
+     * Strategies that need more than min, max, average and median should override this method.
+     *
+     * @param metric the name of the metric to aggregate (e.g., temperature, humidity).
+     * @param stats the aggregate statistics projected by the repository.
+     * @return an AggregationResult containing the calculated values (e.g., min, max, avg, median).
+     */
+    default MetricSummary aggregateMetrics(String metric, MetricStats stats) {
+        if (stats == null || stats.getCount() == null || stats.getCount() == 0) {
+            return MetricSummary.builder()
+                    .metric(metric)
+                    .min(0.0)
+                    .max(0.0)
+                    .avg(0.0)
+                    .median(0.0)
+                    .build();
+        }
+
+        return MetricSummary.builder()
+                .metric(metric)
+                .min(stats.getMin())
+                .max(stats.getMax())
+                .avg(stats.getAvg())
+                .median(stats.getMedian())
+                .build();
+    }
+
+    /**
+     * Tells whether this strategy needs the individual readings of a range, because it computes aggregates
+     * (e.g., percentiles, standard deviation, rate of change) that range statistics cannot answer.
+     * Such strategies are fed through {@link #newAccumulator(Precision)} instead of {@link #aggregateMetrics(String, MetricStats)}.
+     *
+     * @return true if the readings must be streamed through an accumulator.
+     */
+    default boolean requiresReadings() {
+        return false;
+    }
+
+    /**
+     * Creates an accumulator that folds readings into this strategy's aggregates in a single pass.
+     *
+     * @param precision whether percentiles are exact or approximate.
+     * @return a new, empty accumulator.
+     */
+    default MetricAccumulator newAccumulator(Precision precision) {
+        return new MetricAccumulator(List.of("min", "max", "avg", "median"), precision);
+    }
 
     /**
      * Retrieves the list of metrics supported by this aggregation strategy.
@@ -1,37 +1,45 @@
 package com.relay42.iot.stream.aggregation;
-import com.relay42.iot.stream.aggregation.AggregationStrategy;
 
+import com.relay42.iot.stream.config.AggregationConfig;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-
-@Component
+import java.util.TreeMap;
 
 /**
  * Factory class for managing and providing aggregation strategies for sensor data.
  * Maintains a mapping of metrics to their corresponding aggregation strategies.
  * This allows for dynamic selection of the appropriate strategy based on the metric.
+ * Strategies declared under `aggregation.strategies` take precedence over strategy beans,
+ * and metrics without a strategy fall back to a default one, so a lookup never returns null.
  */
+@Component
 public class AggregationStrategyFactory {
 
-    private final Map<String, AggregationStrategy> strategyMap = new HashMap<>();
+    private final Map<String, AggregationStrategy> strategyMap = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final AggregationStrategy defaultStrategy;
 
     /**
      * Constructs an AggregationStrategyFactory and initializes the strategy map.
      * Populates the map with supported metrics and their corresponding strategies.
      *
      * @param strategies the list of available AggregationStrategy implementations.
+     * @param aggregationConfig the configuration holding the per-metric and default aggregates.
+     * @throws IllegalArgumentException if a configured aggregate is not supported.
      */
     @Autowired
-    public AggregationStrategyFactory(List<AggregationStrategy> strategies) {
+    public AggregationStrategyFactory(List<AggregationStrategy> strategies, AggregationConfig aggregationConfig) {
         for (AggregationStrategy strategy : strategies) {
             for (String metric : strategy.getSupportedMetrics()) {
-                strategyMap.put(metric.toLowerCase(), strategy);
+                strategyMap.put(metric, strategy);
             }
         }
+        AggregationConfig.Strategies configured = aggregationConfig.getStrategies();
+        configured.getMetrics().forEach((metric, aggregates) ->
+                strategyMap.put(metric, new ConfigurableAggregationStrategy(List.of(metric), aggregates)));
+        defaultStrategy = new ConfigurableAggregationStrategy(List.of(), configured.getDefaultAggregates());
     }
 
     /**
@@ -39,10 +47,9 @@ public class AggregationStrategyFactory {
      * Looks up the strategy map using the metric name (case-insensitive).
      *
      * @param metric the name of the metric for which the strategy is required.
-     * @return the AggregationStrategy corresponding to the metric, or null if not found.
+     * @return the AggregationStrategy corresponding to the metric, or the default strategy if none is registered.
      */
     public AggregationStrategy getStrategy(String metric) {
-
-        return strategyMap.get(metric.toLowerCase());
+        return strategyMap.getOrDefault(metric, defaultStrategy);
     }
 }
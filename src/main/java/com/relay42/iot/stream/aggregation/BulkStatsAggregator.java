@@ -0,0 +1,92 @@
+package com.relay42.iot.stream.aggregation;
+
+import com.relay42.iot.stream.model.MetricSummary;
+import com.relay42.iot.stream.util.DoubleList;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Groups readings from a single scan by device and metric, then computes the summary of each group
+ * in parallel across the available cores with the metric's {@link AggregationStrategy}.
+ * Groups whose strategy needs the individual readings are folded into the strategy's accumulator as they arrive;
+ * the others keep their values in a primitive array that the strategy aggregates at the end, so groups never
+ * share state while being summarized. Percentiles are exact, as every value of the scan is at hand.
+ */
+public class BulkStatsAggregator {
+
+    private final AggregationStrategyFactory strategyFactory;
+    private final Map<String, Map<String, Group>> groups = new HashMap<>();
+
+    /**
+     * Creates an empty aggregator.
+     *
+     * @param strategyFactory resolves the strategy summarizing each metric.
+     */
+    public BulkStatsAggregator(AggregationStrategyFactory strategyFactory) {
+        this.strategyFactory = strategyFactory;
+    }
+
+    /**
+     * Adds a reading to its group. Not thread-safe; readings are expected to come from a single scan.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param timestamp the time of the reading, used by the rate of change.
+     * @param value the metric value.
+     */
+    public void add(String deviceId, String metric, LocalDateTime timestamp, double value) {
+        groups.computeIfAbsent(deviceId, device -> new HashMap<>())
+                .computeIfAbsent(metric, name -> new Group(strategyFactory.getStrategy(name)))
+                .add(timestamp, value);
+    }
+
+    /**
+     * Computes the summary of every group in parallel.
+     *
+     * @return the summaries keyed by device and then by metric.
+     */
+    public Map<String, Map<String, MetricSummary>> summarize() {
+        Map<String, Map<String, MetricSummary>> summaries = new ConcurrentHashMap<>();
+        groups.entrySet().parallelStream().forEach(device -> {
+            Map<String, MetricSummary> metrics = new TreeMap<>();
+            device.getValue().forEach((metric, group) -> metrics.put(metric, group.summarize(metric)));
+            summaries.put(device.getKey(), metrics);
+        });
+        return new TreeMap<>(summaries);
+    }
+
+    /**
+     * The readings of one device and metric, either as raw values or folded into an accumulator.
+     */
+    private static final class Group {
+
+        private final AggregationStrategy strategy;
+        private final MetricAccumulator accumulator;
+        private final DoubleList values;
+
+        Group(AggregationStrategy strategy) {
+            this.strategy = strategy;
+            this.accumulator = strategy.requiresReadings() ? strategy.newAccumulator(Precision.EXACT) : null;
+            this.values = accumulator == null ? new DoubleList() : null;
+        }
+
+        void add(LocalDateTime timestamp, double value) {
+            if (accumulator != null) {
+                accumulator.add(timestamp, value);
+            } else {
+                values.add(value);
+            }
+        }
+
+        MetricSummary summarize(String metric) {
+            if (accumulator != null) {
+                return accumulator.toSummary(metric);
+            }
+            return strategy.aggregateMetrics(metric, values.array(), values.size());
+        }
+    }
+}
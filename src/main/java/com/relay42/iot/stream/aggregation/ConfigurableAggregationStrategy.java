@@ -0,0 +1,144 @@
+package com.relay42.iot.stream.aggregation;
+
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.model.MetricSummary;
+import com.relay42.iot.stream.repository.MetricStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generic numeric aggregation strategy computing a configured set of aggregates in a single pass.
+ * Supported aggregates are `count`, `min`, `max`, `avg`, `median`, `stddev`, `rate` (change per second between
+ * the earliest and the latest reading) and any percentile `pNN`. Strategies are declared per metric in
+ * application.yml under `aggregation.strategies`; one instance with the default aggregates serves every metric
+ * that has no strategy of its own.
+ */
+public class ConfigurableAggregationStrategy implements AggregationStrategy {
+
+    /**
+     * Aggregates that can be answered from pre-computed range statistics.
+     */
+    private static final Set<String> STATS_AGGREGATES = Set.of("count", "min", "max", "avg", "median");
+
+    private static final Set<String> READING_AGGREGATES = Set.of("stddev", "rate");
+
+    private final List<String> metrics;
+    private final List<String> aggregates;
+    private final boolean requiresReadings;
+
+    /**
+     * Creates a strategy for the given metrics.
+     *
+     * @param metrics the metrics served by this strategy; empty for the default strategy.
+     * @param aggregates the aggregates to compute.
+     * @throws IllegalArgumentException if an aggregate is not supported or none is given.
+     */
+    public ConfigurableAggregationStrategy(List<String> metrics, List<String> aggregates) {
+        this.metrics = List.copyOf(metrics);
+        this.aggregates = parseAggregates(aggregates);
+        this.requiresReadings = !STATS_AGGREGATES.containsAll(this.aggregates);
+    }
+
+    /**
+     * Aggregates a column of metric values. Without timestamps the rate of change is omitted.
+     * The values are already in memory, so percentiles are exact.
+     *
+     * @param metric the name of the metric to aggregate (e.g., heart-rate, fuel-level).
+     * @param values the metric values; only the first `length` entries are aggregated.
+     * @param length the number of values to aggregate.
+     * @return the summary holding the configured aggregates.
+     */
+    @Override
+    public MetricSummary aggregateMetrics(String metric, double[] values, int length) {
+        MetricAccumulator accumulator = newAccumulator(Precision.EXACT);
+        for (int i = 0; i < length; i++) {
+            accumulator.add(values[i]);
+        }
+        return accumulator.toSummary(metric);
+    }
+
+    /**
+     * Aggregates the given readings, including their timestamps for the rate of change.
+     * The readings are already in memory, so percentiles are exact.
+     *
+     * @param metric the name of the metric to aggregate (e.g., heart-rate, fuel-level).
+     * @param data the list of SensorData entities to be aggregated.
+     * @return the summary holding the configured aggregates.
+     */
+    @Override
+    public MetricSummary aggregateMetrics(String metric, List<SensorData> data) {
+        MetricAccumulator accumulator = newAccumulator(Precision.EXACT);
+        if (data != null) {
+            for (SensorData reading : data) {
+                accumulator.add(reading.getDataTimestamp(), reading.getMetricValue());
+            }
+        }
+        return accumulator.toSummary(metric);
+    }
+
+    /**
+     * Builds the summary from pre-computed statistics, keeping only the configured aggregates.
+     * Only used when {@link #requiresReadings()} is false.
+     *
+     * @param metric the name of the metric to aggregate (e.g., heart-rate, fuel-level).
+     * @param stats the aggregate statistics of the range.
+     * @return the summary holding the configured aggregates.
+     */
+    @Override
+    public MetricSummary aggregateMetrics(String metric, MetricStats stats) {
+        MetricSummary full = AggregationStrategy.super.aggregateMetrics(metric, stats);
+        return MetricSummary.builder()
+                .metric(metric)
+                .count(aggregates.contains("count") ? (stats == null || stats.getCount() == null ? 0L : stats.getCount()) : null)
+                .min(aggregates.contains("min") ? full.getMin() : null)
+                .max(aggregates.contains("max") ? full.getMax() : null)
+                .avg(aggregates.contains("avg") ? full.getAvg() : null)
+                .median(aggregates.contains("median") ? full.getMedian() : null)
+                .build();
+    }
+
+    @Override
+    public boolean requiresReadings() {
+        return requiresReadings;
+    }
+
+    @Override
+    public MetricAccumulator newAccumulator(Precision precision) {
+        return new MetricAccumulator(aggregates, precision);
+    }
+
+    @Override
+    public List<String> getSupportedMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the aggregates computed by this strategy.
+     *
+     * @return the normalized aggregate names.
+     */
+    public List<String> getAggregates() {
+        return aggregates;
+    }
+
+    private static List<String> parseAggregates(List<String> aggregates) {
+        List<String> parsed = new ArrayList<>();
+        for (String aggregate : aggregates) {
+            String name = aggregate.trim().toLowerCase();
+            if (name.isEmpty() || parsed.contains(name)) {
+                continue;
+            }
+            if (!STATS_AGGREGATES.contains(name) && !READING_AGGREGATES.contains(name)
+                    && SeriesAggregator.quantileOf(name) == null) {
+                throw new IllegalArgumentException("Unsupported aggregate: " + aggregate.trim());
+            }
+            parsed.add(name);
+        }
+        if (parsed.isEmpty()) {
+            throw new IllegalArgumentException("At least one aggregate is required");
+        }
+        return List.copyOf(parsed);
+    }
+}
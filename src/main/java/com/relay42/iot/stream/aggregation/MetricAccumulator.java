@@ -0,0 +1,131 @@
+package com.relay42.iot.stream.aggregation;
+
+import com.relay42.iot.stream.model.MetricSummary;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single-pass fold of metric readings into a configurable set of aggregates.
+ * Count, min, max, mean and variance (Welford) are running values, percentiles come from a quantile sketch
+ * that is only allocated when a percentile is requested (exact or approximate, see {@link Precision}), and the rate of change is taken between the earliest
+ * and the latest reading, so readings may arrive in any order and memory stays bounded.
+ * Instances are not thread-safe.
+ */
+public class MetricAccumulator {
+
+    private final List<String> aggregates;
+    private final QuantileSketch sketch;
+
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private double mean;
+    private double squaredDeviations;
+    private LocalDateTime firstTimestamp;
+    private double firstValue;
+    private LocalDateTime lastTimestamp;
+    private double lastValue;
+
+    /**
+     * Creates an empty accumulator.
+     *
+     * @param aggregates the aggregates to report, as validated by {@link ConfigurableAggregationStrategy}.
+     * @param precision whether percentiles are exact or come from a bounded-memory sketch.
+     */
+    public MetricAccumulator(List<String> aggregates, Precision precision) {
+        this.aggregates = aggregates;
+        this.sketch = aggregates.stream().anyMatch(aggregate -> SeriesAggregator.quantileOf(aggregate) != null)
+                ? precision.newSketch()
+                : null;
+    }
+
+    /**
+     * Adds a reading without a timestamp; it does not contribute to the rate of change.
+     *
+     * @param value the metric value.
+     */
+    public void add(double value) {
+        add(null, value);
+    }
+
+    /**
+     * Adds a reading.
+     *
+     * @param timestamp the time of the reading, or null if unknown.
+     * @param value the metric value.
+     */
+    public void add(LocalDateTime timestamp, double value) {
+        if (sketch != null) {
+            sketch.add(value);
+        }
+        count++;
+        if (value < min) min = value;
+        if (value > max) max = value;
+        double delta = value - mean;
+        mean += delta / count;
+        squaredDeviations += delta * (value - mean);
+        if (timestamp != null) {
+            if (firstTimestamp == null || timestamp.isBefore(firstTimestamp)) {
+                firstTimestamp = timestamp;
+                firstValue = value;
+            }
+            if (lastTimestamp == null || !timestamp.isBefore(lastTimestamp)) {
+                lastTimestamp = timestamp;
+                lastValue = value;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of readings added.
+     *
+     * @return the reading count.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Builds a MetricSummary holding the configured aggregates.
+     * Without readings, min, max, average and median are 0 as in the other strategies and the rest is omitted.
+     *
+     * @param metric the metric name to put in the summary.
+     * @return the summary.
+     */
+    public MetricSummary toSummary(String metric) {
+        MetricSummary.MetricSummaryBuilder summary = MetricSummary.builder().metric(metric);
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        for (String aggregate : aggregates) {
+            switch (aggregate) {
+                case "count" -> summary.count(count);
+                case "min" -> summary.min(count == 0 ? 0.0 : min);
+                case "max" -> summary.max(count == 0 ? 0.0 : max);
+                case "avg" -> summary.avg(count == 0 ? 0.0 : mean);
+                case "median" -> summary.median(count == 0 ? 0.0 : sketch.median());
+                case "stddev" -> summary.stddev(count == 0 ? null : Math.sqrt(squaredDeviations / count));
+                case "rate" -> summary.rateOfChange(rateOfChange());
+                default -> {
+                    if (count > 0) {
+                        percentiles.put(aggregate, sketch.quantile(SeriesAggregator.quantileOf(aggregate)));
+                    }
+                }
+            }
+        }
+        return summary.percentiles(percentiles.isEmpty() ? null : percentiles).build();
+    }
+
+    /**
+     * Returns the change per second between the earliest and the latest reading, or null if they coincide.
+     */
+    private Double rateOfChange() {
+        if (firstTimestamp == null || !lastTimestamp.isAfter(firstTimestamp)) {
+            return null;
+        }
+        double seconds = Duration.between(firstTimestamp, lastTimestamp).toNanos() / 1e9;
+        return (lastValue - firstValue) / seconds;
+    }
+}
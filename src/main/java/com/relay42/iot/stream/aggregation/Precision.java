@@ -0,0 +1,45 @@
+package com.relay42.iot.stream.aggregation;
+
+import com.relay42.iot.stream.exception.BusinessException;
+
+/**
+ * Precision requested for medians and percentiles by the statistics endpoints.
+ * - `APPROX`: Answered from mergeable quantile sketches (rollup buckets, running aggregates), exact up to
+ *   {@link QuantileSketch#DEFAULT_EXACT_CAPACITY} readings and within {@link QuantileSketch#DEFAULT_RELATIVE_ACCURACY}
+ *   of the true value beyond. Memory and cost do not grow with the number of readings.
+ * - `EXACT`: Computed from every reading of the range, by the database or by selection in the JVM.
+ */
+public enum Precision {
+    EXACT, APPROX;
+
+    /**
+     * Parses the `precision` request parameter.
+     *
+     * @param precision the parameter value, case-insensitive; null or blank selects APPROX.
+     * @return the precision.
+     * @throws BusinessException if the value is neither `exact` nor `approx`.
+     */
+    public static Precision parse(String precision) {
+        if (precision == null || precision.isBlank()) {
+            return APPROX;
+        }
+        for (Precision candidate : values()) {
+            if (candidate.name().equalsIgnoreCase(precision.trim())) {
+                return candidate;
+            }
+        }
+        throw new BusinessException("Unsupported precision: " + precision.trim() + " (expected exact or approx)");
+    }
+
+    /**
+     * Creates a quantile sketch matching this precision.
+     * The exact variant never switches to buckets, so it keeps every value.
+     *
+     * @return a new, empty sketch.
+     */
+    public QuantileSketch newSketch() {
+        return this == EXACT
+                ? new QuantileSketch(QuantileSketch.DEFAULT_RELATIVE_ACCURACY, Integer.MAX_VALUE)
+                : new QuantileSketch();
+    }
+}
@@ -0,0 +1,457 @@
+package com.relay42.iot.stream.aggregation;
+
+import com.relay42.iot.stream.util.MedianCalculator;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Mergeable quantile sketch for metric values.
+ * Small series are kept exactly, so their quantiles match a sort-based computation.
+ * Once more than `exactCapacity` values are added, the sketch switches to logarithmic buckets
+ * (as in DDSketch) whose quantile estimates stay within `relativeAccuracy` of the true value
+ * while memory grows only with the logarithm of the value range.
+ * Sketches with the same relative accuracy can be merged, so per-device or per-bucket sketches
+ * can be combined without access to the raw values, and serialized with {@link #toBytes()} so that
+ * they can be stored per bucket and merged later.
+ * Instances are not thread-safe.
+ */
+public class QuantileSketch {
+
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+    public static final int DEFAULT_EXACT_CAPACITY = 128;
+
+    /**
+     * Values with a smaller magnitude than this are counted as zero.
+     */
+    private static final double MIN_INDEXABLE_VALUE = 1e-9;
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final byte MODE_EXACT = 0;
+    private static final byte MODE_BUCKETS = 1;
+
+    private final double relativeAccuracy;
+    private final int exactCapacity;
+    private final double gamma;
+    private final double logGamma;
+
+    private double[] exactValues;
+    private int exactCount;
+
+    private BucketStore positive;
+    private BucketStore negative;
+    private long zeroCount;
+    private long count;
+
+    public QuantileSketch() {
+        this(DEFAULT_RELATIVE_ACCURACY, DEFAULT_EXACT_CAPACITY);
+    }
+
+    public QuantileSketch(double relativeAccuracy, int exactCapacity) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("relativeAccuracy must be between 0 and 1");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.exactCapacity = Math.max(0, exactCapacity);
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = logGamma(relativeAccuracy);
+        this.exactValues = new double[Math.min(16, this.exactCapacity)];
+    }
+
+    /**
+     * Adds a value to the sketch.
+     *
+     * @param value the metric value to add.
+     * @throws IllegalArgumentException if the value is NaN or infinite, which has no bucket.
+     */
+    public void add(double value) {
+        if (!Double.isFinite(value)) {
+            throw new IllegalArgumentException("value must be finite: " + value);
+        }
+        count++;
+        if (exactValues != null) {
+            if (exactCount < exactCapacity) {
+                if (exactCount == exactValues.length) {
+                    exactValues = Arrays.copyOf(exactValues, Math.min(exactCapacity, exactValues.length * 2));
+                }
+                exactValues[exactCount++] = value;
+                return;
+            }
+            switchToBuckets();
+        }
+        addToBuckets(value, 1);
+    }
+
+    /**
+     * Merges another sketch into this one. The other sketch is left unchanged.
+     *
+     * @param other the sketch to merge; must use the same relative accuracy.
+     */
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches with different relative accuracy");
+        }
+        if (other.exactValues != null) {
+            for (int i = 0; i < other.exactCount; i++) {
+                add(other.exactValues[i]);
+            }
+            return;
+        }
+
+        if (exactValues != null) {
+            switchToBuckets();
+        }
+        positive.mergeFrom(other.positive);
+        negative.mergeFrom(other.negative);
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    /**
+     * Estimates the value at the given quantile.
+     * In exact mode the value is interpolated between the two closest ranks, like a sort-based median, which are
+     * found by selection on a copy of the values rather than by sorting them.
+     *
+     * @param quantile the quantile to estimate, between 0 and 1.
+     * @return the estimated value, or 0 if the sketch is empty.
+     */
+    public double quantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("quantile must be between 0 and 1");
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        if (exactValues != null) {
+            double[] scratch = Arrays.copyOf(exactValues, exactCount);
+            double rank = quantile * (exactCount - 1);
+            int lower = (int) Math.floor(rank);
+            int upper = (int) Math.ceil(rank);
+            double upperValue = MedianCalculator.selectInPlace(scratch, exactCount, upper);
+            if (lower == upper) {
+                return upperValue;
+            }
+            // After selection every value left of the upper rank is <= upperValue, so the lower one is their maximum.
+            double lowerValue = scratch[0];
+            for (int i = 1; i < upper; i++) {
+                if (scratch[i] > lowerValue) {
+                    lowerValue = scratch[i];
+                }
+            }
+            return lowerValue + (upperValue - lowerValue) * (rank - lower);
+        }
+
+        long rank = (long) (quantile * (count - 1));
+        long seen = 0;
+        for (int i = negative.maxIndex(); i >= negative.minIndex(); i--) {
+            seen += negative.get(i);
+            if (seen > rank) {
+                return -valueOf(i);
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) {
+            return 0;
+        }
+        for (int i = positive.minIndex(); i <= positive.maxIndex(); i++) {
+            seen += positive.get(i);
+            if (seen > rank) {
+                return valueOf(i);
+            }
+        }
+        return valueOf(positive.maxIndex());
+    }
+
+    /**
+     * Estimates the median value.
+     *
+     * @return the estimated median, or 0 if the sketch is empty.
+     */
+    public double median() {
+        return quantile(0.5);
+    }
+
+    /**
+     * Returns the number of values added to the sketch.
+     *
+     * @return the value count.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Indicates whether the sketch still holds every value exactly.
+     *
+     * @return true if quantiles are exact.
+     */
+    public boolean isExact() {
+        return exactValues != null;
+    }
+
+    /**
+     * Returns the relative accuracy guaranteed once the sketch switches to buckets.
+     *
+     * @return the relative accuracy.
+     */
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * Creates an independent copy of this sketch.
+     *
+     * @return the copy.
+     */
+    public QuantileSketch copy() {
+        QuantileSketch copy = new QuantileSketch(relativeAccuracy, exactCapacity);
+        copy.merge(this);
+        return copy;
+    }
+
+    /**
+     * Serializes the sketch into a compact binary form.
+     * Exact sketches store their values; bucketed sketches store only the non-empty range of bucket counts,
+     * so the size grows with the logarithm of the value range rather than with the number of values.
+     *
+     * @return the serialized sketch, readable by {@link #fromBytes(byte[])}.
+     */
+    public byte[] toBytes() {
+        int size = 1 + 8 + 4 + 8 + 1 + (exactValues != null
+                ? 4 + exactCount * 8
+                : 8 + positive.serializedSize() + negative.serializedSize());
+        ByteBuffer buffer = ByteBuffer.allocate(size)
+                .put(FORMAT_VERSION)
+                .putDouble(relativeAccuracy)
+                .putInt(exactCapacity)
+                .putLong(count);
+        if (exactValues != null) {
+            buffer.put(MODE_EXACT).putInt(exactCount);
+            for (int i = 0; i < exactCount; i++) {
+                buffer.putDouble(exactValues[i]);
+            }
+        } else {
+            buffer.put(MODE_BUCKETS).putLong(zeroCount);
+            positive.writeTo(buffer);
+            negative.writeTo(buffer);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Restores a sketch serialized with {@link #toBytes()}.
+     *
+     * @param bytes the serialized sketch.
+     * @return the restored sketch.
+     * @throws IllegalArgumentException if the bytes are not a serialized sketch.
+     */
+    public static QuantileSketch fromBytes(byte[] bytes) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            if (buffer.get() != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported sketch format version");
+            }
+            QuantileSketch sketch = new QuantileSketch(buffer.getDouble(), buffer.getInt());
+            sketch.count = buffer.getLong();
+            byte mode = buffer.get();
+            if (mode == MODE_EXACT) {
+                int exactCount = buffer.getInt();
+                if (exactCount < 0 || exactCount > sketch.exactCapacity || exactCount > buffer.remaining() / 8) {
+                    throw new IllegalArgumentException("Invalid exact value count: " + exactCount);
+                }
+                sketch.exactValues = new double[Math.max(exactCount, sketch.exactValues.length)];
+                for (int i = 0; i < exactCount; i++) {
+                    sketch.exactValues[i] = buffer.getDouble();
+                }
+                sketch.exactCount = exactCount;
+            } else if (mode == MODE_BUCKETS) {
+                sketch.exactValues = null;
+                sketch.zeroCount = buffer.getLong();
+                sketch.positive = BucketStore.readFrom(buffer);
+                sketch.negative = BucketStore.readFrom(buffer);
+            } else {
+                throw new IllegalArgumentException("Invalid sketch mode: " + mode);
+            }
+            if (buffer.hasRemaining()) {
+                throw new IllegalArgumentException("Trailing bytes after sketch");
+            }
+            return sketch;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated sketch", e);
+        }
+    }
+
+    /**
+     * Adds values already counted per bucket index, e.g. by a {@link RollupBucket}, switching to buckets first.
+     * The indexes must come from {@link #bucketIndex(double, double)} with this sketch's relative accuracy.
+     *
+     * @param offset the bucket index of the first count.
+     * @param counts the number of values per bucket index.
+     * @param negative whether the counts are of negative values, indexed by magnitude.
+     */
+    void addBucketCounts(int offset, int[] counts, boolean negative) {
+        if (exactValues != null) {
+            switchToBuckets();
+        }
+        BucketStore store = negative ? this.negative : positive;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                store.add(offset + i, counts[i]);
+                count += counts[i];
+            }
+        }
+    }
+
+    /**
+     * Adds values counted as zero, see {@link #isZero(double)}, switching to buckets first.
+     *
+     * @param zeros the number of values.
+     */
+    void addZeroCount(long zeros) {
+        if (zeros == 0) {
+            return;
+        }
+        if (exactValues != null) {
+            switchToBuckets();
+        }
+        zeroCount += zeros;
+        count += zeros;
+    }
+
+    /**
+     * Tells whether a value is too close to zero to be indexed and is counted as zero instead.
+     *
+     * @param value the value.
+     * @return true if the value falls in the zero bucket.
+     */
+    static boolean isZero(double value) {
+        return value <= MIN_INDEXABLE_VALUE && value >= -MIN_INDEXABLE_VALUE;
+    }
+
+    /**
+     * Returns the logarithm of the bucket growth factor for a relative accuracy.
+     *
+     * @param relativeAccuracy the relative accuracy, between 0 and 1.
+     * @return the value to pass to {@link #bucketIndex(double, double)}.
+     */
+    static double logGamma(double relativeAccuracy) {
+        return Math.log((1 + relativeAccuracy) / (1 - relativeAccuracy));
+    }
+
+    /**
+     * Returns the bucket index of a magnitude, the same one a sketch in bucket mode would use.
+     *
+     * @param magnitude the absolute value, larger than the zero threshold.
+     * @param logGamma the result of {@link #logGamma(double)}.
+     * @return the bucket index.
+     */
+    static int bucketIndex(double magnitude, double logGamma) {
+        return (int) Math.ceil(Math.log(magnitude) / logGamma);
+    }
+
+    private void switchToBuckets() {
+        positive = new BucketStore();
+        negative = new BucketStore();
+        for (int i = 0; i < exactCount; i++) {
+            addToBuckets(exactValues[i], 1);
+        }
+        exactValues = null;
+        exactCount = 0;
+    }
+
+    private void addToBuckets(double value, long weight) {
+        if (value > MIN_INDEXABLE_VALUE) {
+            positive.add(indexOf(value), weight);
+        } else if (value < -MIN_INDEXABLE_VALUE) {
+            negative.add(indexOf(-value), weight);
+        } else {
+            zeroCount += weight;
+        }
+    }
+
+    private int indexOf(double value) {
+        return bucketIndex(value, logGamma);
+    }
+
+    private double valueOf(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    /**
+     * Contiguous array of bucket counts that grows in either direction as new indexes appear.
+     */
+    private static final class BucketStore {
+
+        private long[] counts = new long[0];
+        private int offset;
+
+        void add(int index, long weight) {
+            ensureCapacity(index);
+            counts[index - offset] += weight;
+        }
+
+        long get(int index) {
+            int position = index - offset;
+            return position >= 0 && position < counts.length ? counts[position] : 0;
+        }
+
+        int minIndex() {
+            return offset;
+        }
+
+        int maxIndex() {
+            return offset + counts.length - 1;
+        }
+
+        void mergeFrom(BucketStore other) {
+            for (int i = 0; i < other.counts.length; i++) {
+                if (other.counts[i] != 0) {
+                    add(other.offset + i, other.counts[i]);
+                }
+            }
+        }
+
+        int serializedSize() {
+            return 8 + counts.length * 8;
+        }
+
+        void writeTo(ByteBuffer buffer) {
+            buffer.putInt(offset).putInt(counts.length);
+            for (long bucketCount : counts) {
+                buffer.putLong(bucketCount);
+            }
+        }
+
+        static BucketStore readFrom(ByteBuffer buffer) {
+            BucketStore store = new BucketStore();
+            store.offset = buffer.getInt();
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining() / 8) {
+                throw new IllegalArgumentException("Invalid bucket count: " + length);
+            }
+            store.counts = new long[length];
+            for (int i = 0; i < length; i++) {
+                store.counts[i] = buffer.getLong();
+            }
+            return store;
+        }
+
+        private void ensureCapacity(int index) {
+            if (counts.length == 0) {
+                counts = new long[1];
+                offset = index;
+                return;
+            }
+            if (index < offset) {
+                long[] grown = new long[counts.length + (offset - index)];
+                System.arraycopy(counts, 0, grown, offset - index, counts.length);
+                counts = grown;
+                offset = index;
+            } else if (index > maxIndex()) {
+                counts = Arrays.copyOf(counts, index - offset + 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.relay42.iot.stream.aggregation;
+
+import java.util.Arrays;
+
+/**
+ * Compact rollup bucket: count, sum, min, max and the bucket counts of a quantile sketch with the default relative
+ * accuracy, indexed exactly like {@link QuantileSketch} in bucket mode so it merges into one without loss.
+ * Unlike a {@link RunningAggregate} it keeps no exact values and no lock of its own, so it takes 64 bytes plus
+ * an int per 1% band of values it has seen, about 100 bytes for a minute of a steady sensor.
+ * Instances are not thread-safe; {@link RollupSeries} guards them with the lock of their series.
+ */
+final class RollupBucket {
+
+    private static final double LOG_GAMMA = QuantileSketch.logGamma(QuantileSketch.DEFAULT_RELATIVE_ACCURACY);
+    private static final int[] EMPTY = new int[0];
+
+    private long count;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private int zeroCount;
+    private int positiveOffset;
+    private int[] positive = EMPTY;
+    private int negativeOffset;
+    private int[] negative = EMPTY;
+
+    /**
+     * Adds a finite metric value to the bucket.
+     *
+     * @param value the metric value.
+     */
+    void add(double value) {
+        count++;
+        sum += value;
+        if (value < min) min = value;
+        if (value > max) max = value;
+        if (QuantileSketch.isZero(value)) {
+            zeroCount++;
+        } else if (value > 0) {
+            int index = QuantileSketch.bucketIndex(value, LOG_GAMMA);
+            if (positive.length == 0) {
+                positiveOffset = index;
+            }
+            positive = grow(positive, positiveOffset, index);
+            positiveOffset = Math.min(positiveOffset, index);
+            positive[index - positiveOffset]++;
+        } else {
+            int index = QuantileSketch.bucketIndex(-value, LOG_GAMMA);
+            if (negative.length == 0) {
+                negativeOffset = index;
+            }
+            negative = grow(negative, negativeOffset, index);
+            negativeOffset = Math.min(negativeOffset, index);
+            negative[index - negativeOffset]++;
+        }
+    }
+
+    long count() {
+        return count;
+    }
+
+    double sum() {
+        return sum;
+    }
+
+    double min() {
+        return min;
+    }
+
+    double max() {
+        return max;
+    }
+
+    /**
+     * Adds the bucket counts to a sketch with the default relative accuracy.
+     *
+     * @param sketch the sketch to add to.
+     */
+    void addTo(QuantileSketch sketch) {
+        if (positive.length > 0) {
+            sketch.addBucketCounts(positiveOffset, positive, false);
+        }
+        if (negative.length > 0) {
+            sketch.addBucketCounts(negativeOffset, negative, true);
+        }
+        sketch.addZeroCount(zeroCount);
+    }
+
+    /**
+     * Returns the array holding the count of the index, grown in either direction as needed.
+     * An empty array must be given the index as offset; the caller moves the offset down to the index when the
+     * array grew at the low end.
+     */
+    private static int[] grow(int[] counts, int offset, int index) {
+        if (counts.length == 0) {
+            return new int[1];
+        }
+        if (index < offset) {
+            int[] grown = new int[counts.length + (offset - index)];
+            System.arraycopy(counts, 0, grown, offset - index, counts.length);
+            return grown;
+        }
+        if (index >= offset + counts.length) {
+            return Arrays.copyOf(counts, index - offset + 1);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,173 @@
+package com.relay42.iot.stream.aggregation;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The rollup buckets of one (deviceId, metric) series, one time-ordered array per {@link RollupTier}.
+ * Bucket starts are kept as epoch seconds in a primitive array next to the buckets, so a bucket costs no map entry
+ * or boxed key, and a single lock guards every tier of the series instead of one lock per bucket.
+ * Readings arrive roughly in time order, so a new bucket is nearly always appended at the end.
+ * The lock is a ReentrantLock rather than a monitor so that a virtual thread waiting for it does not pin its carrier.
+ */
+final class RollupSeries {
+
+    private static final RollupTier[] TIERS = RollupTier.values();
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long[][] starts = new long[TIERS.length][];
+    private final RollupBucket[][] buckets = new RollupBucket[TIERS.length][];
+    private final int[] sizes = new int[TIERS.length];
+    private boolean retired;
+
+    /**
+     * Adds a value to its bucket in every tier that still retains the bucket.
+     *
+     * @param timestamp the time of the reading.
+     * @param value the finite metric value.
+     * @param retainedFrom per tier, the epoch second of the first retained bucket, or Long.MIN_VALUE to keep all.
+     * @return false if the series has been retired by {@link #retireIfEmpty()} and the value was not added.
+     */
+    boolean add(LocalDateTime timestamp, double value, long[] retainedFrom) {
+        lock.lock();
+        try {
+            if (retired) {
+                return false;
+            }
+            for (RollupTier tier : TIERS) {
+                long bucketStart = epochSecond(tier.floor(timestamp));
+                if (bucketStart >= retainedFrom[tier.ordinal()]) {
+                    bucketAt(tier.ordinal(), bucketStart).add(value);
+                }
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Merges the buckets of a tier starting in [from, until) into the result.
+     *
+     * @param tier the tier to read.
+     * @param from the first bucket start to include.
+     * @param until the bucket start to stop before.
+     * @param result the aggregate to merge into.
+     */
+    void mergeInto(RollupTier tier, LocalDateTime from, LocalDateTime until, RunningAggregate result) {
+        int t = tier.ordinal();
+        long untilSecond = epochSecond(until);
+        lock.lock();
+        try {
+            for (int i = lowerBound(t, epochSecond(from)); i < sizes[t] && starts[t][i] < untilSecond; i++) {
+                result.merge(buckets[t][i]);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the buckets of a tier starting before the cutoff.
+     *
+     * @param tier the tier to evict from.
+     * @param cutoff the first bucket start to keep.
+     */
+    void evictBefore(RollupTier tier, LocalDateTime cutoff) {
+        int t = tier.ordinal();
+        lock.lock();
+        try {
+            int evicted = lowerBound(t, epochSecond(cutoff));
+            if (evicted == 0) {
+                return;
+            }
+            int remaining = sizes[t] - evicted;
+            System.arraycopy(starts[t], evicted, starts[t], 0, remaining);
+            System.arraycopy(buckets[t], evicted, buckets[t], 0, remaining);
+            Arrays.fill(buckets[t], remaining, sizes[t], null);
+            sizes[t] = remaining;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks the series as retired if it holds no bucket, so that a writer still holding it re-registers the series
+     * instead of adding to one that has been removed from the store.
+     *
+     * @return true if the series was empty and is now retired.
+     */
+    boolean retireIfEmpty() {
+        lock.lock();
+        try {
+            for (int size : sizes) {
+                if (size > 0) {
+                    return false;
+                }
+            }
+            retired = true;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Converts a bucket start to the epoch second used as its key; bucket starts carry no zone.
+     *
+     * @param bucketStart the bucket start.
+     * @return the epoch second.
+     */
+    static long epochSecond(LocalDateTime bucketStart) {
+        return bucketStart.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Returns the bucket of a tier starting at the given second, inserting an empty one in time order if needed.
+     */
+    private RollupBucket bucketAt(int t, long bucketStart) {
+        int size = sizes[t];
+        if (size > 0 && starts[t][size - 1] == bucketStart) {
+            return buckets[t][size - 1];
+        }
+        int index = size > 0 && starts[t][size - 1] < bucketStart ? size : lowerBound(t, bucketStart);
+        if (index < size && starts[t][index] == bucketStart) {
+            return buckets[t][index];
+        }
+        if (starts[t] == null) {
+            starts[t] = new long[INITIAL_CAPACITY];
+            buckets[t] = new RollupBucket[INITIAL_CAPACITY];
+        } else if (size == starts[t].length) {
+            int capacity = size + (size >> 1);
+            starts[t] = Arrays.copyOf(starts[t], capacity);
+            buckets[t] = Arrays.copyOf(buckets[t], capacity);
+        }
+        System.arraycopy(starts[t], index, starts[t], index + 1, size - index);
+        System.arraycopy(buckets[t], index, buckets[t], index + 1, size - index);
+        RollupBucket bucket = new RollupBucket();
+        starts[t][index] = bucketStart;
+        buckets[t][index] = bucket;
+        sizes[t] = size + 1;
+        return bucket;
+    }
+
+    /**
+     * Returns the index of the first bucket of a tier starting at or after the given second.
+     */
+    private int lowerBound(int t, long second) {
+        int low = 0;
+        int high = sizes[t];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[t][mid] < second) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,294 @@
+package com.relay42.iot.stream.aggregation;
+
+import com.relay42.iot.stream.config.AggregationConfig;
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.repository.MetricStats;
+import com.relay42.iot.stream.repository.SensorDataBatchRepository;
+import com.relay42.iot.stream.repository.SensorDataPartitionRepository;
+import com.relay42.iot.stream.util.DoubleList;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * In-memory rollup tiers keyed by (deviceId, metric).
+ * Every saved reading is added to its per-minute, per-hour and per-day bucket, each holding count, sum, min, max
+ * and the logarithmic buckets of a quantile sketch (see {@link RollupBucket}). A range is answered by merging the
+ * coarsest buckets that fit inside it and reading raw rows only for the partial edges, so the cost depends on the
+ * number of buckets, not the number of readings.
+ * At most `aggregation.rollup.max-series` series are kept. Once a series has been turned away, no new series is
+ * admitted until the next rebuild, so every kept series has seen all of its readings, and the ranges of series
+ * without rollups are read from the database.
+ * The tiers are rebuilt from the database on startup by {@link AggregateRebuilder} and expired buckets are evicted
+ * on a fixed schedule; series left without buckets are removed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RollupStore {
+
+    private static final RollupTier[] TIERS = RollupTier.values();
+
+    /**
+     * Expired buckets are kept this much longer than their retention, so a query that has just checked
+     * the retention boundary never finds its buckets evicted underneath it.
+     */
+    private static final Duration EVICTION_GRACE = Duration.ofHours(1);
+
+    private final SensorDataBatchRepository batchRepository;
+    private final SensorDataPartitionRepository partitionRepository;
+    private final AggregationConfig config;
+
+    private volatile Rollups rollups = new Rollups();
+
+    /**
+     * Indicates whether range statistics are answered from the rollup tiers.
+     *
+     * @return true if rollups are enabled.
+     */
+    public boolean isEnabled() {
+        return config.getRollup().isEnabled();
+    }
+
+    /**
+     * Adds the metric values of the given readings to their rollup buckets.
+     *
+     * @param dataList the readings that have been persisted.
+     */
+    public void record(Collection<SensorData> dataList) {
+        if (!isEnabled()) {
+            return;
+        }
+        long[] retainedFrom = retainedFrom(LocalDateTime.now());
+        Rollups target = rollups;
+        for (SensorData data : dataList) {
+            record(target, data.getDeviceId(), data.getMetric(), data.getDataTimestamp(), data.getMetricValue(), retainedFrom);
+        }
+    }
+
+    /**
+     * Computes count, min, max, average and median for a device and metric within a time range.
+     * Whole days, hours and minutes inside the range are served from their buckets; the sub-minute edges,
+     * and any part older than the retention of the tiers that would cover it, are read through the raw reader.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @param rawReader reads the raw metric values of the series between two inclusive timestamps.
+     * @return the aggregate statistics of the range.
+     */
+    public MetricStats getStatsInRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to,
+                                       BiFunction<LocalDateTime, LocalDateTime, DoubleList> rawReader) {
+        RunningAggregate result = new RunningAggregate();
+        if (!to.isBefore(from)) {
+            Rollups current = rollups;
+            RollupSeries series = current.series.get(new SeriesKey(deviceId, metric));
+            // A series turned away by the cap has no buckets, so the whole range is read from the database.
+            int firstTier = series == null && current.full ? TIERS.length : 0;
+            cover(series, from, to.plusNanos(1), firstTier, LocalDateTime.now(), rawReader, result);
+        }
+        return result.toStats();
+    }
+
+    /**
+     * Rebuilds every rollup tier from the rows currently stored in the database.
+     * The new buckets replace the current ones only once the scan has completed.
+     */
+    public void rebuild() {
+        if (!isEnabled()) {
+            return;
+        }
+        AggregateRebuild rebuild = startRebuild();
+        if (partitionRepository.isEnabled()) {
+            partitionRepository.scanValues(rebuild);
+        } else {
+            batchRepository.scanValues(rebuild);
+        }
+        rebuild.complete();
+    }
+
+    /**
+     * Starts a rebuild fed by a scan of the database, e.g. one shared with other stores.
+     * The rebuilt state replaces the current one only once the rebuild completes.
+     *
+     * @return the rebuild receiving every stored reading.
+     */
+    public AggregateRebuild startRebuild() {
+        long start = System.currentTimeMillis();
+        long[] retainedFrom = retainedFrom(LocalDateTime.now());
+        Rollups rebuilt = new Rollups();
+        return new AggregateRebuild() {
+            @Override
+            public void accept(String deviceId, String metric, LocalDateTime timestamp, double value) {
+                if (!Double.isFinite(value)) {
+                    return;
+                }
+                record(rebuilt, deviceId, metric, timestamp, value, retainedFrom);
+            }
+
+            @Override
+            public void complete() {
+                rollups = rebuilt;
+                log.info("Rebuilt {} rollup series in {} ms", rebuilt.series.size(), System.currentTimeMillis() - start);
+            }
+        };
+    }
+
+    /**
+     * Removes the buckets that fall outside the retention of their tier, and the series left without buckets.
+     */
+    @Scheduled(fixedRateString = "#{@aggregationConfig.rollup.evictionIntervalMs}")
+    public void evictExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<SeriesKey, RollupSeries> current = rollups.series;
+        for (Map.Entry<SeriesKey, RollupSeries> entry : current.entrySet()) {
+            for (RollupTier tier : TIERS) {
+                LocalDateTime retainedFrom = retainedFrom(tier, now);
+                if (retainedFrom != null) {
+                    entry.getValue().evictBefore(tier, retainedFrom.minus(EVICTION_GRACE));
+                }
+            }
+            current.computeIfPresent(entry.getKey(), (key, series) -> series.retireIfEmpty() ? null : series);
+        }
+    }
+
+    /**
+     * Returns the number of series currently holding rollups.
+     *
+     * @return the series count.
+     */
+    public int seriesCount() {
+        return rollups.series.size();
+    }
+
+    private void record(Rollups target, String deviceId, String metric, LocalDateTime timestamp, double value,
+                        long[] retainedFrom) {
+        SeriesKey key = new SeriesKey(deviceId, metric);
+        while (true) {
+            RollupSeries series = target.series.get(key);
+            if (series == null) {
+                series = admit(target, key);
+                if (series == null) {
+                    return;
+                }
+            }
+            if (series.add(timestamp, value, retainedFrom)) {
+                return;
+            }
+            // The series was retired and removed by eviction after it was looked up; register it again.
+        }
+    }
+
+    /**
+     * Registers a new series unless the cap has been reached. The decision is taken inside the map's per-key
+     * update, so a series once turned away is never admitted later with readings missing.
+     */
+    private RollupSeries admit(Rollups target, SeriesKey key) {
+        int maxSeries = config.getRollup().getMaxSeries();
+        return target.series.computeIfAbsent(key, newKey -> {
+            if (target.full || target.series.size() >= maxSeries) {
+                if (!target.full) {
+                    target.full = true;
+                    log.warn("Rollup series cap of {} reached; ranges of further series are read from the database"
+                            + " until the next rebuild", maxSeries);
+                }
+                return null;
+            }
+            return new RollupSeries();
+        });
+    }
+
+    /**
+     * Adds the half-open range [from, until) to the result, using the tier at the given index for the
+     * whole buckets inside the range and the finer tiers, then raw readings, for the rest.
+     */
+    private void cover(RollupSeries series, LocalDateTime from, LocalDateTime until, int tierIndex,
+                       LocalDateTime now, BiFunction<LocalDateTime, LocalDateTime, DoubleList> rawReader,
+                       RunningAggregate result) {
+        if (!from.isBefore(until)) {
+            return;
+        }
+        if (tierIndex == TIERS.length) {
+            DoubleList values = rawReader.apply(from, until.minusNanos(1));
+            double[] array = values.array();
+            for (int i = 0; i < values.size(); i++) {
+                result.add(array[i]);
+            }
+            return;
+        }
+
+        RollupTier tier = TIERS[tierIndex];
+        LocalDateTime firstBucket = tier.ceil(from);
+        LocalDateTime retainedFrom = retainedFrom(tier, now);
+        if (retainedFrom != null && firstBucket.isBefore(retainedFrom)) {
+            firstBucket = tier.ceil(retainedFrom);
+        }
+        LocalDateTime lastBucketEnd = tier.floor(until);
+
+        if (!firstBucket.isBefore(lastBucketEnd)) {
+            cover(series, from, until, tierIndex + 1, now, rawReader, result);
+            return;
+        }
+
+        if (series != null) {
+            series.mergeInto(tier, firstBucket, lastBucketEnd, result);
+        }
+        cover(series, from, firstBucket, tierIndex + 1, now, rawReader, result);
+        cover(series, lastBucketEnd, until, tierIndex + 1, now, rawReader, result);
+    }
+
+    /**
+     * Returns, per tier, the epoch second of the first retained bucket, or Long.MIN_VALUE if the tier keeps every bucket.
+     */
+    private long[] retainedFrom(LocalDateTime now) {
+        long[] retainedFrom = new long[TIERS.length];
+        for (RollupTier tier : TIERS) {
+            LocalDateTime start = retainedFrom(tier, now);
+            retainedFrom[tier.ordinal()] = start == null ? Long.MIN_VALUE : RollupSeries.epochSecond(start);
+        }
+        return retainedFrom;
+    }
+
+    /**
+     * Returns the start of the first bucket a tier still retains, or null if the tier keeps every bucket.
+     */
+    private LocalDateTime retainedFrom(RollupTier tier, LocalDateTime now) {
+        Duration retention = switch (tier) {
+            case DAY -> config.getRollup().getDayRetention();
+            case HOUR -> config.getRollup().getHourRetention();
+            case MINUTE -> config.getRollup().getMinuteRetention();
+        };
+        if (retention.isZero() || retention.isNegative()) {
+            return null;
+        }
+        return tier.ceil(now.minus(retention));
+    }
+
+    /**
+     * Key identifying a series of readings.
+     */
+    private record SeriesKey(String deviceId, String metric) {
+    }
+
+    /**
+     * The series of one generation of rollups; a rebuild replaces the whole generation.
+     */
+    private static final class Rollups {
+
+        private final Map<SeriesKey, RollupSeries> series = new ConcurrentHashMap<>();
+
+        /**
+         * Set once a series has been turned away by the cap; from then on no series is admitted.
+         */
+        private volatile boolean full;
+    }
+}
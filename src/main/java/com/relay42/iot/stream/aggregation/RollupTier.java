@@ -0,0 +1,51 @@
+package com.relay42.iot.stream.aggregation;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Time granularity of a rollup bucket, ordered from coarsest to finest.
+ */
+public enum RollupTier {
+
+    DAY(ChronoUnit.DAYS),
+    HOUR(ChronoUnit.HOURS),
+    MINUTE(ChronoUnit.MINUTES);
+
+    private final ChronoUnit unit;
+
+    RollupTier(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * Returns the start of the bucket containing the given time.
+     *
+     * @param time the time to align.
+     * @return the bucket start.
+     */
+    public LocalDateTime floor(LocalDateTime time) {
+        return unit == ChronoUnit.DAYS ? time.toLocalDate().atStartOfDay() : time.truncatedTo(unit);
+    }
+
+    /**
+     * Returns the first bucket start at or after the given time.
+     *
+     * @param time the time to align.
+     * @return the bucket start.
+     */
+    public LocalDateTime ceil(LocalDateTime time) {
+        LocalDateTime floor = floor(time);
+        return floor.equals(time) ? floor : next(floor);
+    }
+
+    /**
+     * Returns the start of the bucket following the one starting at the given time.
+     *
+     * @param bucketStart the start of a bucket.
+     * @return the start of the next bucket.
+     */
+    public LocalDateTime next(LocalDateTime bucketStart) {
+        return bucketStart.plus(1, unit);
+    }
+}
@@ -0,0 +1,176 @@
+package com.relay42.iot.stream.aggregation;
+
+import com.relay42.iot.stream.model.MetricSummary;
+import com.relay42.iot.stream.repository.MetricStats;
+import com.relay42.iot.stream.repository.MetricStatsValue;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Running aggregate for a single (deviceId, metric) series.
+ * Keeps count, sum, min, max and a mergeable quantile sketch so that statistics can be
+ * served without reading the stored history. Updates and reads are guarded by a per-series lock.
+ * The lock is a ReentrantLock rather than a monitor so that a virtual thread waiting for it does not pin its carrier.
+ */
+public class RunningAggregate {
+
+    private long count;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private final QuantileSketch sketch;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public RunningAggregate() {
+        this(new QuantileSketch());
+    }
+
+    /**
+     * Creates an aggregate whose median comes from the given sketch, e.g. an exact one from {@link Precision#newSketch()}.
+     *
+     * @param sketch the empty sketch to fold values into.
+     */
+    public RunningAggregate(QuantileSketch sketch) {
+        this.sketch = sketch;
+    }
+
+    /**
+     * Adds a metric value to the aggregate.
+     *
+     * @param value the metric value to add.
+     */
+    public void add(double value) {
+        lock.lock();
+        try {
+            sketch.add(value);
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Merges another aggregate into this one.
+     *
+     * @param other the aggregate to merge.
+     */
+    public void merge(RunningAggregate other) {
+        RunningAggregate snapshot = other.copy();
+        lock.lock();
+        try {
+            count += snapshot.count;
+            sum += snapshot.sum;
+            min = Math.min(min, snapshot.min);
+            max = Math.max(max, snapshot.max);
+            sketch.merge(snapshot.sketch);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Merges a rollup bucket into this aggregate. The caller holds the lock of the bucket's series.
+     * The bucket keeps no exact values, so the sketch switches to logarithmic buckets.
+     *
+     * @param bucket the bucket to merge.
+     */
+    void merge(RollupBucket bucket) {
+        lock.lock();
+        try {
+            count += bucket.count();
+            sum += bucket.sum();
+            min = Math.min(min, bucket.min());
+            max = Math.max(max, bucket.max());
+            bucket.addTo(sketch);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of values added to the aggregate.
+     *
+     * @return the value count.
+     */
+    public long getCount() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Estimates the value at the given quantile.
+     *
+     * @param quantile the quantile to estimate, between 0 and 1.
+     * @return the estimated value, or 0 if the aggregate is empty.
+     */
+    public double quantile(double quantile) {
+        lock.lock();
+        try {
+            return sketch.quantile(quantile);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Builds a MetricSummary from the current state of the aggregate.
+     *
+     * @param metric the metric name to put in the summary.
+     * @return the summary with min, max, average and median values.
+     */
+    public MetricSummary toSummary(String metric) {
+        lock.lock();
+        try {
+            if (count == 0) {
+                return MetricSummary.builder().metric(metric).min(0.0).max(0.0).avg(0.0).median(0.0).build();
+            }
+            return MetricSummary.builder()
+                    .metric(metric)
+                    .min(min)
+                    .max(max)
+                    .avg(sum / count)
+                    .median(sketch.median())
+                    .build();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Builds a MetricStats row from the current state of the aggregate.
+     *
+     * @return the count, min, max, average and median; values are null if the aggregate is empty.
+     */
+    public MetricStats toStats() {
+        lock.lock();
+        try {
+            if (count == 0) {
+                return MetricStatsValue.empty();
+            }
+            return new MetricStatsValue(count, min, max, sum / count, sketch.median());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private RunningAggregate copy() {
+        lock.lock();
+        try {
+            RunningAggregate copy = new RunningAggregate(sketch.copy());
+            copy.count = count;
+            copy.sum = sum;
+            copy.min = min;
+            copy.max = max;
+            return copy;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
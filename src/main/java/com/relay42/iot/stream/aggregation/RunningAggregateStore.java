@@ -0,0 +1,153 @@
+package com.relay42.iot.stream.aggregation;
+
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.model.MetricSummary;
+import com.relay42.iot.stream.repository.MetricStats;
+import com.relay42.iot.stream.repository.MetricStatsValue;
+import com.relay42.iot.stream.repository.SensorDataBatchRepository;
+import com.relay42.iot.stream.repository.SensorDataPartitionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory store of running aggregates keyed by (deviceId, metric).
+ * Aggregates are updated as readings are saved, so statistics for a series can be read in O(1)
+ * regardless of how much history the device has. The store is rebuilt from the database on startup by
+ * {@link AggregateRebuilder}, before the web server and Kafka listeners start accepting readings.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RunningAggregateStore {
+
+    private final SensorDataBatchRepository batchRepository;
+    private final SensorDataPartitionRepository partitionRepository;
+
+    private volatile Map<SeriesKey, RunningAggregate> aggregates = new ConcurrentHashMap<>();
+
+    /**
+     * Adds the metric values of the given readings to their series aggregates.
+     *
+     * @param dataList the readings that have been persisted.
+     */
+    public void record(Collection<SensorData> dataList) {
+        for (SensorData data : dataList) {
+            record(data.getDeviceId(), data.getMetric(), data.getMetricValue());
+        }
+    }
+
+    /**
+     * Adds a metric value to its series aggregate.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param value the metric value.
+     */
+    public void record(String deviceId, String metric, double value) {
+        aggregates.computeIfAbsent(new SeriesKey(deviceId, metric), key -> new RunningAggregate()).add(value);
+    }
+
+    /**
+     * Returns the running statistics for a series.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @return the summary, or null if no reading has been recorded for the series.
+     */
+    public MetricSummary getSummary(String deviceId, String metric) {
+        RunningAggregate aggregate = aggregates.get(new SeriesKey(deviceId, metric));
+        if (aggregate == null || aggregate.getCount() == 0) {
+            return null;
+        }
+        return aggregate.toSummary(metric);
+    }
+
+    /**
+     * Returns the running count, min, max, average and median of a series.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @return the statistics; the count is 0 if no reading has been recorded for the series.
+     */
+    public MetricStats getStats(String deviceId, String metric) {
+        RunningAggregate aggregate = aggregates.get(new SeriesKey(deviceId, metric));
+        return aggregate == null ? MetricStatsValue.empty() : aggregate.toStats();
+    }
+
+    /**
+     * Returns the running statistics of every series matching the given devices and metrics.
+     *
+     * @param deviceIds the devices to include, or null/empty for all devices.
+     * @param metrics the metrics to include, or null/empty for all metrics.
+     * @return the statistics keyed by device and then by metric; series without readings are omitted.
+     */
+    public Map<String, Map<String, MetricStats>> getStats(Collection<String> deviceIds, Collection<String> metrics) {
+        Set<String> devices = deviceIds == null ? Set.of() : new HashSet<>(deviceIds);
+        Set<String> names = metrics == null ? Set.of() : new HashSet<>(metrics);
+        Map<String, Map<String, MetricStats>> stats = new TreeMap<>();
+        aggregates.forEach((key, aggregate) -> {
+            if ((devices.isEmpty() || devices.contains(key.deviceId()))
+                    && (names.isEmpty() || names.contains(key.metric()))
+                    && aggregate.getCount() > 0) {
+                stats.computeIfAbsent(key.deviceId(), device -> new TreeMap<>())
+                        .put(key.metric(), aggregate.toStats());
+            }
+        });
+        return stats;
+    }
+
+    /**
+     * Rebuilds every aggregate from the rows currently stored in the database.
+     * The new aggregates replace the current ones only once the scan has completed.
+     */
+    public void rebuild() {
+        AggregateRebuild rebuild = startRebuild();
+        if (partitionRepository.isEnabled()) {
+            partitionRepository.scanValues(rebuild);
+        } else {
+            batchRepository.scanValues(rebuild);
+        }
+        rebuild.complete();
+    }
+
+    /**
+     * Starts a rebuild fed by a scan of the database, e.g. one shared with other stores.
+     * The rebuilt state replaces the current one only once the rebuild completes.
+     *
+     * @return the rebuild receiving every stored reading.
+     */
+    public AggregateRebuild startRebuild() {
+        long start = System.currentTimeMillis();
+        Map<SeriesKey, RunningAggregate> rebuilt = new ConcurrentHashMap<>();
+        return new AggregateRebuild() {
+            @Override
+            public void accept(String deviceId, String metric, LocalDateTime timestamp, double value) {
+                if (!Double.isFinite(value)) {
+                    return;
+                }
+                rebuilt.computeIfAbsent(new SeriesKey(deviceId, metric), key -> new RunningAggregate()).add(value);
+            }
+
+            @Override
+            public void complete() {
+                aggregates = rebuilt;
+                log.info("Rebuilt running aggregates for {} series in {} ms", rebuilt.size(), System.currentTimeMillis() - start);
+            }
+        };
+    }
+
+    /**
+     * Key identifying a series of readings.
+     */
+    private record SeriesKey(String deviceId, String metric) {
+    }
+}
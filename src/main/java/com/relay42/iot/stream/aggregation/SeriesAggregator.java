@@ -0,0 +1,147 @@
+package com.relay42.iot.stream.aggregation;
+
+import com.relay42.iot.stream.exception.BusinessException;
+import com.relay42.iot.stream.model.SeriesPoint;
+import com.relay42.iot.stream.repository.MetricStats;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.DoubleUnaryOperator;
+import java.util.regex.Pattern;
+
+/**
+ * Aggregates readings into fixed-size time buckets in a single pass.
+ * Buckets are aligned to the epoch, so 5-minute buckets start at :00, :05, :10 and so on.
+ * Each bucket keeps count, sum, min, max and a quantile sketch, so any percentile can be reported without
+ * holding the readings; percentiles are exact up to 128 readings per bucket and within 1% beyond that.
+ */
+public class SeriesAggregator {
+
+    private static final Pattern PERCENTILE = Pattern.compile("p(\\d{1,2}(\\.\\d+)?)");
+    private static final List<String> PLAIN_AGGREGATES = List.of("count", "min", "max", "avg", "median");
+
+    private final long bucketSeconds;
+    private final List<String> aggregates;
+    private final TreeMap<Long, RunningAggregate> buckets = new TreeMap<>();
+
+    /**
+     * Creates an aggregator for the given bucket size and aggregates.
+     *
+     * @param bucket the bucket size, a whole number of seconds.
+     * @param aggregates the aggregates to report, as returned by {@link #parseAggregates(String)}.
+     */
+    public SeriesAggregator(Duration bucket, List<String> aggregates) {
+        this.bucketSeconds = bucket.getSeconds();
+        this.aggregates = aggregates;
+    }
+
+    /**
+     * Parses and validates a comma-separated list of aggregates such as `min,max,avg,p95`.
+     *
+     * @param aggregates the aggregates requested by the client.
+     * @return the normalized aggregate names.
+     * @throws BusinessException if an aggregate is not supported.
+     */
+    public static List<String> parseAggregates(String aggregates) {
+        List<String> parsed = new ArrayList<>();
+        for (String aggregate : aggregates.split(",")) {
+            String name = aggregate.trim().toLowerCase();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!PLAIN_AGGREGATES.contains(name) && !PERCENTILE.matcher(name).matches()) {
+                throw new BusinessException("Unsupported aggregate: " + aggregate.trim());
+            }
+            if (!parsed.contains(name)) {
+                parsed.add(name);
+            }
+        }
+        if (parsed.isEmpty()) {
+            throw new BusinessException("At least one aggregate is required");
+        }
+        return parsed;
+    }
+
+    /**
+     * Returns the quantile represented by a percentile aggregate.
+     *
+     * @param aggregate a percentile aggregate such as `p95`, or `median`.
+     * @return the quantile between 0 and 1, or null if the aggregate is not a percentile.
+     */
+    public static Double quantileOf(String aggregate) {
+        if (aggregate.equals("median")) {
+            return 0.5;
+        }
+        var matcher = PERCENTILE.matcher(aggregate);
+        return matcher.matches() ? Double.parseDouble(matcher.group(1)) / 100 : null;
+    }
+
+    /**
+     * Adds a reading to its bucket.
+     *
+     * @param timestamp the time of the reading.
+     * @param value the metric value.
+     */
+    public void add(LocalDateTime timestamp, double value) {
+        long index = Math.floorDiv(timestamp.toEpochSecond(ZoneOffset.UTC), bucketSeconds);
+        buckets.computeIfAbsent(index, key -> new RunningAggregate()).add(value);
+    }
+
+    /**
+     * Returns one point per non-empty bucket, in time order.
+     *
+     * @return the series points.
+     */
+    public List<SeriesPoint> toPoints() {
+        List<SeriesPoint> points = new ArrayList<>(buckets.size());
+        for (Map.Entry<Long, RunningAggregate> entry : buckets.entrySet()) {
+            RunningAggregate bucket = entry.getValue();
+            MetricStats stats = bucket.toStats();
+            points.add(toPoint(bucketTimestamp(entry.getKey(), bucketSeconds), aggregates, stats.getCount(),
+                    stats.getMin(), stats.getMax(), stats.getAvg(), bucket::quantile));
+        }
+        return points;
+    }
+
+    /**
+     * Builds a series point holding only the requested aggregates.
+     *
+     * @param timestamp the start of the bucket.
+     * @param aggregates the requested aggregates.
+     * @param count the number of readings in the bucket.
+     * @param min the minimum value.
+     * @param max the maximum value.
+     * @param avg the average value.
+     * @param quantiles computes the value at a given quantile.
+     * @return the series point.
+     */
+    public static SeriesPoint toPoint(LocalDateTime timestamp, List<String> aggregates, long count, Double min,
+                                      Double max, Double avg, DoubleUnaryOperator quantiles) {
+        SeriesPoint.SeriesPointBuilder point = SeriesPoint.builder().timestamp(timestamp);
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        for (String aggregate : aggregates) {
+            switch (aggregate) {
+                case "count" -> point.count(count);
+                case "min" -> point.min(min);
+                case "max" -> point.max(max);
+                case "avg" -> point.avg(avg);
+                case "median" -> point.median(quantiles.applyAsDouble(0.5));
+                default -> percentiles.put(aggregate, quantiles.applyAsDouble(quantileOf(aggregate)));
+            }
+        }
+        if (!percentiles.isEmpty()) {
+            point.percentiles(percentiles);
+        }
+        return point.build();
+    }
+
+    private static LocalDateTime bucketTimestamp(long index, long bucketSeconds) {
+        return LocalDateTime.ofEpochSecond(index * bucketSeconds, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,57 @@
+package com.relay42.iot.stream.aggregation;
+
+import com.relay42.iot.stream.model.SeriesPoint;
+import com.relay42.iot.stream.util.LargestTriangleThreeBuckets;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects readings in time order into primitive arrays and downsamples them with LTTB.
+ * Readings are held as two double arrays rather than entities, so large ranges stay compact in memory.
+ */
+public class SeriesDownsampler {
+
+    private double[] epochMillis = new double[1024];
+    private double[] values = new double[1024];
+    private int size;
+
+    /**
+     * Adds a reading; readings must be added in time order.
+     *
+     * @param timestamp the time of the reading.
+     * @param value the metric value.
+     */
+    public void add(LocalDateTime timestamp, double value) {
+        if (size == values.length) {
+            epochMillis = Arrays.copyOf(epochMillis, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        epochMillis[size] = timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * Returns at most the given number of readings, selected to preserve the shape of the series.
+     *
+     * @param maxPoints the maximum number of points to return, at least 3.
+     * @return the selected readings, in time order.
+     */
+    public List<SeriesPoint> toPoints(int maxPoints) {
+        int[] selected = LargestTriangleThreeBuckets.downsample(epochMillis, values, size, maxPoints);
+        List<SeriesPoint> points = new ArrayList<>(selected.length);
+        for (int index : selected) {
+            long millis = (long) epochMillis[index];
+            points.add(SeriesPoint.builder()
+                    .timestamp(LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000),
+                            (int) Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC))
+                    .value(values[index])
+                    .build());
+        }
+        return points;
+    }
+}
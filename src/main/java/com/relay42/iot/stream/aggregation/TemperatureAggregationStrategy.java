@@ -1,12 +1,10 @@
 package com.relay42.iot.stream.aggregation;
 
-import com.relay42.iot.stream.entity.SensorData;
 import com.relay42.iot.stream.model.MetricSummary;
 import com.relay42.iot.stream.util.MedianCalculator;
 
 import org.springframework.stereotype.Component;
 
-import java.util.DoubleSummaryStatistics;
 import java.util.List;
 
 /**
@@ -18,17 +16,19 @@ import java.util.List;
 public class TemperatureAggregationStrategy implements AggregationStrategy {
 
     /**
-     * Calculates the aggregation result for temperature-related metrics using the provided sensor data.
-     * Computes statistical metrics such as minimum, maximum, average, and median values.
-     * Returns default values (0.0) if the data list is null or empty.
+     * Calculates the aggregation result for temperature-related metrics from a column of metric values.
+     * Min, max and sum are computed in one pass and the median by selection on the same array, so no
+     * memory is allocated besides the result. The values are reordered in place.
+     * Returns default values (0.0) if there are no values.
      *
      * @param metric the name of the metric to aggregate (e.g., temperature, humidity).
-     * @param dataList the list of SensorData entities to be aggregated.
+     * @param values the metric values; only the first `length` entries are aggregated.
+     * @param length the number of values to aggregate.
      * @return an AggregationResult containing the calculated values (e.g., min, max, avg, median).
      */
     @Override
-    public MetricSummary aggregateMetrics(String metric, List<SensorData> dataList) {
-        if (dataList == null || dataList.isEmpty()) {
+    public MetricSummary aggregateMetrics(String metric, double[] values, int length) {
+        if (length == 0) {
             return MetricSummary.builder()
                     .metric(metric)
                     .min(0.0)
@@ -38,20 +38,27 @@ public class TemperatureAggregationStrategy implements AggregationStrategy {
                     .build();
         }
 
-        DoubleSummaryStatistics stats = dataList.stream()
-                .mapToDouble(SensorData::getMetricValue)
-                .summaryStatistics();
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            double value = values[i];
+            if (value < min) min = value;
+            if (value > max) max = value;
+            sum += value;
+        }
 
-        double median = MedianCalculator.calculate(dataList);
+        double median = MedianCalculator.medianInPlace(values, length);
 
         return MetricSummary.builder()
                 .metric(metric)
-                .min(stats.getMin())
-                .max(stats.getMax())
-                .avg(stats.getAverage())
+                .min(min)
+                .max(max)
+                .avg(sum / length)
                 .median(median)
                 .build();
     }
+
     /**
      * Retrieves the list of metrics supported by this aggregation strategy.
      * This strategy supports temperature and humidity metrics.
@@ -0,0 +1,240 @@
+package com.relay42.iot.stream.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.relay42.iot.stream.config.StatsCacheConfig;
+import com.relay42.iot.stream.entity.SensorData;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * Bounded cache of stats results keyed by device, metric, query and range.
+ * Results are computed for the exact requested range unless a range granularity is configured; then ranges are
+ * widened to it so that dashboards polling with a moving `to` share an entry, and the result covers the widened range.
+ * Concurrent requests for the same key compute the result only once.
+ * Writes invalidate only the entries of the series they touch: every series has a version that is part of
+ * the key, so a result computed before a write can never be served after it, and the superseded entries are
+ * removed right away. Versions are drawn from one global counter, so the version map can be bounded: a series whose
+ * version was evicted restarts at the current counter value, which no result computed before its last write uses.
+ * Hits, misses, evictions and invalidations are exported as Micrometer metrics.
+ */
+@Component
+public class StatsCache {
+
+    private static final String CACHE_NAME = "sensor-stats";
+
+    private final StatsCacheConfig config;
+    private final Cache<StatsKey, Optional<Object>> cache;
+    private final AtomicLong generation = new AtomicLong();
+    private final Cache<SeriesKey, Long> versions;
+    private final Map<SeriesKey, Set<StatsKey>> keysBySeries = new ConcurrentHashMap<>();
+    private final Counter invalidations;
+
+    public StatsCache(StatsCacheConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .removalListener((StatsKey key, Optional<Object> value, RemovalCause cause) -> {
+                    if (key != null) {
+                        keysBySeries.computeIfPresent(key.series(), (series, keys) -> {
+                            keys.remove(key);
+                            return keys.isEmpty() ? null : keys;
+                        });
+                    }
+                })
+                .build();
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        this.invalidations = Counter.builder("cache.invalidations")
+                .tag("cache", CACHE_NAME)
+                .description("Series whose cached stats were invalidated by a write")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached result for the given series, query and range, computing it on a miss.
+     * The loader receives the range to compute, which is the requested one unless a range granularity is configured,
+     * and may return null, which is cached as well.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param query identifies the kind of result and every parameter other than the range.
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @param loader computes the result for a normalized range.
+     * @param <T> the type of the result.
+     * @return the cached or computed result.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String deviceId, String metric, String query, LocalDateTime from, LocalDateTime to,
+                     BiFunction<LocalDateTime, LocalDateTime, T> loader) {
+        if (!config.isEnabled()) {
+            return loader.apply(from, to);
+        }
+
+        LocalDateTime normalizedFrom = normalizeFrom(from);
+        LocalDateTime normalizedTo = normalizeTo(to);
+        SeriesKey series = new SeriesKey(deviceId, metric);
+        StatsKey key = new StatsKey(series, versionOf(series), query, normalizedFrom, normalizedTo);
+
+        return (T) cache.get(key, missing -> {
+            track(missing);
+            return Optional.ofNullable(loader.apply(normalizedFrom, normalizedTo));
+        }).orElse(null);
+    }
+
+    /**
+     * Non-blocking variant of {@link #get} for the reactive stack: the loader returns a Mono, which is subscribed
+     * on a miss and whose value (or emptiness) is cached once it completes.
+     * Unlike {@link #get}, concurrent misses for the same key may each run the loader.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param query identifies the kind of result and every parameter other than the range.
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @param loader computes the result for a normalized range.
+     * @param <T> the type of the result.
+     * @return the cached or computed result, empty if the loader completed empty.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> getAsync(String deviceId, String metric, String query, LocalDateTime from, LocalDateTime to,
+                                BiFunction<LocalDateTime, LocalDateTime, Mono<T>> loader) {
+        if (!config.isEnabled()) {
+            return loader.apply(from, to);
+        }
+
+        return Mono.defer(() -> {
+            LocalDateTime normalizedFrom = normalizeFrom(from);
+            LocalDateTime normalizedTo = normalizeTo(to);
+            SeriesKey series = new SeriesKey(deviceId, metric);
+            StatsKey key = new StatsKey(series, versionOf(series), query, normalizedFrom, normalizedTo);
+
+            Optional<Object> cached = cache.getIfPresent(key);
+            if (cached != null) {
+                return Mono.justOrEmpty((Optional<T>) cached);
+            }
+            return loader.apply(normalizedFrom, normalizedTo)
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .doOnNext(result -> {
+                        track(key);
+                        cache.put(key, (Optional<Object>) result);
+                    })
+                    .flatMap(Mono::justOrEmpty);
+        });
+    }
+
+    /**
+     * Invalidates the cached results of every series the given readings belong to.
+     *
+     * @param dataList the readings that have been persisted.
+     */
+    public void invalidate(Collection<SensorData> dataList) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        dataList.stream()
+                .map(data -> new SeriesKey(data.getDeviceId(), data.getMetric()))
+                .distinct()
+                .forEach(this::invalidate);
+    }
+
+    /**
+     * Drops every cached result.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Returns the current version of the series, which is the counter value if it has none yet.
+     */
+    private long versionOf(SeriesKey series) {
+        return versions.get(series, ignored -> generation.get());
+    }
+
+    /**
+     * Moves the series past every version in use and drops its cached results.
+     * Series without a version only advance the counter, so a result they are computing is not served afterwards.
+     */
+    private void invalidate(SeriesKey series) {
+        long version = generation.incrementAndGet();
+        boolean cached = versions.asMap().computeIfPresent(series, (ignored, previous) -> version) != null;
+        Set<StatsKey> keys = keysBySeries.remove(series);
+        if (keys != null) {
+            cache.invalidateAll(keys);
+        }
+        if (cached || keys != null) {
+            invalidations.increment();
+        }
+    }
+
+    /**
+     * Records the key under its series, so a write can invalidate it; the set is removed with its last key.
+     */
+    private void track(StatsKey key) {
+        keysBySeries.compute(key.series(), (series, keys) -> {
+            Set<StatsKey> tracked = keys != null ? keys : ConcurrentHashMap.newKeySet();
+            tracked.add(key);
+            return tracked;
+        });
+    }
+
+    private LocalDateTime normalizeFrom(LocalDateTime from) {
+        long granularity = config.getRangeGranularity().toMillis();
+        if (granularity <= 0) {
+            return from;
+        }
+        long millis = from.toInstant(ZoneOffset.UTC).toEpochMilli();
+        return fromEpochMilli(Math.floorDiv(millis, granularity) * granularity);
+    }
+
+    /**
+     * Moves `to` to the last microsecond of its granularity period, unless it already ends a period.
+     */
+    private LocalDateTime normalizeTo(LocalDateTime to) {
+        long granularity = config.getRangeGranularity().toMillis();
+        if (granularity <= 0) {
+            return to;
+        }
+        LocalDateTime periodStart = normalizeFrom(to);
+        return periodStart.equals(to) ? to : periodStart.plus(Duration.ofMillis(granularity)).minusNanos(1000);
+    }
+
+    private static LocalDateTime fromEpochMilli(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), (int) Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Key identifying a series of readings.
+     */
+    private record SeriesKey(String deviceId, String metric) {
+    }
+
+    /**
+     * Key identifying one cached result.
+     */
+    private record StatsKey(SeriesKey series, long version, String query, LocalDateTime from, LocalDateTime to) {
+    }
+}
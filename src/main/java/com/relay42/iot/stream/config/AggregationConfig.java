@@ -0,0 +1,92 @@
+package com.relay42.iot.stream.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration properties for statistics aggregation.
+ * Bound from the `aggregation` prefix in application.yml.
+ * - `pushdown`: Whether range statistics are computed by the database (`enabled`), in the JVM (`disabled`),
+ *   or by the database only when it supports PERCENTILE_CONT (`auto`).
+ * - `rollup`: Pre-computed per-minute, per-hour and per-day buckets used to answer range statistics.
+ * - `series`: Limits of the time-series endpoint.
+ * - `bulk`: Limits of the bulk statistics endpoint.
+ * - `strategies`: Aggregates reported per metric by the range statistics endpoint.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "aggregation")
+@Data
+public class AggregationConfig {
+
+    private Pushdown pushdown = Pushdown.AUTO;
+    private Rollup rollup = new Rollup();
+    private Series series = new Series();
+    private Bulk bulk = new Bulk();
+    private Strategies strategies = new Strategies();
+
+    public enum Pushdown {
+        AUTO, ENABLED, DISABLED
+    }
+
+    /**
+     * Settings for the rollup tiers.
+     * - `enabled`: Answers range statistics from rollup buckets instead of reading every raw reading.
+     * - `minute-retention`, `hour-retention`, `day-retention`: How far back each tier keeps buckets; 0 keeps them forever.
+     *   Parts of a range older than a tier's retention are answered by the next finer tier or by raw readings.
+     * - `eviction-interval-ms`: Interval between removals of expired buckets.
+     * - `max-series`: Largest number of (device, metric) series kept in the tiers; ranges of further series are read
+     *   from the database. A series takes about 100 bytes per bucket it retains.
+     */
+    @Data
+    public static class Rollup {
+
+        private boolean enabled = true;
+        private Duration minuteRetention = Duration.ofDays(2);
+        private Duration hourRetention = Duration.ofDays(90);
+        private Duration dayRetention = Duration.ZERO;
+        private long evictionIntervalMs = 60000;
+        private int maxSeries = 10000;
+    }
+
+    /**
+     * Settings for the time-series endpoint.
+     * - `max-buckets`: Largest number of buckets a single request may ask for.
+     * - `default-max-points`: Number of points returned in downsampling mode when the request does not set `maxPoints`.
+     */
+    @Data
+    public static class Series {
+
+        private int maxBuckets = 10000;
+        private int defaultMaxPoints = 1000;
+    }
+
+    /**
+     * Settings for the bulk statistics endpoint.
+     * - `max-devices`: Largest number of device ids a single request may list.
+     */
+    @Data
+    public static class Bulk {
+
+        private int maxDevices = 1000;
+    }
+
+    /**
+     * Per-metric aggregation strategies.
+     * - `default-aggregates`: Aggregates reported for metrics without a strategy of their own.
+     * - `metrics`: Aggregates reported per metric (e.g., `heart-rate: count,min,max,p90,p99,stddev,rate`).
+     *   Supported aggregates are count, min, max, avg, median, stddev, rate and percentiles pNN.
+     *   An entry overrides a built-in strategy for the same metric.
+     */
+    @Data
+    public static class Strategies {
+
+        private List<String> defaultAggregates = List.of("min", "max", "avg", "median");
+        private Map<String, List<String>> metrics = new LinkedHashMap<>();
+    }
+}
@@ -0,0 +1,74 @@
+package com.relay42.iot.stream.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Binary encodings of the request and response bodies, negotiated by Content-Type and Accept alongside JSON:
+ * CBOR (`application/cbor`) and Smile (`application/x-jackson-smile`).
+ * The mappers are built from Spring Boot's {@link Jackson2ObjectMapperBuilder}, so the `spring.jackson.*` settings
+ * and registered modules apply to every format alike.
+ */
+@Configuration
+public class BinaryFormatConfig {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    private static final MediaType SMILE = MediaType.valueOf(APPLICATION_SMILE_VALUE);
+
+    /**
+     * Replaces Spring MVC's default CBOR converter with one using the Boot-configured mapper.
+     *
+     * @param builder Spring Boot's mapper builder.
+     * @return the CBOR message converter.
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Replaces Spring MVC's default Smile converter with one using the Boot-configured mapper.
+     *
+     * @param builder Spring Boot's mapper builder.
+     * @return the Smile message converter.
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    /**
+     * Registers the CBOR decoder and the Smile codecs with WebFlux. Spring's CBOR encoder cannot write server responses,
+     * so reactive responses are JSON or Smile. The CBOR decoder only decodes whole values, so reactive endpoints taking
+     * a binary body read it as a {@code Mono}.
+     *
+     * @param builder Spring Boot's mapper builder.
+     * @return the codec customizer.
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public CodecCustomizer binaryCodecCustomizer(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper cborMapper = builder.factory(new CBORFactory()).build();
+        ObjectMapper smileMapper = builder.factory(new SmileFactory()).build();
+        return configurer -> {
+            configurer.customCodecs().register(new Jackson2CborDecoder(cborMapper, MediaType.APPLICATION_CBOR));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, SMILE));
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, SMILE));
+        };
+    }
+}
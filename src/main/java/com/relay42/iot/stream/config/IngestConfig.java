@@ -0,0 +1,130 @@
+package com.relay42.iot.stream.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Configuration properties for the sensor data ingestion pipeline.
+ * Bound from the `ingest` prefix in application.yml.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "ingest")
+@Data
+public class IngestConfig {
+
+    private Batch batch = new Batch();
+    private WriteBehind writeBehind = new WriteBehind();
+    private Kafka kafka = new Kafka();
+    private Logging logging = new Logging();
+    private Metrics metrics = new Metrics();
+    private Socket socket = new Socket();
+
+    /**
+     * Settings for the bulk ingest endpoint.
+     * - `max-size`: Maximum number of readings accepted in a single batch request.
+     * - `max-request-size`: Maximum size of a batch or frame request body; larger bodies are refused with 413.
+     * - `jdbc-batch-size`: Number of rows sent to the database per JDBC batch.
+     */
+    @Data
+    public static class Batch {
+
+        private int maxSize = 10000;
+        private DataSize maxRequestSize = DataSize.ofMegabytes(16);
+        private int jdbcBatchSize = 500;
+    }
+
+    /**
+     * Settings for the asynchronous write-behind ingest mode.
+     * - `enabled`: Returns 202 from the ingest endpoint and persists readings in the background.
+     * - `capacity`: Maximum number of readings held in memory before ingest is rejected.
+     * - `flush-batch-size`: Maximum number of readings written per flush.
+     * - `flush-interval-ms`: Maximum time a reading waits for its batch to fill before it is flushed.
+     * - `flusher-threads`: Number of threads draining the buffer into the database.
+     * - `reject-status`: HTTP status returned when the buffer is full (429 or 503).
+     * - `flush-retries`: Number of times a flush failing on a transient database error is retried before its
+     *   readings are counted as lost.
+     * - `flush-retry-backoff-ms`: Pause before the first retry of a flush; it doubles on every further retry.
+     */
+    @Data
+    public static class WriteBehind {
+
+        private boolean enabled = false;
+        private int capacity = 10000;
+        private int flushBatchSize = 500;
+        private long flushIntervalMs = 200;
+        private int flusherThreads = 2;
+        private int rejectStatus = 503;
+        private int flushRetries = 5;
+        private long flushRetryBackoffMs = 200;
+    }
+
+    /**
+     * Settings for the Kafka ingest pipeline.
+     * - `enabled`: Registers the batch listener for the readings topic.
+     * - `topic`: Topic carrying SensorRequest JSON payloads; poison messages go to `<topic>-dlt`.
+     * - `partitions`: Number of partitions used when the topics are created by the application.
+     * - `concurrency`: Number of listener threads; at most one per partition is useful.
+     * - `max-poll-records`: Maximum number of records handed to the listener per batch.
+     * - `retry-initial-interval-ms`: Pause before the first redelivery of a batch that failed, e.g. on a database outage.
+     * - `retry-max-interval-ms`: Upper bound of the doubling pause between redeliveries; they continue until the batch succeeds.
+     */
+    @Data
+    public static class Kafka {
+
+        private boolean enabled = false;
+        private String topic = "sensor-readings";
+        private int partitions = 3;
+        private int concurrency = 3;
+        private int maxPollRecords = 500;
+        private long retryInitialIntervalMs = 1000;
+        private long retryMaxIntervalMs = 60000;
+    }
+
+    /**
+     * Settings for request logging on the ingest endpoints.
+     * - `sample-every`: Logs one ingest request in every N at INFO; 0 disables the sampled log line.
+     *   Every request is still counted and timed in the `ingest.requests` and `ingest.readings` meters.
+     */
+    @Data
+    public static class Logging {
+
+        private int sampleEvery = 1000;
+    }
+
+    /**
+     * Settings for the ingest meters.
+     * - `max-device-types`: Number of distinct device types tagged on the ingest meters; further types are
+     *   reported as `other`.
+     */
+    @Data
+    public static class Metrics {
+
+        private int maxDeviceTypes = 20;
+    }
+
+    /**
+     * Settings for the line-protocol socket listener.
+     * - `enabled`: Starts the Netty listener; readings are lines of `deviceId,metric,value,epochMs[,deviceType]`.
+     * - `host`: Address the listener binds to.
+     * - `tcp-port`: TCP port, one reading per newline-terminated line; 0 picks a free port, -1 disables TCP.
+     * - `udp-port`: UDP port, one or more newline-separated readings per datagram; 0 picks a free port, -1 disables UDP.
+     * - `max-line-length`: Longest accepted line in bytes; longer lines are discarded and counted as rejected.
+     * - `max-datagram-size`: Receive buffer size per UDP datagram; longer datagrams are truncated.
+     * - `io-threads`: Netty event-loop threads; 0 uses Netty's default of twice the number of cores.
+     * - `writer-threads`: Threads writing parsed batches to the database.
+     */
+    @Data
+    public static class Socket {
+
+        private boolean enabled = false;
+        private String host = "0.0.0.0";
+        private int tcpPort = 9500;
+        private int udpPort = 9501;
+        private int maxLineLength = 512;
+        private int maxDatagramSize = 8192;
+        private int ioThreads = 0;
+        private int writerThreads = 2;
+    }
+}
@@ -0,0 +1,119 @@
+package com.relay42.iot.stream.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+/**
+ * Configuration class for the Kafka ingest pipeline.
+ * Creates the readings topic and its dead-letter topic, and a batch listener container factory
+ * that commits offsets only when the listener acknowledges a batch after the database flush.
+ * Active only when `ingest.kafka.enabled` is true.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "ingest.kafka", name = "enabled", havingValue = "true")
+public class KafkaConfig {
+
+    /**
+     * Suffix appended to the readings topic to form the dead-letter topic name.
+     */
+    public static final String DLT_SUFFIX = "-dlt";
+
+    /**
+     * Creates the readings topic if it does not exist yet.
+     *
+     * @param ingestConfig the ingest configuration holding the topic name and partition count.
+     * @return the NewTopic definition for the readings topic.
+     */
+    @Bean
+    public NewTopic sensorReadingsTopic(IngestConfig ingestConfig) {
+        return TopicBuilder.name(ingestConfig.getKafka().getTopic())
+                .partitions(ingestConfig.getKafka().getPartitions())
+                .build();
+    }
+
+    /**
+     * Creates the dead-letter topic with the same partition count, so that a poison message
+     * can be published to the partition it was read from.
+     *
+     * @param ingestConfig the ingest configuration holding the topic name and partition count.
+     * @return the NewTopic definition for the dead-letter topic.
+     */
+    @Bean
+    public NewTopic sensorReadingsDeadLetterTopic(IngestConfig ingestConfig) {
+        return TopicBuilder.name(ingestConfig.getKafka().getTopic() + DLT_SUFFIX)
+                .partitions(ingestConfig.getKafka().getPartitions())
+                .build();
+    }
+
+    /**
+     * Creates the recoverer that publishes failed records to `<topic>-dlt` with the exception details as headers.
+     *
+     * @param kafkaTemplate the template used to publish dead letters.
+     * @return the DeadLetterPublishingRecoverer instance.
+     */
+    @Bean
+    public DeadLetterPublishingRecoverer sensorReadingsDeadLetterRecoverer(KafkaTemplate<Object, Object> kafkaTemplate) {
+        return new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (record, exception) -> new TopicPartition(record.topic() + DLT_SUFFIX, record.partition()));
+    }
+
+    /**
+     * Creates the error handler of the readings listener.
+     * The dead-letter topic is reserved for poison messages: a batch that fails as a whole, e.g. because the database
+     * is unreachable, is redelivered with a doubling pause, with the partition paused meanwhile, until it succeeds.
+     * Only a record reported through a {@link org.springframework.kafka.listener.BatchListenerFailedException} caused
+     * by a {@link DataIntegrityViolationException} is dead-lettered, without retries; the records before it are committed
+     * and the ones after it redelivered.
+     *
+     * @param recoverer the dead-letter recoverer for records violating a constraint.
+     * @param ingestConfig the ingest configuration holding the retry intervals.
+     * @return the DefaultErrorHandler instance.
+     */
+    @Bean
+    public DefaultErrorHandler sensorReadingsErrorHandler(DeadLetterPublishingRecoverer recoverer, IngestConfig ingestConfig) {
+        ExponentialBackOff backOff = new ExponentialBackOff(ingestConfig.getKafka().getRetryInitialIntervalMs(), 2.0);
+        backOff.setMaxInterval(ingestConfig.getKafka().getRetryMaxIntervalMs());
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer, backOff);
+        errorHandler.addNotRetryableExceptions(DataIntegrityViolationException.class);
+        return errorHandler;
+    }
+
+    /**
+     * Creates the container factory for the readings listener.
+     * Inherits the `spring.kafka.listener.*` settings and switches to batch delivery with manual acknowledgement.
+     *
+     * @param configurer the Spring Boot configurer applying the `spring.kafka.listener.*` properties.
+     * @param consumerFactory the consumer factory configured from `spring.kafka.consumer.*`.
+     * @param errorHandler the handler retrying failed batches and dead-lettering records that violate a constraint.
+     * @param ingestConfig the ingest configuration holding the listener concurrency.
+     * @return the configured ConcurrentKafkaListenerContainerFactory.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> sensorReadingsContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            DefaultErrorHandler errorHandler,
+            IngestConfig ingestConfig) {
+
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(ingestConfig.getKafka().getConcurrency());
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+        factory.setCommonErrorHandler(errorHandler);
+        return factory;
+    }
+}
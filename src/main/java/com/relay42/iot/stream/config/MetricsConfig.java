@@ -0,0 +1,26 @@
+package com.relay42.iot.stream.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables {@link io.micrometer.core.annotation.Timed} on Spring beans, which the JDBC repositories use to time
+ * each query method. Timers are tagged with the class and method name only, never with request values.
+ * Histograms and SLO buckets are set per meter name under `management.metrics.distribution` in application.yml.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Creates the aspect that records the timers of {@code @Timed} methods.
+     *
+     * @param meterRegistry the registry the timers are registered in.
+     * @return the timed aspect.
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
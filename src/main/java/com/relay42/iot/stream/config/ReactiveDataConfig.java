@@ -0,0 +1,33 @@
+package com.relay42.iot.stream.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Keeps the JDBC DataSource in the reactive profile.
+ * Spring Boot backs off from auto-configuring a DataSource once an R2DBC ConnectionFactory exists, but JPA, schema
+ * initialization and the startup rebuild of the running aggregates, rollups and hot window still read over JDBC.
+ * The pool is built from the usual `spring.datasource.*` properties, so both modes connect the same way.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ReactiveDataConfig {
+
+    /**
+     * Creates the Hikari pool used by the JPA and JDBC beans.
+     *
+     * @param properties the `spring.datasource` properties.
+     * @return the JDBC DataSource.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+}
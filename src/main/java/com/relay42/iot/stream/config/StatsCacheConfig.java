@@ -0,0 +1,27 @@
+package com.relay42.iot.stream.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the stats result cache.
+ * Bound from the `stats-cache` prefix in application.yml.
+ * - `enabled`: Caches range statistics and series results.
+ * - `maximum-size`: Maximum number of cached results; the least recently used are evicted first.
+ * - `ttl`: How long a result is kept after it is computed.
+ * - `range-granularity`: When set, ranges are widened to whole multiples of this duration, so polls with a moving
+ *   `to` share an entry, and results cover the widened range; 0 (the default) computes and caches exact ranges only.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "stats-cache")
+@Data
+public class StatsCacheConfig {
+
+    private boolean enabled = true;
+    private long maximumSize = 10000;
+    private Duration ttl = Duration.ofSeconds(30);
+    private Duration rangeGranularity = Duration.ZERO;
+}
@@ -0,0 +1,56 @@
+package com.relay42.iot.stream.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the sensor data storage layout.
+ * Bound from the `storage` prefix in application.yml.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "storage")
+@Data
+public class StorageConfig {
+
+    private Partitioning partitioning = new Partitioning();
+    private HotWindow hotWindow = new HotWindow();
+
+    /**
+     * Settings for the time-partitioned storage layout.
+     * - `enabled`: Stores readings in one table per day or month instead of the single `sensor_data` table.
+     * - `granularity`: Time span covered by each partition table (`daily` or `monthly`).
+     * - `retention-days`: Partitions that end more than this many days ago are dropped; 0 keeps all data.
+     * - `retention-cron`: Schedule of the retention job.
+     */
+    @Data
+    public static class Partitioning {
+
+        private boolean enabled = false;
+        private Granularity granularity = Granularity.DAILY;
+        private int retentionDays = 0;
+        private String retentionCron = "0 15 0 * * *";
+    }
+
+    /**
+     * Settings for the in-memory hot window of recent readings.
+     * - `enabled`: Keeps the recent readings of every series in memory and answers ranges inside the window from there.
+     * - `window`: How far back the hot window reaches.
+     * - `capacity-per-series`: Maximum number of readings kept per series; the oldest are dropped first.
+     * - `trim-interval-ms`: How often readings that have left the window are released.
+     */
+    @Data
+    public static class HotWindow {
+
+        private boolean enabled = true;
+        private Duration window = Duration.ofHours(24);
+        private int capacityPerSeries = 86400;
+        private long trimIntervalMs = 60000;
+    }
+
+    public enum Granularity {
+        DAILY, MONTHLY
+    }
+}
@@ -0,0 +1,38 @@
+package com.relay42.iot.stream.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+
+/**
+ * Reports which kind of threads serve requests, scheduled tasks and Kafka listeners.
+ * Virtual threads are switched on with `spring.threads.virtual.enabled` (see the `virtual-threads` profile)
+ * and only take effect on Java 21 or later, so a misconfigured runtime is logged instead of failing silently.
+ */
+@Slf4j
+@Configuration
+public class ThreadingConfig {
+
+    private static final String VIRTUAL_THREADS_PROPERTY = "spring.threads.virtual.enabled";
+
+    /**
+     * Logs the active threading model once the application is ready.
+     *
+     * @param event the ready event carrying the application environment.
+     */
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        Environment environment = event.getApplicationContext().getEnvironment();
+        if (Threading.VIRTUAL.isActive(environment)) {
+            log.info("Requests, scheduled tasks, Kafka listeners and the simulator run on virtual threads");
+        } else if (environment.getProperty(VIRTUAL_THREADS_PROPERTY, Boolean.class, false)) {
+            log.warn("{} is set but Java {} does not support virtual threads; using platform threads",
+                    VIRTUAL_THREADS_PROPERTY, Runtime.version().feature());
+        } else {
+            log.info("Requests, scheduled tasks and Kafka listeners run on platform threads");
+        }
+    }
+}
@@ -0,0 +1,499 @@
+package com.relay42.iot.stream.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.relay42.iot.stream.aggregation.AggregationMetrics;
+import com.relay42.iot.stream.aggregation.AggregationMetrics.Source;
+import com.relay42.iot.stream.aggregation.AggregationStrategy;
+import com.relay42.iot.stream.aggregation.AggregationStrategyFactory;
+import com.relay42.iot.stream.aggregation.Precision;
+import com.relay42.iot.stream.aggregation.SeriesAggregator;
+import com.relay42.iot.stream.cache.StatsCache;
+import com.relay42.iot.stream.config.AggregationConfig;
+import com.relay42.iot.stream.config.BinaryFormatConfig;
+import com.relay42.iot.stream.config.IngestConfig;
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.exception.BusinessException;
+import com.relay42.iot.stream.ingest.IngestMetrics;
+import com.relay42.iot.stream.ingest.WriteBehindBuffer;
+import com.relay42.iot.stream.mapper.SensorDataMapper;
+import com.relay42.iot.stream.model.BatchIngestResult;
+import com.relay42.iot.stream.model.BatchItemResult;
+import com.relay42.iot.stream.model.BulkStatsRequest;
+import com.relay42.iot.stream.model.MetricSummary;
+import com.relay42.iot.stream.model.SensorBatchFrame;
+import com.relay42.iot.stream.model.SensorRequest;
+import com.relay42.iot.stream.model.SensorResponse;
+import com.relay42.iot.stream.model.SeriesPoint;
+import com.relay42.iot.stream.repository.MetricStats;
+import com.relay42.iot.stream.repository.ReactiveSensorDataRepository.TimedValue;
+import com.relay42.iot.stream.service.ReactiveSensorDataService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.NotBlank;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * WebFlux controller serving the same `/api/v1/sensors` contract as {@link SensorDataControllerV1}
+ * when the application runs with the `reactive` profile.
+ * Request bodies are decoded as they arrive and readings are written through R2DBC, so a connection only holds
+ * a thread while there is work to do. Mapping, validation and aggregation reuse the servlet stack's components.
+ */
+@RestController
+@RequestMapping("/api/v1/sensors")
+@RequiredArgsConstructor
+@Validated
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSensorDataControllerV1 {
+
+    private final ReactiveSensorDataService service;
+    private final SensorDataMapper mapper;
+    private final AggregationStrategyFactory strategyFactory;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final IngestConfig ingestConfig;
+    private final WriteBehindBuffer writeBehindBuffer;
+    private final AggregationConfig aggregationConfig;
+    private final StatsCache statsCache;
+    private final IngestMetrics ingestMetrics;
+    private final AggregationMetrics aggregationMetrics;
+
+    /**
+     * Endpoint for ingesting sensor data into the system.
+     * In write-behind mode the entity is handed to the in-memory buffer and 202 Accepted is returned
+     * before the database write happens.
+     *
+     * @param request the SensorRequest object containing sensor data to be ingested.
+     * @return 201 Created once the reading is stored, or 202 Accepted in write-behind mode.
+     */
+    @PostMapping("/data")
+    public Mono<ResponseEntity<Void>> ingestSensorData(@Valid @RequestBody SensorRequest request) {
+        long start = System.nanoTime();
+        SensorData entity = mapper.toEntity(request);
+
+        if (writeBehindBuffer.isEnabled()) {
+            writeBehindBuffer.submit(entity);
+            ingestMetrics.recordSingle(entity, start);
+            return Mono.just(ResponseEntity.status(HttpStatus.ACCEPTED).build());
+        }
+
+        return service.saveSensorData(entity)
+                .doOnSuccess(saved -> ingestMetrics.recordSingle(entity, start))
+                .thenReturn(ResponseEntity.status(HttpStatus.CREATED).build());
+    }
+
+    /**
+     * Endpoint for ingesting a batch of sensor readings supplied as a JSON array.
+     * The array elements are decoded and written as they arrive; invalid ones are reported back without failing the batch.
+     *
+     * @param requests the SensorRequest objects to be ingested.
+     * @return the accepted and rejected counts and the status of each item.
+     */
+    @PostMapping(value = "/data/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<SensorResponse<BatchIngestResult>>> ingestSensorDataBatch(
+            @RequestBody Flux<SensorRequest> requests) {
+        return ingestBatch(requests.map(request -> new ParsedItem(request, null)));
+    }
+
+    /**
+     * Endpoint for ingesting a batch of sensor readings supplied as a CBOR or Smile array.
+     * The body is decoded as a whole before the readings are written, as the binary decoders do not stream arrays.
+     *
+     * @param requests the SensorRequest objects to be ingested.
+     * @return the accepted and rejected counts and the status of each item.
+     */
+    @PostMapping(value = "/data/batch", consumes = {MediaType.APPLICATION_CBOR_VALUE, BinaryFormatConfig.APPLICATION_SMILE_VALUE})
+    public Mono<ResponseEntity<SensorResponse<BatchIngestResult>>> ingestSensorDataBatchBinary(
+            @RequestBody Mono<List<SensorRequest>> requests) {
+        return ingestBatch(requests.flatMapIterable(list -> list).map(request -> new ParsedItem(request, null)));
+    }
+
+    /**
+     * Endpoint for ingesting a batch of sensor readings supplied as a dictionary-encoded frame, in JSON, CBOR or Smile.
+     * Readings referring to a dictionary entry that does not exist are reported as rejected items.
+     *
+     * @param frame the readings, see {@link SensorBatchFrame}.
+     * @return the accepted and rejected counts and the status of each item.
+     */
+    @PostMapping(value = "/data/frame", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            BinaryFormatConfig.APPLICATION_SMILE_VALUE})
+    public Mono<ResponseEntity<SensorResponse<BatchIngestResult>>> ingestSensorDataFrame(
+            @RequestBody Mono<SensorBatchFrame> frame) {
+        return ingestBatch(frame.flatMapMany(f -> Flux.range(0, frameSize(f)).map(i -> frameItem(f, i))));
+    }
+
+    /**
+     * Endpoint for ingesting a streaming batch of sensor readings supplied as newline-delimited JSON.
+     * Lines are parsed and written in batches as they are received, and the body is only read as fast as the batches
+     * are stored. Blank lines are skipped and malformed lines are reported as rejected items.
+     *
+     * @param lines the NDJSON request body, one SensorRequest per line.
+     * @return the accepted and rejected counts and the status of each item.
+     */
+    @PostMapping(value = "/data/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<SensorResponse<BatchIngestResult>>> ingestSensorDataNdjson(
+            @RequestBody Flux<String> lines) {
+        ObjectReader reader = objectMapper.readerFor(SensorRequest.class);
+        return ingestBatch(lines
+                .filter(line -> !line.isBlank())
+                .map(line -> {
+                    try {
+                        return new ParsedItem(reader.readValue(line), null);
+                    } catch (IOException e) {
+                        return new ParsedItem(null, Map.of("body", "Malformed JSON line"));
+                    }
+                }));
+    }
+
+    /**
+     * Endpoint for retrieving aggregated statistics for a specific device and metric.
+     * The result holds the aggregates of the metric's strategy, from the running aggregates; metrics whose strategy
+     * needs the individual readings stream every stored reading through the strategy's accumulator instead.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param precision `approx` (default) or `exact`.
+     * @return the aggregation result or a no-content response if no data is found.
+     */
+    @GetMapping("/data/stats")
+    public Mono<ResponseEntity<SensorResponse<MetricSummary>>> getSensorDataStats(
+            @RequestParam @NotBlank(message = "deviceId cannot be blank") String deviceId,
+            @RequestParam @NotBlank(message = "metric cannot be blank") String metric,
+            @RequestParam(required = false) String precision) {
+
+        Precision parsedPrecision = Precision.parse(precision);
+        AggregationStrategy strategy = strategyFactory.getStrategy(metric);
+        Mono<MetricSummary> result = strategy.requiresReadings()
+                ? accumulate(strategy, metric, parsedPrecision, service.scanReadings(deviceId, metric))
+                : summarize(strategy, metric, parsedPrecision == Precision.EXACT
+                        ? service.getExactSensorDataStats(deviceId, metric)
+                        : service.getSensorDataStats(deviceId, metric));
+
+        return result
+                .map(summary -> ResponseEntity.ok(
+                        SensorResponse.<MetricSummary>builder()
+                                .success(true)
+                                .message("Data retrieved successfully")
+                                .data(summary)
+                                .build()))
+                .defaultIfEmpty(ResponseEntity.noContent().build());
+    }
+
+    /**
+     * Endpoint for retrieving aggregated statistics for many devices and metrics in one request.
+     *
+     * @param request the device ids and/or device type, optional metrics and optional time range.
+     * @return the statistics keyed by device and then by metric.
+     */
+    @PostMapping("/data/stats/bulk")
+    public Mono<ResponseEntity<SensorResponse<Map<String, Map<String, MetricSummary>>>>> getBulkSensorDataStats(
+            @RequestBody BulkStatsRequest request) {
+        if (request.getDeviceType() != null && request.getDeviceType().isBlank()) {
+            request.setDeviceType(null);
+        }
+        boolean hasDevices = request.getDeviceIds() != null && !request.getDeviceIds().isEmpty();
+        if (!hasDevices && request.getDeviceType() == null) {
+            throw new BusinessException("Either deviceIds or deviceType is required");
+        }
+        int maxDevices = aggregationConfig.getBulk().getMaxDevices();
+        if (hasDevices && request.getDeviceIds().size() > maxDevices) {
+            throw new BusinessException("At most " + maxDevices + " deviceIds are allowed per request");
+        }
+        if ((request.getFrom() == null) != (request.getTo() == null)) {
+            throw new BusinessException("'from' and 'to' must be given together");
+        }
+        if (request.hasRange() && request.getTo().isBefore(request.getFrom())) {
+            throw new BusinessException("'to' must not be before 'from'");
+        }
+
+        return timed(Source.BULK, null, service.getBulkStats(request))
+                .map(result -> ResponseEntity.ok(
+                        SensorResponse.<Map<String, Map<String, MetricSummary>>>builder()
+                                .success(true)
+                                .message(result.isEmpty() ? "No data found" : "Data retrieved successfully")
+                                .data(result)
+                                .build()));
+    }
+
+    /**
+     * Endpoint for retrieving aggregated statistics for a specific device and metric within a time range.
+     * Metrics whose strategy reports percentiles, standard deviation or rate of change stream their readings
+     * through the strategy's accumulator; the others use the range statistics.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @param precision `approx` (default) or `exact`.
+     * @return the aggregation result or a success response with no data if the range is empty.
+     */
+    @GetMapping("/data/stats/range")
+    public Mono<ResponseEntity<SensorResponse<MetricSummary>>> getSensorDataStatsByTimeRange(
+            @RequestParam @NotBlank String deviceId,
+            @RequestParam @NotBlank String metric,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String precision
+    ) {
+        Precision parsedPrecision = Precision.parse(precision);
+        String query = parsedPrecision == Precision.EXACT ? "range:exact" : "range";
+
+        return statsCache.getAsync(deviceId, metric, query, from, to,
+                        (rangeFrom, rangeTo) -> computeStatsInRange(deviceId, metric, rangeFrom, rangeTo, parsedPrecision))
+                .map(summary -> ResponseEntity.ok(
+                        SensorResponse.<MetricSummary>builder()
+                                .success(true)
+                                .message("Aggregated stats in range")
+                                .data(summary)
+                                .build()))
+                .defaultIfEmpty(ResponseEntity.ok(
+                        SensorResponse.<MetricSummary>builder()
+                                .success(true)
+                                .message("No data found in given range")
+                                .data(null)
+                                .build()));
+    }
+
+    /**
+     * Endpoint for retrieving a time series of a device and metric for charts, either as per-bucket aggregates
+     * or, with `downsample=lttb`, as raw readings reduced to at most `maxPoints` points.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @param bucket the bucket size (e.g., 30s, 5m, 1h).
+     * @param aggs comma-separated aggregates per bucket: count, min, max, avg, median or a percentile such as p95.
+     * @param downsample set to `lttb` to return downsampled readings instead of buckets.
+     * @param maxPoints the maximum number of points returned in downsampling mode.
+     * @return the series points, in time order.
+     */
+    @GetMapping("/data/series")
+    public Mono<ResponseEntity<SensorResponse<List<SeriesPoint>>>> getSensorDataSeries(
+            @RequestParam @NotBlank String deviceId,
+            @RequestParam @NotBlank String metric,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "5m") String bucket,
+            @RequestParam(defaultValue = "min,max,avg") String aggs,
+            @RequestParam(required = false) String downsample,
+            @RequestParam(required = false) Integer maxPoints
+    ) {
+        if (to.isBefore(from)) {
+            throw new BusinessException("'to' must not be before 'from'");
+        }
+
+        Mono<List<SeriesPoint>> points;
+        if (downsample != null) {
+            if (!downsample.equalsIgnoreCase("lttb")) {
+                throw new BusinessException("Unsupported downsampling mode: " + downsample);
+            }
+            int limit = maxPoints != null ? maxPoints : aggregationConfig.getSeries().getDefaultMaxPoints();
+            if (limit < 3) {
+                throw new BusinessException("maxPoints must be at least 3");
+            }
+            points = statsCache.getAsync(deviceId, metric, "lttb:" + limit, from, to,
+                    (rangeFrom, rangeTo) -> timed(Source.SERIES, strategyFactory.getStrategy(metric),
+                            service.getDownsampledSeries(deviceId, metric, rangeFrom, rangeTo, limit)));
+        } else {
+            Duration bucketSize = parseBucket(bucket, from, to);
+            List<String> aggregates = SeriesAggregator.parseAggregates(aggs);
+            points = statsCache.getAsync(deviceId, metric, "series:" + bucketSize + ":" + aggregates, from, to,
+                    (rangeFrom, rangeTo) -> timed(Source.SERIES, strategyFactory.getStrategy(metric),
+                            service.getSeries(deviceId, metric, rangeFrom, rangeTo, bucketSize, aggregates)));
+        }
+
+        return points
+                .defaultIfEmpty(List.of())
+                .map(result -> ResponseEntity.ok(
+                        SensorResponse.<List<SeriesPoint>>builder()
+                                .success(true)
+                                .message(result.isEmpty() ? "No data found in given range" : "Series retrieved successfully")
+                                .data(result)
+                                .build()));
+    }
+
+    private Duration parseBucket(String bucket, LocalDateTime from, LocalDateTime to) {
+        Duration size;
+        try {
+            size = DurationStyle.detectAndParse(bucket);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Invalid bucket size: " + bucket);
+        }
+        if (size.getSeconds() < 1 || size.getNano() != 0) {
+            throw new BusinessException("Bucket size must be a whole number of seconds");
+        }
+        long buckets = Duration.between(from, to).getSeconds() / size.getSeconds() + 1;
+        int maxBuckets = aggregationConfig.getSeries().getMaxBuckets();
+        if (buckets > maxBuckets) {
+            throw new BusinessException("Range spans " + buckets + " buckets, the maximum is " + maxBuckets);
+        }
+        return size;
+    }
+
+    /**
+     * Records how long the given aggregation took once it completes; cache hits are not timed.
+     */
+    private <T> Mono<T> timed(Source source, AggregationStrategy strategy, Mono<T> aggregation) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return aggregation.doOnSuccess(result -> aggregationMetrics.recordDuration(source, strategy, start));
+        });
+    }
+
+    /**
+     * Computes the range statistics, or completes empty if there are no readings in the range.
+     */
+    private Mono<MetricSummary> computeStatsInRange(String deviceId, String metric, LocalDateTime from,
+                                                    LocalDateTime to, Precision precision) {
+        AggregationStrategy strategy = strategyFactory.getStrategy(metric);
+
+        if (strategy.requiresReadings()) {
+            return accumulate(strategy, metric, precision, service.scanReadingsInRange(deviceId, metric, from, to));
+        }
+
+        return summarize(strategy, metric, service.getStatsInRange(deviceId, metric, from, to, precision));
+    }
+
+    /**
+     * Streams the readings through the strategy's accumulator, completing empty if there are none.
+     */
+    private Mono<MetricSummary> accumulate(AggregationStrategy strategy, String metric, Precision precision,
+                                           Flux<TimedValue> readings) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return readings
+                    .reduceWith(() -> strategy.newAccumulator(precision), (accumulator, reading) -> {
+                        accumulator.add(reading.timestamp(), reading.value());
+                        return accumulator;
+                    })
+                    .doOnNext(accumulator -> aggregationMetrics.record(Source.ACCUMULATOR, strategy,
+                            accumulator.getCount(), start))
+                    .filter(accumulator -> accumulator.getCount() > 0)
+                    .map(accumulator -> accumulator.toSummary(metric));
+        });
+    }
+
+    /**
+     * Builds the strategy's summary from statistics, completing empty if they cover no reading.
+     */
+    private static Mono<MetricSummary> summarize(AggregationStrategy strategy, String metric, Mono<MetricStats> stats) {
+        return stats
+                .filter(value -> value.getCount() != null && value.getCount() > 0)
+                .map(value -> strategy.aggregateMetrics(metric, value));
+    }
+
+    /**
+     * Validates and stores the parsed items as they arrive, in one transaction, and reports the status of each item.
+     * Exceeding the configured maximum batch size fails the request and rolls back the readings written so far.
+     */
+    private Mono<ResponseEntity<SensorResponse<BatchIngestResult>>> ingestBatch(Flux<ParsedItem> items) {
+        int maxSize = ingestConfig.getBatch().getMaxSize();
+
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            List<BatchItemResult> results = new ArrayList<>();
+            List<SensorData> accepted = new ArrayList<>();
+            AtomicInteger index = new AtomicInteger();
+
+            Flux<SensorData> entities = items.handle((item, sink) -> {
+                int i = index.getAndIncrement();
+                if (i >= maxSize) {
+                    sink.error(new BusinessException("Batch size exceeds the maximum of " + maxSize + " readings"));
+                    return;
+                }
+                Map<String, String> errors = item.errors() != null ? item.errors() : validate(item.request());
+                if (errors.isEmpty()) {
+                    SensorData entity = mapper.toEntity(item.request());
+                    results.add(BatchItemResult.builder().index(i).accepted(true).build());
+                    accepted.add(entity);
+                    sink.next(entity);
+                } else {
+                    results.add(BatchItemResult.builder().index(i).accepted(false).errors(errors).build());
+                }
+            });
+
+            return service.saveSensorDataStream(entities)
+                    .map(saved -> toBatchResponse(accepted, results, start));
+        });
+    }
+
+    private ResponseEntity<SensorResponse<BatchIngestResult>> toBatchResponse(List<SensorData> entities,
+                                                                       List<BatchItemResult> results, long start) {
+        int accepted = entities.size();
+        int rejected = results.size() - accepted;
+        ingestMetrics.recordBatch(entities, rejected, start);
+
+        String message = rejected == 0 ? "Batch saved successfully"
+                : accepted > 0 ? "Batch saved with rejected readings"
+                : "No valid readings in batch";
+
+        BatchIngestResult result = BatchIngestResult.builder()
+                .accepted(accepted)
+                .rejected(rejected)
+                .items(results)
+                .build();
+
+        return ResponseEntity.status(accepted > 0 ? HttpStatus.CREATED : HttpStatus.BAD_REQUEST).body(
+                SensorResponse.<BatchIngestResult>builder()
+                        .success(rejected == 0)
+                        .message(message)
+                        .data(result)
+                        .build()
+        );
+    }
+
+    private int frameSize(SensorBatchFrame frame) {
+        try {
+            return frame.size();
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(e.getMessage());
+        }
+    }
+
+    private ParsedItem frameItem(SensorBatchFrame frame, int index) {
+        try {
+            return new ParsedItem(frame.reading(index), null);
+        } catch (IllegalArgumentException e) {
+            return new ParsedItem(null, Map.of("body", e.getMessage()));
+        }
+    }
+
+    private Map<String, String> validate(SensorRequest request) {
+        if (request == null) {
+            return Map.of("body", "Reading cannot be null");
+        }
+        return validator.validate(request).stream()
+                .collect(Collectors.toMap(
+                        v -> v.getPropertyPath().toString(),
+                        ConstraintViolation::getMessage,
+                        (existing, replacement) -> existing
+                ));
+    }
+
+    /**
+     * A batch item as read from the request body, either a parsed request or the parse errors.
+     */
+    private record ParsedItem(SensorRequest request, Map<String, String> errors) {
+    }
+}
@@ -1,32 +1,80 @@
 package com.relay42.iot.stream.controller;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.relay42.iot.stream.aggregation.AggregationMetrics;
+import com.relay42.iot.stream.aggregation.AggregationMetrics.Source;
+import com.relay42.iot.stream.aggregation.AggregationStrategy;
 import com.relay42.iot.stream.aggregation.AggregationStrategyFactory;
+import com.relay42.iot.stream.aggregation.MetricAccumulator;
+import com.relay42.iot.stream.aggregation.Precision;
+import com.relay42.iot.stream.aggregation.SeriesAggregator;
+import com.relay42.iot.stream.cache.StatsCache;
+import com.relay42.iot.stream.config.AggregationConfig;
+import com.relay42.iot.stream.config.BinaryFormatConfig;
+import com.relay42.iot.stream.config.IngestConfig;
 import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.exception.BusinessException;
+import com.relay42.iot.stream.exception.RequestTooLargeException;
+import com.relay42.iot.stream.ingest.IngestMetrics;
+import com.relay42.iot.stream.ingest.WriteBehindBuffer;
 import com.relay42.iot.stream.mapper.SensorDataMapper;
+import com.relay42.iot.stream.model.BatchIngestResult;
+import com.relay42.iot.stream.model.BatchItemResult;
+import com.relay42.iot.stream.model.BulkStatsRequest;
 import com.relay42.iot.stream.model.MetricSummary;
+import com.relay42.iot.stream.model.SensorBatchFrame;
 import com.relay42.iot.stream.model.SensorRequest;
 import com.relay42.iot.stream.model.SensorResponse;
+import com.relay42.iot.stream.model.SeriesPoint;
+import com.relay42.iot.stream.repository.MetricStats;
 import com.relay42.iot.stream.service.SensorDataService;
 import com.relay42.iot.stream.util.TimeFilter;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import jakarta.validation.constraints.NotBlank;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * REST controller for managing sensor data in the IoT Data Streaming API.
@@ -40,15 +88,28 @@ import java.util.List;
 @RequiredArgsConstructor
 @Tag(name = "Sensor API", description = "Sensor readings and aggregation endpoints")
 @Validated
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class SensorDataControllerV1 {
 
     private final SensorDataService service;
     private final SensorDataMapper mapper;
     private final AggregationStrategyFactory strategyFactory;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final IngestConfig ingestConfig;
+    private final WriteBehindBuffer writeBehindBuffer;
+    private final AggregationConfig aggregationConfig;
+    private final StatsCache statsCache;
+    private final IngestMetrics ingestMetrics;
+    private final AggregationMetrics aggregationMetrics;
+    private final MappingJackson2CborHttpMessageConverter cborConverter;
+    private final MappingJackson2SmileHttpMessageConverter smileConverter;
 
     /**
      * Endpoint for ingesting sensor data into the system.
      * Accepts a SensorRequest object, maps it to a SensorData entity, and saves it to the database.
+     * In write-behind mode the entity is handed to the in-memory buffer and 202 Accepted is returned
+     * before the database write happens.
      *
      * @param request the SensorRequest object containing sensor data to be ingested.
      * @return a ResponseEntity containing a success message if the data is saved successfully.
@@ -57,33 +118,153 @@ public class SensorDataControllerV1 {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Data saved successfully",
                     content = @Content(schema = @Schema(implementation = SensorResponse.class))),
+            @ApiResponse(responseCode = "202", description = "Data accepted for asynchronous persistence (write-behind mode)",
+                    content = @Content),
             @ApiResponse(responseCode = "400", description = "Invalid request data",
                     content = @Content(schema = @Schema(implementation = SensorResponse.class))),
+            @ApiResponse(responseCode = "503", description = "Write-behind buffer is full, retry later",
+                    content = @Content(schema = @Schema(implementation = SensorResponse.class))),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content(schema = @Schema(implementation = SensorResponse.class)))
     })
     @PostMapping("/data")
     public ResponseEntity<Void> ingestSensorData(@Valid @RequestBody SensorRequest request) {
-        log.info("Entered into method ::ingestSensorData");
-        log.info("Ingesting data for device: {}, metric: {}", request.getDeviceId(), request.getMetric());
+        long start = System.nanoTime();
+        log.debug("Ingesting data for device [{}] and metric [{}]", request.getDeviceId(), request.getMetric());
 
         SensorData entity = mapper.toEntity(request);
-        log.info("Mapped entity: {}", entity);
 
-        service.saveSensorData(entity);
+        if (writeBehindBuffer.isEnabled()) {
+            writeBehindBuffer.submit(entity);
+            ingestMetrics.recordSingle(entity, start);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+        }
 
-        log.info("Exit from method ::ingestSensorData");
+        service.saveSensorData(entity);
+        ingestMetrics.recordSingle(entity, start);
 
         return ResponseEntity.status(HttpStatus.CREATED).build();
     }
 
+    /**
+     * Endpoint for ingesting a batch of sensor readings supplied as an array, in JSON, CBOR or Smile.
+     * Each reading is validated individually; valid readings are written in a single transaction
+     * using JDBC batch inserts and invalid ones are reported back without failing the whole batch.
+     * The body is parsed one element at a time and never beyond `ingest.batch.max-request-size` bytes, and parsing
+     * stops at the first reading past `ingest.batch.max-size`, so an oversized batch is rejected without being
+     * deserialized. Elements that cannot be mapped to a reading are reported as rejected items.
+     *
+     * @param request the HTTP request whose body holds the array of SensorRequest objects.
+     * @return a ResponseEntity containing the accepted and rejected counts and the status of each item.
+     * @throws IOException if the request body cannot be read.
+     */
+    @Operation(summary = "Ingest a batch of sensor data", description = "Accepts an array (JSON, CBOR or Smile) or NDJSON body of sensor readings and saves the valid ones in one transaction.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "At least one reading saved successfully",
+                    content = @Content(schema = @Schema(implementation = SensorResponse.class))),
+            @ApiResponse(responseCode = "400", description = "No valid readings in the batch or batch too large",
+                    content = @Content(schema = @Schema(implementation = SensorResponse.class)))
+    })
+    @PostMapping(value = "/data/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            BinaryFormatConfig.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<SensorResponse<BatchIngestResult>> ingestSensorDataBatch(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(content = @Content(
+                    array = @ArraySchema(schema = @Schema(implementation = SensorRequest.class))))
+            HttpServletRequest request) throws IOException {
+        ObjectMapper mapper = mapperFor(request);
+        ObjectReader reader = mapper.readerFor(SensorRequest.class);
+        List<ParsedItem> items = new ArrayList<>();
+        try (JsonParser parser = mapper.createParser(boundedBody(request))) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new BusinessException("Request body must be an array of readings");
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                checkBatchSize(items.size() + 1);
+                JsonNode element = parser.readValueAsTree();
+                try {
+                    items.add(new ParsedItem(reader.readValue(element), null));
+                } catch (IOException e) {
+                    items.add(new ParsedItem(null, Map.of("body", "Malformed reading")));
+                }
+            }
+        } catch (JsonProcessingException e) {
+            throw new BusinessException("Malformed request body");
+        }
+        return ingestBatch(items);
+    }
+
+    /**
+     * Endpoint for ingesting a batch of sensor readings supplied as newline-delimited JSON.
+     * Blank lines are skipped and malformed lines are reported as rejected items.
+     * The body is read line by line under the same byte and reading limits as the array form.
+     *
+     * @param request the HTTP request whose body holds one SensorRequest per line.
+     * @return a ResponseEntity containing the accepted and rejected counts and the status of each item.
+     * @throws IOException if the request body cannot be read.
+     */
+    @PostMapping(value = "/data/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<SensorResponse<BatchIngestResult>> ingestSensorDataNdjson(HttpServletRequest request)
+            throws IOException {
+        ObjectReader reader = objectMapper.readerFor(SensorRequest.class);
+        List<ParsedItem> items = new ArrayList<>();
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(boundedBody(request), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                checkBatchSize(items.size() + 1);
+                try {
+                    items.add(new ParsedItem(reader.readValue(line), null));
+                } catch (IOException e) {
+                    items.add(new ParsedItem(null, Map.of("body", "Malformed JSON line")));
+                }
+            }
+        }
+        return ingestBatch(items);
+    }
+
+    /**
+     * Endpoint for ingesting a batch of sensor readings supplied as a dictionary-encoded frame, in JSON, CBOR or Smile.
+     * Readings referring to a dictionary entry that does not exist are reported as rejected items.
+     *
+     * @param frame the readings, see {@link SensorBatchFrame}.
+     * @return a ResponseEntity containing the accepted and rejected counts and the status of each item.
+     */
+    @Operation(summary = "Ingest a dictionary-encoded batch of sensor data", description = "Accepts a column-oriented frame with device and metric dictionaries and epoch-millisecond timestamps.")
+    @PostMapping(value = "/data/frame", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE,
+            BinaryFormatConfig.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<SensorResponse<BatchIngestResult>> ingestSensorDataFrame(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(content = @Content(
+                    schema = @Schema(implementation = SensorBatchFrame.class)))
+            HttpServletRequest request) throws IOException {
+        SensorBatchFrame frame;
+        try {
+            frame = mapperFor(request).readValue(boundedBody(request), SensorBatchFrame.class);
+        } catch (JsonProcessingException e) {
+            throw new BusinessException("Malformed request body");
+        }
+        int size = frameSize(frame);
+        List<ParsedItem> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(frameItem(frame, i));
+        }
+        return ingestBatch(items);
+    }
+
 
     /**
      * Endpoint for retrieving aggregated statistics for a specific device and metric.
-     * Fetches sensor data from the database and calculates aggregation results using the appropriate strategy.
+     * The result holds the aggregates of the metric's strategy, as for range statistics. They are served from the
+     * running aggregates maintained on ingest, so the cost does not depend on the device history.
+     * With `precision=exact` the median is computed from every stored reading instead of the quantile sketch.
+     * Running aggregates only hold count, min, max, average and a median sketch, so metrics whose strategy reports
+     * percentiles, standard deviation or rate of change fall back to streaming every stored reading through the
+     * strategy's accumulator.
      *
      * @param deviceId the identifier of the device.
      * @param metric the metric type (e.g., temperature, humidity).
+     * @param precision `approx` (default) or `exact`.
      * @return a ResponseEntity containing the aggregation result or a no-content response if no data is found.
      */
     @Operation(summary = "Get aggregated statistics", description = "Fetches aggregated statistics for a specific device and metric.")
@@ -98,22 +279,28 @@ public class SensorDataControllerV1 {
     @GetMapping("/data/stats")
     public ResponseEntity<SensorResponse<MetricSummary>> getSensorDataStats(
             @RequestParam @NotBlank(message = "deviceId cannot be blank") String deviceId,
-            @RequestParam @NotBlank(message = "metric cannot be blank") String metric) {
+            @RequestParam @NotBlank(message = "metric cannot be blank") String metric,
+            @RequestParam(required = false) String precision) {
 
-        log.info("Entered into method ::getSensorDataStats");
-        log.info("Fetching stats for device [{}] and metric [{}]", deviceId, metric);
+        log.debug("Fetching stats for device [{}] and metric [{}]", deviceId, metric);
 
-        List<SensorData> dataList = service.getSensorData(deviceId, metric);
+        Precision parsedPrecision = Precision.parse(precision);
+        AggregationStrategy strategy = strategyFactory.getStrategy(metric);
+        MetricSummary result;
+        if (strategy.requiresReadings()) {
+            result = accumulate(strategy, metric, parsedPrecision,
+                    consumer -> service.scanReadings(deviceId, metric, consumer));
+        } else {
+            result = summarize(strategy, metric, parsedPrecision == Precision.EXACT
+                    ? service.getExactSensorDataStats(deviceId, metric)
+                    : service.getSensorDataStats(deviceId, metric));
+        }
 
-        if (dataList.isEmpty()) {
-            log.warn("No data found for device [{}] and metric [{}]", deviceId, metric);
+        if (result == null) {
+            log.debug("No data found for device [{}] and metric [{}]", deviceId, metric);
             return ResponseEntity.noContent().build();  // 204 No Content
         }
 
-        MetricSummary result = strategyFactory.getStrategy(metric).aggregateMetrics(metric, dataList);
-
-        log.info("Exit from method ::getSensorDataStats");
-
         return ResponseEntity.ok(
                 SensorResponse.<MetricSummary>builder()
                         .success(true)
@@ -123,14 +310,70 @@ public class SensorDataControllerV1 {
         );
     }
 
+    /**
+     * Endpoint for retrieving aggregated statistics for many devices and metrics in one request.
+     * Without a time range or device type the statistics come from the running aggregates; otherwise the whole
+     * request is answered by a single grouped query or a single scan instead of one query per device.
+     *
+     * @param request the device ids and/or device type, optional metrics and optional time range.
+     * @return a ResponseEntity containing the statistics keyed by device and then by metric.
+     */
+    @Operation(summary = "Get aggregated statistics for many devices", description = "Fetches statistics for a list of devices and/or a device type, optionally limited to metrics and a time range.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Aggregated statistics retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = SensorResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid request",
+                    content = @Content(schema = @Schema(implementation = SensorResponse.class)))
+    })
+    @PostMapping("/data/stats/bulk")
+    public ResponseEntity<SensorResponse<Map<String, Map<String, MetricSummary>>>> getBulkSensorDataStats(
+            @RequestBody BulkStatsRequest request) {
+        if (request.getDeviceType() != null && request.getDeviceType().isBlank()) {
+            request.setDeviceType(null);
+        }
+        boolean hasDevices = request.getDeviceIds() != null && !request.getDeviceIds().isEmpty();
+        if (!hasDevices && request.getDeviceType() == null) {
+            throw new BusinessException("Either deviceIds or deviceType is required");
+        }
+        int maxDevices = aggregationConfig.getBulk().getMaxDevices();
+        if (hasDevices && request.getDeviceIds().size() > maxDevices) {
+            throw new BusinessException("At most " + maxDevices + " deviceIds are allowed per request");
+        }
+        if ((request.getFrom() == null) != (request.getTo() == null)) {
+            throw new BusinessException("'from' and 'to' must be given together");
+        }
+        if (request.hasRange() && request.getTo().isBefore(request.getFrom())) {
+            throw new BusinessException("'to' must not be before 'from'");
+        }
+
+        long start = System.nanoTime();
+        Map<String, Map<String, MetricSummary>> result = service.getBulkStats(request);
+        aggregationMetrics.recordDuration(Source.BULK, null, start);
+
+        return ResponseEntity.ok(
+                SensorResponse.<Map<String, Map<String, MetricSummary>>>builder()
+                        .success(true)
+                        .message(result.isEmpty() ? "No data found" : "Data retrieved successfully")
+                        .data(result)
+                        .build()
+        );
+    }
+
     /**
      * Endpoint for retrieving aggregated statistics for a specific device and metric within a time range.
      * Filters sensor data by the specified time range and calculates aggregation results using the appropriate strategy.
+     * When the database supports it the statistics are computed by a single aggregate query;
+     * otherwise the matching readings are loaded and aggregated in the JVM.
+     * Metrics whose strategy reports percentiles, standard deviation or rate of change stream their readings
+     * through the strategy's accumulator in a single pass instead.
+     * With `precision=approx` (the default) medians and percentiles may come from mergeable quantile sketches;
+     * `precision=exact` computes them from every reading of the range.
      *
      * @param deviceId the identifier of the device.
      * @param metric the metric type (e.g., temperature, humidity).
      * @param from the start of the time range (inclusive).
      * @param to the end of the time range (inclusive).
+     * @param precision `approx` (default) or `exact`.
      * @return a ResponseEntity containing the aggregation result or a success response with no data if the range is empty.
      */
     @Operation(summary = "Get aggregated statistics by time range", description = "Fetches aggregated statistics for a specific device and metric within a specified time range.")
@@ -146,24 +389,18 @@ public class SensorDataControllerV1 {
             @RequestParam @NotBlank String deviceId,
             @RequestParam @NotBlank String metric,
             @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
-            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String precision
     ) {
-        List<SensorData> dataList = service.getDataInRange(deviceId, metric, from, to);
+        Precision parsedPrecision = Precision.parse(precision);
+        String query = parsedPrecision == Precision.EXACT ? "range:exact" : "range";
+        MetricSummary result = statsCache.get(deviceId, metric, query, from, to,
+                (rangeFrom, rangeTo) -> computeStatsInRange(deviceId, metric, rangeFrom, rangeTo, parsedPrecision));
 
-        if (dataList.isEmpty()) {
-            return ResponseEntity.ok(
-                    SensorResponse.<MetricSummary>builder()
-                            .success(true)
-                            .message("No data found in given range")
-                            .data(null)
-                            .build()
-            );
+        if (result == null) {
+            return noDataInRange();
         }
 
-        MetricSummary result = strategyFactory
-                .getStrategy(metric)
-                .aggregateMetrics(metric, dataList);
-
         return ResponseEntity.ok(
                 SensorResponse.<MetricSummary>builder()
                         .success(true)
@@ -173,4 +410,297 @@ public class SensorDataControllerV1 {
         );
     }
 
+    /**
+     * Endpoint for retrieving a time series of a device and metric for charts.
+     * In bucket mode the readings are aggregated into fixed-size buckets (e.g., `5m`) in a single pass, reporting
+     * only the requested aggregates per bucket. With `downsample=lttb` the raw readings are returned instead,
+     * reduced with Largest-Triangle-Three-Buckets to at most `maxPoints` points.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @param bucket the bucket size (e.g., 30s, 5m, 1h).
+     * @param aggs comma-separated aggregates per bucket: count, min, max, avg, median or a percentile such as p95.
+     * @param downsample set to `lttb` to return downsampled readings instead of buckets.
+     * @param maxPoints the maximum number of points returned in downsampling mode.
+     * @return a ResponseEntity containing the series points, in time order.
+     */
+    @Operation(summary = "Get time series", description = "Fetches per-bucket aggregates, or LTTB-downsampled readings, for a device and metric within a time range.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Series retrieved successfully or no data found",
+                    content = @Content(schema = @Schema(implementation = SensorResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid request parameters",
+                    content = @Content(schema = @Schema(implementation = SensorResponse.class)))
+    })
+    @GetMapping("/data/series")
+    public ResponseEntity<SensorResponse<List<SeriesPoint>>> getSensorDataSeries(
+            @RequestParam @NotBlank String deviceId,
+            @RequestParam @NotBlank String metric,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "5m") String bucket,
+            @RequestParam(defaultValue = "min,max,avg") String aggs,
+            @RequestParam(required = false) String downsample,
+            @RequestParam(required = false) Integer maxPoints
+    ) {
+        if (to.isBefore(from)) {
+            throw new BusinessException("'to' must not be before 'from'");
+        }
+
+        List<SeriesPoint> points;
+        if (downsample != null) {
+            if (!downsample.equalsIgnoreCase("lttb")) {
+                throw new BusinessException("Unsupported downsampling mode: " + downsample);
+            }
+            int limit = maxPoints != null ? maxPoints : aggregationConfig.getSeries().getDefaultMaxPoints();
+            if (limit < 3) {
+                throw new BusinessException("maxPoints must be at least 3");
+            }
+            points = statsCache.get(deviceId, metric, "lttb:" + limit, from, to,
+                    (rangeFrom, rangeTo) -> timedSeries(metric,
+                            () -> service.getDownsampledSeries(deviceId, metric, rangeFrom, rangeTo, limit)));
+        } else {
+            Duration bucketSize = parseBucket(bucket, from, to);
+            List<String> aggregates = SeriesAggregator.parseAggregates(aggs);
+            points = statsCache.get(deviceId, metric, "series:" + bucketSize + ":" + aggregates, from, to,
+                    (rangeFrom, rangeTo) -> timedSeries(metric,
+                            () -> service.getSeries(deviceId, metric, rangeFrom, rangeTo, bucketSize, aggregates)));
+        }
+
+        return ResponseEntity.ok(
+                SensorResponse.<List<SeriesPoint>>builder()
+                        .success(true)
+                        .message(points.isEmpty() ? "No data found in given range" : "Series retrieved successfully")
+                        .data(points)
+                        .build()
+        );
+    }
+
+    private Duration parseBucket(String bucket, LocalDateTime from, LocalDateTime to) {
+        Duration size;
+        try {
+            size = DurationStyle.detectAndParse(bucket);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Invalid bucket size: " + bucket);
+        }
+        if (size.getSeconds() < 1 || size.getNano() != 0) {
+            throw new BusinessException("Bucket size must be a whole number of seconds");
+        }
+        long buckets = Duration.between(from, to).getSeconds() / size.getSeconds() + 1;
+        int maxBuckets = aggregationConfig.getSeries().getMaxBuckets();
+        if (buckets > maxBuckets) {
+            throw new BusinessException("Range spans " + buckets + " buckets, the maximum is " + maxBuckets);
+        }
+        return size;
+    }
+
+    /**
+     * Computes the range statistics, or returns null if there are no readings in the range.
+     */
+    private MetricSummary computeStatsInRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to,
+                                              Precision precision) {
+        AggregationStrategy strategy = strategyFactory.getStrategy(metric);
+
+        if (strategy.requiresReadings()) {
+            return accumulate(strategy, metric, precision,
+                    consumer -> service.scanReadingsInRange(deviceId, metric, from, to, consumer));
+        }
+
+        return summarize(strategy, metric, precision == Precision.EXACT
+                ? service.getExactStatsInRange(deviceId, metric, from, to)
+                : service.getStatsInRange(deviceId, metric, from, to));
+    }
+
+    /**
+     * Streams readings through the strategy's accumulator, or returns null if there are none.
+     */
+    private MetricSummary accumulate(AggregationStrategy strategy, String metric, Precision precision,
+                                     Consumer<ObjDoubleConsumer<LocalDateTime>> scan) {
+        long start = System.nanoTime();
+        MetricAccumulator accumulator = strategy.newAccumulator(precision);
+        scan.accept(accumulator::add);
+        aggregationMetrics.record(Source.ACCUMULATOR, strategy, accumulator.getCount(), start);
+        return accumulator.getCount() == 0 ? null : accumulator.toSummary(metric);
+    }
+
+    /**
+     * Builds the strategy's summary from statistics, or returns null if they cover no reading.
+     */
+    private static MetricSummary summarize(AggregationStrategy strategy, String metric, MetricStats stats) {
+        if (stats.getCount() == null || stats.getCount() == 0) {
+            return null;
+        }
+        return strategy.aggregateMetrics(metric, stats);
+    }
+
+    /**
+     * Computes a series and records how long it took; cache hits are not timed.
+     */
+    private List<SeriesPoint> timedSeries(String metric, Supplier<List<SeriesPoint>> series) {
+        long start = System.nanoTime();
+        List<SeriesPoint> points = series.get();
+        aggregationMetrics.recordDuration(Source.SERIES, strategyFactory.getStrategy(metric), start);
+        return points;
+    }
+
+    private ResponseEntity<SensorResponse<MetricSummary>> noDataInRange() {
+        return ResponseEntity.ok(
+                SensorResponse.<MetricSummary>builder()
+                        .success(true)
+                        .message("No data found in given range")
+                        .data(null)
+                        .build()
+        );
+    }
+
+    private ResponseEntity<SensorResponse<BatchIngestResult>> ingestBatch(List<ParsedItem> items) {
+        long start = System.nanoTime();
+        checkBatchSize(items.size());
+
+        List<SensorData> entities = new ArrayList<>(items.size());
+        List<BatchItemResult> results = new ArrayList<>(items.size());
+
+        for (int i = 0; i < items.size(); i++) {
+            ParsedItem item = items.get(i);
+            Map<String, String> errors = item.errors() != null ? item.errors() : validate(item.request());
+
+            if (errors.isEmpty()) {
+                entities.add(mapper.toEntity(item.request()));
+                results.add(BatchItemResult.builder().index(i).accepted(true).build());
+            } else {
+                results.add(BatchItemResult.builder().index(i).accepted(false).errors(errors).build());
+            }
+        }
+
+        int accepted = service.saveSensorDataBatch(entities);
+        int rejected = items.size() - entities.size();
+        ingestMetrics.recordBatch(entities, rejected, start);
+
+        String message = rejected == 0 ? "Batch saved successfully"
+                : accepted > 0 ? "Batch saved with rejected readings"
+                : "No valid readings in batch";
+
+        BatchIngestResult result = BatchIngestResult.builder()
+                .accepted(accepted)
+                .rejected(rejected)
+                .items(results)
+                .build();
+
+        return ResponseEntity.status(accepted > 0 ? HttpStatus.CREATED : HttpStatus.BAD_REQUEST).body(
+                SensorResponse.<BatchIngestResult>builder()
+                        .success(rejected == 0)
+                        .message(message)
+                        .data(result)
+                        .build()
+        );
+    }
+
+    private void checkBatchSize(int size) {
+        int maxSize = ingestConfig.getBatch().getMaxSize();
+        if (size > maxSize) {
+            throw new BusinessException("Batch size exceeds the maximum of " + maxSize + " readings");
+        }
+    }
+
+    /**
+     * Returns the request body, refusing it up front when its declared length exceeds `ingest.batch.max-request-size`
+     * and failing the read once a body without a declared length, e.g. a chunked one, grows past it.
+     */
+    private InputStream boundedBody(HttpServletRequest request) throws IOException {
+        long maxBytes = ingestConfig.getBatch().getMaxRequestSize().toBytes();
+        if (request.getContentLengthLong() > maxBytes) {
+            throw new RequestTooLargeException("Request body exceeds the maximum of " + maxBytes + " bytes");
+        }
+        return new BoundedInputStream(request.getInputStream(), maxBytes);
+    }
+
+    /**
+     * Returns the mapper of the request's Content-Type: the CBOR or Smile mapper of the message converters, or JSON.
+     */
+    private ObjectMapper mapperFor(HttpServletRequest request) {
+        MediaType contentType = request.getContentType() != null
+                ? MediaType.parseMediaType(request.getContentType()) : MediaType.APPLICATION_JSON;
+        if (MediaType.APPLICATION_CBOR.isCompatibleWith(contentType)) {
+            return cborConverter.getObjectMapper();
+        }
+        if (MediaType.valueOf(BinaryFormatConfig.APPLICATION_SMILE_VALUE).isCompatibleWith(contentType)) {
+            return smileConverter.getObjectMapper();
+        }
+        return objectMapper;
+    }
+
+    private int frameSize(SensorBatchFrame frame) {
+        try {
+            return frame.size();
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(e.getMessage());
+        }
+    }
+
+    private ParsedItem frameItem(SensorBatchFrame frame, int index) {
+        try {
+            return new ParsedItem(frame.reading(index), null);
+        } catch (IllegalArgumentException e) {
+            return new ParsedItem(null, Map.of("body", e.getMessage()));
+        }
+    }
+
+    private Map<String, String> validate(SensorRequest request) {
+        if (request == null) {
+            return Map.of("body", "Reading cannot be null");
+        }
+        return validator.validate(request).stream()
+                .collect(Collectors.toMap(
+                        v -> v.getPropertyPath().toString(),
+                        ConstraintViolation::getMessage,
+                        (existing, replacement) -> existing
+                ));
+    }
+
+    /**
+     * A batch item as read from the request body, either a parsed request or the parse errors.
+     */
+    private record ParsedItem(SensorRequest request, Map<String, String> errors) {
+    }
+
+    /**
+     * Input stream that fails with {@link RequestTooLargeException} once more than `maxBytes` bytes have been read.
+     */
+    private static final class BoundedInputStream extends FilterInputStream {
+
+        private final long maxBytes;
+        private long read;
+
+        BoundedInputStream(InputStream in, long maxBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) {
+            read += n;
+            if (read > maxBytes) {
+                throw new RequestTooLargeException("Request body exceeds the maximum of " + maxBytes + " bytes");
+            }
+        }
+    }
+
 }
@@ -0,0 +1,65 @@
+package com.relay42.iot.stream.entity;
+
+import com.relay42.iot.stream.repository.SensorDimensionRepository;
+import com.relay42.iot.stream.repository.SensorDimensionRepository.Dimension;
+import jakarta.persistence.AttributeConverter;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Maps a dictionary-encoded name of {@link SensorData} to the integer key stored in its column.
+ * Instances are created by Hibernate through the Spring bean container while the EntityManagerFactory is built,
+ * before the dictionary, which depends on the transaction manager, can exist; it is therefore resolved on first use.
+ *
+ * Converting a name never stores it: names are interned by {@link SensorDataDimensionListener} before an entity
+ * is inserted, and a query on a name that was never stored binds {@link SensorDimensionRepository#UNKNOWN_KEY}.
+ */
+public abstract class DimensionConverter implements AttributeConverter<String, Integer> {
+
+    private final ObjectProvider<SensorDimensionRepository> dimensions;
+    private final Dimension dimension;
+
+    protected DimensionConverter(ObjectProvider<SensorDimensionRepository> dimensions, Dimension dimension) {
+        this.dimensions = dimensions;
+        this.dimension = dimension;
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(String name) {
+        return dimensions.getObject().keyOf(dimension, name);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer key) {
+        return dimensions.getObject().nameOf(dimension, key);
+    }
+
+    /**
+     * Converts `deviceId` to the `sensor_device` key.
+     */
+    public static class DeviceId extends DimensionConverter {
+
+        public DeviceId(ObjectProvider<SensorDimensionRepository> dimensions) {
+            super(dimensions, Dimension.DEVICE);
+        }
+    }
+
+    /**
+     * Converts `metric` to the `sensor_metric` key.
+     */
+    public static class Metric extends DimensionConverter {
+
+        public Metric(ObjectProvider<SensorDimensionRepository> dimensions) {
+            super(dimensions, Dimension.METRIC);
+        }
+    }
+
+    /**
+     * Converts `deviceType` to the `sensor_device_type` key.
+     */
+    public static class DeviceType extends DimensionConverter {
+
+        public DeviceType(ObjectProvider<SensorDimensionRepository> dimensions) {
+            super(dimensions, Dimension.DEVICE_TYPE);
+        }
+    }
+}
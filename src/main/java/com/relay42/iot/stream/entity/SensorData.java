@@ -7,10 +7,13 @@ import java.time.LocalDateTime;
 
 /**
  * Entity class representing sensor data collected from IoT devices.
- * Maps to the 'sensor_data' table in the database.
+ * Maps to the 'sensor_data' table in the database, where the device id, metric and device type are stored
+ * as integer keys of their dimension tables and converted back to names on load.
  */
 @Entity
-@Table(name = "sensor_data")
+@Table(name = "sensor_data", indexes = @Index(name = "idx_sensor_data_device_metric_ts",
+        columnList = "device_key, metric_key, data_timestamp"))
+@EntityListeners(SensorDataDimensionListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -30,14 +33,16 @@ public class SensorData {
      * Identifier of the device that generated the sensor data.
      * Cannot be null.
      */
-    @Column(name = "device_id", nullable = false)
+    @Column(name = "device_key", nullable = false)
+    @Convert(converter = DimensionConverter.DeviceId.class)
     private String deviceId;
 
     /**
      * Metric type of the sensor data (e.g., temperature, humidity).
      * Cannot be null.
      */
-    @Column(nullable = false)
+    @Column(name = "metric_key", nullable = false)
+    @Convert(converter = DimensionConverter.Metric.class)
     private String metric;
 
     /**
@@ -58,7 +63,8 @@ public class SensorData {
      * Type of the device that generated the sensor data (e.g., thermostat, sensor).
      * Optional field.
      */
-    @Column(name = "device_type")
+    @Column(name = "device_type_key")
+    @Convert(converter = DimensionConverter.DeviceType.class)
     private String deviceType;
 
 }
@@ -0,0 +1,26 @@
+package com.relay42.iot.stream.entity;
+
+import com.relay42.iot.stream.repository.SensorDimensionRepository;
+import jakarta.persistence.PrePersist;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+
+/**
+ * Stores the device id, metric and device type of a {@link SensorData} in the dimension tables before JPA
+ * inserts it, so {@link DimensionConverter} can resolve their keys.
+ * Created by Hibernate through the Spring bean container; like the converters, it resolves the dictionary on first use.
+ */
+public class SensorDataDimensionListener {
+
+    private final ObjectProvider<SensorDimensionRepository> dimensions;
+
+    public SensorDataDimensionListener(ObjectProvider<SensorDimensionRepository> dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    @PrePersist
+    public void intern(SensorData data) {
+        dimensions.getObject().internAll(List.of(data));
+    }
+}
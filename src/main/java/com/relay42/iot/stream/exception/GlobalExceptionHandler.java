@@ -4,12 +4,16 @@ import com.relay42.iot.stream.model.ErrorResponse;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.server.ServerWebInputException;
 import org.springframework.web.servlet.NoHandlerFoundException;
 import org.springframework.web.servlet.resource.NoResourceFoundException;
 
@@ -26,7 +30,8 @@ public class GlobalExceptionHandler {
     @ExceptionHandler({
             MethodArgumentNotValidException.class,
             ConstraintViolationException.class,
-            MethodArgumentTypeMismatchException.class
+            MethodArgumentTypeMismatchException.class,
+            ServerWebInputException.class
     })
     public ResponseEntity<ErrorResponse> handleValidationExceptions(Exception ex) {
         Map<String, String> errorMap = new HashMap<>();
@@ -48,6 +53,24 @@ public class GlobalExceptionHandler {
         } else if (ex instanceof MethodArgumentTypeMismatchException e) {
             String param = e.getName();
             errorMap.put(param, "Invalid format for '" + param + "'. Expected format: yyyy-MM-dd'T'HH:mm:ss");
+        } else if (ex instanceof WebExchangeBindException e) {
+            // Reactive stack: @Valid request body
+            errorMap = e.getFieldErrors().stream()
+                    .collect(Collectors.toMap(
+                            field -> field.getField(),
+                            field -> field.getDefaultMessage(),
+                            (existing, replacement) -> existing
+                    ));
+        } else if (ex instanceof ServerWebInputException e) {
+            // Reactive stack: missing or unconvertible request parameter, or unreadable body
+            String param = e.getMethodParameter() != null ? e.getMethodParameter().getParameterName() : null;
+            if (param == null) {
+                errorMap.put("body", e.getReason());
+            } else if (e.getCause() instanceof TypeMismatchException) {
+                errorMap.put(param, "Invalid format for '" + param + "'. Expected format: yyyy-MM-dd'T'HH:mm:ss");
+            } else {
+                errorMap.put(param, e.getReason());
+            }
         }
 
         ErrorResponse error = ErrorResponse.builder()
@@ -78,6 +101,21 @@ public class GlobalExceptionHandler {
         return buildError(HttpStatus.BAD_REQUEST, ex.getMessage(), null);
     }
 
+    @ExceptionHandler(RequestTooLargeException.class)
+    public ResponseEntity<ErrorResponse> handleRequestTooLargeException(RequestTooLargeException ex) {
+        return buildError(HttpStatus.PAYLOAD_TOO_LARGE, ex.getMessage(), null);
+    }
+
+    // ---------- Backpressure ----------
+    @ExceptionHandler(IngestRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleIngestRejectedException(IngestRejectedException ex) {
+        HttpStatus status = HttpStatus.resolve(ex.getStatus());
+        ResponseEntity<ErrorResponse> error = buildError(status != null ? status : HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), null);
+        return ResponseEntity.status(error.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error.getBody());
+    }
+
     // ---------- Fallback ----------
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGenericException(Exception ex) {
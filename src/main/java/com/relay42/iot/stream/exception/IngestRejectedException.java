@@ -0,0 +1,32 @@
+package com.relay42.iot.stream.exception;
+
+/**
+ * Exception thrown when an ingest request cannot be accepted because the write-behind buffer is full.
+ * Carries the HTTP status the client should receive so that it backs off and retries later.
+ */
+public class IngestRejectedException extends RuntimeException {
+
+    private final int status;
+
+    /**
+     * Constructs a new IngestRejectedException with the specified error message and HTTP status.
+     *
+     * @param message the detail message explaining the reason for the rejection.
+     * @param status the HTTP status code to return to the client (e.g., 429 or 503).
+     */
+    public IngestRejectedException(String message, int status) {
+
+        super(message);
+        this.status = status;
+    }
+
+    /**
+     * Returns the HTTP status code to return to the client.
+     *
+     * @return the HTTP status code.
+     */
+    public int getStatus() {
+
+        return status;
+    }
+}
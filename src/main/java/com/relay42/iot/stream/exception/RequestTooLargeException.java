@@ -0,0 +1,18 @@
+package com.relay42.iot.stream.exception;
+
+/**
+ * Exception thrown when a request body is larger than the configured maximum, either as declared by its
+ * Content-Length or as counted while it is read.
+ */
+public class RequestTooLargeException extends RuntimeException {
+
+    /**
+     * Constructs a new RequestTooLargeException with the specified error message.
+     *
+     * @param message the detail message explaining the reason for the rejection.
+     */
+    public RequestTooLargeException(String message) {
+
+        super(message);
+    }
+}
@@ -0,0 +1,143 @@
+package com.relay42.iot.stream.ingest;
+
+import com.relay42.iot.stream.config.IngestConfig;
+import com.relay42.iot.stream.entity.SensorData;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts and times ingest requests in place of per-request log lines.
+ * Meters are tagged with the device type of the readings. Only the first `ingest.metrics.max-device-types`
+ * distinct types get their own tag value; later ones are reported as `other`, and readings without a type as `none`,
+ * so a client sending arbitrary types cannot grow the number of time series without bound.
+ * One request in every `ingest.logging.sample-every` is still logged at INFO.
+ */
+@Slf4j
+@Component
+public class IngestMetrics {
+
+    static final String OTHER = "other";
+    static final String NONE = "none";
+    static final String MIXED = "mixed";
+
+    private final MeterRegistry meterRegistry;
+    private final int sampleEvery;
+    private final int maxDeviceTypes;
+    private final AtomicLong requests = new AtomicLong();
+
+    private final Map<String, DeviceTypeMeters> deviceTypes = new ConcurrentHashMap<>();
+    private final Counter rejectedCounter;
+    private final Timer mixedBatchTimer;
+
+    public IngestMetrics(IngestConfig ingestConfig, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.sampleEvery = ingestConfig.getLogging().getSampleEvery();
+        this.maxDeviceTypes = ingestConfig.getMetrics().getMaxDeviceTypes();
+
+        this.rejectedCounter = Counter.builder("ingest.readings.rejected")
+                .description("Readings that failed validation on the ingest endpoints")
+                .register(meterRegistry);
+        this.mixedBatchTimer = requestTimer("batch", MIXED);
+    }
+
+    /**
+     * Records a single-reading ingest request.
+     *
+     * @param data the stored reading.
+     * @param startNanos the {@link System#nanoTime()} at which the request started.
+     */
+    public void recordSingle(SensorData data, long startNanos) {
+        DeviceTypeMeters meters = metersFor(data.getDeviceType());
+        meters.singleTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        meters.accepted.increment();
+
+        if (isSampled()) {
+            log.info("Ingested reading for device [{}] and metric [{}]", data.getDeviceId(), data.getMetric());
+        }
+    }
+
+    /**
+     * Records a batch ingest request.
+     * The request latency is tagged with the device type of the batch, or `mixed` if it holds several types.
+     *
+     * @param accepted the readings stored.
+     * @param rejected the number of readings that failed validation.
+     * @param startNanos the {@link System#nanoTime()} at which the request started.
+     */
+    public void recordBatch(List<SensorData> accepted, int rejected, long startNanos) {
+        DeviceTypeMeters batchMeters = null;
+        boolean mixed = false;
+        for (SensorData data : accepted) {
+            DeviceTypeMeters meters = metersFor(data.getDeviceType());
+            meters.accepted.increment();
+            if (batchMeters == null) {
+                batchMeters = meters;
+            } else if (batchMeters != meters) {
+                mixed = true;
+            }
+        }
+        rejectedCounter.increment(rejected);
+
+        Timer timer = mixed ? mixedBatchTimer : (batchMeters != null ? batchMeters.batchTimer : metersFor(null).batchTimer);
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+
+        if (isSampled()) {
+            log.info("Batch ingest completed: {} accepted, {} rejected", accepted.size(), rejected);
+        } else {
+            log.debug("Batch ingest completed: {} accepted, {} rejected", accepted.size(), rejected);
+        }
+    }
+
+    private DeviceTypeMeters metersFor(String deviceType) {
+        String tag = deviceType == null || deviceType.isBlank() ? NONE : deviceType;
+        DeviceTypeMeters meters = deviceTypes.get(tag);
+        if (meters != null) {
+            return meters;
+        }
+        // The limit is checked without locking, so a burst of new types may overshoot it by a few entries
+        if (!tag.equals(NONE) && deviceTypes.size() >= maxDeviceTypes) {
+            tag = OTHER;
+        }
+        return deviceTypes.computeIfAbsent(tag, DeviceTypeMeters::new);
+    }
+
+    private Timer requestTimer(String mode, String deviceType) {
+        return Timer.builder("ingest.requests")
+                .tag("mode", mode)
+                .tag("device_type", deviceType)
+                .description("Latency of ingest requests")
+                .register(meterRegistry);
+    }
+
+    private boolean isSampled() {
+        return sampleEvery > 0 && requests.incrementAndGet() % sampleEvery == 0 && log.isInfoEnabled();
+    }
+
+    /**
+     * The meters of one device type tag value.
+     */
+    private final class DeviceTypeMeters {
+
+        private final Timer singleTimer;
+        private final Timer batchTimer;
+        private final Counter accepted;
+
+        private DeviceTypeMeters(String deviceType) {
+            this.singleTimer = requestTimer("single", deviceType);
+            this.batchTimer = requestTimer("batch", deviceType);
+            this.accepted = Counter.builder("ingest.readings")
+                    .tag("device_type", deviceType)
+                    .description("Readings stored by the ingest endpoints")
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.relay42.iot.stream.ingest;
+
+import com.relay42.iot.stream.config.IngestConfig;
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.exception.IngestRejectedException;
+import com.relay42.iot.stream.service.SensorDataService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bounded in-memory buffer for the write-behind ingest mode.
+ * Readings are accepted into a fixed-capacity array-backed queue and a pool of flusher threads
+ * drains them into the database in batches bounded by size and by time.
+ * When the queue is full, new readings are rejected instead of growing the heap.
+ * Readings are admitted under a shared lock that {@link #stop()} takes exclusively, so once it returns from
+ * closing admission every accepted reading is in the queue and is flushed before the flushers exit.
+ * A flush failing on a transient database error is retried with a doubling pause; one that violates a constraint
+ * is saved a reading at a time, so only the offending readings are lost.
+ *
+ * Exposes the following meters:
+ * - `ingest.buffer.depth`: Number of readings waiting to be flushed.
+ * - `ingest.buffer.flush`: Latency of each database flush.
+ * - `ingest.buffer.flushed`: Number of readings written to the database.
+ * - `ingest.buffer.dropped`: Number of readings rejected because the buffer was full (`reason=full`) or shutting down
+ *   (`reason=shutdown`), left unflushed when shutdown timed out (`reason=shutdown`), or lost on a flush that failed
+ *   after its retries or violated a constraint (`reason=flush_error`).
+ */
+@Slf4j
+@Component
+public class WriteBehindBuffer {
+
+    private final IngestConfig.WriteBehind config;
+    private final SensorDataService service;
+    private final BlockingQueue<SensorData> queue;
+
+    private final Timer flushTimer;
+    private final Counter flushedCounter;
+    private final Counter droppedFullCounter;
+    private final Counter droppedShutdownCounter;
+    private final Counter droppedFlushErrorCounter;
+
+    private final ReadWriteLock admission = new ReentrantReadWriteLock();
+
+    private ExecutorService flushers;
+    private volatile boolean running;
+
+    public WriteBehindBuffer(IngestConfig ingestConfig, SensorDataService service, MeterRegistry meterRegistry) {
+        this.config = ingestConfig.getWriteBehind();
+        this.service = service;
+        this.queue = new ArrayBlockingQueue<>(config.getCapacity());
+
+        Gauge.builder("ingest.buffer.depth", queue, BlockingQueue::size)
+                .description("Readings waiting in the write-behind buffer")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("ingest.buffer.flush")
+                .description("Latency of write-behind flushes to the database")
+                .register(meterRegistry);
+        this.flushedCounter = Counter.builder("ingest.buffer.flushed")
+                .description("Readings written to the database by the write-behind buffer")
+                .register(meterRegistry);
+        this.droppedFullCounter = Counter.builder("ingest.buffer.dropped")
+                .tag("reason", "full")
+                .description("Readings dropped by the write-behind buffer")
+                .register(meterRegistry);
+        this.droppedShutdownCounter = Counter.builder("ingest.buffer.dropped")
+                .tag("reason", "shutdown")
+                .description("Readings dropped by the write-behind buffer")
+                .register(meterRegistry);
+        this.droppedFlushErrorCounter = Counter.builder("ingest.buffer.dropped")
+                .tag("reason", "flush_error")
+                .description("Readings dropped by the write-behind buffer")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts the flusher threads if write-behind mode is enabled.
+     */
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        running = true;
+        AtomicInteger threadCount = new AtomicInteger();
+        flushers = Executors.newFixedThreadPool(config.getFlusherThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "write-behind-flusher-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < config.getFlusherThreads(); i++) {
+            flushers.submit(this::drainLoop);
+        }
+        log.info("Write-behind ingest enabled with capacity {} and {} flusher threads",
+                config.getCapacity(), config.getFlusherThreads());
+    }
+
+    /**
+     * Stops accepting readings and flushes whatever is still buffered before shutting down.
+     * Readings that could not be flushed in time are counted as dropped with `reason=shutdown`.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flushers == null) {
+            return;
+        }
+
+        admission.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            admission.writeLock().unlock();
+        }
+        flushers.shutdown();
+        if (!flushers.awaitTermination(30, TimeUnit.SECONDS)) {
+            flushers.shutdownNow();
+            flushers.awaitTermination(5, TimeUnit.SECONDS);
+            List<SensorData> unflushed = new ArrayList<>();
+            queue.drainTo(unflushed);
+            if (!unflushed.isEmpty()) {
+                droppedShutdownCounter.increment(unflushed.size());
+                log.warn("Write-behind flushers did not finish in time, {} readings left unflushed", unflushed.size());
+            }
+        }
+    }
+
+    /**
+     * Indicates whether the write-behind ingest mode is enabled.
+     *
+     * @return true if readings should be submitted to this buffer instead of being saved synchronously.
+     */
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * Adds a reading to the buffer without blocking.
+     *
+     * @param data the SensorData entity to be persisted in the background.
+     * @throws IngestRejectedException if the buffer is full or shutting down.
+     */
+    public void submit(SensorData data) {
+        boolean accepted;
+        admission.readLock().lock();
+        try {
+            if (!running) {
+                droppedShutdownCounter.increment();
+                throw new IngestRejectedException("Ingest buffer is shutting down", config.getRejectStatus());
+            }
+            accepted = queue.offer(data);
+        } finally {
+            admission.readLock().unlock();
+        }
+        if (!accepted) {
+            droppedFullCounter.increment();
+            throw new IngestRejectedException("Ingest buffer is full, retry later", config.getRejectStatus());
+        }
+    }
+
+    /**
+     * Returns the number of readings waiting to be flushed.
+     *
+     * @return the current buffer depth.
+     */
+    public int depth() {
+        return queue.size();
+    }
+
+    private void drainLoop() {
+        List<SensorData> batch = new ArrayList<>(config.getFlushBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Waits for the first reading, then keeps collecting until the batch is full
+     * or the flush interval has elapsed since that first reading arrived.
+     */
+    private void fillBatch(List<SensorData> batch) throws InterruptedException {
+        int maxSize = config.getFlushBatchSize();
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(config.getFlushIntervalMs());
+
+        SensorData first = queue.poll(intervalNanos, TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+
+        long deadline = System.nanoTime() + intervalNanos;
+        while (batch.size() < maxSize) {
+            queue.drainTo(batch, maxSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxSize || remaining <= 0) {
+                return;
+            }
+            SensorData next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<SensorData> batch) {
+        long start = System.nanoTime();
+        try {
+            save(batch);
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Buffered batch of {} readings violates a constraint, saving the readings one by one", batch.size());
+            for (SensorData data : batch) {
+                save(List.of(data));
+            }
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Saves the readings, retrying transient database errors with a doubling pause.
+     * Readings that still cannot be saved are counted as dropped with `reason=flush_error`.
+     *
+     * @throws DataIntegrityViolationException if a batch of several readings violates a constraint.
+     */
+    private void save(List<SensorData> readings) {
+        long backoffMs = config.getFlushRetryBackoffMs();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                service.saveSensorDataBatch(readings);
+                flushedCounter.increment(readings.size());
+                return;
+            } catch (DataIntegrityViolationException e) {
+                if (readings.size() > 1) {
+                    throw e;
+                }
+                droppedFlushErrorCounter.increment();
+                log.error("Dropped a buffered reading violating a constraint: {}", e.getMessage());
+                return;
+            } catch (Exception e) {
+                if (!isTransient(e) || attempt >= config.getFlushRetries()) {
+                    droppedFlushErrorCounter.increment(readings.size());
+                    log.error("Failed to flush {} buffered readings after {} attempts: {}", readings.size(), attempt + 1, e.getMessage());
+                    return;
+                }
+                log.warn("Flush of {} buffered readings failed, retrying in {} ms: {}", readings.size(), backoffMs, e.getMessage());
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    droppedFlushErrorCounter.increment(readings.size());
+                    return;
+                }
+                backoffMs *= 2;
+            }
+        }
+    }
+
+    private static boolean isTransient(Exception e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+}
@@ -0,0 +1,154 @@
+package com.relay42.iot.stream.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.exception.BusinessException;
+import com.relay42.iot.stream.mapper.SensorDataMapper;
+import com.relay42.iot.stream.model.SensorRequest;
+import com.relay42.iot.stream.service.SensorDataService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Kafka listener that ingests SensorRequest JSON payloads from the readings topic in batches.
+ * Each poll is validated, mapped and written through the JDBC batch path in one transaction;
+ * offsets are acknowledged only after that transaction commits.
+ * Records that cannot be parsed or fail validation are published to the dead-letter topic
+ * instead of blocking the partition. If the batch violates a database constraint, its readings are saved one by one
+ * to find the offending record, which is reported to the error handler by index so that only it is dead-lettered.
+ * Any other failure, such as a database outage, propagates and the whole batch is redelivered.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "ingest.kafka", name = "enabled", havingValue = "true")
+public class SensorReadingsListener {
+
+    private final SensorDataService service;
+    private final SensorDataMapper mapper;
+    private final Validator validator;
+    private final ObjectReader reader;
+    private final DeadLetterPublishingRecoverer deadLetterRecoverer;
+
+    public SensorReadingsListener(SensorDataService service,
+                                  SensorDataMapper mapper,
+                                  Validator validator,
+                                  ObjectMapper objectMapper,
+                                  DeadLetterPublishingRecoverer deadLetterRecoverer) {
+        this.service = service;
+        this.mapper = mapper;
+        this.validator = validator;
+        this.reader = objectMapper.readerFor(SensorRequest.class);
+        this.deadLetterRecoverer = deadLetterRecoverer;
+    }
+
+    /**
+     * Processes one poll worth of records from the readings topic.
+     * Valid readings are saved first; poison records are dead-lettered afterwards so that a retried
+     * batch does not publish them twice, and the batch is acknowledged last.
+     *
+     * @param records the records returned by the poll.
+     * @param ack the acknowledgment used to commit the batch offsets.
+     * @throws BatchListenerFailedException if a reading violates a database constraint; the records before it are saved.
+     */
+    @KafkaListener(
+            topics = "${ingest.kafka.topic}",
+            containerFactory = "sensorReadingsContainerFactory",
+            properties = "max.poll.records:${ingest.kafka.max-poll-records}")
+    public void listen(List<ConsumerRecord<String, String>> records, Acknowledgment ack) {
+        List<SensorData> batch = new ArrayList<>(records.size());
+        List<Integer> batchIndexes = new ArrayList<>(records.size());
+        List<Integer> poison = new ArrayList<>();
+        List<Exception> poisonCauses = new ArrayList<>();
+
+        for (int i = 0; i < records.size(); i++) {
+            try {
+                batch.add(mapper.toEntity(parse(records.get(i))));
+                batchIndexes.add(i);
+            } catch (BusinessException e) {
+                poison.add(i);
+                poisonCauses.add(e);
+            }
+        }
+
+        try {
+            service.saveSensorDataBatch(batch);
+        } catch (DataIntegrityViolationException e) {
+            int failed = saveIndividually(batch);
+            if (failed >= 0) {
+                int failedRecord = batchIndexes.get(failed);
+                deadLetter(records, poison, poisonCauses, failedRecord);
+                throw new BatchListenerFailedException("Reading violates a database constraint", e, failedRecord);
+            }
+        }
+
+        deadLetter(records, poison, poisonCauses, records.size());
+        ack.acknowledge();
+    }
+
+    /**
+     * Saves the readings one transaction at a time, stopping at the first one that violates a constraint.
+     *
+     * @return the index of the offending reading, or -1 if every reading was saved.
+     */
+    private int saveIndividually(List<SensorData> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                service.saveSensorDataBatch(List.of(batch.get(i)));
+            } catch (DataIntegrityViolationException e) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Publishes the poison records that precede the given record index to the dead-letter topic.
+     */
+    private void deadLetter(List<ConsumerRecord<String, String>> records, List<Integer> poison, List<Exception> causes, int before) {
+        int sent = 0;
+        for (int i = 0; i < poison.size() && poison.get(i) < before; i++) {
+            deadLetterRecoverer.accept(records.get(poison.get(i)), causes.get(i));
+            sent++;
+        }
+        if (sent > 0) {
+            log.warn("Sent {} of {} records to the dead-letter topic", sent, records.size());
+        }
+    }
+
+    private SensorRequest parse(ConsumerRecord<String, String> record) {
+        if (record.value() == null) {
+            throw new BusinessException("Empty payload");
+        }
+
+        SensorRequest request;
+        try {
+            request = reader.readValue(record.value());
+        } catch (IOException e) {
+            throw new BusinessException("Malformed JSON payload", e);
+        }
+
+        Set<ConstraintViolation<SensorRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new BusinessException("Invalid reading: " + violations.stream()
+                    .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                    .collect(Collectors.joining(", ")));
+        }
+        return request;
+    }
+}
@@ -0,0 +1,22 @@
+package com.relay42.iot.stream.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk ingest request.
+ * Reports the accepted and rejected counts along with the status of every submitted item.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchIngestResult {
+    private int accepted;
+    private int rejected;
+    private List<BatchItemResult> items;
+}
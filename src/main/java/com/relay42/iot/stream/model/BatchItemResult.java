@@ -0,0 +1,24 @@
+package com.relay42.iot.stream.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Status of a single reading within a bulk ingest request.
+ * The index refers to the position of the item in the submitted array or NDJSON body.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+    private int index;
+    private boolean accepted;
+    private Map<String, String> errors;
+}
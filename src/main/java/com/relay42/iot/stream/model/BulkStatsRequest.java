@@ -0,0 +1,38 @@
+package com.relay42.iot.stream.model;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Model class representing a request for statistics of many devices and metrics at once.
+ * Devices are selected by `deviceIds`, by `deviceType`, or by both; `metrics` narrows the metrics and
+ * defaults to all metrics of the selected devices. `from` and `to` are optional but must be given together.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkStatsRequest {
+
+    private List<String> deviceIds;
+
+    private List<String> metrics;
+
+    private String deviceType;
+
+    private LocalDateTime from;
+
+    private LocalDateTime to;
+
+    /**
+     * Indicates whether the request is limited to a time range.
+     *
+     * @return true if both `from` and `to` are set.
+     */
+    public boolean hasRange() {
+        return from != null && to != null;
+    }
+}
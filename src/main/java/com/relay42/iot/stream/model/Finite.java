@@ -0,0 +1,38 @@
+package com.relay42.iot.stream.model;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The annotated number must be finite: NaN and ±Infinity are rejected, null is accepted.
+ * JSON literals such as `1e400` deserialize to Infinity, and CBOR and Smile carry NaN and Infinity as-is,
+ * so metric values are checked before they reach the aggregates.
+ */
+@Documented
+@Constraint(validatedBy = Finite.Validator.class)
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Finite {
+
+    String message() default "must be a finite number";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+
+    class Validator implements ConstraintValidator<Finite, Double> {
+
+        @Override
+        public boolean isValid(Double value, ConstraintValidatorContext context) {
+            return value == null || Double.isFinite(value);
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package com.relay42.iot.stream.model;
 
-
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
+import java.util.Map;
+
 /**
  * Model class representing the result of an aggregation operation on sensor data.
  * Contains statistical metrics such as minimum, maximum, average, and median values for a specific metric.
+ * Strategies configured per metric may add count, standard deviation, rate of change and percentiles;
+ * those are omitted from the JSON when the strategy does not compute them.
  */
 @Data
 @NoArgsConstructor
@@ -37,4 +41,28 @@ public class MetricSummary {
      * The median value of the metric in the aggregation result.
      */
     private Double median;
-}
\ No newline at end of file
+
+    /**
+     * The number of readings aggregated.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long count;
+
+    /**
+     * The population standard deviation of the metric.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double stddev;
+
+    /**
+     * The change of the metric per second between the earliest and the latest reading.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double rateOfChange;
+
+    /**
+     * Requested percentiles keyed by name (e.g., p90, p99).
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, Double> percentiles;
+}
@@ -0,0 +1,122 @@
+package com.relay42.iot.stream.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact, column-oriented encoding of a batch of readings.
+ * Device ids, device types and metric names are sent once in dictionaries and referenced by index from each
+ * reading, and timestamps are epoch milliseconds in UTC rather than ISO strings.
+ * Reading `i` is `deviceIds[device[i]]`, `metrics[metric[i]]`, `timestamp[i]`, `value[i]`, with device type
+ * `deviceTypes[device[i]]`. Accepted as JSON, CBOR or Smile.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SensorBatchFrame {
+
+    /** Dictionary of device ids. */
+    private List<String> deviceIds;
+
+    /** Device type of each dictionary device, by the same index; optional, and entries may be null. */
+    private List<String> deviceTypes;
+
+    /** Dictionary of metric names. */
+    private List<String> metrics;
+
+    /** Per reading: index into {@link #deviceIds}. */
+    private int[] device;
+
+    /** Per reading: index into {@link #metrics}. */
+    private int[] metric;
+
+    /** Per reading: epoch milliseconds, UTC. */
+    private long[] timestamp;
+
+    /** Per reading: the measured value. */
+    private double[] value;
+
+    /**
+     * Encodes the readings as a frame. Timestamps are truncated to milliseconds.
+     *
+     * @param requests the readings, all with a device id, metric, value and timestamp.
+     * @return the frame.
+     */
+    public static SensorBatchFrame of(List<SensorRequest> requests) {
+        Map<String, Integer> deviceIndex = new HashMap<>();
+        Map<String, Integer> metricIndex = new HashMap<>();
+        List<String> deviceIds = new ArrayList<>();
+        List<String> deviceTypes = new ArrayList<>();
+        List<String> metrics = new ArrayList<>();
+        int size = requests.size();
+        int[] device = new int[size];
+        int[] metric = new int[size];
+        long[] timestamp = new long[size];
+        double[] value = new double[size];
+
+        for (int i = 0; i < size; i++) {
+            SensorRequest request = requests.get(i);
+            device[i] = deviceIndex.computeIfAbsent(request.getDeviceId(), id -> {
+                deviceIds.add(id);
+                deviceTypes.add(request.getDeviceType());
+                return deviceIds.size() - 1;
+            });
+            metric[i] = metricIndex.computeIfAbsent(request.getMetric(), name -> {
+                metrics.add(name);
+                return metrics.size() - 1;
+            });
+            timestamp[i] = request.getDataTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli();
+            value[i] = request.getMetricValue();
+        }
+
+        return new SensorBatchFrame(deviceIds, deviceTypes, metrics, device, metric, timestamp, value);
+    }
+
+    /**
+     * @return the number of readings in the frame.
+     * @throws IllegalArgumentException if the per-reading columns differ in length.
+     */
+    public int size() {
+        int size = value == null ? 0 : value.length;
+        if (length(device) != size || length(metric) != size || (timestamp == null ? 0 : timestamp.length) != size) {
+            throw new IllegalArgumentException("Frame columns device, metric, timestamp and value must have the same length");
+        }
+        return size;
+    }
+
+    /**
+     * Expands one reading of the frame.
+     *
+     * @param index the position of the reading in the frame.
+     * @return the reading.
+     * @throws IllegalArgumentException if the reading refers to a dictionary entry that does not exist.
+     */
+    public SensorRequest reading(int index) {
+        int d = device[index];
+        int m = metric[index];
+        if (deviceIds == null || d < 0 || d >= deviceIds.size()) {
+            throw new IllegalArgumentException("Unknown device index " + d);
+        }
+        if (metrics == null || m < 0 || m >= metrics.size()) {
+            throw new IllegalArgumentException("Unknown metric index " + m);
+        }
+        String deviceType = deviceTypes != null && d < deviceTypes.size() ? deviceTypes.get(d) : null;
+        LocalDateTime dataTimestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp[index]), ZoneOffset.UTC);
+        return new SensorRequest(deviceIds.get(d), metrics.get(m), value[index], dataTimestamp, deviceType);
+    }
+
+    private static int length(int[] column) {
+        return column == null ? 0 : column.length;
+    }
+}
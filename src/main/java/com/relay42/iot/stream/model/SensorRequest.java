@@ -18,6 +18,7 @@ public class SensorRequest {
     private String metric;
 
     @NotNull
+    @Finite
     private Double metricValue;
 
     @NotNull
@@ -0,0 +1,63 @@
+package com.relay42.iot.stream.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Model class representing one point of a time series returned by the series endpoint.
+ * In bucket mode a point carries the requested aggregates of the readings in the bucket starting at `timestamp`;
+ * in downsampling mode it carries a single reading in `value`. Aggregates that were not requested are omitted.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SeriesPoint {
+
+    /**
+     * The start of the bucket, or the timestamp of the reading in downsampling mode.
+     */
+    private LocalDateTime timestamp;
+
+    /**
+     * The number of readings in the bucket.
+     */
+    private Long count;
+
+    /**
+     * The minimum value in the bucket.
+     */
+    private Double min;
+
+    /**
+     * The maximum value in the bucket.
+     */
+    private Double max;
+
+    /**
+     * The average value in the bucket.
+     */
+    private Double avg;
+
+    /**
+     * The median value in the bucket.
+     */
+    private Double median;
+
+    /**
+     * Requested percentiles keyed by their name (e.g., p95).
+     */
+    private Map<String, Double> percentiles;
+
+    /**
+     * The value of the reading in downsampling mode.
+     */
+    private Double value;
+}
@@ -0,0 +1,64 @@
+package com.relay42.iot.stream.repository;
+
+import com.relay42.iot.stream.config.AggregationConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+
+/**
+ * Describes which optional SQL features the configured database supports.
+ * Resolved once at startup from the JDBC metadata, unless overridden by `aggregation.pushdown`.
+ */
+@Slf4j
+@Component
+public class DatabaseCapabilities {
+
+    /**
+     * Database products known to support PERCENTILE_CONT as an ordered-set aggregate.
+     */
+    private static final Set<String> PERCENTILE_DATABASES = Set.of("H2", "PostgreSQL", "Oracle");
+
+    private final String databaseProduct;
+    private final boolean aggregatePushdown;
+
+    public DatabaseCapabilities(DataSource dataSource, AggregationConfig aggregationConfig) {
+        this.databaseProduct = resolveProductName(dataSource);
+        this.aggregatePushdown = switch (aggregationConfig.getPushdown()) {
+            case ENABLED -> true;
+            case DISABLED -> false;
+            case AUTO -> PERCENTILE_DATABASES.contains(databaseProduct);
+        };
+        log.info("Database product [{}], aggregate pushdown {}", databaseProduct, aggregatePushdown ? "enabled" : "disabled");
+    }
+
+    /**
+     * Indicates whether statistics, including the median, can be computed by the database.
+     *
+     * @return true if the aggregate queries of SensorDataRepository can be used.
+     */
+    public boolean supportsAggregatePushdown() {
+        return aggregatePushdown;
+    }
+
+    /**
+     * Returns the database product name reported by the JDBC driver.
+     *
+     * @return the product name, or "unknown" if it could not be determined.
+     */
+    public String getDatabaseProduct() {
+        return databaseProduct;
+    }
+
+    private static String resolveProductName(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getMetaData().getDatabaseProductName();
+        } catch (SQLException e) {
+            log.warn("Could not determine database product: {}", e.getMessage());
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.relay42.iot.stream.repository;
+
+/**
+ * Projection of aggregate statistics computed by the database for a series of readings.
+ * Lets callers receive a single row of numbers instead of every matching SensorData entity.
+ */
+public interface MetricStats {
+
+    /**
+     * @return the number of readings aggregated.
+     */
+    Long getCount();
+
+    /**
+     * @return the minimum metric value, or null if there are no readings.
+     */
+    Double getMin();
+
+    /**
+     * @return the maximum metric value, or null if there are no readings.
+     */
+    Double getMax();
+
+    /**
+     * @return the average metric value, or null if there are no readings.
+     */
+    Double getAvg();
+
+    /**
+     * @return the median metric value, or null if there are no readings.
+     */
+    Double getMedian();
+}
@@ -0,0 +1,26 @@
+package com.relay42.iot.stream.repository;
+
+import lombok.Value;
+
+/**
+ * Immutable MetricStats for statistics that are not produced by a Spring Data projection,
+ * such as aggregates computed across partitions or merged from rollup buckets.
+ */
+@Value
+public class MetricStatsValue implements MetricStats {
+
+    Long count;
+    Double min;
+    Double max;
+    Double avg;
+    Double median;
+
+    /**
+     * Returns the statistics of an empty range.
+     *
+     * @return stats with a zero count and null values.
+     */
+    public static MetricStatsValue empty() {
+        return new MetricStatsValue(0L, null, null, null, null);
+    }
+}
@@ -0,0 +1,241 @@
+package com.relay42.iot.stream.repository;
+
+import com.relay42.iot.stream.config.IngestConfig;
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.repository.SensorDimensionRepository.Dimension;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * R2DBC counterpart of {@link SensorDataRepository} for the reactive profile.
+ * Queries are non-blocking and results are emitted as they are read, so callers can fold ranges of any size
+ * without holding a thread. Only created when the application runs as a reactive web application.
+ *
+ * Names are resolved to dimension keys by the database, through a subquery in filters and a join in entity reads,
+ * so no query waits on the blocking {@link SensorDimensionRepository}. Writes take their keys from its cache and
+ * only call it off the event loop when a batch holds a name that has not been stored yet.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSensorDataRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO sensor_data (device_key, metric_key, metric_value, data_timestamp, device_type_key) " +
+            "VALUES ($1, $2, $3, $4, $5)";
+
+    private static final String KEY_FILTER =
+            "device_key = (SELECT id FROM sensor_device WHERE name = :deviceId) " +
+            "AND metric_key = (SELECT id FROM sensor_metric WHERE name = :metric)";
+
+    private static final String SELECT_SQL =
+            "SELECT s.id, d.name AS device_id, m.name AS metric, s.metric_value, s.data_timestamp, t.name AS device_type " +
+            "FROM sensor_data s JOIN sensor_device d ON d.id = s.device_key JOIN sensor_metric m ON m.id = s.metric_key " +
+            "LEFT JOIN sensor_device_type t ON t.id = s.device_type_key WHERE " + KEY_FILTER;
+
+    private static final String RANGE_FILTER =
+            " FROM sensor_data WHERE " + KEY_FILTER + " AND data_timestamp BETWEEN :from AND :to";
+
+    private static final String STATS_SQL =
+            "SELECT COUNT(*) AS count, MIN(metric_value) AS min, MAX(metric_value) AS max, " +
+            "AVG(metric_value) AS avg, PERCENTILE_CONT(0.5) WITHIN GROUP (ORDER BY metric_value) AS median" +
+            RANGE_FILTER;
+
+    private static final String VALUES_SQL =
+            "SELECT data_timestamp, metric_value" + RANGE_FILTER + " ORDER BY data_timestamp";
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final IngestConfig ingestConfig;
+    private final SensorDimensionRepository dimensions;
+
+    /**
+     * The transaction manager is kept private to this repository: exposing it as a bean would give the
+     * application a second TransactionManager next to JPA's and make every `@Transactional` ambiguous.
+     */
+    public ReactiveSensorDataRepository(DatabaseClient databaseClient, ConnectionFactory connectionFactory,
+                                        IngestConfig ingestConfig, SensorDimensionRepository dimensions) {
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+        this.ingestConfig = ingestConfig;
+        this.dimensions = dimensions;
+    }
+
+    /**
+     * Inserts a single reading.
+     *
+     * @param data the SensorData entity to insert.
+     * @return the number of rows inserted.
+     */
+    public Mono<Integer> save(SensorData data) {
+        return saveAll(Flux.just(data));
+    }
+
+    /**
+     * Inserts the readings emitted by the given publisher in one transaction, as batched statements of the configured
+     * JDBC batch size. Readings are requested from the publisher only as fast as the batches are written, so a
+     * streaming request body is consumed at the pace of the database. If the publisher fails, nothing is stored.
+     *
+     * @param readings the SensorData entities to insert.
+     * @return the number of rows inserted.
+     */
+    public Mono<Integer> saveAll(Flux<SensorData> readings) {
+        return readings
+                .buffer(ingestConfig.getBatch().getJdbcBatchSize())
+                .concatMap(this::insertBatch)
+                .reduce(0L, Long::sum)
+                .map(Long::intValue)
+                .as(transactionalOperator::transactional);
+    }
+
+    /**
+     * Retrieves the SensorData entities for a specific device and metric.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @return the readings of the device and metric.
+     */
+    public Flux<SensorData> findByDeviceIdAndMetric(String deviceId, String metric) {
+        return databaseClient.sql(SELECT_SQL)
+                .bind("deviceId", deviceId)
+                .bind("metric", metric)
+                .map(ReactiveSensorDataRepository::toEntity)
+                .all();
+    }
+
+    /**
+     * Retrieves the SensorData entities for a device and metric within a time range.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @return the matching readings.
+     */
+    public Flux<SensorData> findByDeviceIdAndMetricAndTimestampRange(String deviceId, String metric,
+                                                                      LocalDateTime from, LocalDateTime to) {
+        return databaseClient.sql(SELECT_SQL + " AND s.data_timestamp BETWEEN :from AND :to")
+                .bind("deviceId", deviceId)
+                .bind("metric", metric)
+                .bind("from", from)
+                .bind("to", to)
+                .map(ReactiveSensorDataRepository::toEntity)
+                .all();
+    }
+
+    /**
+     * Computes count, min, max, average and median for a device and metric within a time range in the database.
+     * Uses the same PERCENTILE_CONT query as {@link SensorDataRepository#findStatsByDeviceIdAndMetricAndTimestampRange},
+     * so it is only available when {@link DatabaseCapabilities#supportsAggregatePushdown()} is true.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @return a single row of aggregate statistics; values are null if no reading matches.
+     */
+    public Mono<MetricStats> findStatsByDeviceIdAndMetricAndTimestampRange(String deviceId, String metric,
+                                                                           LocalDateTime from, LocalDateTime to) {
+        return databaseClient.sql(STATS_SQL)
+                .bind("deviceId", deviceId)
+                .bind("metric", metric)
+                .bind("from", from)
+                .bind("to", to)
+                .map(row -> (MetricStats) new MetricStatsValue(
+                        toLong(row.get("count")),
+                        toDouble(row.get("min")),
+                        toDouble(row.get("max")),
+                        toDouble(row.get("avg")),
+                        toDouble(row.get("median"))))
+                .one()
+                .defaultIfEmpty(MetricStatsValue.empty());
+    }
+
+    /**
+     * Streams the timestamp and value of every reading of a device and metric within a time range, in time order,
+     * without materializing entities.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @return the readings of the range, in time order.
+     */
+    public Flux<TimedValue> findValuesInRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to) {
+        return databaseClient.sql(VALUES_SQL)
+                .bind("deviceId", deviceId)
+                .bind("metric", metric)
+                .bind("from", from)
+                .bind("to", to)
+                .map(row -> new TimedValue(row.get("data_timestamp", LocalDateTime.class), toDouble(row.get("metric_value"))))
+                .all();
+    }
+
+    private Flux<Long> insertBatch(List<SensorData> batch) {
+        if (dimensions.isInterned(batch)) {
+            return insertInterned(batch);
+        }
+        return Mono.fromRunnable(() -> dimensions.internAll(batch))
+                .subscribeOn(Schedulers.boundedElastic())
+                .thenMany(Flux.defer(() -> insertInterned(batch)));
+    }
+
+    private Flux<Long> insertInterned(List<SensorData> batch) {
+        return databaseClient.inConnectionMany(connection -> {
+            Statement statement = connection.createStatement(INSERT_SQL);
+            for (int i = 0; i < batch.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                SensorData data = batch.get(i);
+                statement.bind(0, dimensions.keyOf(Dimension.DEVICE, data.getDeviceId()))
+                        .bind(1, dimensions.keyOf(Dimension.METRIC, data.getMetric()))
+                        .bind(2, data.getMetricValue())
+                        .bind(3, data.getDataTimestamp());
+                if (data.getDeviceType() != null) {
+                    statement.bind(4, dimensions.keyOf(Dimension.DEVICE_TYPE, data.getDeviceType()));
+                } else {
+                    statement.bindNull(4, Integer.class);
+                }
+            }
+            return Flux.from(statement.execute()).flatMap(Result::getRowsUpdated);
+        });
+    }
+
+    private static SensorData toEntity(Readable row) {
+        return SensorData.builder()
+                .id(toLong(row.get("id")))
+                .deviceId(row.get("device_id", String.class))
+                .metric(row.get("metric", String.class))
+                .metricValue(toDouble(row.get("metric_value")))
+                .dataTimestamp(row.get("data_timestamp", LocalDateTime.class))
+                .deviceType(row.get("device_type", String.class))
+                .build();
+    }
+
+    private static Long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : null;
+    }
+
+    private static Double toDouble(Object value) {
+        return value != null ? ((Number) value).doubleValue() : null;
+    }
+
+    /**
+     * The timestamp and value of one stored reading.
+     */
+    public record TimedValue(LocalDateTime timestamp, double value) {
+    }
+}
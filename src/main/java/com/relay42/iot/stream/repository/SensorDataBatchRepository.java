@@ -0,0 +1,106 @@
+package com.relay42.iot.stream.repository;
+
+import com.relay42.iot.stream.config.IngestConfig;
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.repository.SensorDimensionRepository.Dimension;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for writing SensorData rows in bulk using JDBC batch inserts.
+ * Bypasses the JPA persistence context because the IDENTITY id generator on SensorData
+ * prevents Hibernate from batching inserts. Device ids, metrics and device types are written and read as
+ * dimension keys through {@link SensorDimensionRepository}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SensorDataBatchRepository {
+
+    private static final String SCAN_VALUES_SQL = "SELECT device_key, metric_key, data_timestamp, metric_value FROM sensor_data";
+
+    private static final String SCAN_VALUES_SINCE_SQL = SCAN_VALUES_SQL + " WHERE data_timestamp >= ? ORDER BY data_timestamp";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO sensor_data (device_key, metric_key, metric_value, data_timestamp, device_type_key) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IngestConfig ingestConfig;
+    private final SensorDimensionRepository dimensions;
+
+    /**
+     * Inserts the given SensorData entities using JDBC batches of the configured size.
+     * Names not yet in the dictionary are stored first; generated ids are not read back into the entities.
+     *
+     * @param dataList the SensorData entities to insert.
+     * @return the number of rows inserted.
+     */
+    @Timed("repository.jdbc.invocations")
+    public int saveAll(List<SensorData> dataList) {
+        if (dataList.isEmpty()) {
+            return 0;
+        }
+
+        dimensions.internAll(dataList);
+        jdbcTemplate.batchUpdate(INSERT_SQL, dataList, ingestConfig.getBatch().getJdbcBatchSize(), (ps, data) -> {
+            ps.setInt(1, dimensions.keyOf(Dimension.DEVICE, data.getDeviceId()));
+            ps.setInt(2, dimensions.keyOf(Dimension.METRIC, data.getMetric()));
+            ps.setDouble(3, data.getMetricValue());
+            ps.setTimestamp(4, Timestamp.valueOf(data.getDataTimestamp()));
+            ps.setObject(5, dimensions.keyOf(Dimension.DEVICE_TYPE, data.getDeviceType()), Types.INTEGER);
+        });
+
+        return dataList.size();
+    }
+
+    /**
+     * Streams the device, metric, timestamp and value of every stored row to the given consumer
+     * without materializing entities.
+     *
+     * @param consumer the callback receiving each row.
+     */
+    @Timed("repository.jdbc.invocations")
+    public void scanValues(ValueConsumer consumer) {
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(SCAN_VALUES_SQL);
+            statement.setFetchSize(ingestConfig.getBatch().getJdbcBatchSize());
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(dimensions.nameOf(Dimension.DEVICE, rs.getInt(1)),
+                dimensions.nameOf(Dimension.METRIC, rs.getInt(2)), rs.getTimestamp(3).toLocalDateTime(), rs.getDouble(4)));
+    }
+
+    /**
+     * Streams the device, metric, timestamp and value of every row at or after the given timestamp to
+     * the given consumer, in time order, without materializing entities.
+     *
+     * @param from the earliest timestamp to include.
+     * @param consumer the callback receiving each row.
+     */
+    @Timed("repository.jdbc.invocations")
+    public void scanValuesSince(LocalDateTime from, ValueConsumer consumer) {
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(SCAN_VALUES_SINCE_SQL);
+            statement.setFetchSize(ingestConfig.getBatch().getJdbcBatchSize());
+            statement.setTimestamp(1, Timestamp.valueOf(from));
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(dimensions.nameOf(Dimension.DEVICE, rs.getInt(1)),
+                dimensions.nameOf(Dimension.METRIC, rs.getInt(2)), rs.getTimestamp(3).toLocalDateTime(), rs.getDouble(4)));
+    }
+
+    /**
+     * Callback receiving one stored reading at a time.
+     */
+    @FunctionalInterface
+    public interface ValueConsumer {
+
+        void accept(String deviceId, String metric, LocalDateTime timestamp, double value);
+    }
+}
@@ -0,0 +1,556 @@
+package com.relay42.iot.stream.repository;
+
+import com.relay42.iot.stream.config.IngestConfig;
+import com.relay42.iot.stream.config.StorageConfig;
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.repository.SensorDimensionRepository.Dimension;
+import com.relay42.iot.stream.util.DoubleList;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleConsumer;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Repository for the time-partitioned storage layout.
+ * Readings are stored in one table per day or month (`sensor_data_pYYYYMMDD` or `sensor_data_pYYYYMM`),
+ * each with the same dimension-key columns and composite index as `sensor_data`. Range queries only touch the
+ * partitions overlapping the requested window, and retention drops whole partitions instead of deleting rows.
+ * Ids are generated per partition and are therefore not unique across partitions.
+ * Partitions are created on a connection of their own in auto-commit mode, outside the caller's transaction, and are
+ * only used once the DDL has committed: on H2 DDL commits the open transaction implicitly, and on PostgreSQL a rolled-back
+ * `CREATE TABLE` would otherwise leave a partition known here that does not exist. The identity column uses the SQL
+ * standard syntax shared by H2, PostgreSQL and Oracle.
+ * Rows left in `sensor_data` when partitioning is switched on are moved into their partitions at startup.
+ */
+@Slf4j
+@Repository
+public class SensorDataPartitionRepository {
+
+    private static final String TABLE_PREFIX = "sensor_data_p";
+    private static final DateTimeFormatter DAILY_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter MONTHLY_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String COLUMNS = "id, device_key, metric_key, metric_value, data_timestamp, device_type_key";
+    private static final String RANGE_FILTER = " WHERE device_key = ? AND metric_key = ? AND data_timestamp BETWEEN ? AND ?";
+    private static final String SERIES_FILTER = " WHERE device_key = ? AND metric_key = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final StorageConfig.Partitioning config;
+    private final int jdbcBatchSize;
+    private final SensorDimensionRepository dimensions;
+
+    /**
+     * Known partition tables keyed by the first day they cover.
+     */
+    private final ConcurrentSkipListMap<LocalDate, String> partitions = new ConcurrentSkipListMap<>();
+
+    public SensorDataPartitionRepository(JdbcTemplate jdbcTemplate, StorageConfig storageConfig, IngestConfig ingestConfig,
+                                         SensorDimensionRepository dimensions) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = jdbcTemplate.getDataSource();
+        this.config = storageConfig.getPartitioning();
+        this.jdbcBatchSize = ingestConfig.getBatch().getJdbcBatchSize();
+        this.dimensions = dimensions;
+    }
+
+    /**
+     * Loads the partition tables that already exist in the database, then moves any rows still stored in
+     * `sensor_data` into their partitions.
+     */
+    @PostConstruct
+    public void loadPartitions() {
+        if (!config.isEnabled()) {
+            return;
+        }
+
+        jdbcTemplate.execute((Connection connection) -> {
+            try (ResultSet tables = connection.getMetaData().getTables(null, null, "%", new String[]{"TABLE"})) {
+                while (tables.next()) {
+                    String name = tables.getString("TABLE_NAME").toLowerCase();
+                    LocalDate start = parsePartitionStart(name);
+                    if (start != null) {
+                        partitions.put(start, name);
+                    }
+                }
+            }
+            return null;
+        });
+        log.info("Time-partitioned storage enabled with {} existing {} partitions", partitions.size(), config.getGranularity());
+        migrateUnpartitionedRows();
+    }
+
+    /**
+     * Moves the rows of `sensor_data` into their partitions, one partition per transaction, oldest first.
+     * Readers only look at partitions once partitioning is enabled, so without this the rows would be hidden.
+     * An interrupted migration resumes on the next start, as moved rows are deleted in the same transaction.
+     */
+    private void migrateUnpartitionedRows() {
+        long moved = 0;
+        LocalDateTime oldest;
+        while ((oldest = jdbcTemplate.queryForObject("SELECT MIN(data_timestamp) FROM sensor_data", LocalDateTime.class)) != null) {
+            LocalDate start = partitionStart(oldest.toLocalDate());
+            String name = ensurePartition(start);
+            Timestamp from = Timestamp.valueOf(start.atStartOfDay());
+            Timestamp until = Timestamp.valueOf(partitionEnd(start).atStartOfDay());
+            moved += withOwnConnection(name, false, statement -> {
+                String range = " WHERE data_timestamp >= ? AND data_timestamp < ?";
+                int rows;
+                try (var insert = statement.getConnection().prepareStatement("INSERT INTO " + name
+                        + " (device_key, metric_key, metric_value, data_timestamp, device_type_key) "
+                        + "SELECT device_key, metric_key, metric_value, data_timestamp, device_type_key FROM sensor_data" + range)) {
+                    insert.setTimestamp(1, from);
+                    insert.setTimestamp(2, until);
+                    rows = insert.executeUpdate();
+                }
+                try (var delete = statement.getConnection().prepareStatement("DELETE FROM sensor_data" + range)) {
+                    delete.setTimestamp(1, from);
+                    delete.setTimestamp(2, until);
+                    delete.executeUpdate();
+                }
+                return rows;
+            });
+        }
+        if (moved > 0) {
+            log.info("Moved {} rows from sensor_data into their partitions", moved);
+        }
+    }
+
+    /**
+     * Indicates whether the time-partitioned layout is enabled.
+     *
+     * @return true if readings are stored in partition tables instead of `sensor_data`.
+     */
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * Inserts the given readings into their partitions using JDBC batch inserts, creating partitions as needed.
+     *
+     * @param dataList the SensorData entities to insert.
+     * @return the number of rows inserted.
+     */
+    @Timed("repository.jdbc.invocations")
+    public int saveAll(List<SensorData> dataList) {
+        dimensions.internAll(dataList);
+        Map<String, List<SensorData>> byPartition = new TreeMap<>();
+        for (SensorData data : dataList) {
+            byPartition.computeIfAbsent(ensurePartition(data.getDataTimestamp().toLocalDate()), name -> new ArrayList<>())
+                    .add(data);
+        }
+
+        for (Map.Entry<String, List<SensorData>> entry : byPartition.entrySet()) {
+            String sql = "INSERT INTO " + entry.getKey()
+                    + " (device_key, metric_key, metric_value, data_timestamp, device_type_key) VALUES (?, ?, ?, ?, ?)";
+            jdbcTemplate.batchUpdate(sql, entry.getValue(), jdbcBatchSize, (ps, data) -> {
+                ps.setInt(1, dimensions.keyOf(Dimension.DEVICE, data.getDeviceId()));
+                ps.setInt(2, dimensions.keyOf(Dimension.METRIC, data.getMetric()));
+                ps.setDouble(3, data.getMetricValue());
+                ps.setTimestamp(4, Timestamp.valueOf(data.getDataTimestamp()));
+                ps.setObject(5, dimensions.keyOf(Dimension.DEVICE_TYPE, data.getDeviceType()), Types.INTEGER);
+            });
+        }
+        return dataList.size();
+    }
+
+    /**
+     * Retrieves the readings of a device and metric within a time range, reading only overlapping partitions.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @return the matching readings.
+     */
+    @Timed("repository.jdbc.invocations")
+    public List<SensorData> findInRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to) {
+        List<String> tables = partitionsOverlapping(from, to);
+        if (tables.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(unionOf(tables, COLUMNS, RANGE_FILTER), this::toEntity,
+                repeatedArgs(tables.size(), deviceKey(deviceId), metricKey(metric), Timestamp.valueOf(from), Timestamp.valueOf(to)));
+    }
+
+    /**
+     * Reads only the metric values of a device and metric within a time range, reading only overlapping partitions.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @return the metric values, in no particular order.
+     */
+    @Timed("repository.jdbc.invocations")
+    public DoubleList findValuesInRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to) {
+        DoubleList values = new DoubleList();
+        List<String> tables = partitionsOverlapping(from, to);
+        if (tables.isEmpty()) {
+            return values;
+        }
+        jdbcTemplate.query(unionOf(tables, "metric_value", RANGE_FILTER), (RowCallbackHandler) rs -> values.add(rs.getDouble(1)),
+                repeatedArgs(tables.size(), deviceKey(deviceId), metricKey(metric), Timestamp.valueOf(from), Timestamp.valueOf(to)));
+        return values;
+    }
+
+    /**
+     * Streams the metric values of a device and metric within a time range to the consumer, one row at a time,
+     * reading only the overlapping partitions.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @param consumer the callback receiving each value.
+     */
+    @Timed("repository.jdbc.invocations")
+    public void scanValuesInRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to,
+                                  DoubleConsumer consumer) {
+        for (String table : partitionsOverlapping(from, to)) {
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement("SELECT metric_value FROM " + table + RANGE_FILTER);
+                statement.setFetchSize(jdbcBatchSize);
+                statement.setInt(1, dimensions.keyOf(Dimension.DEVICE, deviceId));
+                statement.setInt(2, dimensions.keyOf(Dimension.METRIC, metric));
+                statement.setTimestamp(3, Timestamp.valueOf(from));
+                statement.setTimestamp(4, Timestamp.valueOf(to));
+                return statement;
+            }, (RowCallbackHandler) rs -> consumer.accept(rs.getDouble(1)));
+        }
+    }
+
+    /**
+     * Streams the timestamp and value of every reading of a device and metric within a time range to the consumer,
+     * in time order, one row at a time. Partitions cover disjoint time spans, so each overlapping partition is read
+     * oldest first with `ORDER BY data_timestamp` and nothing is buffered or sorted in the JVM.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @param consumer the callback receiving each timestamp and value.
+     */
+    @Timed("repository.jdbc.invocations")
+    public void scanReadingsInRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to,
+                                    ObjDoubleConsumer<LocalDateTime> consumer) {
+        List<String> tables = partitionsOverlapping(from, to);
+        if (tables.isEmpty()) {
+            return;
+        }
+        int deviceKey = deviceKey(deviceId);
+        int metricKey = metricKey(metric);
+        for (String table : tables) {
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement("SELECT data_timestamp, metric_value FROM " + table
+                        + RANGE_FILTER + " ORDER BY data_timestamp");
+                statement.setFetchSize(jdbcBatchSize);
+                statement.setInt(1, deviceKey);
+                statement.setInt(2, metricKey);
+                statement.setTimestamp(3, Timestamp.valueOf(from));
+                statement.setTimestamp(4, Timestamp.valueOf(to));
+                return statement;
+            }, (RowCallbackHandler) rs -> consumer.accept(rs.getTimestamp(1).toLocalDateTime(), rs.getDouble(2)));
+        }
+    }
+
+    /**
+     * Retrieves every reading of a device and metric across all partitions.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @return the matching readings.
+     */
+    @Timed("repository.jdbc.invocations")
+    public List<SensorData> findAll(String deviceId, String metric) {
+        List<String> tables = new ArrayList<>(partitions.values());
+        if (tables.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(unionOf(tables, COLUMNS, SERIES_FILTER), this::toEntity,
+                repeatedArgs(tables.size(), deviceKey(deviceId), metricKey(metric)));
+    }
+
+    /**
+     * Computes count, min, max, average and median over the overlapping partitions with one aggregate query.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @return a single row of aggregate statistics; values are null if no reading matches.
+     */
+    @Timed("repository.jdbc.invocations")
+    public MetricStats findStatsInRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to) {
+        List<String> tables = partitionsOverlapping(from, to);
+        if (tables.isEmpty()) {
+            return MetricStatsValue.empty();
+        }
+        String sql = "SELECT COUNT(*), MIN(metric_value), MAX(metric_value), AVG(metric_value), "
+                + "PERCENTILE_CONT(0.5) WITHIN GROUP (ORDER BY metric_value) FROM ("
+                + unionOf(tables, "metric_value", RANGE_FILTER) + ") readings";
+        return jdbcTemplate.queryForObject(sql, (rs, rowNum) -> new MetricStatsValue(
+                        rs.getLong(1),
+                        rs.getObject(2, Double.class),
+                        rs.getObject(3, Double.class),
+                        rs.getObject(4, Double.class),
+                        rs.getObject(5, Double.class)),
+                repeatedArgs(tables.size(), deviceKey(deviceId), metricKey(metric), Timestamp.valueOf(from), Timestamp.valueOf(to)));
+    }
+
+    /**
+     * Streams the device, metric, timestamp and value of every row in every partition to the given consumer.
+     *
+     * @param consumer the callback receiving each row.
+     */
+    @Timed("repository.jdbc.invocations")
+    public void scanValues(SensorDataBatchRepository.ValueConsumer consumer) {
+        for (String table : partitions.values()) {
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement("SELECT device_key, metric_key, data_timestamp, metric_value FROM " + table);
+                statement.setFetchSize(jdbcBatchSize);
+                return statement;
+            }, (RowCallbackHandler) rs -> consumer.accept(dimensions.nameOf(Dimension.DEVICE, rs.getInt(1)),
+                    dimensions.nameOf(Dimension.METRIC, rs.getInt(2)), rs.getTimestamp(3).toLocalDateTime(), rs.getDouble(4)));
+        }
+    }
+
+    /**
+     * Streams the device, metric, timestamp and value of every row at or after the given timestamp to
+     * the given consumer, in time order. Only the partitions that can hold such rows are read.
+     *
+     * @param from the earliest timestamp to include.
+     * @param consumer the callback receiving each row.
+     */
+    @Timed("repository.jdbc.invocations")
+    public void scanValuesSince(LocalDateTime from, SensorDataBatchRepository.ValueConsumer consumer) {
+        for (String table : partitions.tailMap(partitionStart(from.toLocalDate()), true).values()) {
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement("SELECT device_key, metric_key, data_timestamp, metric_value FROM "
+                        + table + " WHERE data_timestamp >= ? ORDER BY data_timestamp");
+                statement.setFetchSize(jdbcBatchSize);
+                statement.setTimestamp(1, Timestamp.valueOf(from));
+                return statement;
+            }, (RowCallbackHandler) rs -> consumer.accept(dimensions.nameOf(Dimension.DEVICE, rs.getInt(1)),
+                    dimensions.nameOf(Dimension.METRIC, rs.getInt(2)), rs.getTimestamp(3).toLocalDateTime(), rs.getDouble(4)));
+        }
+    }
+
+    /**
+     * Drops every partition whose whole time span ends on or before the given date.
+     *
+     * @param cutoff the first day whose data must be kept.
+     * @return the number of partitions dropped.
+     */
+    @Timed("repository.jdbc.invocations")
+    public int dropPartitionsBefore(LocalDate cutoff) {
+        int dropped = 0;
+        for (Map.Entry<LocalDate, String> entry : partitions.headMap(cutoff).entrySet()) {
+            if (!partitionEnd(entry.getKey()).isAfter(cutoff)) {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + entry.getValue());
+                partitions.remove(entry.getKey());
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Returns the names of the existing partitions overlapping the given time range, oldest first.
+     *
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @return the partition table names.
+     */
+    public List<String> partitionsOverlapping(LocalDateTime from, LocalDateTime to) {
+        if (to.isBefore(from)) {
+            return List.of();
+        }
+        NavigableMap<LocalDate, String> candidates = partitions.subMap(
+                partitionStart(from.toLocalDate()), true, partitionStart(to.toLocalDate()), true);
+        return new ArrayList<>(candidates.values());
+    }
+
+    /**
+     * Returns the names of every existing partition, oldest first.
+     *
+     * @return the partition table names.
+     */
+    public List<String> allPartitions() {
+        return new ArrayList<>(partitions.values());
+    }
+
+    /**
+     * Returns the partition table for the date, creating it first if needed.
+     * The DDL runs in auto-commit mode on a connection of its own, so it never commits or joins the caller's
+     * transaction, and outside of any map callback or lock, so concurrent writers never hold a lock across JDBC calls.
+     * The partition is recorded only after the DDL has succeeded. A writer losing the race on a new partition finds
+     * the table already created and uses it.
+     */
+    private String ensurePartition(LocalDate date) {
+        LocalDate start = partitionStart(date);
+        String existing = partitions.get(start);
+        if (existing != null) {
+            return existing;
+        }
+        String name = TABLE_PREFIX + (config.getGranularity() == StorageConfig.Granularity.DAILY
+                ? DAILY_SUFFIX.format(start) : MONTHLY_SUFFIX.format(start));
+        withOwnConnection(name, true, statement -> {
+            if (tableExists(statement.getConnection(), name)) {
+                return 0;
+            }
+            try {
+                statement.execute("CREATE TABLE " + name + " ("
+                        + "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                        + "device_key INT NOT NULL, "
+                        + "metric_key INT NOT NULL, "
+                        + "metric_value DOUBLE PRECISION NOT NULL, "
+                        + "device_type_key INT, "
+                        + "data_timestamp TIMESTAMP NOT NULL)");
+            } catch (SQLException e) {
+                if (tableExists(statement.getConnection(), name)) {
+                    return 0;
+                }
+                throw e;
+            }
+            statement.execute("CREATE INDEX idx_" + name + "_device_metric_ts ON " + name
+                    + " (device_key, metric_key, data_timestamp)");
+            return 0;
+        });
+        if (partitions.putIfAbsent(start, name) == null) {
+            log.info("Created partition {}", name);
+        }
+        return name;
+    }
+
+    /**
+     * Runs the work on a connection taken from the pool rather than the one bound to the current transaction.
+     * In auto-commit mode every statement commits on its own; otherwise the work is committed as a whole.
+     */
+    private int withOwnConnection(String table, boolean autoCommit, PartitionWork work) {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            boolean previous = connection.getAutoCommit();
+            connection.setAutoCommit(autoCommit);
+            try {
+                int result = work.run(statement);
+                if (!autoCommit) {
+                    connection.commit();
+                }
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                if (!autoCommit) {
+                    connection.rollback();
+                }
+                throw e;
+            } finally {
+                connection.setAutoCommit(previous);
+            }
+        } catch (SQLException e) {
+            throw jdbcTemplate.getExceptionTranslator().translate("partition " + table, null, e);
+        }
+    }
+
+    private static boolean tableExists(Connection connection, String name) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        for (String candidate : new String[]{name, name.toUpperCase()}) {
+            try (ResultSet tables = metaData.getTables(null, null, candidate, new String[]{"TABLE"})) {
+                if (tables.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @FunctionalInterface
+    private interface PartitionWork {
+
+        int run(Statement statement) throws SQLException;
+    }
+
+    private SensorData toEntity(ResultSet rs, int rowNum) throws SQLException {
+        return SensorData.builder()
+                .id(rs.getLong("id"))
+                .deviceId(dimensions.nameOf(Dimension.DEVICE, rs.getInt("device_key")))
+                .metric(dimensions.nameOf(Dimension.METRIC, rs.getInt("metric_key")))
+                .metricValue(rs.getDouble("metric_value"))
+                .dataTimestamp(rs.getTimestamp("data_timestamp").toLocalDateTime())
+                .deviceType(dimensions.nameOfNullable(Dimension.DEVICE_TYPE, rs.getInt("device_type_key")))
+                .build();
+    }
+
+    private Integer deviceKey(String deviceId) {
+        return dimensions.keyOf(Dimension.DEVICE, deviceId);
+    }
+
+    private Integer metricKey(String metric) {
+        return dimensions.keyOf(Dimension.METRIC, metric);
+    }
+
+    private LocalDate partitionStart(LocalDate date) {
+        return config.getGranularity() == StorageConfig.Granularity.DAILY ? date : date.withDayOfMonth(1);
+    }
+
+    private LocalDate partitionEnd(LocalDate start) {
+        return config.getGranularity() == StorageConfig.Granularity.DAILY ? start.plusDays(1) : start.plusMonths(1);
+    }
+
+    private LocalDate parsePartitionStart(String tableName) {
+        if (!tableName.startsWith(TABLE_PREFIX)) {
+            return null;
+        }
+        String suffix = tableName.substring(TABLE_PREFIX.length());
+        try {
+            if (config.getGranularity() == StorageConfig.Granularity.DAILY && suffix.length() == 8) {
+                return LocalDate.parse(suffix, DAILY_SUFFIX);
+            }
+            if (config.getGranularity() == StorageConfig.Granularity.MONTHLY && suffix.length() == 6) {
+                return LocalDate.parse(suffix + "01", DAILY_SUFFIX);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Ignoring table {} with unexpected partition suffix", tableName);
+        }
+        return null;
+    }
+
+    private static String unionOf(List<String> tables, String columns, String filter) {
+        StringBuilder sql = new StringBuilder();
+        for (String table : tables) {
+            if (!sql.isEmpty()) {
+                sql.append(" UNION ALL ");
+            }
+            sql.append("SELECT ").append(columns).append(" FROM ").append(table).append(filter);
+        }
+        return sql.toString();
+    }
+
+    private static Object[] repeatedArgs(int times, Object... args) {
+        Object[] repeated = new Object[times * args.length];
+        for (int i = 0; i < times; i++) {
+            System.arraycopy(args, 0, repeated, i * args.length, args.length);
+        }
+        return repeated;
+    }
+}
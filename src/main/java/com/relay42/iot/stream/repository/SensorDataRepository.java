@@ -1,18 +1,24 @@
 package com.relay42.iot.stream.repository;
 
 import com.relay42.iot.stream.entity.SensorData;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for performing CRUD operations on SensorData entities.
  * Extends JpaRepository to provide built-in methods for database interactions.
  * Includes a custom query method for retrieving sensor data by device ID and metric.
+ * Names in JPQL filters are converted to dimension keys by {@link com.relay42.iot.stream.entity.DimensionConverter};
+ * native queries resolve them with a subquery on the dimension table.
  */
 @Repository
 public interface SensorDataRepository extends JpaRepository<SensorData, Long> {
@@ -35,4 +41,53 @@ public interface SensorDataRepository extends JpaRepository<SensorData, Long> {
             @Param("from") LocalDateTime from,
             @Param("to") LocalDateTime to
     );
+
+    /**
+     * Streams the SensorData entities for a device and metric within a time range over a database cursor.
+     * Rows are fetched in chunks of the hinted fetch size and the entities are loaded read-only, so callers
+     * can fold over ranges of any size. Must be consumed and closed inside a transaction; callers should
+     * detach each entity once used so the persistence context does not grow with the range.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @return a stream of the matching readings.
+     */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT s FROM SensorData s WHERE s.deviceId = :deviceId AND s.metric = :metric " +
+            "AND s.dataTimestamp BETWEEN :from AND :to")
+    Stream<SensorData> streamByDeviceIdAndMetricAndTimestampRange(
+            @Param("deviceId") String deviceId,
+            @Param("metric") String metric,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
+
+    /**
+     * Computes count, min, max, average and median for a device and metric within a time range in the database.
+     * Uses the standard PERCENTILE_CONT ordered-set aggregate, so it is only available on databases
+     * that support it (e.g., H2, PostgreSQL, Oracle).
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @return a single row of aggregate statistics; values are null if no reading matches.
+     */
+    @Query(value = "SELECT COUNT(*) AS count, MIN(metric_value) AS min, MAX(metric_value) AS max, " +
+            "AVG(metric_value) AS avg, PERCENTILE_CONT(0.5) WITHIN GROUP (ORDER BY metric_value) AS median " +
+            "FROM sensor_data WHERE device_key = (SELECT id FROM sensor_device WHERE name = :deviceId) " +
+            "AND metric_key = (SELECT id FROM sensor_metric WHERE name = :metric) " +
+            "AND data_timestamp BETWEEN :from AND :to", nativeQuery = true)
+    MetricStats findStatsByDeviceIdAndMetricAndTimestampRange(
+            @Param("deviceId") String deviceId,
+            @Param("metric") String metric,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
 }
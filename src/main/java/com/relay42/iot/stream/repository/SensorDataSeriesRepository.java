@@ -0,0 +1,153 @@
+package com.relay42.iot.stream.repository;
+
+import com.relay42.iot.stream.aggregation.SeriesAggregator;
+import com.relay42.iot.stream.config.IngestConfig;
+import com.relay42.iot.stream.model.SeriesPoint;
+import com.relay42.iot.stream.repository.SensorDimensionRepository.Dimension;
+import com.relay42.iot.stream.util.DoubleList;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC repository for time-series reads over `sensor_data`.
+ * Bucketed aggregates are computed with one GROUP BY query on databases whose epoch arithmetic is known
+ * (H2 and PostgreSQL); otherwise callers stream the readings in time order and bucket them in the JVM.
+ */
+@Repository
+public class SensorDataSeriesRepository {
+
+    /**
+     * Expressions converting `data_timestamp` to seconds since the epoch, per database product.
+     */
+    private static final Map<String, String> EPOCH_SECONDS = Map.of(
+            "H2", "DATEDIFF(SECOND, TIMESTAMP '1970-01-01 00:00:00', data_timestamp)",
+            "PostgreSQL", "EXTRACT(EPOCH FROM data_timestamp)");
+
+    private static final String RANGE_FILTER =
+            " FROM sensor_data WHERE device_key = ? AND metric_key = ? AND data_timestamp BETWEEN ? AND ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IngestConfig ingestConfig;
+    private final SensorDimensionRepository dimensions;
+    private final String epochSeconds;
+
+    public SensorDataSeriesRepository(JdbcTemplate jdbcTemplate, IngestConfig ingestConfig,
+                                      DatabaseCapabilities databaseCapabilities, SensorDimensionRepository dimensions) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ingestConfig = ingestConfig;
+        this.dimensions = dimensions;
+        this.epochSeconds = databaseCapabilities.supportsAggregatePushdown()
+                ? EPOCH_SECONDS.get(databaseCapabilities.getDatabaseProduct())
+                : null;
+    }
+
+    /**
+     * Indicates whether bucketed aggregates can be computed by the database.
+     *
+     * @return true if {@link #findBuckets} can be used.
+     */
+    public boolean supportsBucketPushdown() {
+        return epochSeconds != null;
+    }
+
+    /**
+     * Computes the requested aggregates per epoch-aligned bucket with a single GROUP BY query.
+     * Percentiles are exact, using PERCENTILE_CONT per bucket.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @param bucket the bucket size, a whole number of seconds.
+     * @param aggregates the aggregates to report, as returned by {@link SeriesAggregator#parseAggregates(String)}.
+     * @return one point per non-empty bucket, in time order.
+     */
+    @Timed("repository.jdbc.invocations")
+    public List<SeriesPoint> findBuckets(String deviceId, String metric, LocalDateTime from, LocalDateTime to,
+                                         Duration bucket, List<String> aggregates) {
+        List<Double> quantiles = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT bucket, COUNT(*), MIN(metric_value), MAX(metric_value), AVG(metric_value)");
+        for (String aggregate : aggregates) {
+            Double quantile = SeriesAggregator.quantileOf(aggregate);
+            if (quantile != null && !quantiles.contains(quantile)) {
+                quantiles.add(quantile);
+                sql.append(", PERCENTILE_CONT(").append(quantile).append(") WITHIN GROUP (ORDER BY metric_value)");
+            }
+        }
+        sql.append(" FROM (SELECT FLOOR(").append(epochSeconds).append(" / CAST(? AS BIGINT)) AS bucket, metric_value")
+                .append(RANGE_FILTER).append(") readings GROUP BY bucket ORDER BY bucket");
+
+        long bucketSeconds = bucket.getSeconds();
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
+            Map<Double, Double> values = new HashMap<>();
+            for (int i = 0; i < quantiles.size(); i++) {
+                values.put(quantiles.get(i), rs.getDouble(6 + i));
+            }
+            LocalDateTime start = LocalDateTime.ofEpochSecond(rs.getLong(1) * bucketSeconds, 0, ZoneOffset.UTC);
+            return SeriesAggregator.toPoint(start, aggregates, rs.getLong(2), rs.getDouble(3), rs.getDouble(4),
+                    rs.getDouble(5), values::get);
+        }, bucketSeconds, dimensions.keyOf(Dimension.DEVICE, deviceId), dimensions.keyOf(Dimension.METRIC, metric),
+                Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    /**
+     * Streams the readings of a device and metric within a time range to the given consumer, in time order.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @param consumer the callback receiving each reading.
+     */
+    @Timed("repository.jdbc.invocations")
+    public void scanRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to,
+                          SensorDataBatchRepository.ValueConsumer consumer) {
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(
+                    "SELECT data_timestamp, metric_value" + RANGE_FILTER + " ORDER BY data_timestamp");
+            statement.setFetchSize(ingestConfig.getBatch().getJdbcBatchSize());
+            statement.setInt(1, dimensions.keyOf(Dimension.DEVICE, deviceId));
+            statement.setInt(2, dimensions.keyOf(Dimension.METRIC, metric));
+            statement.setTimestamp(3, Timestamp.valueOf(from));
+            statement.setTimestamp(4, Timestamp.valueOf(to));
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(deviceId, metric, rs.getTimestamp(1).toLocalDateTime(), rs.getDouble(2)));
+    }
+
+    /**
+     * Reads only the metric values of a device and metric within a time range, in no particular order.
+     * The scalar projection skips the entity mapping and the timestamp conversion, and the values are
+     * collected without boxing.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @return the metric values.
+     */
+    @Timed("repository.jdbc.invocations")
+    public DoubleList findValues(String deviceId, String metric, LocalDateTime from, LocalDateTime to) {
+        DoubleList values = new DoubleList();
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement("SELECT metric_value" + RANGE_FILTER);
+            statement.setFetchSize(ingestConfig.getBatch().getJdbcBatchSize());
+            statement.setInt(1, dimensions.keyOf(Dimension.DEVICE, deviceId));
+            statement.setInt(2, dimensions.keyOf(Dimension.METRIC, metric));
+            statement.setTimestamp(3, Timestamp.valueOf(from));
+            statement.setTimestamp(4, Timestamp.valueOf(to));
+            return statement;
+        }, (RowCallbackHandler) rs -> values.add(rs.getDouble(1)));
+        return values;
+    }
+}
@@ -0,0 +1,124 @@
+package com.relay42.iot.stream.repository;
+
+import com.relay42.iot.stream.config.IngestConfig;
+import com.relay42.iot.stream.model.BulkStatsRequest;
+import com.relay42.iot.stream.repository.SensorDimensionRepository.Dimension;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * JDBC repository for statistics over many devices and metrics at once.
+ * The filter of a {@link BulkStatsRequest} is applied to one or more tables holding readings
+ * (`sensor_data`, or the partitions overlapping the requested range), so a whole fleet is answered
+ * with a single grouped query or a single scan. Names in the filter are resolved to dimension keys up front and
+ * rows are grouped by key, so the database never compares or returns strings.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SensorDataStatsRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final IngestConfig ingestConfig;
+    private final SensorDimensionRepository dimensions;
+
+    /**
+     * Computes count, min, max, average and median per device and metric with one GROUP BY query.
+     * Uses PERCENTILE_CONT, so it is only available on databases that support it.
+     *
+     * @param tables the tables holding the readings.
+     * @param request the devices, metrics and optional time range to aggregate.
+     * @return the statistics keyed by device and then by metric.
+     */
+    @Timed("repository.jdbc.invocations")
+    public Map<String, Map<String, MetricStats>> findGroupedStats(List<String> tables, BulkStatsRequest request) {
+        String sql = "SELECT device_key, metric_key, COUNT(*), MIN(metric_value), MAX(metric_value), AVG(metric_value), "
+                + "PERCENTILE_CONT(0.5) WITHIN GROUP (ORDER BY metric_value) FROM ("
+                + selectFrom(tables, request) + ") readings GROUP BY device_key, metric_key";
+
+        Map<String, Map<String, MetricStats>> result = new TreeMap<>();
+        jdbcTemplate.query(sql, parameters(request), (RowCallbackHandler) rs ->
+                result.computeIfAbsent(dimensions.nameOf(Dimension.DEVICE, rs.getInt(1)), device -> new TreeMap<>())
+                        .put(dimensions.nameOf(Dimension.METRIC, rs.getInt(2)), new MetricStatsValue(rs.getLong(3), rs.getDouble(4),
+                                rs.getDouble(5), rs.getDouble(6), rs.getDouble(7))));
+        return result;
+    }
+
+    /**
+     * Streams the device, metric, timestamp and value of every matching reading to the given consumer.
+     *
+     * @param tables the tables holding the readings.
+     * @param request the devices, metrics and optional time range to read.
+     * @param consumer the callback receiving each reading.
+     */
+    @Timed("repository.jdbc.invocations")
+    public void scan(List<String> tables, BulkStatsRequest request, SensorDataBatchRepository.ValueConsumer consumer) {
+        MapSqlParameterSource parameters = parameters(request);
+        ParsedSql parsedSql = NamedParameterUtils.parseSqlStatement(selectFrom(tables, request));
+        String sql = NamedParameterUtils.substituteNamedParameters(parsedSql, parameters);
+        PreparedStatementSetter setter = new PreparedStatementCreatorFactory(sql,
+                NamedParameterUtils.buildSqlParameterList(parsedSql, parameters))
+                .newPreparedStatementSetter(NamedParameterUtils.buildValueArray(parsedSql, parameters, null));
+
+        jdbcTemplate.getJdbcTemplate().query(sql, statement -> {
+            statement.setFetchSize(ingestConfig.getBatch().getJdbcBatchSize());
+            setter.setValues(statement);
+        }, (RowCallbackHandler) rs -> consumer.accept(dimensions.nameOf(Dimension.DEVICE, rs.getInt(1)),
+                dimensions.nameOf(Dimension.METRIC, rs.getInt(2)), rs.getTimestamp(3).toLocalDateTime(), rs.getDouble(4)));
+    }
+
+    private static String selectFrom(List<String> tables, BulkStatsRequest request) {
+        StringBuilder filter = new StringBuilder(" WHERE 1 = 1");
+        if (request.getDeviceIds() != null && !request.getDeviceIds().isEmpty()) {
+            filter.append(" AND device_key IN (:deviceKeys)");
+        }
+        if (request.getMetrics() != null && !request.getMetrics().isEmpty()) {
+            filter.append(" AND metric_key IN (:metricKeys)");
+        }
+        if (request.getDeviceType() != null) {
+            filter.append(" AND device_type_key = :deviceTypeKey");
+        }
+        if (request.hasRange()) {
+            filter.append(" AND data_timestamp BETWEEN :from AND :to");
+        }
+
+        StringBuilder sql = new StringBuilder();
+        for (String table : tables) {
+            if (!sql.isEmpty()) {
+                sql.append(" UNION ALL ");
+            }
+            sql.append("SELECT device_key, metric_key, data_timestamp, metric_value FROM ").append(table).append(filter);
+        }
+        return sql.toString();
+    }
+
+    private MapSqlParameterSource parameters(BulkStatsRequest request) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        if (request.getDeviceIds() != null && !request.getDeviceIds().isEmpty()) {
+            parameters.addValue("deviceKeys", dimensions.keysOf(Dimension.DEVICE, request.getDeviceIds()));
+        }
+        if (request.getMetrics() != null && !request.getMetrics().isEmpty()) {
+            parameters.addValue("metricKeys", dimensions.keysOf(Dimension.METRIC, request.getMetrics()));
+        }
+        if (request.getDeviceType() != null) {
+            parameters.addValue("deviceTypeKey", dimensions.keyOf(Dimension.DEVICE_TYPE, request.getDeviceType()));
+        }
+        if (request.hasRange()) {
+            parameters.addValue("from", Timestamp.valueOf(request.getFrom()));
+            parameters.addValue("to", Timestamp.valueOf(request.getTo()));
+        }
+        return parameters;
+    }
+}
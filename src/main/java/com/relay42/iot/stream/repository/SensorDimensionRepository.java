@@ -0,0 +1,447 @@
+package com.relay42.iot.stream.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.relay42.iot.stream.entity.SensorData;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Dictionary of the device ids, metric names and device types referenced by integer key from `sensor_data`
+ * and its partitions. Each name is stored once in its dimension table (`sensor_device`, `sensor_metric`,
+ * `sensor_device_type`) and cached in both directions, so ingest resolves keys without a query and decoded
+ * readings share one String instance per name instead of allocating one per row.
+ *
+ * A new name is upserted on the caller's connection, inside its transaction, so ingest never needs a second
+ * pooled connection and holds no lock while it talks to the database; concurrent writers of the same name are
+ * reconciled by the unique constraint. The key is only cached once that transaction commits, so a rolled back
+ * ingest cannot leave a key in the cache whose row does not exist. Dimension rows are never deleted, and other
+ * instances sharing the database pick new names up on their first cache miss.
+ *
+ * Tables still in the previous layout, with the names in VARCHAR columns of every row, are migrated at startup.
+ */
+@Slf4j
+@Repository
+public class SensorDimensionRepository {
+
+    /**
+     * Key never assigned to a name; filtering on it matches no reading.
+     */
+    public static final int UNKNOWN_KEY = 0;
+
+    /**
+     * Names looked up but not stored are remembered for a short while, so repeated queries for unknown devices
+     * do not each cost a query, while a name stored by another instance is found again soon.
+     */
+    private static final int UNKNOWN_NAMES_SIZE = 10_000;
+    private static final Duration UNKNOWN_NAMES_TTL = Duration.ofSeconds(30);
+
+    /**
+     * Insert-if-absent statements per database product; other databases use the standard MERGE.
+     */
+    private static final Map<String, String> UPSERT = Map.of(
+            "PostgreSQL", "INSERT INTO %s (name) VALUES (?) ON CONFLICT (name) DO NOTHING");
+    private static final String MERGE = "MERGE INTO %s d USING (SELECT CAST(? AS VARCHAR(255)) AS name) s "
+            + "ON d.name = s.name WHEN NOT MATCHED THEN INSERT (name) VALUES (s.name)";
+
+    /**
+     * `sensor_data` and its partition tables, which may still be in the layout storing the names in every row.
+     */
+    private static final Pattern READINGS_TABLE = Pattern.compile("sensor_data(_p\\d+)?");
+
+    /**
+     * The name columns of the previous layout and the key columns replacing them.
+     */
+    private static final List<LegacyColumn> LEGACY_COLUMNS = List.of(
+            new LegacyColumn("device_id", "device_key", Dimension.DEVICE),
+            new LegacyColumn("metric", "metric_key", Dimension.METRIC),
+            new LegacyColumn("device_type", "device_type_key", Dimension.DEVICE_TYPE));
+
+    /**
+     * A dictionary-encoded column of a reading.
+     */
+    public enum Dimension {
+        DEVICE("sensor_device"),
+        METRIC("sensor_metric"),
+        DEVICE_TYPE("sensor_device_type");
+
+        private final String table;
+
+        Dimension(String table) {
+            this.table = table;
+        }
+
+        /**
+         * @return the dimension table holding the names.
+         */
+        public String table() {
+            return table;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final String upsert;
+    private final Map<Dimension, Dictionary> dictionaries = new EnumMap<>(Dimension.class);
+
+    public SensorDimensionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.upsert = UPSERT.getOrDefault(databaseProduct(jdbcTemplate), MERGE);
+        for (Dimension dimension : Dimension.values()) {
+            dictionaries.put(dimension, new Dictionary());
+        }
+    }
+
+    /**
+     * Migrates the tables still in the previous layout, then loads every stored name into the cache.
+     */
+    @PostConstruct
+    public void load() {
+        legacyColumns().forEach(this::migrate);
+        for (Dimension dimension : Dimension.values()) {
+            Dictionary dictionary = dictionaries.get(dimension);
+            jdbcTemplate.query("SELECT id, name FROM " + dimension.table(),
+                    (RowCallbackHandler) rs -> dictionary.put(rs.getInt(1), rs.getString(2)));
+        }
+        log.info("Loaded {} devices, {} metrics and {} device types", dictionaries.get(Dimension.DEVICE).size(),
+                dictionaries.get(Dimension.METRIC).size(), dictionaries.get(Dimension.DEVICE_TYPE).size());
+    }
+
+    /**
+     * Returns the key of a name, storing the name first if it has never been seen.
+     * Inside a transaction the name is stored as part of it and cached once it commits.
+     *
+     * @param dimension the dimension of the name.
+     * @param name the name, or null.
+     * @return the key, or null for a null name.
+     */
+    public Integer intern(Dimension dimension, String name) {
+        if (name == null) {
+            return null;
+        }
+        Dictionary dictionary = dictionaries.get(dimension);
+        Integer key = dictionary.keys.get(name);
+        if (key != null) {
+            return key;
+        }
+
+        Map<PendingName, Integer> pending = pendingInTransaction();
+        PendingName pendingName = new PendingName(dimension, name);
+        if (pending != null && (key = pending.get(pendingName)) != null) {
+            return key;
+        }
+        key = store(dimension, name);
+        if (pending != null) {
+            pending.put(pendingName, key);
+        } else {
+            dictionary.put(key, name);
+        }
+        return key;
+    }
+
+    /**
+     * Stores the device id, metric and device type of each reading that are not in the dictionary yet.
+     * Afterwards {@link #keyOf} resolves every name of the readings without a query.
+     *
+     * @param readings the readings about to be inserted.
+     */
+    public void internAll(Collection<SensorData> readings) {
+        for (SensorData data : readings) {
+            intern(Dimension.DEVICE, data.getDeviceId());
+            intern(Dimension.METRIC, data.getMetric());
+            intern(Dimension.DEVICE_TYPE, data.getDeviceType());
+        }
+    }
+
+    /**
+     * Indicates whether every name of the readings is already cached, so inserting them needs no dictionary query.
+     *
+     * @param readings the readings about to be inserted.
+     * @return true if {@link #internAll} would not touch the database.
+     */
+    public boolean isInterned(Collection<SensorData> readings) {
+        Dictionary devices = dictionaries.get(Dimension.DEVICE);
+        Dictionary metrics = dictionaries.get(Dimension.METRIC);
+        Dictionary deviceTypes = dictionaries.get(Dimension.DEVICE_TYPE);
+        for (SensorData data : readings) {
+            if (!devices.keys.containsKey(data.getDeviceId()) || !metrics.keys.containsKey(data.getMetric())
+                    || (data.getDeviceType() != null && !deviceTypes.keys.containsKey(data.getDeviceType()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the key of a name without storing it.
+     *
+     * @param dimension the dimension of the name.
+     * @param name the name, or null.
+     * @return the key, {@link #UNKNOWN_KEY} if the name has never been stored, or null for a null name.
+     */
+    public Integer keyOf(Dimension dimension, String name) {
+        if (name == null) {
+            return null;
+        }
+        Dictionary dictionary = dictionaries.get(dimension);
+        Integer key = dictionary.keys.get(name);
+        if (key != null) {
+            return key;
+        }
+        Map<PendingName, Integer> pending = pendingInTransaction();
+        if (pending != null && (key = pending.get(new PendingName(dimension, name))) != null) {
+            return key;
+        }
+        if (dictionary.unknown.getIfPresent(name) != null) {
+            return UNKNOWN_KEY;
+        }
+
+        List<Integer> stored = jdbcTemplate.queryForList(
+                "SELECT id FROM " + dimension.table() + " WHERE name = ?", Integer.class, name);
+        if (stored.isEmpty()) {
+            dictionary.unknown.put(name, Boolean.TRUE);
+            return UNKNOWN_KEY;
+        }
+        dictionary.put(stored.get(0), name);
+        return stored.get(0);
+    }
+
+    /**
+     * Returns the keys of the given names that have been stored, reading the names missing from the cache
+     * with a single query.
+     *
+     * @param dimension the dimension of the names.
+     * @param names the names.
+     * @return the keys of the known names, or `[UNKNOWN_KEY]` if none is known, so the list can be used in an IN filter.
+     */
+    public List<Integer> keysOf(Dimension dimension, Collection<String> names) {
+        Dictionary dictionary = dictionaries.get(dimension);
+        Set<Integer> keys = new LinkedHashSet<>();
+        List<String> missing = new ArrayList<>();
+        for (String name : names) {
+            Integer key = name == null ? null : dictionary.keys.get(name);
+            if (key != null) {
+                keys.add(key);
+            } else if (name != null && dictionary.unknown.getIfPresent(name) == null) {
+                missing.add(name);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            Set<String> unknown = new LinkedHashSet<>(missing);
+            namedJdbcTemplate.query("SELECT id, name FROM " + dimension.table() + " WHERE name IN (:names)",
+                    Map.of("names", unknown), (RowCallbackHandler) rs -> {
+                        String name = rs.getString(2);
+                        dictionary.put(rs.getInt(1), name);
+                        keys.add(rs.getInt(1));
+                        unknown.remove(name);
+                    });
+            unknown.forEach(name -> dictionary.unknown.put(name, Boolean.TRUE));
+        }
+        return keys.isEmpty() ? List.of(UNKNOWN_KEY) : List.copyOf(keys);
+    }
+
+    /**
+     * Returns the name of a key.
+     *
+     * @param dimension the dimension of the key.
+     * @param key the key, or null.
+     * @return the cached name instance, or null for a null key.
+     * @throws IllegalStateException if no name is stored under the key.
+     */
+    public String nameOf(Dimension dimension, Integer key) {
+        if (key == null) {
+            return null;
+        }
+        Dictionary dictionary = dictionaries.get(dimension);
+        String name = dictionary.names.get(key);
+        if (name != null) {
+            return name;
+        }
+        List<String> stored = jdbcTemplate.queryForList(
+                "SELECT name FROM " + dimension.table() + " WHERE id = ?", String.class, key);
+        if (stored.isEmpty()) {
+            throw new IllegalStateException("No " + dimension.table() + " row with id " + key);
+        }
+        return dictionary.put(key, stored.get(0));
+    }
+
+    /**
+     * Returns the name of a key read from a nullable INT column, where SQL NULL is read as 0.
+     *
+     * @param dimension the dimension of the key.
+     * @param key the key, or {@link #UNKNOWN_KEY} for NULL.
+     * @return the cached name instance, or null.
+     */
+    public String nameOfNullable(Dimension dimension, int key) {
+        return key == UNKNOWN_KEY ? null : nameOf(dimension, key);
+    }
+
+    /**
+     * Inserts the name unless it exists and reads its key, on the caller's connection.
+     * If another transaction stored the same name concurrently the insert waits for it and, on databases
+     * without an upsert that skips conflicts, fails with a duplicate key once it commits; the key is then read.
+     */
+    private int store(Dimension dimension, String name) {
+        try {
+            jdbcTemplate.update(upsert.formatted(dimension.table()), name);
+        } catch (DuplicateKeyException e) {
+            log.debug("{} {} was stored concurrently", dimension.table(), name);
+        }
+        return jdbcTemplate.queryForObject("SELECT id FROM " + dimension.table() + " WHERE name = ?", Integer.class, name);
+    }
+
+    /**
+     * Returns the name columns of the previous layout still present, by readings table.
+     */
+    private Map<String, Set<String>> legacyColumns() {
+        Set<String> legacyNames = new LinkedHashSet<>();
+        LEGACY_COLUMNS.forEach(column -> legacyNames.add(column.name()));
+        return jdbcTemplate.execute((Connection connection) -> {
+            Map<String, Set<String>> legacy = new TreeMap<>();
+            try (ResultSet columns = connection.getMetaData().getColumns(null, null, "%", "%")) {
+                while (columns.next()) {
+                    String table = columns.getString("TABLE_NAME").toLowerCase();
+                    String column = columns.getString("COLUMN_NAME").toLowerCase();
+                    if (READINGS_TABLE.matcher(table).matches() && legacyNames.contains(column)) {
+                        legacy.computeIfAbsent(table, t -> new LinkedHashSet<>()).add(column);
+                    }
+                }
+            }
+            return legacy;
+        });
+    }
+
+    /**
+     * Moves a readings table from name columns to dimension keys: stores the distinct names in the dimension tables,
+     * fills the key columns, swaps the composite index over to the keys and drops the name columns.
+     * Every step only touches rows or columns not migrated yet, so an interrupted migration resumes on the next start.
+     */
+    private void migrate(String table, Set<String> columns) {
+        log.info("Migrating {} from name columns {} to dimension keys", table, columns);
+        for (LegacyColumn column : LEGACY_COLUMNS) {
+            if (!columns.contains(column.name())) {
+                continue;
+            }
+            String dimension = column.dimension().table();
+            jdbcTemplate.execute("ALTER TABLE " + table + " ADD COLUMN IF NOT EXISTS " + column.keyColumn() + " INT");
+            jdbcTemplate.update("INSERT INTO " + dimension + " (name) SELECT DISTINCT " + column.name() + " FROM " + table
+                    + " WHERE " + column.name() + " IS NOT NULL AND " + column.name() + " NOT IN (SELECT name FROM " + dimension + ")");
+            jdbcTemplate.update("UPDATE " + table + " SET " + column.keyColumn() + " = (SELECT id FROM " + dimension
+                    + " WHERE name = " + table + "." + column.name() + ") WHERE " + column.keyColumn() + " IS NULL");
+        }
+
+        String index = "idx_" + table + "_device_metric_ts";
+        jdbcTemplate.execute("DROP INDEX IF EXISTS " + index);
+        for (String column : columns) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " DROP COLUMN " + column);
+        }
+        jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN device_key SET NOT NULL");
+        jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN metric_key SET NOT NULL");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + index + " ON " + table + " (device_key, metric_key, data_timestamp)");
+    }
+
+    /**
+     * Returns the names stored by the current transaction and not yet cached, registering the synchronization
+     * that caches them after commit; null outside of a transaction.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<PendingName, Integer> pendingInTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Map<PendingName, Integer> pending = (Map<PendingName, Integer>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Map<PendingName, Integer> names = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, names);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    names.forEach((name, key) -> dictionaries.get(name.dimension()).put(key, name.name()));
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(SensorDimensionRepository.this);
+                }
+            });
+            pending = names;
+        }
+        return pending;
+    }
+
+    private static String databaseProduct(JdbcTemplate jdbcTemplate) {
+        try {
+            return JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(), DatabaseMetaData::getDatabaseProductName);
+        } catch (MetaDataAccessException e) {
+            log.warn("Could not determine database product, using MERGE for dimension rows: {}", e.getMessage());
+            return "unknown";
+        }
+    }
+
+    /**
+     * A name column of the previous layout, with the key column and dimension replacing it.
+     */
+    private record LegacyColumn(String name, String keyColumn, Dimension dimension) {
+    }
+
+    /**
+     * A name stored by a transaction that has not committed yet.
+     */
+    private record PendingName(Dimension dimension, String name) {
+    }
+
+    /**
+     * Cached names of one dimension, in both directions, and the recently looked up names that are not stored.
+     */
+    private static final class Dictionary {
+
+        private final Map<String, Integer> keys = new ConcurrentHashMap<>();
+        private final Map<Integer, String> names = new ConcurrentHashMap<>();
+        private final Cache<String, Boolean> unknown = Caffeine.newBuilder()
+                .maximumSize(UNKNOWN_NAMES_SIZE)
+                .expireAfterWrite(UNKNOWN_NAMES_TTL)
+                .build();
+
+        /**
+         * @return the canonical instance of the name, which is the one already cached if any.
+         */
+        private String put(int key, String name) {
+            String existing = names.putIfAbsent(key, name);
+            String canonical = existing != null ? existing : name;
+            keys.putIfAbsent(canonical, key);
+            unknown.invalidate(canonical);
+            return canonical;
+        }
+
+        private int size() {
+            return keys.size();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.relay42.iot.stream.security;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+
+import static org.springframework.security.config.Customizer.withDefaults;
+
+/**
+ * Security configuration for the reactive profile.
+ * Mirrors {@link SecurityConfig}: CSRF is disabled for non-browser clients and every API endpoint requires
+ * basic authentication with the `spring.security.user` credentials.
+ */
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSecurityConfig {
+
+    /**
+     * Configures the security filter chain of the WebFlux stack.
+     * - Disables CSRF protection to allow non-browser clients to interact with the API.
+     * - Permits unrestricted access to the Swagger UI and API documentation paths.
+     * - Requires basic authentication for all other requests.
+     *
+     * @param http the ServerHttpSecurity object used to configure security settings.
+     * @return the configured SecurityWebFilterChain instance.
+     */
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        return http
+                .authorizeExchange(exchange -> exchange
+                        .pathMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
+                        .anyExchange().authenticated()
+                )
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(withDefaults())
+                .build();
+    }
+}
@@ -0,0 +1,136 @@
+package com.relay42.iot.stream.service;
+
+import com.relay42.iot.stream.aggregation.Precision;
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.model.BulkStatsRequest;
+import com.relay42.iot.stream.model.MetricSummary;
+import com.relay42.iot.stream.model.SeriesPoint;
+import com.relay42.iot.stream.repository.MetricStats;
+import com.relay42.iot.stream.repository.ReactiveSensorDataRepository.TimedValue;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking counterpart of {@link SensorDataService} used by the reactive profile.
+ * Writes go through R2DBC and update the same in-memory running aggregates, rollups, hot window and stats cache,
+ * so both serving modes report the same statistics.
+ */
+public interface ReactiveSensorDataService {
+
+    /**
+     * Saves a SensorData entity to the database.
+     *
+     * @param data the SensorData entity to be saved.
+     * @return completes once the reading is stored.
+     */
+    Mono<Void> saveSensorData(SensorData data);
+
+    /**
+     * Saves the readings emitted by the given publisher in a single transaction.
+     * Readings are requested only as fast as they are written, so a streaming request body is read with backpressure.
+     *
+     * @param readings the SensorData entities to be saved.
+     * @return the number of entities saved.
+     */
+    Mono<Integer> saveSensorDataStream(Flux<SensorData> readings);
+
+    /**
+     * Retrieves the SensorData entities for a specific device and metric.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @return the readings of the device and metric.
+     */
+    Flux<SensorData> getSensorData(String deviceId, String metric);
+
+    /**
+     * Retrieves the running statistics (count, min, max, avg, median) for a specific device and metric.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @return the statistics over all readings of the series; the count is 0 if there are none.
+     */
+    Mono<MetricStats> getSensorDataStats(String deviceId, String metric);
+
+    /**
+     * Computes the statistics of the whole history of a device and metric with an exact median.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @return the aggregate statistics; the count is 0 if there are no readings.
+     */
+    Mono<MetricStats> getExactSensorDataStats(String deviceId, String metric);
+
+    /**
+     * Retrieves the statistics of many devices and metrics at once.
+     *
+     * @param request the devices, metrics and optional time range to aggregate.
+     * @return the summaries keyed by device and then by metric; series without readings are omitted.
+     */
+    Mono<Map<String, Map<String, MetricSummary>>> getBulkStats(BulkStatsRequest request);
+
+    /**
+     * Computes count, min, max, average and median of a device and metric within a time range.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @param precision whether the median may be approximated when the readings are folded in the JVM.
+     * @return the aggregate statistics of the range.
+     */
+    Mono<MetricStats> getStatsInRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to,
+                                      Precision precision);
+
+    /**
+     * Aggregates the readings of a device and metric into time buckets.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @param bucket the bucket size, a whole number of seconds.
+     * @param aggregates the aggregates to report per bucket (e.g., min, max, avg, p95).
+     * @return one point per non-empty bucket, in time order.
+     */
+    Mono<List<SeriesPoint>> getSeries(String deviceId, String metric, LocalDateTime from, LocalDateTime to,
+                                      Duration bucket, List<String> aggregates);
+
+    /**
+     * Returns the readings of a device and metric within a time range, downsampled with LTTB.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @param maxPoints the maximum number of points to return, at least 3.
+     * @return the selected readings, in time order.
+     */
+    Mono<List<SeriesPoint>> getDownsampledSeries(String deviceId, String metric, LocalDateTime from, LocalDateTime to,
+                                                 int maxPoints);
+
+    /**
+     * Streams the timestamp and value of every reading of a device and metric within a time range, in time order.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @return the readings of the range.
+     */
+    Flux<TimedValue> scanReadingsInRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Streams the timestamp and value of every stored reading of a device and metric, in time order.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @return the readings.
+     */
+    Flux<TimedValue> scanReadings(String deviceId, String metric);
+}
@@ -1,9 +1,17 @@
 package com.relay42.iot.stream.service;
 
 import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.model.BulkStatsRequest;
+import com.relay42.iot.stream.model.MetricSummary;
+import com.relay42.iot.stream.model.SeriesPoint;
+import com.relay42.iot.stream.repository.MetricStats;
+import com.relay42.iot.stream.util.DoubleList;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.function.ObjDoubleConsumer;
 
 /**
  * Service interface for managing sensor data operations.
@@ -18,6 +26,14 @@ public interface SensorDataService {
      */
     void saveSensorData(SensorData data);
 
+    /**
+     * Saves a batch of SensorData entities to the database in a single transaction.
+     *
+     * @param dataList the SensorData entities to be saved.
+     * @return the number of entities saved.
+     */
+    int saveSensorDataBatch(List<SensorData> dataList);
+
     /**
      * Retrieves a list of SensorData entities for a specific device and metric.
      *
@@ -27,5 +43,116 @@ public interface SensorDataService {
      */
     List<SensorData> getSensorData(String deviceId, String metric);
 
+    /**
+     * Retrieves the running statistics (count, min, max, avg, median) for a specific device and metric.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @return the statistics over all readings of the series; the count is 0 if there are none.
+     */
+    MetricStats getSensorDataStats(String deviceId, String metric);
+
+    /**
+     * Retrieves the statistics of many devices and metrics at once.
+     *
+     * @param request the devices, metrics and optional time range to aggregate.
+     * @return the summaries keyed by device and then by metric; series without readings are omitted.
+     */
+    Map<String, Map<String, MetricSummary>> getBulkStats(BulkStatsRequest request);
+
     List<SensorData> getDataInRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Retrieves only the metric values of a device and metric within a time range, without materializing entities.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @return the metric values, in no particular order.
+     */
+    DoubleList getValuesInRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Computes count, min, max, average and median for a device and metric within a time range
+     * without holding every reading in memory.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @return the aggregate statistics; the count is 0 if there are no readings in the range.
+     */
+    MetricStats getStatsInRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Computes count, min, max, average and an exact median for a device and metric within a time range,
+     * reading every reading of the range instead of merging approximate quantile sketches.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @return the aggregate statistics; the count is 0 if there are no readings in the range.
+     */
+    MetricStats getExactStatsInRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Computes the statistics over all readings of a device and metric with an exact median.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @return the aggregate statistics; the count is 0 if there are no readings.
+     */
+    MetricStats getExactSensorDataStats(String deviceId, String metric);
+
+    /**
+     * Aggregates the readings of a device and metric into fixed-size, epoch-aligned time buckets in a single pass.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @param bucket the bucket size, a whole number of seconds.
+     * @param aggregates the aggregates to report per bucket (e.g., min, max, avg, p95).
+     * @return one point per non-empty bucket, in time order.
+     */
+    List<SeriesPoint> getSeries(String deviceId, String metric, LocalDateTime from, LocalDateTime to,
+                                Duration bucket, List<String> aggregates);
+
+    /**
+     * Returns the readings of a device and metric within a time range, downsampled with LTTB to at most maxPoints.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @param maxPoints the maximum number of points to return, at least 3.
+     * @return the selected readings, in time order.
+     */
+    List<SeriesPoint> getDownsampledSeries(String deviceId, String metric, LocalDateTime from, LocalDateTime to,
+                                           int maxPoints);
+
+    /**
+     * Streams every reading of a device and metric within a time range to the consumer, in time order,
+     * without materializing entities.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @param consumer receives the timestamp and value of each reading.
+     */
+    void scanReadingsInRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to,
+                             ObjDoubleConsumer<LocalDateTime> consumer);
+
+    /**
+     * Streams every stored reading of a device and metric to the consumer, in time order,
+     * without materializing entities.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param consumer receives the timestamp and value of each reading.
+     */
+    void scanReadings(String deviceId, String metric, ObjDoubleConsumer<LocalDateTime> consumer);
 }
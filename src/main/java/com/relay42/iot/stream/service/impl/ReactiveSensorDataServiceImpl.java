@@ -0,0 +1,278 @@
+package com.relay42.iot.stream.service.impl;
+
+import com.relay42.iot.stream.aggregation.AggregationMetrics;
+import com.relay42.iot.stream.aggregation.AggregationMetrics.Source;
+import com.relay42.iot.stream.aggregation.Precision;
+import com.relay42.iot.stream.aggregation.RollupStore;
+import com.relay42.iot.stream.aggregation.RunningAggregate;
+import com.relay42.iot.stream.aggregation.RunningAggregateStore;
+import com.relay42.iot.stream.aggregation.SeriesAggregator;
+import com.relay42.iot.stream.aggregation.SeriesDownsampler;
+import com.relay42.iot.stream.cache.StatsCache;
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.model.BulkStatsRequest;
+import com.relay42.iot.stream.model.MetricSummary;
+import com.relay42.iot.stream.model.SeriesPoint;
+import com.relay42.iot.stream.repository.DatabaseCapabilities;
+import com.relay42.iot.stream.repository.MetricStats;
+import com.relay42.iot.stream.repository.ReactiveSensorDataRepository;
+import com.relay42.iot.stream.repository.ReactiveSensorDataRepository.TimedValue;
+import com.relay42.iot.stream.repository.SensorDataPartitionRepository;
+import com.relay42.iot.stream.service.ReactiveSensorDataService;
+import com.relay42.iot.stream.service.SensorDataService;
+import com.relay42.iot.stream.storage.HotWindowStore;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * R2DBC implementation of {@link ReactiveSensorDataService}.
+ * Ranges inside the hot window are answered from memory; everything else is read from `sensor_data` without blocking.
+ * Rollups are still maintained on ingest but not read, because their edge buckets are filled by a blocking JDBC reader.
+ * Only bulk statistics, which run grouped JDBC queries over the whole fleet, are delegated to {@link SensorDataService}
+ * on the bounded elastic scheduler.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSensorDataServiceImpl implements ReactiveSensorDataService {
+
+    /**
+     * Bounds of the range read when exact statistics are requested for the whole history of a series.
+     */
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime HISTORY_END = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private final ReactiveSensorDataRepository repository;
+    private final SensorDataService blockingService;
+    private final RunningAggregateStore runningAggregates;
+    private final RollupStore rollupStore;
+    private final DatabaseCapabilities databaseCapabilities;
+    private final SensorDataPartitionRepository partitionRepository;
+    private final StatsCache statsCache;
+    private final HotWindowStore hotWindow;
+    private final AggregationMetrics aggregationMetrics;
+
+    /**
+     * Fails fast on configurations the R2DBC repository does not cover.
+     */
+    @PostConstruct
+    public void checkConfiguration() {
+        if (partitionRepository.isEnabled()) {
+            throw new IllegalStateException("storage.partitioning.enabled is not supported by the reactive profile");
+        }
+    }
+
+    /**
+     * Saves a SensorData entity and records it in the in-memory aggregates once it is stored.
+     *
+     * @param data the SensorData entity to be saved.
+     * @return completes once the reading is stored.
+     */
+    @Override
+    public Mono<Void> saveSensorData(SensorData data) {
+        return repository.save(data)
+                .doOnSuccess(saved -> record(List.of(data)))
+                .then();
+    }
+
+    /**
+     * Saves the readings emitted by the given publisher in one transaction, as batched inserts.
+     * The readings are recorded in the in-memory aggregates only after the transaction commits, so a failed stream
+     * never shows up in the statistics.
+     *
+     * @param readings the SensorData entities to be saved.
+     * @return the number of entities saved.
+     */
+    @Override
+    public Mono<Integer> saveSensorDataStream(Flux<SensorData> readings) {
+        return Mono.defer(() -> {
+            List<SensorData> saved = new ArrayList<>();
+            return repository.saveAll(readings.doOnNext(saved::add))
+                    .doOnSuccess(count -> record(saved));
+        });
+    }
+
+    /**
+     * Retrieves the SensorData entities for a specific device and metric.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @return the readings of the device and metric.
+     */
+    @Override
+    public Flux<SensorData> getSensorData(String deviceId, String metric) {
+        return repository.findByDeviceIdAndMetric(deviceId, metric);
+    }
+
+    /**
+     * Retrieves the running statistics for a specific device and metric from memory.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @return the statistics over all readings of the series; the count is 0 if there are none.
+     */
+    @Override
+    public Mono<MetricStats> getSensorDataStats(String deviceId, String metric) {
+        return Mono.fromSupplier(() -> runningAggregates.getStats(deviceId, metric));
+    }
+
+    /**
+     * Computes the statistics of the whole history of a device and metric with an exact median.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @return the aggregate statistics; the count is 0 if there are no readings.
+     */
+    @Override
+    public Mono<MetricStats> getExactSensorDataStats(String deviceId, String metric) {
+        return getStatsInRange(deviceId, metric, HISTORY_START, HISTORY_END, Precision.EXACT);
+    }
+
+    /**
+     * Retrieves the statistics of many devices and metrics at once.
+     * Runs the blocking grouped query of {@link SensorDataService#getBulkStats} on the bounded elastic scheduler,
+     * so it never holds an event-loop thread.
+     *
+     * @param request the devices, metrics and optional time range to aggregate.
+     * @return the summaries keyed by device and then by metric; series without readings are omitted.
+     */
+    @Override
+    public Mono<Map<String, Map<String, MetricSummary>>> getBulkStats(BulkStatsRequest request) {
+        return Mono.fromCallable(() -> blockingService.getBulkStats(request))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Computes the range statistics from the hot window when it covers the range, otherwise with the PERCENTILE_CONT
+     * query when the database supports it, or by folding the streamed readings into a running aggregate.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @param precision whether the median may be approximated when the readings are folded in the JVM.
+     * @return the aggregate statistics of the range.
+     */
+    @Override
+    public Mono<MetricStats> getStatsInRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to,
+                                             Precision precision) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            MetricStats recent = hotWindow.getStatsInRange(deviceId, metric, from, to);
+            if (recent != null) {
+                return Mono.just(aggregationMetrics.record(Source.HOT_WINDOW, metric, recent, start));
+            }
+            if (databaseCapabilities.supportsAggregatePushdown()) {
+                return repository.findStatsByDeviceIdAndMetricAndTimestampRange(deviceId, metric, from, to)
+                        .map(stats -> aggregationMetrics.record(Source.PUSHDOWN, metric, stats, start));
+            }
+            return repository.findValuesInRange(deviceId, metric, from, to)
+                    .reduceWith(() -> new RunningAggregate(precision.newSketch()), (aggregate, reading) -> {
+                        aggregate.add(reading.value());
+                        return aggregate;
+                    })
+                    .map(aggregate -> aggregationMetrics.record(Source.FOLD, metric, aggregate.toStats(), start));
+        });
+    }
+
+    /**
+     * Aggregates the streamed readings into time buckets with the same {@link SeriesAggregator} as the servlet stack.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @param bucket the bucket size, a whole number of seconds.
+     * @param aggregates the aggregates to report per bucket (e.g., min, max, avg, p95).
+     * @return one point per non-empty bucket, in time order.
+     */
+    @Override
+    public Mono<List<SeriesPoint>> getSeries(String deviceId, String metric, LocalDateTime from, LocalDateTime to,
+                                             Duration bucket, List<String> aggregates) {
+        return scanReadingsInRange(deviceId, metric, from, to)
+                .reduceWith(() -> new SeriesAggregator(bucket, aggregates), (aggregator, reading) -> {
+                    aggregator.add(reading.timestamp(), reading.value());
+                    return aggregator;
+                })
+                .map(SeriesAggregator::toPoints);
+    }
+
+    /**
+     * Downsamples the streamed readings with the same {@link SeriesDownsampler} as the servlet stack.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @param maxPoints the maximum number of points to return, at least 3.
+     * @return the selected readings, in time order.
+     */
+    @Override
+    public Mono<List<SeriesPoint>> getDownsampledSeries(String deviceId, String metric, LocalDateTime from,
+                                                        LocalDateTime to, int maxPoints) {
+        return scanReadingsInRange(deviceId, metric, from, to)
+                .reduceWith(SeriesDownsampler::new, (downsampler, reading) -> {
+                    downsampler.add(reading.timestamp(), reading.value());
+                    return downsampler;
+                })
+                .map(downsampler -> downsampler.toPoints(maxPoints));
+    }
+
+    /**
+     * Streams the readings of the range from the hot window when it covers the range, otherwise from the database.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @return the readings of the range, in time order.
+     */
+    @Override
+    public Flux<TimedValue> scanReadingsInRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to) {
+        return Flux.defer(() -> {
+            List<TimedValue> recent = new ArrayList<>();
+            if (hotWindow.scanRange(deviceId, metric, from, to,
+                    (timestamp, value) -> recent.add(new TimedValue(timestamp, value)))) {
+                return Flux.fromIterable(recent);
+            }
+            return repository.findValuesInRange(deviceId, metric, from, to);
+        });
+    }
+
+    /**
+     * Streams every stored reading of a device and metric.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @return the readings, in time order.
+     */
+    @Override
+    public Flux<TimedValue> scanReadings(String deviceId, String metric) {
+        return scanReadingsInRange(deviceId, metric, HISTORY_START, HISTORY_END);
+    }
+
+    /**
+     * Adds stored readings to the running aggregates, rollups and hot window, and invalidates the cached stats
+     * of their series.
+     */
+    private void record(List<SensorData> dataList) {
+        if (dataList.isEmpty()) {
+            return;
+        }
+        runningAggregates.record(dataList);
+        rollupStore.record(dataList);
+        hotWindow.record(dataList);
+        statsCache.invalidate(dataList);
+    }
+}
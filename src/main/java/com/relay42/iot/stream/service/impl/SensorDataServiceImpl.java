@@ -1,15 +1,48 @@
 package com.relay42.iot.stream.service.impl;
 
+import com.relay42.iot.stream.aggregation.AggregationMetrics;
+import com.relay42.iot.stream.aggregation.AggregationMetrics.Source;
+import com.relay42.iot.stream.aggregation.AggregationStrategy;
+import com.relay42.iot.stream.aggregation.AggregationStrategyFactory;
+import com.relay42.iot.stream.aggregation.BulkStatsAggregator;
+import com.relay42.iot.stream.aggregation.Precision;
+import com.relay42.iot.stream.aggregation.RollupStore;
+import com.relay42.iot.stream.aggregation.RunningAggregate;
+import com.relay42.iot.stream.aggregation.RunningAggregateStore;
+import com.relay42.iot.stream.aggregation.SeriesAggregator;
+import com.relay42.iot.stream.aggregation.SeriesDownsampler;
+import com.relay42.iot.stream.cache.StatsCache;
 import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.model.BulkStatsRequest;
+import com.relay42.iot.stream.model.MetricSummary;
+import com.relay42.iot.stream.model.SeriesPoint;
+import com.relay42.iot.stream.repository.DatabaseCapabilities;
+import com.relay42.iot.stream.repository.MetricStats;
+import com.relay42.iot.stream.repository.SensorDataBatchRepository;
+import com.relay42.iot.stream.repository.SensorDataPartitionRepository;
 import com.relay42.iot.stream.repository.SensorDataRepository;
+import com.relay42.iot.stream.repository.SensorDataSeriesRepository;
+import com.relay42.iot.stream.repository.SensorDataStatsRepository;
 import com.relay42.iot.stream.service.SensorDataService;
+import com.relay42.iot.stream.storage.HotWindowStore;
+import com.relay42.iot.stream.util.DoubleList;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.ObjDoubleConsumer;
+import java.util.stream.Stream;
 
 
 /**
@@ -17,28 +50,63 @@ import java.util.List;
  * Provides methods for saving sensor data and retrieving it based on specific criteria.
  * Implements the SensorDataService interface.
  */
-@Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class SensorDataServiceImpl implements SensorDataService {
 
+    /**
+     * Bounds of the range read when exact statistics are requested for the whole history of a series.
+     */
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime HISTORY_END = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
     private final SensorDataRepository repository;
+    private final SensorDataBatchRepository batchRepository;
+    private final RunningAggregateStore runningAggregates;
+    private final RollupStore rollupStore;
+    private final DatabaseCapabilities databaseCapabilities;
+    private final SensorDataPartitionRepository partitionRepository;
+    private final SensorDataSeriesRepository seriesRepository;
+    private final SensorDataStatsRepository statsRepository;
+    private final StatsCache statsCache;
+    private final HotWindowStore hotWindow;
+    private final EntityManager entityManager;
+    private final AggregationMetrics aggregationMetrics;
+    private final AggregationStrategyFactory strategyFactory;
 
     /**
      * Saves a SensorData entity to the database.
-     * Logs the entry and exit of the method for debugging purposes.
      *
      * @param data the SensorData entity to be saved.
      */
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void saveSensorData(SensorData data) {
-        log.info("Entered into method::saveSensorData");
-
-        repository.save(data);
+        if (partitionRepository.isEnabled()) {
+            partitionRepository.saveAll(List.of(data));
+        } else {
+            repository.save(data);
+        }
+        recordAfterCommit(List.of(data));
+    }
 
-        log.info("Exit from into method::saveSensorData");
+    /**
+     * Saves a batch of SensorData entities using JDBC batch inserts.
+     * All rows are written in one transaction, so either the whole batch is stored or none of it.
+     * With time partitioning enabled, rows are routed to the partition matching their timestamp.
+     *
+     * @param dataList the SensorData entities to be saved.
+     * @return the number of entities saved.
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int saveSensorDataBatch(List<SensorData> dataList) {
+        int saved = partitionRepository.isEnabled()
+                ? partitionRepository.saveAll(dataList)
+                : batchRepository.saveAll(dataList);
+        recordAfterCommit(List.copyOf(dataList));
+        return saved;
     }
 
     /**
@@ -51,11 +119,357 @@ public class SensorDataServiceImpl implements SensorDataService {
     @Override
     @Transactional(readOnly = true)
     public List<SensorData> getSensorData(String deviceId, String metric) {
+        if (partitionRepository.isEnabled()) {
+            return partitionRepository.findAll(deviceId, metric);
+        }
         return repository.findByDeviceIdAndMetric(deviceId, metric);
     }
 
+    /**
+     * Retrieves the running statistics for a specific device and metric from the in-memory aggregates.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @return the statistics over all readings of the series; the count is 0 if there are none.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public MetricStats getSensorDataStats(String deviceId, String metric) {
+        return runningAggregates.getStats(deviceId, metric);
+    }
+
+    /**
+     * Retrieves the statistics of many devices and metrics at once, each summarized by its metric's strategy.
+     * Requests without a time range or device type are served from the running aggregates. Otherwise the whole
+     * fleet is answered by one grouped query when the database supports it, or by one scan whose per-series
+     * summaries are then computed in parallel across the available cores. Metrics whose strategy needs the
+     * individual readings (e.g., percentiles, standard deviation, rate of change) are always answered by a scan
+     * limited to those metrics.
+     *
+     * @param request the devices, metrics and optional time range to aggregate.
+     * @return the summaries keyed by device and then by metric; series without readings are omitted.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Map<String, MetricSummary>> getBulkStats(BulkStatsRequest request) {
+        Map<String, Map<String, MetricStats>> stats;
+        if (!request.hasRange() && request.getDeviceType() == null) {
+            stats = runningAggregates.getStats(request.getDeviceIds(), request.getMetrics());
+        } else if (databaseCapabilities.supportsAggregatePushdown()) {
+            List<String> tables = bulkTables(request);
+            stats = tables.isEmpty() ? Map.of() : statsRepository.findGroupedStats(tables, request);
+        } else {
+            return scanBulkStats(request);
+        }
+
+        Map<String, Map<String, MetricSummary>> summaries = new TreeMap<>();
+        Set<String> readingMetrics = new TreeSet<>();
+        stats.forEach((deviceId, metrics) -> metrics.forEach((metric, metricStats) -> {
+            AggregationStrategy strategy = strategyFactory.getStrategy(metric);
+            if (strategy.requiresReadings()) {
+                readingMetrics.add(metric);
+            } else {
+                summaries.computeIfAbsent(deviceId, device -> new TreeMap<>())
+                        .put(metric, strategy.aggregateMetrics(metric, metricStats));
+            }
+        }));
+        if (!readingMetrics.isEmpty()) {
+            BulkStatsRequest readingRequest = BulkStatsRequest.builder()
+                    .deviceIds(request.getDeviceIds())
+                    .metrics(List.copyOf(readingMetrics))
+                    .deviceType(request.getDeviceType())
+                    .from(request.getFrom())
+                    .to(request.getTo())
+                    .build();
+            scanBulkStats(readingRequest).forEach((deviceId, metrics) ->
+                    summaries.computeIfAbsent(deviceId, device -> new TreeMap<>()).putAll(metrics));
+        }
+        return summaries;
+    }
+
+    /**
+     * Summarizes every series of the request from one scan of the readings.
+     */
+    private Map<String, Map<String, MetricSummary>> scanBulkStats(BulkStatsRequest request) {
+        List<String> tables = bulkTables(request);
+        if (tables.isEmpty()) {
+            return Map.of();
+        }
+        BulkStatsAggregator aggregator = new BulkStatsAggregator(strategyFactory);
+        statsRepository.scan(tables, request, aggregator::add);
+        return aggregator.summarize();
+    }
+
+    /**
+     * Returns the tables holding the readings of the request: the overlapping partitions, or the single table.
+     */
+    private List<String> bulkTables(BulkStatsRequest request) {
+        if (!partitionRepository.isEnabled()) {
+            return List.of("sensor_data");
+        }
+        return request.hasRange()
+                ? partitionRepository.partitionsOverlapping(request.getFrom(), request.getTo())
+                : partitionRepository.allPartitions();
+    }
+
+    /**
+     * Retrieves the readings of a device and metric within a time range.
+     * With time partitioning enabled, only the partitions overlapping the range are read.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @return the matching readings.
+     */
     @Override
     public List<SensorData> getDataInRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to) {
+        if (partitionRepository.isEnabled()) {
+            return partitionRepository.findInRange(deviceId, metric, from, to);
+        }
         return repository.findByDeviceIdAndMetricAndTimestampRange(deviceId, metric, from, to);
     }
+
+    /**
+     * Retrieves only the metric values of a device and metric within a time range.
+     * Ranges inside the hot window are read from memory; otherwise only the metric_value column is selected.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @return the metric values, in no particular order.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public DoubleList getValuesInRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to) {
+        DoubleList recent = new DoubleList();
+        if (hotWindow.scanRange(deviceId, metric, from, to, (timestamp, value) -> recent.add(value))) {
+            return recent;
+        }
+        if (partitionRepository.isEnabled()) {
+            return partitionRepository.findValuesInRange(deviceId, metric, from, to);
+        }
+        return seriesRepository.findValues(deviceId, metric, from, to);
+    }
+
+    /**
+     * Computes the range statistics without holding every reading in memory.
+     * Ranges inside the hot window are answered from memory with an exact median. Otherwise, with rollups enabled,
+     * the statistics are merged from pre-computed minute, hour and day buckets, and only the partial edges of the
+     * range are read from the database. Otherwise a single aggregate query is used when the database supports it.
+     * As a last resort the readings are streamed over a read-only cursor and folded into a running aggregate,
+     * whose median comes from a bounded-memory quantile sketch, so memory stays constant whatever the row count.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @return the aggregate statistics of the range.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public MetricStats getStatsInRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to) {
+        long start = System.nanoTime();
+        MetricStats recent = hotWindow.getStatsInRange(deviceId, metric, from, to);
+        if (recent != null) {
+            return aggregationMetrics.record(Source.HOT_WINDOW, metric, recent, start);
+        }
+        if (rollupStore.isEnabled()) {
+            return aggregationMetrics.record(Source.ROLLUP, metric, rollupStore.getStatsInRange(deviceId, metric, from, to,
+                    (edgeFrom, edgeTo) -> getValuesInRange(deviceId, metric, edgeFrom, edgeTo)), start);
+        }
+        if (!databaseCapabilities.supportsAggregatePushdown()) {
+            return aggregationMetrics.record(Source.FOLD, metric,
+                    foldStatsInRange(deviceId, metric, from, to, Precision.APPROX), start);
+        }
+        return aggregationMetrics.record(Source.PUSHDOWN, metric, findStatsInRange(deviceId, metric, from, to), start);
+    }
+
+    /**
+     * Computes the range statistics with an exact median.
+     * Ranges inside the hot window are answered from memory. Otherwise the database computes the statistics with
+     * PERCENTILE_CONT when it supports it, or the readings are streamed over a cursor into an aggregate that keeps
+     * every value, since an exact median cannot be derived from rollup sketches.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @return the aggregate statistics of the range.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public MetricStats getExactStatsInRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to) {
+        long start = System.nanoTime();
+        MetricStats recent = hotWindow.getStatsInRange(deviceId, metric, from, to);
+        if (recent != null) {
+            return aggregationMetrics.record(Source.HOT_WINDOW, metric, recent, start);
+        }
+        if (!databaseCapabilities.supportsAggregatePushdown()) {
+            return aggregationMetrics.record(Source.FOLD, metric,
+                    foldStatsInRange(deviceId, metric, from, to, Precision.EXACT), start);
+        }
+        return aggregationMetrics.record(Source.PUSHDOWN, metric, findStatsInRange(deviceId, metric, from, to), start);
+    }
+
+    /**
+     * Computes the statistics of the whole history of a device and metric with an exact median.
+     * Unlike {@link #getSensorDataStats(String, String)} this reads every stored reading.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @return the aggregate statistics; the count is 0 if there are no readings.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public MetricStats getExactSensorDataStats(String deviceId, String metric) {
+        return getExactStatsInRange(deviceId, metric, HISTORY_START, HISTORY_END);
+    }
+
+    /**
+     * Computes the range statistics with one aggregate query, on the partitions or the single table.
+     */
+    private MetricStats findStatsInRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to) {
+        if (partitionRepository.isEnabled()) {
+            return partitionRepository.findStatsInRange(deviceId, metric, from, to);
+        }
+        return repository.findStatsByDeviceIdAndMetricAndTimestampRange(deviceId, metric, from, to);
+    }
+
+    /**
+     * Folds the readings of the range into a running aggregate one row at a time.
+     * Each entity is detached once its value is added, so the persistence context stays empty.
+     * With approximate precision memory stays bounded; with exact precision every value is kept for the median.
+     */
+    private MetricStats foldStatsInRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to,
+                                         Precision precision) {
+        RunningAggregate aggregate = new RunningAggregate(precision.newSketch());
+        if (partitionRepository.isEnabled()) {
+            partitionRepository.scanValuesInRange(deviceId, metric, from, to, aggregate::add);
+            return aggregate.toStats();
+        }
+        try (Stream<SensorData> readings = repository.streamByDeviceIdAndMetricAndTimestampRange(deviceId, metric, from, to)) {
+            readings.forEach(data -> {
+                aggregate.add(data.getMetricValue());
+                entityManager.detach(data);
+            });
+        }
+        return aggregate.toStats();
+    }
+
+    /**
+     * Aggregates the readings of a device and metric into time buckets.
+     * Ranges inside the hot window are bucketed from memory. Otherwise the buckets are computed by one GROUP BY
+     * query when the database supports it, or the readings are streamed in time order and bucketed in the JVM
+     * without materializing entities.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @param bucket the bucket size, a whole number of seconds.
+     * @param aggregates the aggregates to report per bucket (e.g., min, max, avg, p95).
+     * @return one point per non-empty bucket, in time order.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<SeriesPoint> getSeries(String deviceId, String metric, LocalDateTime from, LocalDateTime to,
+                                       Duration bucket, List<String> aggregates) {
+        if (!hotWindow.covers(deviceId, metric, from)
+                && !partitionRepository.isEnabled() && seriesRepository.supportsBucketPushdown()) {
+            return seriesRepository.findBuckets(deviceId, metric, from, to, bucket, aggregates);
+        }
+        SeriesAggregator aggregator = new SeriesAggregator(bucket, aggregates);
+        scanRange(deviceId, metric, from, to, aggregator::add);
+        return aggregator.toPoints();
+    }
+
+    /**
+     * Returns the readings of a device and metric within a time range, downsampled with LTTB.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @param maxPoints the maximum number of points to return, at least 3.
+     * @return the selected readings, in time order.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<SeriesPoint> getDownsampledSeries(String deviceId, String metric, LocalDateTime from, LocalDateTime to,
+                                                  int maxPoints) {
+        SeriesDownsampler downsampler = new SeriesDownsampler();
+        scanRange(deviceId, metric, from, to, downsampler::add);
+        return downsampler.toPoints(maxPoints);
+    }
+
+    /**
+     * Streams the timestamp and value of every reading of a device and metric within a time range, in time order,
+     * from the hot window when it covers the range and otherwise from the database without materializing entities.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @param consumer receives the timestamp and value of each reading.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void scanReadingsInRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to,
+                                    ObjDoubleConsumer<LocalDateTime> consumer) {
+        scanRange(deviceId, metric, from, to, consumer);
+    }
+
+    /**
+     * Streams the timestamp and value of every stored reading of a device and metric, in time order.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param consumer receives the timestamp and value of each reading.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void scanReadings(String deviceId, String metric, ObjDoubleConsumer<LocalDateTime> consumer) {
+        scanRange(deviceId, metric, HISTORY_START, HISTORY_END, consumer);
+    }
+
+    /**
+     * Streams the timestamp and value of every reading in the range to the consumer, in time order.
+     */
+    private void scanRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to,
+                           ObjDoubleConsumer<LocalDateTime> consumer) {
+        if (hotWindow.scanRange(deviceId, metric, from, to, consumer)) {
+            return;
+        }
+        if (partitionRepository.isEnabled()) {
+            partitionRepository.scanReadingsInRange(deviceId, metric, from, to, consumer);
+            return;
+        }
+        seriesRepository.scanRange(deviceId, metric, from, to,
+                (device, name, timestamp, value) -> consumer.accept(timestamp, value));
+    }
+
+    /**
+     * Adds the saved readings to the running aggregates, rollups and hot window, and invalidates the cached stats of their series,
+     * once the surrounding transaction commits, so that a rolled-back write never shows up in the statistics.
+     */
+    private void recordAfterCommit(List<SensorData> dataList) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            runningAggregates.record(dataList);
+            rollupStore.record(dataList);
+            hotWindow.record(dataList);
+            statsCache.invalidate(dataList);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                runningAggregates.record(dataList);
+                rollupStore.record(dataList);
+                hotWindow.record(dataList);
+                statsCache.invalidate(dataList);
+            }
+        });
+    }
 }
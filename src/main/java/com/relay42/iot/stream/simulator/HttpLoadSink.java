@@ -0,0 +1,59 @@
+package com.relay42.iot.stream.simulator;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.relay42.iot.stream.model.SensorRequest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Posts each reading to the ingest endpoint with the JDK's asynchronous HTTP client.
+ * Any status other than 2xx fails the returned future.
+ */
+final class HttpLoadSink implements LoadSink {
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final URI target;
+    private final String authorization;
+    private final Duration timeout;
+    private final ObjectMapper objectMapper;
+
+    HttpLoadSink(String targetUrl, String username, String password, Duration timeout, ObjectMapper objectMapper) {
+        this.target = URI.create(targetUrl);
+        this.authorization = "Basic " + Base64.getEncoder()
+                .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+        this.timeout = timeout;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public CompletableFuture<?> send(SensorRequest request) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(request);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        HttpRequest httpRequest = HttpRequest.newBuilder(target)
+                .timeout(timeout)
+                .header("Authorization", authorization)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+
+        return client.sendAsync(httpRequest, HttpResponse.BodyHandlers.discarding()).thenApply(response -> {
+            if (response.statusCode() / 100 != 2) {
+                throw new IllegalStateException("HTTP " + response.statusCode() + " from " + target);
+            }
+            return response;
+        });
+    }
+}
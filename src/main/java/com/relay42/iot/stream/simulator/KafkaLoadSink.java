@@ -0,0 +1,34 @@
+package com.relay42.iot.stream.simulator;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.relay42.iot.stream.model.SensorRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Publishes each reading as a JSON string to the readings topic, keyed by device id so that the readings
+ * of one device stay in order on one partition. The future completes when the broker acknowledges the record.
+ */
+final class KafkaLoadSink implements LoadSink {
+
+    private final KafkaTemplate<Object, Object> kafkaTemplate;
+    private final String topic;
+    private final ObjectMapper objectMapper;
+
+    KafkaLoadSink(KafkaTemplate<Object, Object> kafkaTemplate, String topic, ObjectMapper objectMapper) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.topic = topic;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public CompletableFuture<?> send(SensorRequest request) {
+        try {
+            return kafkaTemplate.send(topic, request.getDeviceId(), objectMapper.writeValueAsString(request));
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
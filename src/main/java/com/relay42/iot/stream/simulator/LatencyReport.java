@@ -0,0 +1,59 @@
+package com.relay42.iot.stream.simulator;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency distribution of the requests of one simulator run, recorded in microseconds with three significant
+ * digits. Only successful requests are recorded; failures are counted separately.
+ */
+final class LatencyReport {
+
+    private final Histogram histogram = new ConcurrentHistogram(3);
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * Records the outcome of one request.
+     *
+     * @param startNanos the {@link System#nanoTime()} from which the latency is measured.
+     * @param failure the failure of the request, or null if it succeeded.
+     */
+    void record(long startNanos, Throwable failure) {
+        if (failure != null) {
+            failures.incrementAndGet();
+            return;
+        }
+        histogram.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos)));
+    }
+
+    long getSucceeded() {
+        return histogram.getTotalCount();
+    }
+
+    long getFailed() {
+        return failures.get();
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100.
+     * @return the latency at the percentile, in milliseconds.
+     */
+    double percentileMillis(double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    /**
+     * @param elapsedNanos the duration of the run.
+     * @return a one-line summary of the run.
+     */
+    String summary(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        long total = getSucceeded() + getFailed();
+        return String.format("%d requests in %.1f s (%.1f req/s), %d failed; latency ms p50=%.2f p99=%.2f p99.9=%.2f max=%.2f",
+                total, seconds, seconds > 0 ? total / seconds : 0.0, getFailed(),
+                percentileMillis(50), percentileMillis(99), percentileMillis(99.9), histogram.getMaxValue() / 1000.0);
+    }
+}
@@ -0,0 +1,21 @@
+package com.relay42.iot.stream.simulator;
+
+import com.relay42.iot.stream.model.SensorRequest;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Destination of the simulated readings.
+ * Implementations must not block the caller: the returned future completes when the reading is acknowledged,
+ * or exceptionally when it is rejected or times out.
+ */
+interface LoadSink {
+
+    /**
+     * Sends one reading.
+     *
+     * @param request the simulated reading.
+     * @return a future completing once the reading is acknowledged.
+     */
+    CompletableFuture<?> send(SensorRequest request);
+}
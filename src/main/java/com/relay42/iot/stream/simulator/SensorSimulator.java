@@ -1,93 +1,248 @@
 package com.relay42.iot.stream.simulator;
 
-
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.relay42.iot.stream.config.IngestConfig;
 import com.relay42.iot.stream.model.SensorRequest;
-
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.web.client.RestTemplateBuilder;
-import org.springframework.http.*;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Random;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Component class responsible for simulating sensor data and sending it to the IoT Data Streaming API.
- * Uses scheduled tasks to generate random sensor data at fixed intervals and sends it to the API endpoint.
- * This is useful for testing and validating the data ingestion pipeline.
+ * Drives a configurable number of devices against the HTTP ingest endpoint or the readings topic, in an open loop
+ * at a target rate (optionally with periodic spikes) or in a closed loop at a fixed concurrency,
+ * and logs the latency distribution at the end of the run.
+ * The run starts once the embedded web server is up and happens on its own thread, taken from Spring Boot's
+ * {@link SimpleAsyncTaskExecutorBuilder} so that it is a virtual thread when `spring.threads.virtual.enabled` is set;
+ * see {@link SimulatorConfig}.
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class SensorSimulator {
 
-    private final SimulatorConfig config;
-    private final RestTemplate restTemplate = new RestTemplateBuilder()
-            .basicAuthentication("admin", "password") // Replace with config properties if needed
-            .build();
-
-    private final ObjectMapper objectMapper = new ObjectMapper()
-            .registerModule(new JavaTimeModule())
-            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private static final String INGEST_PATH = "/api/v1/sensors/data";
 
-    private static final String INGEST_URL = "http://localhost:8081/api/v1/sensors/data";
+    private static final List<DeviceProfile> PROFILES = List.of(
+            new DeviceProfile("thermostat", "thermostat", "temperature", 20, 30),
+            new DeviceProfile("heartrate", "wearable", "heart-rate", 60, 100),
+            new DeviceProfile("car-ecu", "vehicle", "fuel-level", 10, 80)
+    );
 
-    private final Random random = new Random();
-    private final AtomicInteger recordCount = new AtomicInteger(0); // Initialize recordCount
+    private final SimulatorConfig config;
+    private final IngestConfig ingestConfig;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<KafkaTemplate<Object, Object>> kafkaTemplate;
+    private final SimpleAsyncTaskExecutorBuilder executorBuilder;
 
-    private double random(double min, double max) {
-        return min + (max - min) * random.nextDouble();
-    }
+    private final AtomicBoolean failureLogged = new AtomicBoolean();
+    private volatile SimpleAsyncTaskExecutor runner;
 
     /**
-     * Simulates sensor data by generating random values for different devices and metrics.
-     * Sends the simulated data to the IoT Data Streaming API at fixed intervals.
-     * The simulation behavior is controlled by the configuration properties:
-     * - `simulator.enabled`: Enables or disables the simulation.
-     * - `simulator.fixed-rate-ms`: Defines the interval (in milliseconds) between simulation runs.
-     * - `simulator.max-records`: Limits the total number of records sent during the simulation.
-     * - `simulator.allow-spikes`: Allows generating random spikes in the data if enabled.
+     * Starts a simulation run against the server that just started, if the simulator is enabled.
+     * Events from a separate management server are ignored.
      *
-     * The method stops sending data once the maximum record limit is reached.
+     * @param event the event published once the embedded web server listens.
      */
-    @Scheduled(fixedRateString = "#{@simulatorConfig.fixedRateMs}")
-    public void simulate() {
+    @EventListener
+    public void onWebServerInitialized(WebServerInitializedEvent event) {
+        if (event.getApplicationContext().getServerNamespace() != null) {
+            return;
+        }
         if (!config.isEnabled()) {
             log.info("Simulation is disabled.");
             return;
         }
 
-        if (recordCount.get() >= config.getMaxRecords()) {
-            log.info("Maximum record limit of {} reached. Stopping simulation.", config.getMaxRecords());
-            return;
+        start(createSink(event.getWebServer().getPort()));
+    }
+
+    /**
+     * Interrupts a run still in progress and waits up to the request timeout for it to log its report
+     * for the requests sent so far.
+     */
+    @PreDestroy
+    public void stop() {
+        SimpleAsyncTaskExecutor executor = runner;
+        if (executor != null) {
+            executor.close();
+        }
+    }
+
+    /**
+     * Starts a simulation run against the given sink on a thread of its own.
+     *
+     * @param sink where the readings are sent.
+     */
+    void start(LoadSink sink) {
+        SimpleAsyncTaskExecutor executor = executorBuilder
+                .threadNamePrefix("sensor-simulator-")
+                .taskTerminationTimeout(config.getRequestTimeout())
+                .build();
+        executor.setDaemon(true);
+        runner = executor;
+        executor.execute(() -> run(sink));
+    }
+
+    /**
+     * Runs one simulation against the given sink and waits for the requests in flight to complete.
+     *
+     * @param sink where the readings are sent.
+     * @return the latency distribution of the run.
+     */
+    LatencyReport run(LoadSink sink) {
+        LatencyReport report = new LatencyReport();
+        long maxRecords = config.getMaxRecords() > 0 ? config.getMaxRecords() : Long.MAX_VALUE;
+        long start = System.nanoTime();
+        long deadline = config.getDuration().isZero() ? Long.MAX_VALUE : start + config.getDuration().toNanos();
+
+        log.info("Simulating {} devices: {} loop, {} sink, rate {} req/s, concurrency {}, spikes {}",
+                config.getDevices(), config.getLoop(), config.getSink(), config.getRate(), config.getConcurrency(),
+                config.isAllowSpikes());
+        if (config.getLoop() == SimulatorConfig.Loop.OPEN && config.getRate() <= 0) {
+            log.warn("Simulation skipped: the open loop needs a positive rate.");
+            return report;
         }
+        try {
+            if (config.getLoop() == SimulatorConfig.Loop.OPEN) {
+                runOpenLoop(sink, report, start, deadline, maxRecords);
+            } else {
+                runClosedLoop(sink, report, deadline, maxRecords);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("Simulation interrupted.");
+        }
+        log.info("Simulation finished: {}", report.summary(System.nanoTime() - start));
+        return report;
+    }
 
-        List<SensorRequest> simulated = List.of(
-                new SensorRequest("thermostat-1", "temperature", random(20, 30), LocalDateTime.now(), "thermostat"),
-                new SensorRequest("heartrate-1", "heart-rate", random(60, 100), LocalDateTime.now(), "wearable"),
-                new SensorRequest("car-ecu-1", "fuel-level", random(10, 80), LocalDateTime.now(), "vehicle")
-        );
-
-        simulated.stream()
-                .limit(config.getMaxRecords() - recordCount.get())
-                .forEach(data -> {
-                    try {
-                        ResponseEntity<String> response = restTemplate.postForEntity(INGEST_URL, data, String.class);
-                        log.info("Data sent: {}, Response: {}", objectMapper.writeValueAsString(data), response.getStatusCode());
-                        recordCount.incrementAndGet();
-                    } catch (Exception e) {
-                        log.error("Failed to send data: {}", e.getMessage());
-                    }
+    /**
+     * Sends on a schedule derived from the rate alone. Each request's latency is measured from the time it was
+     * scheduled, not the time it was sent, so a stalled server shows up in the percentiles instead of silently
+     * lowering the request rate (coordinated omission).
+     */
+    private void runOpenLoop(LoadSink sink, LatencyReport report, long start, long deadline, long maxRecords)
+            throws InterruptedException {
+        Semaphore inFlight = new Semaphore(config.getConcurrency());
+        long intended = start;
+        for (long sequence = 0; sequence < maxRecords && intended < deadline; sequence++) {
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            inFlight.acquire();
+
+            long scheduled = intended;
+            sink.send(reading(sequence)).whenComplete((result, failure) -> {
+                record(report, scheduled, failure);
+                inFlight.release();
+            });
+            intended += (long) (TimeUnit.SECONDS.toNanos(1) / currentRate(intended - start));
+        }
+        inFlight.acquire(config.getConcurrency());
+    }
+
+    /**
+     * Keeps `concurrency` requests in flight: each completion sends the next reading.
+     */
+    private void runClosedLoop(LoadSink sink, LatencyReport report, long deadline, long maxRecords)
+            throws InterruptedException {
+        AtomicLong sequence = new AtomicLong();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(config.getConcurrency());
+        for (int i = 0; i < config.getConcurrency(); i++) {
+            sendNext(sink, report, sequence, cancelled, done, deadline, maxRecords);
+        }
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            cancelled.set(true);
+            throw e;
+        }
+    }
+
+    private void sendNext(LoadSink sink, LatencyReport report, AtomicLong sequence, AtomicBoolean cancelled,
+                          CountDownLatch done, long deadline, long maxRecords) {
+        while (true) {
+            long next = sequence.getAndIncrement();
+            if (next >= maxRecords || System.nanoTime() >= deadline || cancelled.get()) {
+                done.countDown();
+                return;
+            }
+
+            long sent = System.nanoTime();
+            CompletableFuture<?> future = sink.send(reading(next));
+            if (!future.isDone()) {
+                future.whenComplete((result, failure) -> {
+                    record(report, sent, failure);
+                    sendNext(sink, report, sequence, cancelled, done, deadline, maxRecords);
                 });
+                return;
+            }
+            // Completed synchronously: loop rather than recurse so a failing sink cannot overflow the stack.
+            future.handle((result, failure) -> {
+                record(report, sent, failure);
+                return null;
+            });
+        }
     }
-}
 
+    private void record(LatencyReport report, long startNanos, Throwable failure) {
+        report.record(startNanos, failure);
+        if (failure != null && failureLogged.compareAndSet(false, true)) {
+            log.warn("Simulated request failed, further failures are only counted: {}", failure.getMessage());
+        }
+    }
+
+    private double currentRate(long elapsedNanos) {
+        SimulatorConfig.Spike spike = config.getSpike();
+        if (config.isAllowSpikes() && elapsedNanos % spike.getInterval().toNanos() < spike.getLength().toNanos()) {
+            return config.getRate() * spike.getFactor();
+        }
+        return config.getRate();
+    }
+
+    private SensorRequest reading(long sequence) {
+        int device = (int) (sequence % config.getDevices());
+        DeviceProfile profile = PROFILES.get(device % PROFILES.size());
+        return new SensorRequest(profile.idPrefix() + "-" + (device / PROFILES.size() + 1), profile.metricType(),
+                ThreadLocalRandom.current().nextDouble(profile.min(), profile.max()), LocalDateTime.now(),
+                profile.deviceType());
+    }
+
+    private LoadSink createSink(int localPort) {
+        if (config.getSink() == SimulatorConfig.Sink.KAFKA) {
+            return new KafkaLoadSink(kafkaTemplate.getObject(), ingestConfig.getKafka().getTopic(), objectMapper);
+        }
+        String targetUrl = config.getTargetUrl() != null
+                ? config.getTargetUrl()
+                : "http://localhost:" + localPort + INGEST_PATH;
+        return new HttpLoadSink(targetUrl, config.getUsername(), config.getPassword(), config.getRequestTimeout(),
+                objectMapper);
+    }
+
+    private record DeviceProfile(String idPrefix, String deviceType, String metricType, double min, double max) {
+    }
+}
@@ -1,19 +1,73 @@
 package com.relay42.iot.stream.simulator;
 
 import lombok.Data;
-import lombok.Getter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
+/**
+ * Configuration properties for the load-generating sensor simulator.
+ * Bound from the `simulator` prefix in application.yml.
+ * - `enabled`: Starts a run once the embedded web server is up.
+ * - `devices`: Number of simulated devices; readings are sent round-robin across them.
+ * - `rate`: Target requests per second in the open loop.
+ * - `loop`: `open` sends on a fixed schedule whatever the response times; `closed` keeps `concurrency`
+ *   requests in flight and sends the next one as soon as one completes, ignoring `rate`.
+ * - `concurrency`: Maximum number of requests in flight.
+ * - `sink`: `http` posts each reading to `target-url`; `kafka` publishes it to the `ingest.kafka.topic` topic.
+ * - `target-url`: Ingest endpoint for the HTTP sink; defaults to the local server's `/api/v1/sensors/data`.
+ * - `username`, `password`: Basic authentication credentials for the HTTP sink.
+ * - `max-records`: Stops the run after this many readings; 0 means no limit.
+ * - `duration`: Stops the run after this long; 0 means no limit.
+ * - `allow-spikes`: Multiplies the open-loop rate periodically, as configured under `spike`.
+ * - `request-timeout`: Time after which an HTTP request counts as failed.
+ */
 @Configuration
 @ConfigurationProperties(prefix = "simulator")
 @Data
 public class SimulatorConfig {
 
+    /**
+     * How the next request is scheduled.
+     */
+    public enum Loop {
+        OPEN, CLOSED
+    }
+
+    /**
+     * Where the simulated readings are sent.
+     */
+    public enum Sink {
+        HTTP, KAFKA
+    }
+
     private boolean enabled;
-    private long fixedRateMs;
+    private int devices = 3;
+    private double rate = 1.5;
+    private Loop loop = Loop.OPEN;
+    private int concurrency = 64;
+    private Sink sink = Sink.HTTP;
+    private String targetUrl;
+    private String username = "admin";
+    private String password = "password";
     private int maxRecords;
+    private Duration duration = Duration.ZERO;
     private boolean allowSpikes;
+    private Duration requestTimeout = Duration.ofSeconds(10);
+    private Spike spike = new Spike();
 
+    /**
+     * Spike pattern applied to the open-loop rate when `allow-spikes` is true.
+     * - `interval`: Time between the starts of two spikes.
+     * - `length`: How long each spike lasts.
+     * - `factor`: Rate multiplier during a spike.
+     */
+    @Data
+    public static class Spike {
 
+        private Duration interval = Duration.ofSeconds(60);
+        private Duration length = Duration.ofSeconds(10);
+        private double factor = 5.0;
+    }
 }
@@ -0,0 +1,138 @@
+package com.relay42.iot.stream.socket;
+
+import com.relay42.iot.stream.entity.SensorData;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.ReferenceCountUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses the readings of one channel and writes them in one batch per socket read.
+ * TCP frames arrive already split into lines; UDP datagrams may hold several newline-separated lines.
+ * While a batch is being written the channel stops reading, so a client sending faster than the database
+ * accepts is slowed down by TCP flow control instead of filling the heap, and each connection's readings
+ * are stored in order.
+ */
+@Slf4j
+final class LineProtocolHandler extends ChannelInboundHandlerAdapter {
+
+    private static final int STRING_CACHE_SIZE = 256;
+
+    private final LineProtocolIngest.Transport transport;
+    private final LineProtocolIngest ingest;
+    private final LineProtocolParser parser = new LineProtocolParser(STRING_CACHE_SIZE);
+
+    private List<SensorData> batch = new ArrayList<>();
+    private int rejected;
+    private int bytes;
+    private long batchStart;
+
+    LineProtocolHandler(LineProtocolIngest.Transport transport, LineProtocolIngest ingest) {
+        this.transport = transport;
+        this.ingest = ingest;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) {
+        if (transport == LineProtocolIngest.Transport.TCP) {
+            ingest.connectionOpened();
+        }
+        ctx.fireChannelActive();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) {
+        if (transport == LineProtocolIngest.Transport.TCP) {
+            ingest.connectionClosed();
+        }
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        try {
+            if (msg instanceof DatagramPacket packet) {
+                readLines(packet.content());
+            } else {
+                ByteBuf line = (ByteBuf) msg;
+                readLine(line, line.readerIndex(), line.writerIndex());
+            }
+        } finally {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        if (bytes > 0) {
+            ingest.received(transport, bytes);
+            bytes = 0;
+        }
+        if (batch.isEmpty()) {
+            if (rejected > 0) {
+                ingest.rejected(transport, rejected);
+                rejected = 0;
+            }
+            return;
+        }
+
+        List<SensorData> readings = batch;
+        int malformed = rejected;
+        batch = new ArrayList<>(readings.size());
+        rejected = 0;
+
+        if (ingest.isWriteBehind()) {
+            ingest.write(transport, readings, malformed, batchStart, () -> { });
+            return;
+        }
+
+        Channel channel = ctx.channel();
+        channel.config().setAutoRead(false);
+        ingest.write(transport, readings, malformed, batchStart,
+                () -> channel.eventLoop().execute(() -> channel.config().setAutoRead(true)));
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        if (cause instanceof TooLongFrameException) {
+            ingest.rejected(transport, 1);
+            return;
+        }
+        log.debug("Closing line-protocol channel {}: {}", ctx.channel().remoteAddress(), cause.getMessage());
+        ctx.close();
+    }
+
+    private void readLines(ByteBuf content) {
+        int from = content.readerIndex();
+        int end = content.writerIndex();
+        while (from < end) {
+            int newline = content.indexOf(from, end, (byte) '\n');
+            int to = newline < 0 ? end : newline;
+            readLine(content, from, to > from && content.getByte(to - 1) == '\r' ? to - 1 : to);
+            from = to + 1;
+        }
+    }
+
+    private void readLine(ByteBuf buf, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        bytes += to - from;
+        SensorData data = parser.parse(buf, from, to);
+        if (data == null) {
+            rejected++;
+            return;
+        }
+        if (batch.isEmpty()) {
+            batchStart = System.nanoTime();
+        }
+        batch.add(data);
+    }
+}
@@ -0,0 +1,194 @@
+package com.relay42.iot.stream.socket;
+
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.exception.IngestRejectedException;
+import com.relay42.iot.stream.ingest.IngestMetrics;
+import com.relay42.iot.stream.ingest.WriteBehindBuffer;
+import com.relay42.iot.stream.service.SensorDataService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands the readings parsed by the socket handlers to the same persistence pipeline as the HTTP endpoints:
+ * the write-behind buffer when that mode is enabled, otherwise a JDBC batch insert on a writer thread, so the
+ * event loops never wait on the database.
+ *
+ * Exposes the following meters, tagged with `transport` (`tcp` or `udp`):
+ * - `ingest.socket.connections`: Open TCP connections.
+ * - `ingest.socket.connections.opened`: TCP connections accepted.
+ * - `ingest.socket.bytes`: Bytes of received lines.
+ * - `ingest.socket.readings`: Readings by `outcome`: `stored`, `rejected` (malformed or too long) or `failed`
+ *   (write error or write-behind buffer full).
+ */
+@Slf4j
+final class LineProtocolIngest {
+
+    /**
+     * The socket a reading arrived on.
+     */
+    enum Transport {
+        TCP, UDP;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final SensorDataService service;
+    private final WriteBehindBuffer writeBehindBuffer;
+    private final IngestMetrics ingestMetrics;
+    private final ExecutorService writers;
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final Counter connectionsOpened;
+    private final Map<Transport, Meters> meters = new EnumMap<>(Transport.class);
+
+    LineProtocolIngest(SensorDataService service, WriteBehindBuffer writeBehindBuffer, IngestMetrics ingestMetrics,
+                       int writerThreads, MeterRegistry meterRegistry) {
+        this.service = service;
+        this.writeBehindBuffer = writeBehindBuffer;
+        this.ingestMetrics = ingestMetrics;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(writerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "line-protocol-writer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("ingest.socket.connections", connections, AtomicInteger::get)
+                .tag("transport", Transport.TCP.tag())
+                .description("Open line-protocol connections")
+                .register(meterRegistry);
+        this.connectionsOpened = Counter.builder("ingest.socket.connections.opened")
+                .tag("transport", Transport.TCP.tag())
+                .description("Line-protocol connections accepted")
+                .register(meterRegistry);
+        for (Transport transport : Transport.values()) {
+            meters.put(transport, new Meters(transport, meterRegistry));
+        }
+    }
+
+    void connectionOpened() {
+        connections.incrementAndGet();
+        connectionsOpened.increment();
+    }
+
+    void connectionClosed() {
+        connections.decrementAndGet();
+    }
+
+    void received(Transport transport, int bytes) {
+        meters.get(transport).bytes.increment(bytes);
+    }
+
+    /**
+     * Indicates whether batches are handed to the write-behind buffer, in which case {@link #write} completes
+     * before it returns.
+     */
+    boolean isWriteBehind() {
+        return writeBehindBuffer.isEnabled();
+    }
+
+    /**
+     * Persists one batch of parsed readings.
+     *
+     * @param transport the socket the readings arrived on.
+     * @param batch the parsed readings.
+     * @param rejected the number of malformed lines in the same read.
+     * @param startNanos the {@link System#nanoTime()} at which the first line of the batch was read.
+     * @param onComplete called once the batch is written or has failed, on the writer thread.
+     */
+    void write(Transport transport, List<SensorData> batch, int rejected, long startNanos, Runnable onComplete) {
+        Meters transportMeters = meters.get(transport);
+        transportMeters.rejected.increment(rejected);
+
+        if (writeBehindBuffer.isEnabled()) {
+            List<SensorData> accepted = new ArrayList<>(batch.size());
+            for (SensorData data : batch) {
+                try {
+                    writeBehindBuffer.submit(data);
+                    accepted.add(data);
+                } catch (IngestRejectedException e) {
+                    transportMeters.failed.increment();
+                }
+            }
+            transportMeters.stored.increment(accepted.size());
+            ingestMetrics.recordBatch(accepted, rejected, startNanos);
+            onComplete.run();
+            return;
+        }
+
+        writers.execute(() -> {
+            try {
+                service.saveSensorDataBatch(batch);
+                transportMeters.stored.increment(batch.size());
+                ingestMetrics.recordBatch(batch, rejected, startNanos);
+            } catch (RuntimeException e) {
+                transportMeters.failed.increment(batch.size());
+                log.warn("Failed to store {} line-protocol readings: {}", batch.size(), e.getMessage());
+            } finally {
+                onComplete.run();
+            }
+        });
+    }
+
+    /**
+     * Counts readings rejected outside of a batch, such as lines exceeding the maximum length.
+     */
+    void rejected(Transport transport, int count) {
+        meters.get(transport).rejected.increment(count);
+    }
+
+    /**
+     * Waits for the batches already handed to the writer threads.
+     */
+    void shutdown() throws InterruptedException {
+        writers.shutdown();
+        if (!writers.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Line-protocol writers did not finish in time");
+            writers.shutdownNow();
+        }
+    }
+
+    /**
+     * The meters of one transport.
+     */
+    private static final class Meters {
+
+        private final Counter bytes;
+        private final Counter stored;
+        private final Counter rejected;
+        private final Counter failed;
+
+        private Meters(Transport transport, MeterRegistry meterRegistry) {
+            this.bytes = Counter.builder("ingest.socket.bytes")
+                    .tag("transport", transport.tag())
+                    .baseUnit("bytes")
+                    .description("Bytes of line-protocol lines received")
+                    .register(meterRegistry);
+            this.stored = readings(transport, "stored", meterRegistry);
+            this.rejected = readings(transport, "rejected", meterRegistry);
+            this.failed = readings(transport, "failed", meterRegistry);
+        }
+
+        private static Counter readings(Transport transport, String outcome, MeterRegistry meterRegistry) {
+            return Counter.builder("ingest.socket.readings")
+                    .tag("transport", transport.tag())
+                    .tag("outcome", outcome)
+                    .description("Line-protocol readings by outcome")
+                    .register(meterRegistry);
+        }
+    }
+}
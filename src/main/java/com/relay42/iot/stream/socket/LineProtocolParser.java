@@ -0,0 +1,197 @@
+package com.relay42.iot.stream.socket;
+
+import com.relay42.iot.stream.entity.SensorData;
+import io.netty.buffer.ByteBuf;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Parses one line of the socket protocol, `deviceId,metric,value,epochMs[,deviceType]`, directly from the
+ * receive buffer. Fields are located and numbers decoded in place, and the identifier strings are taken from a small
+ * cache keyed by their bytes, so a device repeating the same ids allocates only the entity and its timestamp.
+ * Instances are not thread-safe; each channel handler owns one.
+ */
+final class LineProtocolParser {
+
+    private static final byte SEPARATOR = ',';
+    private static final int MAX_FAST_DIGITS = 18;
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9,
+            1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18};
+
+    private final StringCache strings;
+
+    LineProtocolParser(int cacheSize) {
+        this.strings = new StringCache(cacheSize);
+    }
+
+    /**
+     * Parses the bytes between two indexes of a buffer, without moving its reader index.
+     *
+     * @param buf the buffer holding the line.
+     * @param from the index of the first byte of the line.
+     * @param to the index after the last byte of the line, excluding the line terminator.
+     * @return the reading, or null if the line is malformed.
+     */
+    SensorData parse(ByteBuf buf, int from, int to) {
+        int deviceEnd = buf.indexOf(from, to, SEPARATOR);
+        if (deviceEnd <= from) {
+            return null;
+        }
+        int metricEnd = buf.indexOf(deviceEnd + 1, to, SEPARATOR);
+        if (metricEnd <= deviceEnd + 1) {
+            return null;
+        }
+        int valueEnd = buf.indexOf(metricEnd + 1, to, SEPARATOR);
+        if (valueEnd < 0) {
+            return null;
+        }
+        int timestampEnd = buf.indexOf(valueEnd + 1, to, SEPARATOR);
+        if (timestampEnd < 0) {
+            timestampEnd = to;
+        }
+        if (timestampEnd < to && buf.indexOf(timestampEnd + 1, to, SEPARATOR) >= 0) {
+            return null;
+        }
+
+        double value = parseDouble(buf, metricEnd + 1, valueEnd);
+        long epochMillis = parseLong(buf, valueEnd + 1, timestampEnd);
+        if (!Double.isFinite(value) || epochMillis < 0) {
+            return null;
+        }
+
+        return SensorData.builder()
+                .deviceId(strings.get(buf, from, deviceEnd))
+                .metric(strings.get(buf, deviceEnd + 1, metricEnd))
+                .metricValue(value)
+                .dataTimestamp(LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000),
+                        (int) Math.floorMod(epochMillis, 1000) * 1_000_000, ZoneOffset.UTC))
+                .deviceType(timestampEnd + 1 < to ? strings.get(buf, timestampEnd + 1, to) : null)
+                .build();
+    }
+
+    /**
+     * Decodes a plain decimal such as `-12.375` without allocating. Values with more than 18 digits or an exponent
+     * fall back to {@link Double#parseDouble}. The fast path is exact: a mantissa below 2^53 divided by a power of ten
+     * up to 10^18 is correctly rounded.
+     *
+     * @return the value, or NaN if the field is not a number.
+     */
+    static double parseDouble(ByteBuf buf, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (buf.getByte(i) == '-' || buf.getByte(i) == '+')) {
+            negative = buf.getByte(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean point = false;
+        for (; i < to; i++) {
+            byte b = buf.getByte(i);
+            if (b >= '0' && b <= '9') {
+                if (++digits > MAX_FAST_DIGITS) {
+                    return parseDoubleSlow(buf, from, to);
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (point) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && !point) {
+                point = true;
+            } else {
+                return parseDoubleSlow(buf, from, to);
+            }
+        }
+        if (digits == 0) {
+            return Double.NaN;
+        }
+        if (mantissa > MAX_EXACT_MANTISSA) {
+            return parseDoubleSlow(buf, from, to);
+        }
+
+        double value = fractionDigits == 0 ? mantissa : mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Decodes a non-negative integer of at most 18 digits.
+     *
+     * @return the value, or -1 if the field is empty, too long or not a plain integer.
+     */
+    static long parseLong(ByteBuf buf, int from, int to) {
+        if (from >= to || to - from > MAX_FAST_DIGITS) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            byte b = buf.getByte(i);
+            if (b < '0' || b > '9') {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    private static double parseDoubleSlow(ByteBuf buf, int from, int to) {
+        try {
+            return Double.parseDouble(buf.toString(from, to - from, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Direct-mapped cache from UTF-8 bytes to the decoded string. A slot holds the last string hashed to it,
+     * so memory stays bounded however many distinct ids a client sends.
+     */
+    static final class StringCache {
+
+        private final byte[][] keys;
+        private final String[] values;
+        private final int mask;
+
+        StringCache(int size) {
+            int capacity = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+            this.keys = new byte[capacity][];
+            this.values = new String[capacity];
+            this.mask = capacity - 1;
+        }
+
+        String get(ByteBuf buf, int from, int to) {
+            int length = to - from;
+            int hash = 1;
+            for (int i = from; i < to; i++) {
+                hash = 31 * hash + buf.getByte(i);
+            }
+            int slot = (hash ^ (hash >>> 16)) & mask;
+
+            byte[] key = keys[slot];
+            if (key != null && key.length == length && matches(key, buf, from)) {
+                return values[slot];
+            }
+
+            byte[] bytes = new byte[length];
+            buf.getBytes(from, bytes);
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            keys[slot] = bytes;
+            values[slot] = value;
+            return value;
+        }
+
+        private static boolean matches(byte[] key, ByteBuf buf, int from) {
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != buf.getByte(from + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
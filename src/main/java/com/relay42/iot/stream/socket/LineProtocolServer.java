@@ -0,0 +1,125 @@
+package com.relay42.iot.stream.socket;
+
+import com.relay42.iot.stream.config.IngestConfig;
+import com.relay42.iot.stream.ingest.IngestMetrics;
+import com.relay42.iot.stream.ingest.WriteBehindBuffer;
+import com.relay42.iot.stream.service.SensorDataService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LineBasedFrameDecoder;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Netty listener for constrained devices that cannot afford an authenticated HTTP request per reading.
+ * Accepts lines of `deviceId,metric,value,epochMs[,deviceType]` over TCP and UDP, with the timestamp in epoch
+ * milliseconds UTC and the device type optional, and stores them through the same pipeline as the batch endpoint.
+ * Buffers come from Netty's pooled allocator. The listener is unauthenticated and should only be bound to a
+ * trusted network; see {@link IngestConfig.Socket}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "ingest.socket", name = "enabled", havingValue = "true")
+public class LineProtocolServer {
+
+    private final IngestConfig.Socket config;
+    private final LineProtocolIngest ingest;
+
+    private EventLoopGroup group;
+    private Channel tcpChannel;
+    private Channel udpChannel;
+
+    public LineProtocolServer(IngestConfig ingestConfig, SensorDataService service, WriteBehindBuffer writeBehindBuffer,
+                              IngestMetrics ingestMetrics, MeterRegistry meterRegistry) {
+        this.config = ingestConfig.getSocket();
+        this.ingest = new LineProtocolIngest(service, writeBehindBuffer, ingestMetrics, config.getWriterThreads(),
+                meterRegistry);
+    }
+
+    /**
+     * Binds the TCP and UDP listeners that are not disabled.
+     */
+    @PostConstruct
+    public void start() throws InterruptedException {
+        group = new NioEventLoopGroup(config.getIoThreads(), new DefaultThreadFactory("line-protocol-io", true));
+
+        if (config.getTcpPort() >= 0) {
+            tcpChannel = new ServerBootstrap()
+                    .group(group)
+                    .channel(NioServerSocketChannel.class)
+                    .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                    .childOption(ChannelOption.TCP_NODELAY, true)
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel channel) {
+                            channel.pipeline().addLast(
+                                    new LineBasedFrameDecoder(config.getMaxLineLength()),
+                                    new LineProtocolHandler(LineProtocolIngest.Transport.TCP, ingest));
+                        }
+                    })
+                    .bind(config.getHost(), config.getTcpPort()).sync().channel();
+        }
+
+        if (config.getUdpPort() >= 0) {
+            udpChannel = new Bootstrap()
+                    .group(group)
+                    .channel(NioDatagramChannel.class)
+                    .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                    .option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(config.getMaxDatagramSize()))
+                    .handler(new LineProtocolHandler(LineProtocolIngest.Transport.UDP, ingest))
+                    .bind(config.getHost(), config.getUdpPort()).sync().channel();
+        }
+
+        log.info("Line-protocol listener started on {} (tcp {}, udp {})", config.getHost(), getTcpPort(), getUdpPort());
+    }
+
+    /**
+     * Closes the listeners and waits for the readings already parsed to be written.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (tcpChannel != null) {
+            tcpChannel.close().sync();
+        }
+        if (udpChannel != null) {
+            udpChannel.close().sync();
+        }
+        group.shutdownGracefully().sync();
+        ingest.shutdown();
+    }
+
+    /**
+     * @return the bound TCP port, or -1 if TCP is disabled.
+     */
+    public int getTcpPort() {
+        return boundPort(tcpChannel);
+    }
+
+    /**
+     * @return the bound UDP port, or -1 if UDP is disabled.
+     */
+    public int getUdpPort() {
+        return boundPort(udpChannel);
+    }
+
+    private static int boundPort(Channel channel) {
+        return channel == null ? -1 : ((InetSocketAddress) channel.localAddress()).getPort();
+    }
+}
@@ -0,0 +1,207 @@
+package com.relay42.iot.stream.storage;
+
+import com.relay42.iot.stream.config.StorageConfig;
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.repository.MetricStats;
+import com.relay42.iot.stream.repository.MetricStatsValue;
+import com.relay42.iot.stream.repository.SensorDataBatchRepository;
+import com.relay42.iot.stream.repository.SensorDataPartitionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * In-memory hot tier holding the recent readings of every (deviceId, metric) series.
+ * Each series is a bounded primitive ring buffer of (epoch milliseconds, value) pairs, so ranges inside the
+ * window are answered without a database round trip and without materializing entities.
+ * The tier is filled from the database on startup and by every committed write afterwards; a range is served
+ * from memory only if the tier is known to hold every reading of the series in it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HotWindowStore implements SmartInitializingSingleton {
+
+    private final SensorDataBatchRepository batchRepository;
+    private final SensorDataPartitionRepository partitionRepository;
+    private final StorageConfig storageConfig;
+
+    private volatile Map<SeriesKey, SeriesRingBuffer> series = new ConcurrentHashMap<>();
+
+    /**
+     * Epoch milliseconds from which the tier has seen every write, whether or not the series has a buffer.
+     */
+    private volatile long loadedFrom = Long.MAX_VALUE;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    /**
+     * Indicates whether recent ranges are answered from the hot window.
+     *
+     * @return true if the hot window is enabled.
+     */
+    public boolean isEnabled() {
+        return storageConfig.getHotWindow().isEnabled();
+    }
+
+    /**
+     * Adds the given readings to the buffers of their series. Readings older than the window are skipped.
+     *
+     * @param dataList the readings that have been persisted.
+     */
+    public void record(Collection<SensorData> dataList) {
+        if (!isEnabled()) {
+            return;
+        }
+        long windowStart = windowStart();
+        for (SensorData data : dataList) {
+            record(series, data.getDeviceId(), data.getMetric(), toEpochMilli(data.getDataTimestamp()),
+                    data.getMetricValue(), windowStart, loadedFrom);
+        }
+    }
+
+    /**
+     * Indicates whether every reading of the series from the given timestamp on is held in memory.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @return true if a range starting at `from` can be answered from the hot window.
+     */
+    public boolean covers(String deviceId, String metric, LocalDateTime from) {
+        if (!isEnabled()) {
+            return false;
+        }
+        SeriesRingBuffer buffer = series.get(new SeriesKey(deviceId, metric));
+        long completeFrom = Math.max(windowStart(), buffer != null ? buffer.getCompleteFrom() : loadedFrom);
+        return toEpochMilli(from) >= completeFrom;
+    }
+
+    /**
+     * Computes count, min, max, average and exact median for a device and metric within a time range.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @return the statistics of the range, or null if the range is not covered by the hot window.
+     */
+    public MetricStats getStatsInRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to) {
+        if (!covers(deviceId, metric, from)) {
+            return null;
+        }
+        SeriesRingBuffer buffer = series.get(new SeriesKey(deviceId, metric));
+        if (buffer == null) {
+            return MetricStatsValue.empty();
+        }
+        return buffer.statsInRange(toEpochMilli(from), toEpochMilli(to));
+    }
+
+    /**
+     * Passes the timestamp and value of every reading in the range to the consumer, in time order.
+     *
+     * @param deviceId the identifier of the device.
+     * @param metric the metric type (e.g., temperature, humidity).
+     * @param from the start of the time range (inclusive).
+     * @param to the end of the time range (inclusive).
+     * @param consumer the callback receiving each reading.
+     * @return true if the range was covered by the hot window and has been scanned, false otherwise.
+     */
+    public boolean scanRange(String deviceId, String metric, LocalDateTime from, LocalDateTime to,
+                             ObjDoubleConsumer<LocalDateTime> consumer) {
+        if (!covers(deviceId, metric, from)) {
+            return false;
+        }
+        SeriesRingBuffer buffer = series.get(new SeriesKey(deviceId, metric));
+        if (buffer != null) {
+            buffer.forEachInRange(toEpochMilli(from), toEpochMilli(to),
+                    (timestamp, value) -> consumer.accept(fromEpochMilli(timestamp), value));
+        }
+        return true;
+    }
+
+    /**
+     * Reloads the hot window from the rows currently stored in the database.
+     * The new buffers replace the current ones only once the scan has completed.
+     */
+    public void rebuild() {
+        if (!isEnabled()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        long windowStart = windowStart();
+        Map<SeriesKey, SeriesRingBuffer> rebuilt = new ConcurrentHashMap<>();
+        SensorDataBatchRepository.ValueConsumer consumer = (deviceId, metric, timestamp, value) -> {
+            if (Double.isFinite(value)) {
+                record(rebuilt, deviceId, metric, toEpochMilli(timestamp), value, windowStart, windowStart);
+            }
+        };
+        LocalDateTime since = fromEpochMilli(windowStart);
+        if (partitionRepository.isEnabled()) {
+            partitionRepository.scanValuesSince(since, consumer);
+        } else {
+            batchRepository.scanValuesSince(since, consumer);
+        }
+        series = rebuilt;
+        loadedFrom = windowStart;
+        log.info("Loaded {} series into the hot window in {} ms", rebuilt.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Releases the readings that have left the window, and the series that have no readings left.
+     */
+    @Scheduled(fixedRateString = "#{@storageConfig.hotWindow.trimIntervalMs}")
+    public void trimExpired() {
+        long windowStart = windowStart();
+        for (SeriesKey key : series.keySet()) {
+            series.computeIfPresent(key, (ignored, buffer) -> {
+                buffer.trimBefore(windowStart);
+                return buffer.size() == 0 ? null : buffer;
+            });
+        }
+    }
+
+    private void record(Map<SeriesKey, SeriesRingBuffer> target, String deviceId, String metric, long timestamp,
+                        double value, long windowStart, long completeFrom) {
+        if (timestamp < windowStart) {
+            return;
+        }
+        // Added inside compute so that trimExpired cannot drop the buffer between lookup and add
+        target.compute(new SeriesKey(deviceId, metric), (key, buffer) -> {
+            SeriesRingBuffer updated = buffer != null
+                    ? buffer : new SeriesRingBuffer(storageConfig.getHotWindow().getCapacityPerSeries(), completeFrom);
+            updated.add(timestamp, value);
+            return updated;
+        });
+    }
+
+    private long windowStart() {
+        return toEpochMilli(LocalDateTime.now().minus(storageConfig.getHotWindow().getWindow()));
+    }
+
+    private static long toEpochMilli(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime fromEpochMilli(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), (int) Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Key identifying a series of readings.
+     */
+    private record SeriesKey(String deviceId, String metric) {
+    }
+}
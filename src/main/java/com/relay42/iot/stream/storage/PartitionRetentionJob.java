@@ -0,0 +1,42 @@
+package com.relay42.iot.stream.storage;
+
+import com.relay42.iot.stream.config.StorageConfig;
+import com.relay42.iot.stream.repository.SensorDataPartitionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Scheduled job enforcing the retention period of the time-partitioned storage layout.
+ * Expired data is removed by dropping whole partition tables, which is far cheaper than deleting rows.
+ * The job is controlled by the configuration properties:
+ * - `storage.partitioning.enabled`: The job does nothing unless partitioning is enabled.
+ * - `storage.partitioning.retention-days`: Partitions that end more than this many days ago are dropped; 0 disables the job.
+ * - `storage.partitioning.retention-cron`: Schedule of the job.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PartitionRetentionJob {
+
+    private final StorageConfig config;
+    private final SensorDataPartitionRepository partitionRepository;
+
+    /**
+     * Drops the partitions that fall entirely outside the retention period.
+     */
+    @Scheduled(cron = "#{@storageConfig.partitioning.retentionCron}")
+    public void enforceRetention() {
+        StorageConfig.Partitioning partitioning = config.getPartitioning();
+        if (!partitioning.isEnabled() || partitioning.getRetentionDays() <= 0) {
+            return;
+        }
+
+        LocalDate cutoff = LocalDate.now().minusDays(partitioning.getRetentionDays());
+        int dropped = partitionRepository.dropPartitionsBefore(cutoff);
+        log.info("Retention dropped {} partitions older than {}", dropped, cutoff);
+    }
+}
@@ -0,0 +1,245 @@
+package com.relay42.iot.stream.storage;
+
+import com.relay42.iot.stream.repository.MetricStats;
+import com.relay42.iot.stream.repository.MetricStatsValue;
+import com.relay42.iot.stream.util.MedianCalculator;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded, time-ordered ring buffer of the readings of one (deviceId, metric) series.
+ * Timestamps and values are kept in two parallel primitive arrays, 16 bytes per reading, instead of one
+ * entity with a boxed value and a LocalDateTime per reading. The arrays grow on demand up to the capacity;
+ * once full, every new reading overwrites the oldest one.
+ * The buffer tracks the timestamp from which it holds every reading of the series, so callers can tell
+ * whether a range can be answered from memory. Updates and reads are guarded by a per-series ReentrantLock,
+ * which, unlike a monitor, does not pin the carrier of a virtual thread waiting for it.
+ */
+public class SeriesRingBuffer {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int capacity;
+    private long[] timestamps;
+    private double[] values;
+    private int head;
+    private int size;
+    private long completeFrom;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Creates an empty buffer.
+     *
+     * @param capacity the maximum number of readings kept.
+     * @param completeFrom epoch milliseconds from which every reading of the series will be added to the buffer.
+     */
+    public SeriesRingBuffer(int capacity, long completeFrom) {
+        this.capacity = Math.max(capacity, 1);
+        this.timestamps = new long[Math.min(this.capacity, INITIAL_CAPACITY)];
+        this.values = new double[timestamps.length];
+        this.completeFrom = completeFrom;
+    }
+
+    /**
+     * Adds a reading, keeping the buffer in time order. A full buffer drops its oldest reading first.
+     * Readings older than the start of the complete window are ignored.
+     *
+     * @param timestamp the reading timestamp in epoch milliseconds.
+     * @param value the metric value.
+     * @return true if the reading was added.
+     */
+    public boolean add(long timestamp, double value) {
+        lock.lock();
+        try {
+            if (timestamp < completeFrom) {
+                return false;
+            }
+            if (size == capacity) {
+                // The reading or the oldest one must go, either way the buffer is no longer complete up to it
+                long dropped = Math.min(timestamp, timestamps[head]);
+                completeFrom = Math.max(completeFrom, dropped + 1);
+                if (timestamp == dropped) {
+                    return false;
+                }
+                removeOldest();
+            }
+            if (size == timestamps.length) {
+                grow();
+            }
+
+            // Readings usually arrive in time order; late ones are shifted into place
+            int position = size;
+            while (position > 0 && timestamps[physical(position - 1)] > timestamp) {
+                int from = physical(position - 1);
+                int to = physical(position);
+                timestamps[to] = timestamps[from];
+                values[to] = values[from];
+                position--;
+            }
+            timestamps[physical(position)] = timestamp;
+            values[physical(position)] = value;
+            size++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops the readings older than the cutoff; the buffer is then complete from the cutoff at the latest.
+     *
+     * @param cutoff epoch milliseconds of the oldest reading to keep.
+     */
+    public void trimBefore(long cutoff) {
+        lock.lock();
+        try {
+            while (size > 0 && timestamps[head] < cutoff) {
+                removeOldest();
+            }
+            completeFrom = Math.max(completeFrom, cutoff);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the timestamp from which the buffer holds every reading of the series.
+     *
+     * @return epoch milliseconds.
+     */
+    public long getCompleteFrom() {
+        lock.lock();
+        try {
+            return completeFrom;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of readings in the buffer.
+     *
+     * @return the reading count.
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Passes every reading between two inclusive timestamps to the consumer, in time order.
+     *
+     * @param from epoch milliseconds of the start of the range (inclusive).
+     * @param to epoch milliseconds of the end of the range (inclusive).
+     * @param consumer the callback receiving each reading.
+     */
+    public void forEachInRange(long from, long to, ReadingConsumer consumer) {
+        lock.lock();
+        try {
+            for (int i = lowerBound(from); i < size; i++) {
+                int index = physical(i);
+                if (timestamps[index] > to) {
+                    break;
+                }
+                consumer.accept(timestamps[index], values[index]);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Computes count, min, max, average and exact median of the readings between two inclusive timestamps.
+     *
+     * @param from epoch milliseconds of the start of the range (inclusive).
+     * @param to epoch milliseconds of the end of the range (inclusive).
+     * @return the statistics of the range.
+     */
+    public MetricStats statsInRange(long from, long to) {
+        double[] range;
+        lock.lock();
+        try {
+            int start = lowerBound(from);
+            int end = start;
+            while (end < size && timestamps[physical(end)] <= to) {
+                end++;
+            }
+            range = new double[end - start];
+            for (int i = start; i < end; i++) {
+                range[i - start] = values[physical(i)];
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (range.length == 0) {
+            return MetricStatsValue.empty();
+        }
+
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double sum = 0;
+        for (double value : range) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+        }
+        return new MetricStatsValue((long) range.length, min, max, sum / range.length,
+                MedianCalculator.medianInPlace(range, range.length));
+    }
+
+    /**
+     * Returns the logical index of the first reading at or after the timestamp.
+     */
+    private int lowerBound(long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamps[physical(middle)] < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int physical(int logicalIndex) {
+        int index = head + logicalIndex;
+        return index < timestamps.length ? index : index - timestamps.length;
+    }
+
+    private void removeOldest() {
+        head = physical(1);
+        size--;
+    }
+
+    /**
+     * Doubles the arrays up to the capacity, unrolling the ring so the oldest reading is at index 0.
+     */
+    private void grow() {
+        int length = Math.min(timestamps.length * 2, capacity);
+        long[] grownTimestamps = new long[length];
+        double[] grownValues = new double[length];
+        for (int i = 0; i < size; i++) {
+            grownTimestamps[i] = timestamps[physical(i)];
+            grownValues[i] = values[physical(i)];
+        }
+        timestamps = grownTimestamps;
+        values = grownValues;
+        head = 0;
+    }
+
+    /**
+     * Callback receiving one buffered reading at a time.
+     */
+    @FunctionalInterface
+    public interface ReadingConsumer {
+
+        void accept(long timestamp, double value);
+    }
+}
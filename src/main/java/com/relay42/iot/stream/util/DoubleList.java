@@ -0,0 +1,52 @@
+package com.relay42.iot.stream.util;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive doubles.
+ * Used to collect metric values without boxing each one into a Double.
+ */
+public class DoubleList {
+
+    private double[] values;
+    private int size;
+
+    public DoubleList() {
+        this(16);
+    }
+
+    public DoubleList(int initialCapacity) {
+        this.values = new double[Math.max(initialCapacity, 1)];
+    }
+
+    /**
+     * Appends a value, growing the backing array when it is full.
+     *
+     * @param value the value to append.
+     */
+    public void add(double value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Returns the number of values in the list.
+     *
+     * @return the size of the list.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the backing array; only the first {@link #size()} entries are values.
+     * The array is shared, not copied, so callers may reorder it as a scratch buffer.
+     *
+     * @return the backing array.
+     */
+    public double[] array() {
+        return values;
+    }
+}
@@ -0,0 +1,69 @@
+package com.relay42.iot.stream.util;
+
+/**
+ * Utility class implementing the Largest-Triangle-Three-Buckets (LTTB) downsampling algorithm.
+ * Reduces a time series to a fixed number of points while keeping its visual shape: the first and last points
+ * are always kept, and from each bucket in between the point forming the largest triangle with the previously
+ * selected point and the average of the next bucket is chosen. This is used to cap the size of chart series.
+ */
+public class LargestTriangleThreeBuckets {
+
+    /**
+     * Selects the points to keep when downsampling a series.
+     *
+     * @param x the x coordinates (e.g., epoch milliseconds), in ascending order.
+     * @param y the y coordinates.
+     * @param length the number of points in the arrays to consider.
+     * @param threshold the maximum number of points to keep, at least 3.
+     * @return the indices of the selected points, in ascending order.
+     */
+    public static int[] downsample(double[] x, double[] y, int length, int threshold) {
+        if (threshold < 3) {
+            throw new IllegalArgumentException("threshold must be at least 3");
+        }
+        if (length <= threshold) {
+            int[] all = new int[length];
+            for (int i = 0; i < length; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        int[] selected = new int[threshold];
+        double bucketSize = (double) (length - 2) / (threshold - 2);
+        int previous = 0;
+        selected[0] = 0;
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int nextStart = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, length);
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += x[i];
+                avgY += y[i];
+            }
+            int nextCount = Math.max(nextEnd - nextStart, 1);
+            avgX /= nextCount;
+            avgY /= nextCount;
+
+            int start = (int) Math.floor(bucket * bucketSize) + 1;
+            int end = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            double maxArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((x[previous] - avgX) * (y[i] - y[previous])
+                        - (x[previous] - x[i]) * (avgY - y[previous]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            selected[bucket + 1] = chosen;
+            previous = chosen;
+        }
+
+        selected[threshold - 1] = length - 1;
+        return selected;
+    }
+}
@@ -2,6 +2,7 @@ package com.relay42.iot.stream.util;
 
 import com.relay42.iot.stream.entity.SensorData;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -9,6 +10,8 @@ import java.util.stream.Collectors;
  * Utility class for calculating the median value from a list of sensor data.
  * Provides a static method to compute the median of metric values from a list of SensorData entities.
  * This is used in aggregation operations to determine the central tendency of sensor data.
+ * Also provides an O(n) selection-based median over primitive arrays, which should be preferred
+ * on hot paths; the sort-based {@link #calculate(List)} is kept as the reference implementation.
  */
 public class MedianCalculator {
 
@@ -33,4 +36,109 @@ public class MedianCalculator {
                 ? sorted.get(totalValues / 2)
                 : (sorted.get(totalValues / 2 - 1) + sorted.get(totalValues / 2)) / 2.0;
     }
+
+    /**
+     * Calculates the median of the given values using introselect, in O(n) time and without boxing.
+     * The input array is left unchanged.
+     * Returns 0 if the array is empty.
+     *
+     * @param values the values to calculate the median from.
+     * @return the median value, or 0 if the array is empty.
+     */
+    public static double median(double[] values) {
+        return medianInPlace(Arrays.copyOf(values, values.length), values.length);
+    }
+
+    /**
+     * Calculates the median of the first `length` values of the array using introselect.
+     * The array is partially reordered; use this variant when the array is a scratch buffer.
+     * Returns 0 if length is 0.
+     *
+     * @param values the values to calculate the median from; reordered in place.
+     * @param length the number of values to consider, starting at index 0.
+     * @return the median value, or 0 if length is 0.
+     */
+    public static double medianInPlace(double[] values, int length) {
+        if (length == 0) return 0;
+
+        int middle = length / 2;
+        double upper = select(values, 0, length - 1, middle);
+        if (length % 2 == 1) {
+            return upper;
+        }
+
+        // After selection every value left of the middle is <= upper, so the lower median is their maximum.
+        double lower = values[0];
+        for (int i = 1; i < middle; i++) {
+            if (values[i] > lower) {
+                lower = values[i];
+            }
+        }
+        return (lower + upper) / 2.0;
+    }
+
+    /**
+     * Returns the k-th smallest of the first `length` values of the array using introselect.
+     * The array is partially reordered: afterwards every value left of index k is less than or equal to the result.
+     *
+     * @param values the values to select from; reordered in place.
+     * @param length the number of values to consider, starting at index 0.
+     * @param k the zero-based rank of the value to return, below length.
+     * @return the k-th smallest value.
+     */
+    public static double selectInPlace(double[] values, int length, int k) {
+        if (k < 0 || k >= length) {
+            throw new IllegalArgumentException("k must be between 0 and length - 1");
+        }
+        return select(values, 0, length - 1, k);
+    }
+
+    /**
+     * Places the k-th smallest value at index k, with smaller or equal values to its left.
+     * Uses median-of-three quickselect with three-way partitioning, and falls back to sorting the
+     * remaining range when the recursion depth suggests adversarial input.
+     */
+    private static double select(double[] values, int left, int right, int k) {
+        int depthLimit = 2 * (32 - Integer.numberOfLeadingZeros(right - left + 1));
+
+        while (right > left) {
+            if (depthLimit-- == 0) {
+                Arrays.sort(values, left, right + 1);
+                return values[k];
+            }
+
+            double pivot = medianOfThree(values[left], values[(left + right) >>> 1], values[right]);
+            int lessEnd = left;
+            int greaterStart = right;
+            int i = left;
+            while (i <= greaterStart) {
+                if (values[i] < pivot) {
+                    swap(values, lessEnd++, i++);
+                } else if (values[i] > pivot) {
+                    swap(values, i, greaterStart--);
+                } else {
+                    i++;
+                }
+            }
+
+            if (k < lessEnd) {
+                right = lessEnd - 1;
+            } else if (k > greaterStart) {
+                left = greaterStart + 1;
+            } else {
+                return pivot;
+            }
+        }
+        return values[k];
+    }
+
+    private static double medianOfThree(double a, double b, double c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    private static void swap(double[] values, int i, int j) {
+        double tmp = values[i];
+        values[i] = values[j];
+        values[j] = tmp;
+    }
 }
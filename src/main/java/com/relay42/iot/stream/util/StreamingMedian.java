@@ -0,0 +1,119 @@
+package com.relay42.iot.stream.util;
+
+import java.util.Arrays;
+
+/**
+ * Online median over a stream of values using two primitive heaps.
+ * The lower half of the values is kept in a max-heap and the upper half in a min-heap,
+ * so each insert costs O(log n) and the median is available in O(1) at any point.
+ * Memory grows with the number of values; use QuantileSketch when the stream is unbounded.
+ * Instances are not thread-safe.
+ */
+public class StreamingMedian {
+
+    private final DoubleHeap lower = new DoubleHeap(true);
+    private final DoubleHeap upper = new DoubleHeap(false);
+
+    /**
+     * Adds a value to the stream.
+     *
+     * @param value the value to add.
+     */
+    public void add(double value) {
+        if (lower.size() == 0 || value <= lower.peek()) {
+            lower.push(value);
+        } else {
+            upper.push(value);
+        }
+
+        if (lower.size() > upper.size() + 1) {
+            upper.push(lower.pop());
+        } else if (upper.size() > lower.size()) {
+            lower.push(upper.pop());
+        }
+    }
+
+    /**
+     * Returns the median of the values added so far.
+     * Returns 0 if no value has been added.
+     *
+     * @return the current median, or 0 if the stream is empty.
+     */
+    public double median() {
+        if (lower.size() == 0) return 0;
+        return lower.size() > upper.size()
+                ? lower.peek()
+                : (lower.peek() + upper.peek()) / 2.0;
+    }
+
+    /**
+     * Returns the number of values added so far.
+     *
+     * @return the value count.
+     */
+    public int count() {
+        return lower.size() + upper.size();
+    }
+
+    /**
+     * Binary heap over a growable double array; a max-heap or a min-heap depending on construction.
+     */
+    private static final class DoubleHeap {
+
+        private final boolean max;
+        private double[] heap = new double[16];
+        private int size;
+
+        DoubleHeap(boolean max) {
+            this.max = max;
+        }
+
+        int size() {
+            return size;
+        }
+
+        double peek() {
+            return heap[0];
+        }
+
+        void push(double value) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(value, heap[parent])) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = value;
+        }
+
+        double pop() {
+            double top = heap[0];
+            double last = heap[--size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && before(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!before(heap[child], last)) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return top;
+        }
+
+        private boolean before(double a, double b) {
+            return max ? a > b : a < b;
+        }
+    }
+}
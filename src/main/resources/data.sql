@@ -1,4 +1,12 @@
-INSERT INTO sensor_data (device_id, metric, metric_value, data_timestamp, device_type) VALUES
-('thermostat-1', 'temperature', 22.5, '2025-04-10T08:00:00', 'thermostat'),
-('thermostat-1', 'temperature', 25.0, '2025-04-10T09:00:00', 'thermostat'),
-('thermostat-1', 'temperature', 28.0, '2025-04-10T10:00:00', 'thermostat');
+INSERT INTO sensor_device (name) SELECT 'thermostat-1' WHERE NOT EXISTS (SELECT 1 FROM sensor_device WHERE name = 'thermostat-1');
+INSERT INTO sensor_metric (name) SELECT 'temperature' WHERE NOT EXISTS (SELECT 1 FROM sensor_metric WHERE name = 'temperature');
+INSERT INTO sensor_device_type (name) SELECT 'thermostat' WHERE NOT EXISTS (SELECT 1 FROM sensor_device_type WHERE name = 'thermostat');
+
+INSERT INTO sensor_data (device_key, metric_key, metric_value, data_timestamp, device_type_key)
+SELECT d.id, m.id, r.metric_value, r.data_timestamp, t.id
+FROM (VALUES (22.5, TIMESTAMP '2025-04-10 08:00:00'),
+             (25.0, TIMESTAMP '2025-04-10 09:00:00'),
+             (28.0, TIMESTAMP '2025-04-10 10:00:00')) AS r(metric_value, data_timestamp)
+JOIN sensor_device d ON d.name = 'thermostat-1'
+JOIN sensor_metric m ON m.name = 'temperature'
+JOIN sensor_device_type t ON t.name = 'thermostat';
@@ -1,20 +1,41 @@
--- Table to store sensor data
+-- Dimension tables: each distinct device id, metric name and device type is stored once and referenced
+-- from sensor_data by an integer key. Rows are only ever added, so a key never changes its name.
+CREATE TABLE IF NOT EXISTS sensor_device (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS sensor_metric (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS sensor_device_type (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL UNIQUE
+);
+
+-- Table to store sensor data. A table left over from the previous layout, with device_id, metric and device_type
+-- VARCHAR columns, is migrated to the key columns at startup by SensorDimensionRepository.
 CREATE TABLE IF NOT EXISTS sensor_data (
     -- Unique identifier for each record
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
-    
-    -- Identifier for the device sending the data
-    device_id VARCHAR(255) NOT NULL,
-    
-    -- Type of metric being recorded (e.g., temperature, humidity)
-    metric VARCHAR(255) NOT NULL,
-    
+
+    -- Key of the device sending the data in sensor_device
+    device_key INT NOT NULL,
+
+    -- Key of the metric being recorded (e.g., temperature, humidity) in sensor_metric
+    metric_key INT NOT NULL,
+
     -- Value of the recorded metric
     metric_value DOUBLE NOT NULL,
 
-    -- Type of the device (optional field)
-    device_type VARCHAR(255),
+    -- Key of the type of the device in sensor_device_type (optional field)
+    device_type_key INT,
+
+    -- Timestamp of when the data was recorded
+    data_timestamp TIMESTAMP NOT NULL
+);
 
-     -- Timestamp of when the data was recorded
-        data_timestamp TIMESTAMP NOT NULL
-);
\ No newline at end of file
+-- Composite index matching the device/metric/time-range filters used by every stats query
+CREATE INDEX IF NOT EXISTS idx_sensor_data_device_metric_ts ON sensor_data (device_key, metric_key, data_timestamp);
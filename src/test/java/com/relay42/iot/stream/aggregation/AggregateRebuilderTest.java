@@ -0,0 +1,92 @@
+package com.relay42.iot.stream.aggregation;
+
+import com.relay42.iot.stream.config.AggregationConfig;
+import com.relay42.iot.stream.model.MetricSummary;
+import com.relay42.iot.stream.repository.MetricStats;
+import com.relay42.iot.stream.repository.SensorDataBatchRepository;
+import com.relay42.iot.stream.repository.SensorDataPartitionRepository;
+import com.relay42.iot.stream.util.DoubleList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AggregateRebuilderTest {
+
+    @Mock
+    private SensorDataBatchRepository batchRepository;
+
+    @Mock
+    private SensorDataPartitionRepository partitionRepository;
+
+    private final AggregationConfig config = new AggregationConfig();
+
+    private RunningAggregateStore runningAggregates;
+    private RollupStore rollupStore;
+    private AggregateRebuilder rebuilder;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        runningAggregates = new RunningAggregateStore(batchRepository, partitionRepository);
+        rollupStore = new RollupStore(batchRepository, partitionRepository, config);
+        rebuilder = new AggregateRebuilder(batchRepository, partitionRepository, runningAggregates, rollupStore);
+    }
+
+    @Test
+    void testOneScanRebuildsBothStores() {
+
+        LocalDateTime timestamp = LocalDateTime.now().minusHours(2).withSecond(0).withNano(0);
+        runningAggregates.record("device-1", "temperature", 99.0);
+        doAnswer(invocation -> {
+            SensorDataBatchRepository.ValueConsumer consumer = invocation.getArgument(0);
+            consumer.accept("device-1", "temperature", timestamp, 20.0);
+            consumer.accept("device-1", "temperature", timestamp.plusSeconds(10), 22.0);
+            consumer.accept("device-1", "temperature", timestamp.plusSeconds(20), Double.POSITIVE_INFINITY);
+            consumer.accept("device-1", "temperature", timestamp.plusSeconds(30), Double.NaN);
+            return null;
+        }).when(batchRepository).scanValues(any());
+
+
+        rebuilder.afterSingletonsInstantiated();
+        MetricSummary summary = runningAggregates.getSummary("device-1", "temperature");
+        MetricStats rollup = rollupStore.getStatsInRange("device-1", "temperature", timestamp, timestamp.plusMinutes(1).minusNanos(1),
+                (from, to) -> new DoubleList());
+
+
+        verify(batchRepository, times(1)).scanValues(any());
+        assertEquals(20.0, summary.getMin());
+        assertEquals(22.0, summary.getMax());
+        assertEquals(2L, rollup.getCount());
+        assertEquals(21.0, rollup.getAvg());
+    }
+
+    @Test
+    void testDisabledRollupsAreNotRebuilt() {
+
+        config.getRollup().setEnabled(false);
+        doAnswer(invocation -> {
+            SensorDataBatchRepository.ValueConsumer consumer = invocation.getArgument(0);
+            consumer.accept("device-1", "humidity", LocalDateTime.now(), 55.0);
+            return null;
+        }).when(partitionRepository).scanValues(any());
+        when(partitionRepository.isEnabled()).thenReturn(true);
+
+
+        rebuilder.rebuild();
+
+
+        verify(partitionRepository, times(1)).scanValues(any());
+        verify(batchRepository, times(0)).scanValues(any());
+        assertEquals(55.0, runningAggregates.getSummary("device-1", "humidity").getMedian());
+    }
+}
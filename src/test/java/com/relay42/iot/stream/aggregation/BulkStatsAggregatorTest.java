@@ -0,0 +1,70 @@
+package com.relay42.iot.stream.aggregation;
+
+import com.relay42.iot.stream.config.AggregationConfig;
+import com.relay42.iot.stream.model.MetricSummary;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BulkStatsAggregatorTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 10, 12, 0);
+
+    @Test
+    void testSummarizesEachDeviceAndMetric() {
+
+        BulkStatsAggregator aggregator = new BulkStatsAggregator(
+                new AggregationStrategyFactory(List.of(new TemperatureAggregationStrategy()), new AggregationConfig()));
+        for (int device = 0; device < 50; device++) {
+            for (int value = 1; value <= 5; value++) {
+                aggregator.add("device-" + device, "temperature", START.plusSeconds(value), device + value);
+            }
+            aggregator.add("device-" + device, "humidity", START, 40.0);
+        }
+
+
+        Map<String, Map<String, MetricSummary>> summaries = aggregator.summarize();
+
+
+        assertEquals(50, summaries.size());
+        MetricSummary temperature = summaries.get("device-7").get("temperature");
+        assertEquals(8.0, temperature.getMin());
+        assertEquals(12.0, temperature.getMax());
+        assertEquals(10.0, temperature.getAvg());
+        assertEquals(10.0, temperature.getMedian());
+        assertEquals(40.0, summaries.get("device-7").get("humidity").getMedian());
+    }
+
+    @Test
+    void testSummarizesEachMetricWithItsStrategy() {
+
+        AggregationConfig config = new AggregationConfig();
+        config.getStrategies().getMetrics().put("heart-rate", List.of("count", "p90", "rate"));
+        config.getStrategies().getMetrics().put("fuel-level", List.of("count", "max"));
+        BulkStatsAggregator aggregator = new BulkStatsAggregator(new AggregationStrategyFactory(List.of(), config));
+        for (int value = 1; value <= 10; value++) {
+            aggregator.add("device-1", "heart-rate", START.plusSeconds(value), value);
+            aggregator.add("device-1", "fuel-level", START.plusSeconds(value), 100 - value);
+        }
+
+
+        Map<String, MetricSummary> summaries = aggregator.summarize().get("device-1");
+
+
+        MetricSummary heartRate = summaries.get("heart-rate");
+        assertEquals(10L, heartRate.getCount());
+        assertEquals(1.0, heartRate.getRateOfChange());
+        assertEquals(Set.of("p90"), heartRate.getPercentiles().keySet());
+        assertNull(heartRate.getMin());
+        MetricSummary fuelLevel = summaries.get("fuel-level");
+        assertEquals(10L, fuelLevel.getCount());
+        assertEquals(99.0, fuelLevel.getMax());
+        assertNull(fuelLevel.getMedian());
+    }
+}
@@ -0,0 +1,107 @@
+package com.relay42.iot.stream.aggregation;
+
+import com.relay42.iot.stream.config.AggregationConfig;
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.model.MetricSummary;
+import com.relay42.iot.stream.repository.MetricStatsValue;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigurableAggregationStrategyTest {
+
+    @Test
+    void testComputesPercentilesStddevAndRate() {
+
+        ConfigurableAggregationStrategy strategy = new ConfigurableAggregationStrategy(
+                List.of("heart-rate"), List.of("count", "min", "max", "avg", "p50", "p90", "p99", "stddev", "rate"));
+        LocalDateTime start = LocalDateTime.of(2025, 4, 10, 8, 0);
+        List<SensorData> dataList = new ArrayList<>();
+        for (int i = 100; i >= 0; i--) {
+            dataList.add(SensorData.builder().metricValue((double) i).dataTimestamp(start.plusSeconds(i * 2L)).build());
+        }
+
+
+        MetricSummary summary = strategy.aggregateMetrics("heart-rate", dataList);
+
+
+        assertEquals(101L, summary.getCount());
+        assertEquals(0.0, summary.getMin());
+        assertEquals(100.0, summary.getMax());
+        assertEquals(50.0, summary.getAvg(), 1e-9);
+        assertNull(summary.getMedian());
+        assertEquals(50.0, summary.getPercentiles().get("p50"), 1e-9);
+        assertEquals(90.0, summary.getPercentiles().get("p90"), 1e-9);
+        assertEquals(99.0, summary.getPercentiles().get("p99"), 1e-9);
+        assertEquals(Math.sqrt(850.0), summary.getStddev(), 1e-9);
+        assertEquals(0.5, summary.getRateOfChange(), 1e-9);
+        assertTrue(strategy.requiresReadings());
+    }
+
+    @Test
+    void testValueColumnOmitsRate() {
+
+        ConfigurableAggregationStrategy strategy = new ConfigurableAggregationStrategy(
+                List.of("fuel-level"), List.of("count", "avg", "rate"));
+
+
+        MetricSummary summary = strategy.aggregateMetrics("fuel-level", new double[]{80.0, 70.0, 60.0}, 3);
+
+
+        assertEquals(3L, summary.getCount());
+        assertEquals(70.0, summary.getAvg());
+        assertNull(summary.getRateOfChange());
+        assertNull(summary.getMin());
+    }
+
+    @Test
+    void testStatsOnlyAggregatesUseRangeStatistics() {
+
+        ConfigurableAggregationStrategy strategy = new ConfigurableAggregationStrategy(
+                List.of("humidity"), List.of("count", "max"));
+
+
+        MetricSummary summary = strategy.aggregateMetrics("humidity",
+                new MetricStatsValue(4L, 10.0, 40.0, 25.0, 25.0));
+
+
+        assertFalse(strategy.requiresReadings());
+        assertEquals(4L, summary.getCount());
+        assertEquals(40.0, summary.getMax());
+        assertNull(summary.getMin());
+    }
+
+    @Test
+    void testRejectsUnsupportedAggregate() {
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new ConfigurableAggregationStrategy(List.of("heart-rate"), List.of("min", "mode")));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ConfigurableAggregationStrategy(List.of("heart-rate"), List.of()));
+    }
+
+    @Test
+    void testFactoryFallsBackToDefaultStrategy() {
+
+        AggregationConfig config = new AggregationConfig();
+        config.getStrategies().getMetrics().put("heart-rate", List.of("p90", "stddev"));
+        TemperatureAggregationStrategy temperature = new TemperatureAggregationStrategy();
+
+
+        AggregationStrategyFactory factory = new AggregationStrategyFactory(List.of(temperature), config);
+
+
+        assertSame(temperature, factory.getStrategy("Temperature"));
+        assertTrue(factory.getStrategy("HEART-RATE").requiresReadings());
+        AggregationStrategy fallback = factory.getStrategy("fuel-level");
+        assertNotNull(fallback);
+        assertFalse(fallback.requiresReadings());
+        MetricSummary summary = fallback.aggregateMetrics("fuel-level", new double[]{3.0, 1.0, 2.0}, 3);
+        assertEquals(2.0, summary.getMedian());
+        assertNull(summary.getCount());
+    }
+}
@@ -0,0 +1,270 @@
+package com.relay42.iot.stream.aggregation;
+
+import com.relay42.iot.stream.util.MedianCalculator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantileSketchTest {
+
+    @Test
+    void testExactMedianForSmallSeries() {
+
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.add(30.0);
+        sketch.add(10.0);
+        sketch.add(40.0);
+        sketch.add(20.0);
+
+
+        assertTrue(sketch.isExact());
+        assertEquals(25.0, sketch.median(), "Median should be the average of the two middle values");
+        assertEquals(10.0, sketch.quantile(0.0));
+        assertEquals(40.0, sketch.quantile(1.0));
+    }
+
+    @Test
+    void testEmptySketch() {
+
+        QuantileSketch sketch = new QuantileSketch();
+
+
+        assertEquals(0, sketch.count());
+        assertEquals(0.0, sketch.median());
+    }
+
+    @Test
+    void testNonFiniteValuesAreRejected() {
+
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < 200; i++) {
+            sketch.add(i);
+        }
+
+
+        assertThrows(IllegalArgumentException.class, () -> sketch.add(Double.POSITIVE_INFINITY));
+        assertThrows(IllegalArgumentException.class, () -> sketch.add(Double.NEGATIVE_INFINITY));
+        assertThrows(IllegalArgumentException.class, () -> sketch.add(Double.NaN));
+
+
+        assertEquals(200, sketch.count());
+        assertFalse(sketch.isExact());
+    }
+
+    @Test
+    void testApproximateQuantilesWithinRelativeAccuracy() {
+
+        Random random = new Random(42);
+        double[] values = new double[10_000];
+        QuantileSketch sketch = new QuantileSketch(0.01, 128);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextGaussian() * 5 + 20;
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+
+        assertFalse(sketch.isExact());
+        for (double q : new double[]{0.1, 0.5, 0.9, 0.99}) {
+            double expected = values[(int) (q * (values.length - 1))];
+            assertEquals(expected, sketch.quantile(q), Math.abs(expected) * 0.01 + 1e-9, "quantile " + q);
+        }
+    }
+
+    @Test
+    void testNegativeAndZeroValues() {
+
+        QuantileSketch sketch = new QuantileSketch(0.01, 0);
+        for (int i = -50; i <= 50; i++) {
+            sketch.add(i);
+        }
+
+
+        assertEquals(0.0, sketch.median(), 1e-9);
+        assertEquals(-50.0, sketch.quantile(0.0), 0.5);
+        assertEquals(50.0, sketch.quantile(1.0), 0.5);
+    }
+
+    @Test
+    void testRollupBucketMergesLikeBucketedSketch() {
+
+        Random random = new Random(7);
+        QuantileSketch direct = new QuantileSketch(QuantileSketch.DEFAULT_RELATIVE_ACCURACY, 0);
+        RollupBucket bucket = new RollupBucket();
+        for (int i = 0; i < 1000; i++) {
+            double value = i % 50 == 0 ? 0.0 : random.nextGaussian() * 40;
+            direct.add(value);
+            bucket.add(value);
+        }
+        RunningAggregate merged = new RunningAggregate();
+        merged.add(5.0);
+        direct.add(5.0);
+
+
+        merged.merge(bucket);
+
+
+        assertEquals(1001, merged.getCount());
+        for (double quantile : new double[]{0.0, 0.1, 0.5, 0.9, 1.0}) {
+            assertEquals(direct.quantile(quantile), merged.quantile(quantile));
+        }
+    }
+
+    @Test
+    void testMergeMatchesSingleSketch() {
+
+        QuantileSketch left = new QuantileSketch(0.01, 16);
+        QuantileSketch right = new QuantileSketch(0.01, 16);
+        QuantileSketch all = new QuantileSketch(0.01, 16);
+        for (int i = 1; i <= 1000; i++) {
+            (i % 2 == 0 ? left : right).add(i);
+            all.add(i);
+        }
+
+
+        left.merge(right);
+
+
+        assertEquals(all.count(), left.count());
+        assertEquals(all.median(), left.median(), 1e-9);
+        assertEquals(all.quantile(0.99), left.quantile(0.99), 1e-9);
+    }
+
+    @Test
+    void testMergeRejectsDifferentAccuracy() {
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new QuantileSketch(0.01, 16).merge(new QuantileSketch(0.02, 16)));
+    }
+
+    @Test
+    void testSerializationRoundTrip() {
+
+        QuantileSketch exact = new QuantileSketch();
+        QuantileSketch bucketed = new QuantileSketch(0.01, 16);
+        for (int i = -200; i <= 1000; i++) {
+            bucketed.add(i / 10.0);
+        }
+        exact.add(21.5);
+        exact.add(19.0);
+
+
+        QuantileSketch exactCopy = QuantileSketch.fromBytes(exact.toBytes());
+        QuantileSketch bucketedCopy = QuantileSketch.fromBytes(bucketed.toBytes());
+
+
+        assertTrue(exactCopy.isExact());
+        assertEquals(2, exactCopy.count());
+        assertEquals(20.25, exactCopy.median());
+        assertFalse(bucketedCopy.isExact());
+        assertEquals(bucketed.count(), bucketedCopy.count());
+        for (double q : new double[]{0.0, 0.1, 0.5, 0.9, 1.0}) {
+            assertEquals(bucketed.quantile(q), bucketedCopy.quantile(q), "quantile " + q);
+        }
+    }
+
+    @Test
+    void testSerializedBucketSketchesMergeAcrossBuckets() {
+
+        Random random = new Random(7);
+        QuantileSketch all = new QuantileSketch();
+        QuantileSketch merged = new QuantileSketch();
+        for (int bucket = 0; bucket < 24; bucket++) {
+            QuantileSketch hour = new QuantileSketch();
+            for (int i = 0; i < 500; i++) {
+                double value = 20 + random.nextGaussian() * 5 + bucket;
+                hour.add(value);
+                all.add(value);
+            }
+            merged.merge(QuantileSketch.fromBytes(hour.toBytes()));
+        }
+
+
+        assertEquals(all.count(), merged.count());
+        assertEquals(all.median(), merged.median(), 1e-9);
+        assertEquals(all.quantile(0.99), merged.quantile(0.99), 1e-9);
+    }
+
+    @Test
+    void testFromBytesRejectsCorruptInput() {
+
+        byte[] bytes = new QuantileSketch(0.01, 0).toBytes();
+
+
+        assertThrows(IllegalArgumentException.class, () -> QuantileSketch.fromBytes(new byte[]{42}));
+        assertThrows(IllegalArgumentException.class,
+                () -> QuantileSketch.fromBytes(Arrays.copyOf(bytes, bytes.length - 1)));
+    }
+
+    @Test
+    void testAccuracyVersusMemoryAgainstMedianCalculator() {
+
+        Random random = new Random(42);
+        double[] values = new double[200_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.exp(3 + random.nextGaussian());
+        }
+        double exactMedian = MedianCalculator.median(values);
+        int exactBytes = values.length * Double.BYTES;
+
+        int previousBytes = Integer.MAX_VALUE;
+        for (double accuracy : new double[]{0.005, 0.01, 0.02, 0.05}) {
+            QuantileSketch sketch = new QuantileSketch(accuracy, 0);
+            for (double value : values) {
+                sketch.add(value);
+            }
+            int sketchBytes = sketch.toBytes().length;
+
+
+            double error = Math.abs(sketch.median() - exactMedian) / exactMedian;
+            assertTrue(error <= accuracy, "relative error " + error + " at accuracy " + accuracy);
+            assertTrue(sketchBytes * 100 < exactBytes, sketchBytes + " bytes at accuracy " + accuracy);
+            assertTrue(sketchBytes < previousBytes, "looser accuracy should need less memory");
+            previousBytes = sketchBytes;
+        }
+    }
+
+    @Test
+    void testExactPrecisionMatchesMedianCalculator() {
+
+        Random random = new Random(3);
+        double[] values = new double[5_000];
+        QuantileSketch sketch = Precision.EXACT.newSketch();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextGaussian() * 5 + 20;
+            sketch.add(values[i]);
+        }
+
+
+        assertTrue(sketch.isExact());
+        assertEquals(MedianCalculator.median(values), sketch.median());
+    }
+
+    @Test
+    void testExactQuantilesMatchSortedInterpolation() {
+
+        Random random = new Random(11);
+        double[] values = new double[101];
+        QuantileSketch sketch = new QuantileSketch(QuantileSketch.DEFAULT_RELATIVE_ACCURACY, values.length);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(20) - 5.5;
+            sketch.add(values[i]);
+        }
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+
+        for (double quantile : new double[]{0.0, 0.013, 0.25, 0.5, 0.9, 0.999, 1.0}) {
+            double rank = quantile * (sorted.length - 1);
+            int lower = (int) Math.floor(rank);
+            int upper = (int) Math.ceil(rank);
+            double expected = sorted[lower] + (sorted[upper] - sorted[lower]) * (rank - lower);
+            assertEquals(expected, sketch.quantile(quantile), 1e-9, "quantile " + quantile);
+        }
+        assertEquals(values.length, sketch.count());
+        assertEquals(sketch.median(), sketch.copy().median());
+    }
+}
@@ -0,0 +1,191 @@
+package com.relay42.iot.stream.aggregation;
+
+import com.relay42.iot.stream.config.AggregationConfig;
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.repository.MetricStats;
+import com.relay42.iot.stream.repository.SensorDataBatchRepository;
+import com.relay42.iot.stream.repository.SensorDataPartitionRepository;
+import com.relay42.iot.stream.util.DoubleList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+class RollupStoreTest {
+
+    @Mock
+    private SensorDataBatchRepository batchRepository;
+
+    @Mock
+    private SensorDataPartitionRepository partitionRepository;
+
+    @Spy
+    private AggregationConfig config = new AggregationConfig();
+
+    @InjectMocks
+    private RollupStore store;
+
+    private final List<SensorData> readings = new ArrayList<>();
+    private final List<Duration> rawReads = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        config.getRollup().setMinuteRetention(Duration.ZERO);
+        config.getRollup().setHourRetention(Duration.ZERO);
+
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.now().minusDays(4);
+        for (LocalDateTime time = start; time.isBefore(start.plusDays(3)); time = time.plusSeconds(397)) {
+            readings.add(SensorData.builder().deviceId("device-1").metric("temperature")
+                    .metricValue(20 + random.nextGaussian() * 3).dataTimestamp(time).build());
+        }
+    }
+
+    @Test
+    void testRangeStatsMergeBucketsAndReadOnlySubMinuteEdges() {
+
+        store.record(readings);
+        LocalDateTime from = readings.get(10).getDataTimestamp().plusSeconds(13);
+        LocalDateTime to = readings.get(readings.size() - 10).getDataTimestamp().minusSeconds(7);
+
+
+        MetricStats stats = store.getStatsInRange("device-1", "temperature", from, to, rawReader());
+
+
+        assertMatchesReadings(stats, from, to);
+        assertTrue(rawReads.stream().allMatch(span -> span.compareTo(Duration.ofMinutes(1)) < 0));
+    }
+
+    @Test
+    void testRangeOlderThanMinuteRetentionReadsRawRowsForEdges() {
+
+        config.getRollup().setMinuteRetention(Duration.ofDays(1));
+        store.record(readings);
+        LocalDateTime from = readings.get(10).getDataTimestamp().plusSeconds(13);
+        LocalDateTime to = readings.get(readings.size() - 10).getDataTimestamp().minusSeconds(7);
+
+
+        MetricStats stats = store.getStatsInRange("device-1", "temperature", from, to, rawReader());
+
+
+        assertMatchesReadings(stats, from, to);
+        assertTrue(rawReads.stream().allMatch(span -> span.compareTo(Duration.ofHours(1)) < 0));
+    }
+
+    @Test
+    void testRebuildLoadsStoredReadings() {
+
+        doAnswer(invocation -> {
+            SensorDataBatchRepository.ValueConsumer consumer = invocation.getArgument(0);
+            readings.forEach(data -> consumer.accept(data.getDeviceId(), data.getMetric(), data.getDataTimestamp(), data.getMetricValue()));
+            return null;
+        }).when(batchRepository).scanValues(any());
+        LocalDateTime from = readings.get(0).getDataTimestamp().toLocalDate().atStartOfDay();
+        LocalDateTime to = from.plusDays(5).minusNanos(1);
+
+
+        store.rebuild();
+        MetricStats stats = store.getStatsInRange("device-1", "temperature", from, to, rawReader());
+
+
+        assertEquals(readings.size(), stats.getCount());
+    }
+
+    @Test
+    void testEmptyRange() {
+
+        store.record(readings);
+
+
+        MetricStats stats = store.getStatsInRange("device-1", "humidity",
+                LocalDateTime.now().minusDays(2), LocalDateTime.now(), rawReader());
+
+
+        assertEquals(0L, stats.getCount());
+        assertNull(stats.getMedian());
+    }
+
+    @Test
+    void testSeriesBeyondCapAreReadFromDatabase() {
+
+        config.getRollup().setMaxSeries(1);
+        store.record(readings);
+        store.record(readings.stream()
+                .map(data -> SensorData.builder().deviceId("device-2").metric("temperature")
+                        .metricValue(data.getMetricValue()).dataTimestamp(data.getDataTimestamp()).build())
+                .toList());
+        LocalDateTime from = readings.get(10).getDataTimestamp().plusSeconds(13);
+        LocalDateTime to = readings.get(readings.size() - 10).getDataTimestamp().minusSeconds(7);
+
+
+        MetricStats stats = store.getStatsInRange("device-2", "temperature", from, to, rawReader());
+
+
+        assertEquals(1, store.seriesCount());
+        assertMatchesReadings(stats, from, to);
+        assertEquals(List.of(Duration.between(from, to)), rawReads);
+    }
+
+    @Test
+    void testEvictionRemovesSeriesWithoutBuckets() {
+
+        config.getRollup().setMinuteRetention(Duration.ofHours(1));
+        config.getRollup().setHourRetention(Duration.ofHours(1));
+        config.getRollup().setDayRetention(Duration.ofHours(1));
+        store.record(readings);
+        int before = store.seriesCount();
+
+
+        store.evictExpired();
+
+
+        assertEquals(1, before);
+        assertEquals(0, store.seriesCount());
+        LocalDateTime from = readings.get(0).getDataTimestamp();
+        LocalDateTime to = readings.get(readings.size() - 1).getDataTimestamp();
+        assertMatchesReadings(store.getStatsInRange("device-1", "temperature", from, to, rawReader()), from, to);
+    }
+
+    private BiFunction<LocalDateTime, LocalDateTime, DoubleList> rawReader() {
+        return (from, to) -> {
+            rawReads.add(Duration.between(from, to));
+            DoubleList values = new DoubleList();
+            inRange(from, to).forEach(data -> values.add(data.getMetricValue()));
+            return values;
+        };
+    }
+
+    private List<SensorData> inRange(LocalDateTime from, LocalDateTime to) {
+        return readings.stream()
+                .filter(data -> !data.getDataTimestamp().isBefore(from) && !data.getDataTimestamp().isAfter(to))
+                .toList();
+    }
+
+    private void assertMatchesReadings(MetricStats stats, LocalDateTime from, LocalDateTime to) {
+        double[] expected = inRange(from, to).stream().mapToDouble(SensorData::getMetricValue).sorted().toArray();
+        double median = (expected[(expected.length - 1) / 2] + expected[expected.length / 2]) / 2;
+
+        assertEquals(expected.length, stats.getCount());
+        assertEquals(expected[0], stats.getMin());
+        assertEquals(expected[expected.length - 1], stats.getMax());
+        assertEquals(Arrays.stream(expected).average().orElseThrow(), stats.getAvg(), 1e-9);
+        assertEquals(median, stats.getMedian(), Math.abs(median) * 0.01);
+    }
+}
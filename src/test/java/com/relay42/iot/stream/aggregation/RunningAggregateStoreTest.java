@@ -0,0 +1,83 @@
+package com.relay42.iot.stream.aggregation;
+
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.model.MetricSummary;
+import com.relay42.iot.stream.repository.SensorDataBatchRepository;
+import com.relay42.iot.stream.repository.SensorDataPartitionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+class RunningAggregateStoreTest {
+
+    @Mock
+    private SensorDataBatchRepository batchRepository;
+
+    @Mock
+    private SensorDataPartitionRepository partitionRepository;
+
+    @InjectMocks
+    private RunningAggregateStore store;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testRecordUpdatesSummary() {
+
+        store.record(List.of(
+                SensorData.builder().deviceId("device-1").metric("temperature").metricValue(10.0).build(),
+                SensorData.builder().deviceId("device-1").metric("temperature").metricValue(20.0).build(),
+                SensorData.builder().deviceId("device-1").metric("humidity").metricValue(50.0).build()
+        ));
+
+
+        MetricSummary summary = store.getSummary("device-1", "temperature");
+
+
+        assertEquals(10.0, summary.getMin());
+        assertEquals(20.0, summary.getMax());
+        assertEquals(15.0, summary.getAvg());
+        assertEquals(15.0, summary.getMedian());
+    }
+
+    @Test
+    void testUnknownSeriesHasNoSummary() {
+
+        assertNull(store.getSummary("device-1", "temperature"));
+    }
+
+    @Test
+    void testRebuildReplacesAggregatesFromStorage() {
+
+        store.record("device-1", "temperature", 99.0);
+        doAnswer(invocation -> {
+            SensorDataBatchRepository.ValueConsumer consumer = invocation.getArgument(0);
+            consumer.accept("device-1", "temperature", LocalDateTime.now(), 25.5);
+            consumer.accept("device-1", "temperature", LocalDateTime.now(), 26.0);
+            return null;
+        }).when(batchRepository).scanValues(any());
+
+
+        store.rebuild();
+        MetricSummary summary = store.getSummary("device-1", "temperature");
+
+
+        assertEquals(25.5, summary.getMin());
+        assertEquals(26.0, summary.getMax());
+        assertEquals(25.75, summary.getAvg());
+        assertEquals(25.75, summary.getMedian());
+    }
+}
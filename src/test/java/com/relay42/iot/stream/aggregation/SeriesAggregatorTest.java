@@ -0,0 +1,48 @@
+package com.relay42.iot.stream.aggregation;
+
+import com.relay42.iot.stream.exception.BusinessException;
+import com.relay42.iot.stream.model.SeriesPoint;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SeriesAggregatorTest {
+
+    @Test
+    void testAggregatesIntoEpochAlignedBuckets() {
+
+        LocalDateTime start = LocalDateTime.of(2025, 4, 10, 8, 2);
+        SeriesAggregator aggregator = new SeriesAggregator(Duration.ofMinutes(5), List.of("count", "avg", "p95"));
+        for (int minute = 0; minute < 6; minute++) {
+            aggregator.add(start.plusMinutes(minute), minute);
+        }
+
+
+        List<SeriesPoint> points = aggregator.toPoints();
+
+
+        assertEquals(2, points.size());
+        assertEquals(LocalDateTime.of(2025, 4, 10, 8, 0), points.get(0).getTimestamp());
+        assertEquals(3L, points.get(0).getCount());
+        assertEquals(1.0, points.get(0).getAvg());
+        assertEquals(1.9, points.get(0).getPercentiles().get("p95"), 1e-9);
+        assertNull(points.get(0).getMin());
+        assertEquals(LocalDateTime.of(2025, 4, 10, 8, 5), points.get(1).getTimestamp());
+        assertEquals(4.0, points.get(1).getAvg());
+    }
+
+    @Test
+    void testParseAggregates() {
+
+        assertEquals(List.of("min", "p99.9", "median"), SeriesAggregator.parseAggregates("min, P99.9,median,min"));
+        assertEquals(0.999, SeriesAggregator.quantileOf("p99.9"), 1e-9);
+        assertThrows(BusinessException.class, () -> SeriesAggregator.parseAggregates("min,stddev"));
+        assertThrows(BusinessException.class, () -> SeriesAggregator.parseAggregates(" , "));
+    }
+}
@@ -0,0 +1,57 @@
+package com.relay42.iot.stream.aggregation;
+
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.model.MetricSummary;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TemperatureAggregationStrategyTest {
+
+    private final TemperatureAggregationStrategy strategy = new TemperatureAggregationStrategy();
+
+    @Test
+    void testAggregatesPrefixOfValueColumn() {
+
+        double[] values = {24.0, 19.5, 22.0, 21.0, 99.0, -40.0};
+
+
+        MetricSummary summary = strategy.aggregateMetrics("temperature", values, 4);
+
+
+        assertEquals(19.5, summary.getMin());
+        assertEquals(24.0, summary.getMax());
+        assertEquals(21.625, summary.getAvg());
+        assertEquals(21.5, summary.getMedian());
+    }
+
+    @Test
+    void testEntityListIsBridgedToValueColumn() {
+
+        List<SensorData> dataList = List.of(
+                SensorData.builder().metricValue(20.0).build(),
+                SensorData.builder().metricValue(23.0).build(),
+                SensorData.builder().metricValue(21.0).build());
+
+
+        MetricSummary summary = strategy.aggregateMetrics("temperature", dataList);
+
+
+        assertEquals(20.0, summary.getMin());
+        assertEquals(23.0, summary.getMax());
+        assertEquals(64.0 / 3, summary.getAvg(), 1e-9);
+        assertEquals(21.0, summary.getMedian());
+    }
+
+    @Test
+    void testEmptyColumn() {
+
+        MetricSummary summary = strategy.aggregateMetrics("temperature", new double[0], 0);
+
+
+        assertEquals(0.0, summary.getMin());
+        assertEquals(0.0, summary.getMedian());
+    }
+}
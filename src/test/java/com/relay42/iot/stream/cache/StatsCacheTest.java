@@ -0,0 +1,142 @@
+package com.relay42.iot.stream.cache;
+
+import com.relay42.iot.stream.config.StatsCacheConfig;
+import com.relay42.iot.stream.entity.SensorData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class StatsCacheTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2024, 1, 1, 10, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2024, 1, 1, 11, 0, 0);
+
+    private final StatsCacheConfig config = new StatsCacheConfig();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private StatsCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new StatsCache(config, meterRegistry);
+    }
+
+    @Test
+    void testRepeatedQueryIsServedFromCache() {
+        String first = load("device-1", "temperature", FROM, TO);
+        String second = load("device-1", "temperature", FROM, TO);
+
+        assertEquals("device-1/temperature#1", first);
+        assertEquals(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "sensor-stats").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "sensor-stats").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    void testExactRangeIsLoadedByDefault() {
+        List<LocalDateTime> ranges = new ArrayList<>();
+
+        cache.get("device-1", "temperature", "range", FROM.plusSeconds(5), TO.plusSeconds(5), (from, to) -> {
+            ranges.add(from);
+            ranges.add(to);
+            return "result";
+        });
+        String polled = load("device-1", "temperature", FROM.plusSeconds(20), TO.plusSeconds(20));
+
+        assertEquals(List.of(FROM.plusSeconds(5), TO.plusSeconds(5)), ranges);
+        assertEquals("device-1/temperature#1", polled);
+    }
+
+    @Test
+    void testMovingRangeWithinGranularitySharesEntry() {
+        config.setRangeGranularity(Duration.ofMinutes(1));
+        List<LocalDateTime> ranges = new ArrayList<>();
+
+        cache.get("device-1", "temperature", "range", FROM.plusSeconds(5), TO.plusSeconds(5), (from, to) -> {
+            ranges.add(from);
+            ranges.add(to);
+            return "result";
+        });
+        String polled = load("device-1", "temperature", FROM.plusSeconds(20), TO.plusSeconds(20));
+
+        assertEquals(List.of(FROM, TO.plusMinutes(1).minusNanos(1000)), ranges);
+        assertEquals("result", polled);
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    void testWriteInvalidatesOnlyAffectedSeries() {
+        load("device-1", "temperature", FROM, TO);
+        load("device-2", "temperature", FROM, TO);
+
+        cache.invalidate(List.of(reading("device-1", "temperature")));
+        String reloaded = load("device-1", "temperature", FROM, TO);
+        String untouched = load("device-2", "temperature", FROM, TO);
+
+        assertEquals("device-1/temperature#3", reloaded);
+        assertEquals("device-2/temperature#2", untouched);
+        assertEquals(3, loads.get());
+        assertEquals(1.0, meterRegistry.get("cache.invalidations").counter().count());
+    }
+
+    @Test
+    void testWriteBeforeFirstReadStillInvalidatesLaterEntries() {
+        cache.invalidate(List.of(reading("device-1", "temperature")));
+        load("device-1", "temperature", FROM, TO);
+
+        cache.invalidate(List.of(reading("device-1", "temperature")));
+        String reloaded = load("device-1", "temperature", FROM, TO);
+
+        assertEquals("device-1/temperature#2", reloaded);
+        assertEquals(1.0, meterRegistry.get("cache.invalidations").counter().count());
+    }
+
+    @Test
+    void testNullResultIsCached() {
+        String first = cache.get("device-1", "temperature", "range", FROM, TO, (from, to) -> {
+            loads.incrementAndGet();
+            return null;
+        });
+        String second = cache.get("device-1", "temperature", "range", FROM, TO, (from, to) -> {
+            loads.incrementAndGet();
+            return null;
+        });
+
+        assertNull(first);
+        assertNull(second);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testDisabledCacheAlwaysLoads() {
+        config.setEnabled(false);
+
+        load("device-1", "temperature", FROM.plusSeconds(5), TO);
+        load("device-1", "temperature", FROM.plusSeconds(5), TO);
+
+        assertEquals(2, loads.get());
+    }
+
+    private String load(String deviceId, String metric, LocalDateTime from, LocalDateTime to) {
+        return cache.get(deviceId, metric, "range", from, to,
+                (rangeFrom, rangeTo) -> deviceId + "/" + metric + "#" + loads.incrementAndGet());
+    }
+
+    private static SensorData reading(String deviceId, String metric) {
+        return SensorData.builder().deviceId(deviceId).metric(metric).metricValue(21.5)
+                .dataTimestamp(FROM.plusMinutes(5)).build();
+    }
+}
@@ -1,24 +1,54 @@
 package com.relay42.iot.stream.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.relay42.iot.stream.aggregation.AggregationMetrics;
 import com.relay42.iot.stream.aggregation.AggregationStrategy;
 import com.relay42.iot.stream.aggregation.AggregationStrategyFactory;
+import com.relay42.iot.stream.aggregation.ConfigurableAggregationStrategy;
+import com.relay42.iot.stream.cache.StatsCache;
+import com.relay42.iot.stream.config.AggregationConfig;
+import com.relay42.iot.stream.config.IngestConfig;
+import com.relay42.iot.stream.config.StatsCacheConfig;
 import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.exception.BusinessException;
+import com.relay42.iot.stream.exception.RequestTooLargeException;
+import com.relay42.iot.stream.ingest.IngestMetrics;
+import com.relay42.iot.stream.ingest.WriteBehindBuffer;
 import com.relay42.iot.stream.mapper.SensorDataMapper;
+import com.relay42.iot.stream.model.BatchIngestResult;
+import com.relay42.iot.stream.model.BulkStatsRequest;
 import com.relay42.iot.stream.model.MetricSummary;
 import com.relay42.iot.stream.model.SensorRequest;
 import com.relay42.iot.stream.model.SensorResponse;
+import com.relay42.iot.stream.model.SeriesPoint;
+import com.relay42.iot.stream.repository.MetricStats;
+import com.relay42.iot.stream.repository.MetricStatsValue;
 import com.relay42.iot.stream.service.SensorDataService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.unit.DataSize;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.function.ObjDoubleConsumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 class SensorDataControllerV1Test {
@@ -35,6 +65,33 @@ class SensorDataControllerV1Test {
     @Mock
     private AggregationStrategy aggregationStrategy;
 
+    @Mock
+    private Validator validator;
+
+    @Spy
+    private IngestConfig ingestConfig = new IngestConfig();
+
+    @Mock
+    private WriteBehindBuffer writeBehindBuffer;
+
+    @Spy
+    private AggregationConfig aggregationConfig = new AggregationConfig();
+
+    @Spy
+    private StatsCache statsCache = new StatsCache(disabledStatsCache(), new SimpleMeterRegistry());
+
+    @Spy
+    private IngestMetrics ingestMetrics = new IngestMetrics(new IngestConfig(), new SimpleMeterRegistry());
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private AggregationMetrics aggregationMetrics = new AggregationMetrics(meterRegistry,
+            new AggregationStrategyFactory(List.of(), new AggregationConfig()));
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
     @InjectMocks
     private SensorDataControllerV1 controller;
 
@@ -43,6 +100,19 @@ class SensorDataControllerV1Test {
         MockitoAnnotations.openMocks(this);
     }
 
+    private static MockHttpServletRequest jsonRequest(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/sensors/data/batch");
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static StatsCacheConfig disabledStatsCache() {
+        StatsCacheConfig config = new StatsCacheConfig();
+        config.setEnabled(false);
+        return config;
+    }
+
     @Test
     void testIngestSensorData() {
 
@@ -70,15 +140,41 @@ class SensorDataControllerV1Test {
         verify(service, times(1)).saveSensorData(sensorData);
     }
 
+    @Test
+    void testIngestSensorDataWriteBehind() {
+
+        SensorRequest request = SensorRequest.builder()
+                .deviceId("device-1")
+                .metric("temperature")
+                .metricValue(25.5)
+                .dataTimestamp(LocalDateTime.now())
+                .build();
+
+        SensorData sensorData = SensorData.builder()
+                .deviceId("device-1")
+                .metric("temperature")
+                .metricValue(25.5)
+                .dataTimestamp(request.getDataTimestamp())
+                .build();
+
+        when(mapper.toEntity(request)).thenReturn(sensorData);
+        when(writeBehindBuffer.isEnabled()).thenReturn(true);
+
+
+        ResponseEntity<Void> response = controller.ingestSensorData(request);
+
+
+        assertEquals(202, response.getStatusCode().value());
+        verify(writeBehindBuffer, times(1)).submit(sensorData);
+        verify(service, never()).saveSensorData(any());
+    }
+
     @Test
     void testGetSensorDataStats() {
 
         String deviceId = "device-1";
         String metric = "temperature";
-        List<SensorData> mockData = List.of(
-                SensorData.builder().deviceId(deviceId).metric(metric).metricValue(25.5).build(),
-                SensorData.builder().deviceId(deviceId).metric(metric).metricValue(26.0).build()
-        );
+        MetricStats stats = new MetricStatsValue(2L, 25.5, 26.0, 25.75, 25.75);
         MetricSummary result = MetricSummary.builder()
                 .metric(metric)
                 .min(25.5)
@@ -87,30 +183,212 @@ class SensorDataControllerV1Test {
                 .median(25.75)
                 .build();
 
-        when(service.getSensorData(deviceId, metric)).thenReturn(mockData);
         when(strategyFactory.getStrategy(metric)).thenReturn(aggregationStrategy);
-        when(aggregationStrategy.aggregateMetrics(metric, mockData)).thenReturn(result);
+        when(service.getSensorDataStats(deviceId, metric)).thenReturn(stats);
+        when(aggregationStrategy.aggregateMetrics(metric, stats)).thenReturn(result);
 
 
-        ResponseEntity<SensorResponse<MetricSummary>> response = controller.getSensorDataStats(deviceId, metric);
+        ResponseEntity<SensorResponse<MetricSummary>> response = controller.getSensorDataStats(deviceId, metric, null);
 
 
         assertEquals(200, response.getStatusCode().value());
         assertEquals(result, response.getBody().getData());
-        verify(service, times(1)).getSensorData(deviceId, metric);
+        verify(service, times(1)).getSensorDataStats(deviceId, metric);
+        verify(service, never()).getSensorData(deviceId, metric);
+    }
+
+    @Test
+    void testGetSensorDataStatsAppliesConfiguredStrategy() {
+
+        String metric = "fuel-level";
+        when(strategyFactory.getStrategy(metric)).thenReturn(new ConfigurableAggregationStrategy(List.of(metric), List.of("count", "max")));
+        when(service.getSensorDataStats("device-1", metric)).thenReturn(new MetricStatsValue(3L, 10.0, 30.0, 20.0, 20.0));
+
+
+        MetricSummary summary = controller.getSensorDataStats("device-1", metric, null).getBody().getData();
+
+
+        assertEquals(3L, summary.getCount());
+        assertEquals(30.0, summary.getMax());
+        assertNull(summary.getMin());
+        assertNull(summary.getMedian());
+    }
+
+    @Test
+    void testGetSensorDataStatsScansReadingsWhenStrategyNeedsThem() {
+
+        String metric = "heart-rate";
+        LocalDateTime timestamp = LocalDateTime.of(2025, 4, 10, 8, 0);
+        when(strategyFactory.getStrategy(metric)).thenReturn(new ConfigurableAggregationStrategy(List.of(metric), List.of("max", "rate")));
+        doAnswer(invocation -> {
+            ObjDoubleConsumer<LocalDateTime> consumer = invocation.getArgument(2);
+            consumer.accept(timestamp, 60.0);
+            consumer.accept(timestamp.plusSeconds(30), 90.0);
+            return null;
+        }).when(service).scanReadings(eq("device-1"), eq(metric), any());
+
+
+        MetricSummary summary = controller.getSensorDataStats("device-1", metric, null).getBody().getData();
+
+
+        assertEquals(90.0, summary.getMax());
+        assertEquals(1.0, summary.getRateOfChange());
+        verify(service, never()).getSensorDataStats("device-1", metric);
+    }
+
+    @Test
+    void testGetSensorDataStatsNoContent() {
+
+        when(strategyFactory.getStrategy("temperature")).thenReturn(aggregationStrategy);
+        when(service.getSensorDataStats("device-1", "temperature")).thenReturn(MetricStatsValue.empty());
+
+
+        ResponseEntity<SensorResponse<MetricSummary>> response = controller.getSensorDataStats("device-1", "temperature", null);
+
+
+        assertEquals(204, response.getStatusCode().value());
+    }
+
+    @Test
+    void testGetSensorDataStatsByTimeRangeWithoutData() {
+
+        String deviceId = "device-1";
+        String metric = "temperature";
+        LocalDateTime from = LocalDateTime.now().minusDays(1);
+        LocalDateTime to = LocalDateTime.now();
+        when(strategyFactory.getStrategy(metric)).thenReturn(aggregationStrategy);
+        when(service.getStatsInRange(deviceId, metric, from, to)).thenReturn(MetricStatsValue.empty());
+
+
+        ResponseEntity<SensorResponse<MetricSummary>> response = controller.getSensorDataStatsByTimeRange(deviceId, metric, from, to, null);
+
+
+        assertEquals(200, response.getStatusCode().value());
+        assertNull(response.getBody().getData());
+        verify(aggregationStrategy, never()).aggregateMetrics(eq(metric), any(MetricStats.class));
+    }
+
+    @Test
+    void testGetSensorDataStatsByTimeRangeStreamsReadingsThroughAccumulator() {
+
+        String deviceId = "device-1";
+        String metric = "heart-rate";
+        LocalDateTime from = LocalDateTime.of(2025, 4, 10, 8, 0);
+        LocalDateTime to = from.plusMinutes(1);
+        AggregationStrategy strategy = new ConfigurableAggregationStrategy(List.of(metric), List.of("count", "max", "p90", "rate"));
+        when(strategyFactory.getStrategy(metric)).thenReturn(strategy);
+        doAnswer(invocation -> {
+            ObjDoubleConsumer<LocalDateTime> consumer = invocation.getArgument(4);
+            consumer.accept(from, 60.0);
+            consumer.accept(from.plusSeconds(30), 90.0);
+            return null;
+        }).when(service).scanReadingsInRange(eq(deviceId), eq(metric), eq(from), eq(to), any());
+
+
+        ResponseEntity<SensorResponse<MetricSummary>> response = controller.getSensorDataStatsByTimeRange(deviceId, metric, from, to, null);
+
+
+        MetricSummary summary = response.getBody().getData();
+        assertEquals(2L, summary.getCount());
+        assertEquals(90.0, summary.getMax());
+        assertEquals(1.0, summary.getRateOfChange());
+        assertEquals(87.0, summary.getPercentiles().get("p90"), 1e-9);
+        verify(service, never()).getStatsInRange(deviceId, metric, from, to);
+        assertEquals(1, meterRegistry.get("aggregation.duration").tag("source", "accumulator")
+                .tag("strategy", "configurable").timer().count());
+        assertEquals(2.0, meterRegistry.get("aggregation.rows").tag("source", "accumulator").summary().totalAmount());
+    }
+
+    @Test
+    void testIngestSensorDataBatch() throws Exception {
+
+        SensorRequest request = SensorRequest.builder()
+                .deviceId("device-1")
+                .metric("temperature")
+                .metricValue(25.5)
+                .dataTimestamp(LocalDateTime.of(2025, 1, 10, 12, 0))
+                .build();
+
+        SensorData sensorData = SensorData.builder()
+                .deviceId("device-1")
+                .metric("temperature")
+                .metricValue(25.5)
+                .dataTimestamp(request.getDataTimestamp())
+                .build();
+
+        when(mapper.toEntity(any(SensorRequest.class))).thenReturn(sensorData);
+        when(service.saveSensorDataBatch(List.of(sensorData))).thenReturn(1);
+
+
+        ResponseEntity<SensorResponse<BatchIngestResult>> response = controller.ingestSensorDataBatch(
+                jsonRequest(objectMapper.writeValueAsString(List.of(request))));
+
+
+        assertEquals(201, response.getStatusCode().value());
+        assertEquals(1, response.getBody().getData().getAccepted());
+        assertEquals(0, response.getBody().getData().getRejected());
+        verify(service, times(1)).saveSensorDataBatch(List.of(sensorData));
+    }
+
+    @Test
+    void testIngestSensorDataBatchTooLarge() {
+
+        ingestConfig.getBatch().setMaxSize(1);
+        MockHttpServletRequest request = jsonRequest("[{\"deviceId\":\"device-1\"},{\"deviceId\":\"device-2\"}]");
+
+
+        assertThrows(BusinessException.class, () -> controller.ingestSensorDataBatch(request));
+
+
+        verify(service, never()).saveSensorDataBatch(anyList());
+    }
+
+    @Test
+    void testIngestSensorDataBatchStopsParsingAfterMaxSize() {
+
+        ingestConfig.getBatch().setMaxSize(2);
+        MockHttpServletRequest request = jsonRequest("[{\"deviceId\":\"device-1\"},{\"deviceId\":\"device-2\"},"
+                + "{\"deviceId\":\"device-3\"}, this is never parsed");
+
+
+        BusinessException e = assertThrows(BusinessException.class, () -> controller.ingestSensorDataBatch(request));
+
+
+        assertEquals("Batch size exceeds the maximum of 2 readings", e.getMessage());
+        verify(service, never()).saveSensorDataBatch(anyList());
+    }
+
+    @Test
+    void testIngestSensorDataBatchRefusesOversizedBody() {
+
+        ingestConfig.getBatch().setMaxRequestSize(DataSize.ofBytes(16));
+        MockHttpServletRequest declared = jsonRequest("[{\"deviceId\":\"device-1\"}]");
+        MockHttpServletRequest chunked = new MockHttpServletRequest("POST", "/api/v1/sensors/data/batch") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        chunked.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        chunked.setContent("{\"deviceId\":\"device-1\"}\n{\"deviceId\":\"device-2\"}\n".getBytes(StandardCharsets.UTF_8));
+
+
+        assertThrows(RequestTooLargeException.class, () -> controller.ingestSensorDataBatch(declared));
+        assertThrows(RequestTooLargeException.class, () -> controller.ingestSensorDataNdjson(chunked));
+
+
+        verify(service, never()).saveSensorDataBatch(anyList());
     }
 
     @Test
-    void testGetSensorDataStatsByTimeRange() {
+    void testGetSensorDataStatsByTimeRangePushedDown() {
 
         String deviceId = "device-1";
         String metric = "temperature";
         LocalDateTime from = LocalDateTime.now().minusDays(1);
         LocalDateTime to = LocalDateTime.now();
-        List<SensorData> mockData = List.of(
-                SensorData.builder().deviceId(deviceId).metric(metric).metricValue(25.5).dataTimestamp(from.plusHours(1)).build(),
-                SensorData.builder().deviceId(deviceId).metric(metric).metricValue(26.0).dataTimestamp(from.plusHours(2)).build()
-        );
+        MetricStats stats = mock(MetricStats.class);
+        when(stats.getCount()).thenReturn(2L);
         MetricSummary result = MetricSummary.builder()
                 .metric(metric)
                 .min(25.5)
@@ -119,16 +397,132 @@ class SensorDataControllerV1Test {
                 .median(25.75)
                 .build();
 
-        when(service.getSensorData(deviceId, metric)).thenReturn(mockData);
+        when(service.getStatsInRange(deviceId, metric, from, to)).thenReturn(stats);
         when(strategyFactory.getStrategy(metric)).thenReturn(aggregationStrategy);
-        when(aggregationStrategy.aggregateMetrics(metric, mockData)).thenReturn(result);
+        when(aggregationStrategy.aggregateMetrics(metric, stats)).thenReturn(result);
 
 
-        ResponseEntity<SensorResponse<MetricSummary>> response = controller.getSensorDataStatsByTimeRange(deviceId, metric, from, to);
+        ResponseEntity<SensorResponse<MetricSummary>> response = controller.getSensorDataStatsByTimeRange(deviceId, metric, from, to, null);
 
 
         assertEquals(200, response.getStatusCode().value());
         assertEquals(result, response.getBody().getData());
-        verify(service, times(1)).getSensorData(deviceId, metric);
+        verify(service, never()).getValuesInRange(deviceId, metric, from, to);
+    }
+
+    @Test
+    void testGetSensorDataStatsByTimeRangeExactPrecision() {
+
+        String deviceId = "device-1";
+        String metric = "temperature";
+        LocalDateTime from = LocalDateTime.now().minusDays(1);
+        LocalDateTime to = LocalDateTime.now();
+        MetricStatsValue stats = new MetricStatsValue(3L, 10.0, 30.0, 20.0, 20.0);
+        MetricSummary result = MetricSummary.builder().metric(metric).median(20.0).build();
+        when(service.getExactStatsInRange(deviceId, metric, from, to)).thenReturn(stats);
+        when(strategyFactory.getStrategy(metric)).thenReturn(aggregationStrategy);
+        when(aggregationStrategy.aggregateMetrics(metric, stats)).thenReturn(result);
+
+
+        ResponseEntity<SensorResponse<MetricSummary>> response = controller.getSensorDataStatsByTimeRange(deviceId, metric, from, to, "EXACT");
+
+
+        assertEquals(result, response.getBody().getData());
+        verify(service, never()).getStatsInRange(deviceId, metric, from, to);
+    }
+
+    @Test
+    void testGetSensorDataStatsExactPrecision() {
+
+        MetricStats stats = new MetricStatsValue(1L, 21.0, 21.0, 21.0, 21.0);
+        MetricSummary result = MetricSummary.builder().metric("temperature").median(21.0).build();
+        when(strategyFactory.getStrategy("temperature")).thenReturn(aggregationStrategy);
+        when(service.getExactSensorDataStats("device-1", "temperature")).thenReturn(stats);
+        when(aggregationStrategy.aggregateMetrics("temperature", stats)).thenReturn(result);
+
+
+        ResponseEntity<SensorResponse<MetricSummary>> response = controller.getSensorDataStats("device-1", "temperature", "exact");
+
+
+        assertEquals(result, response.getBody().getData());
+        verify(service, never()).getSensorDataStats("device-1", "temperature");
+    }
+
+    @Test
+    void testGetSensorDataStatsRejectsUnknownPrecision() {
+
+        assertThrows(BusinessException.class,
+                () -> controller.getSensorDataStats("device-1", "temperature", "fuzzy"));
+    }
+
+    @Test
+    void testGetSensorDataSeries() {
+
+        LocalDateTime from = LocalDateTime.of(2025, 4, 10, 8, 0);
+        LocalDateTime to = from.plusHours(1);
+        List<SeriesPoint> points = List.of(SeriesPoint.builder().timestamp(from).min(20.0).build());
+        when(service.getSeries("device-1", "temperature", from, to, Duration.ofMinutes(5), List.of("min", "p95")))
+                .thenReturn(points);
+
+
+        ResponseEntity<SensorResponse<List<SeriesPoint>>> response = controller.getSensorDataSeries(
+                "device-1", "temperature", from, to, "5m", "min,p95", null, null);
+
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(points, response.getBody().getData());
+        assertEquals(1, meterRegistry.get("aggregation.duration").tag("source", "series").timer().count());
+    }
+
+    @Test
+    void testGetSensorDataSeriesRejectsInvalidParameters() {
+
+        LocalDateTime from = LocalDateTime.of(2025, 4, 10, 8, 0);
+        LocalDateTime to = from.plusDays(365);
+
+
+        assertThrows(BusinessException.class, () -> controller.getSensorDataSeries(
+                "device-1", "temperature", from, to, "1s", "min", null, null));
+        assertThrows(BusinessException.class, () -> controller.getSensorDataSeries(
+                "device-1", "temperature", from, to, "1d", "stddev", null, null));
+        assertThrows(BusinessException.class, () -> controller.getSensorDataSeries(
+                "device-1", "temperature", from, to, "1d", "min", "average", null));
+
+
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void testGetBulkSensorDataStats() {
+
+        BulkStatsRequest request = BulkStatsRequest.builder().deviceIds(List.of("device-1", "device-2")).build();
+        Map<String, Map<String, MetricSummary>> result = Map.of("device-1",
+                Map.of("temperature", MetricSummary.builder().metric("temperature").min(20.0).build()));
+        when(service.getBulkStats(request)).thenReturn(result);
+
+
+        ResponseEntity<SensorResponse<Map<String, Map<String, MetricSummary>>>> response = controller.getBulkSensorDataStats(request);
+
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(result, response.getBody().getData());
+        assertEquals(1, meterRegistry.get("aggregation.duration").tag("source", "bulk").tag("strategy", "mixed").timer().count());
+    }
+
+    @Test
+    void testGetBulkSensorDataStatsRejectsInvalidRequests() {
+
+        aggregationConfig.getBulk().setMaxDevices(1);
+
+
+        assertThrows(BusinessException.class, () -> controller.getBulkSensorDataStats(
+                BulkStatsRequest.builder().deviceType(" ").build()));
+        assertThrows(BusinessException.class, () -> controller.getBulkSensorDataStats(
+                BulkStatsRequest.builder().deviceIds(List.of("device-1", "device-2")).build()));
+        assertThrows(BusinessException.class, () -> controller.getBulkSensorDataStats(
+                BulkStatsRequest.builder().deviceType("thermostat").from(LocalDateTime.now()).build()));
+
+
+        verifyNoInteractions(service);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,83 @@
+package com.relay42.iot.stream.ingest;
+
+import com.relay42.iot.stream.config.IngestConfig;
+import com.relay42.iot.stream.entity.SensorData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IngestMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private IngestMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        IngestConfig ingestConfig = new IngestConfig();
+        ingestConfig.getLogging().setSampleEvery(2);
+        ingestConfig.getMetrics().setMaxDeviceTypes(2);
+        metrics = new IngestMetrics(ingestConfig, meterRegistry);
+    }
+
+    private static SensorData reading(String deviceType) {
+        return SensorData.builder().deviceId("device-1").metric("temperature").metricValue(20.0)
+                .deviceType(deviceType).build();
+    }
+
+    @Test
+    void testSingleIngestIsCountedAndTimedPerDeviceType() {
+
+        long start = System.nanoTime();
+
+
+        metrics.recordSingle(reading("thermostat"), start);
+        metrics.recordSingle(reading("thermostat"), start);
+        metrics.recordSingle(reading(null), start);
+
+
+        assertEquals(2, meterRegistry.get("ingest.requests")
+                .tags("mode", "single", "device_type", "thermostat").timer().count());
+        assertEquals(2.0, meterRegistry.get("ingest.readings").tag("device_type", "thermostat").counter().count());
+        assertEquals(1.0, meterRegistry.get("ingest.readings").tag("device_type", "none").counter().count());
+    }
+
+    @Test
+    void testBatchIngestCountsAcceptedAndRejectedReadings() {
+
+        long start = System.nanoTime();
+
+
+        metrics.recordBatch(List.of(reading("thermostat"), reading("thermostat")), 2, start);
+        metrics.recordBatch(List.of(reading("thermostat"), reading("hygrometer")), 0, start);
+
+
+        assertEquals(1, meterRegistry.get("ingest.requests")
+                .tags("mode", "batch", "device_type", "thermostat").timer().count());
+        assertEquals(1, meterRegistry.get("ingest.requests")
+                .tags("mode", "batch", "device_type", "mixed").timer().count());
+        assertEquals(3.0, meterRegistry.get("ingest.readings").tag("device_type", "thermostat").counter().count());
+        assertEquals(2.0, meterRegistry.get("ingest.readings.rejected").counter().count());
+    }
+
+    @Test
+    void testDeviceTypesBeyondLimitAreReportedAsOther() {
+
+        long start = System.nanoTime();
+
+
+        metrics.recordSingle(reading("thermostat"), start);
+        metrics.recordSingle(reading("hygrometer"), start);
+        metrics.recordSingle(reading("barometer"), start);
+        metrics.recordSingle(reading("anemometer"), start);
+
+
+        assertEquals(2.0, meterRegistry.get("ingest.readings").tag("device_type", "other").counter().count());
+        assertNull(meterRegistry.find("ingest.readings").tag("device_type", "barometer").counter());
+    }
+}
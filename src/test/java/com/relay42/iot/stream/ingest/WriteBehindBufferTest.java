@@ -0,0 +1,231 @@
+package com.relay42.iot.stream.ingest;
+
+import com.relay42.iot.stream.config.IngestConfig;
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.exception.IngestRejectedException;
+import com.relay42.iot.stream.service.SensorDataService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class WriteBehindBufferTest {
+
+    private SensorDataService service;
+    private SimpleMeterRegistry meterRegistry;
+    private IngestConfig ingestConfig;
+    private WriteBehindBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        service = mock(SensorDataService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        ingestConfig = new IngestConfig();
+        ingestConfig.getWriteBehind().setEnabled(true);
+        ingestConfig.getWriteBehind().setCapacity(2);
+        ingestConfig.getWriteBehind().setFlushBatchSize(2);
+        ingestConfig.getWriteBehind().setFlushIntervalMs(50);
+        ingestConfig.getWriteBehind().setFlusherThreads(1);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (buffer != null) {
+            buffer.stop();
+        }
+    }
+
+    @Test
+    void testSubmittedReadingsAreFlushedInBatches() throws InterruptedException {
+
+        CountDownLatch flushed = new CountDownLatch(2);
+        doAnswer(invocation -> {
+            List<?> batch = invocation.getArgument(0);
+            batch.forEach(item -> flushed.countDown());
+            return batch.size();
+        }).when(service).saveSensorDataBatch(anyList());
+
+        buffer = new WriteBehindBuffer(ingestConfig, service, meterRegistry);
+        buffer.start();
+
+
+        buffer.submit(reading(25.5));
+        buffer.submit(reading(26.0));
+
+
+        assertTrue(flushed.await(5, TimeUnit.SECONDS), "Buffered readings should be flushed");
+        verify(service, atLeastOnce()).saveSensorDataBatch(anyList());
+        verify(service, never()).saveSensorData(any());
+    }
+
+    @Test
+    void testSubmitRejectsWhenBufferIsFull() throws InterruptedException {
+
+        CountDownLatch blockFlush = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            blockFlush.await();
+            return 0;
+        }).when(service).saveSensorDataBatch(anyList());
+        ingestConfig.getWriteBehind().setRejectStatus(429);
+
+        buffer = new WriteBehindBuffer(ingestConfig, service, meterRegistry);
+        buffer.start();
+
+
+        IngestRejectedException rejected = null;
+        for (int i = 0; i < 10 && rejected == null; i++) {
+            try {
+                buffer.submit(reading(i));
+            } catch (IngestRejectedException e) {
+                rejected = e;
+            }
+        }
+        blockFlush.countDown();
+
+
+        assertNotNull(rejected, "Submitting past capacity should be rejected");
+        assertEquals(429, rejected.getStatus());
+        assertTrue(meterRegistry.get("ingest.buffer.dropped").tag("reason", "full").counter().count() >= 1);
+    }
+
+    @Test
+    void testSubmitAfterStopIsRejectedAsShutdown() throws InterruptedException {
+
+        buffer = new WriteBehindBuffer(ingestConfig, service, meterRegistry);
+        buffer.start();
+        buffer.stop();
+
+
+        IngestRejectedException rejected = assertThrows(IngestRejectedException.class, () -> buffer.submit(reading(25.5)));
+
+
+        assertEquals("Ingest buffer is shutting down", rejected.getMessage());
+        assertEquals(1, meterRegistry.get("ingest.buffer.dropped").tag("reason", "shutdown").counter().count());
+        assertEquals(0, meterRegistry.get("ingest.buffer.dropped").tag("reason", "full").counter().count());
+    }
+
+    @Test
+    void testEveryReadingAcceptedDuringStopIsFlushed() throws Exception {
+
+        ingestConfig.getWriteBehind().setCapacity(100_000);
+        ingestConfig.getWriteBehind().setFlushBatchSize(50);
+        AtomicInteger saved = new AtomicInteger();
+        doAnswer(invocation -> {
+            List<?> batch = invocation.getArgument(0);
+            saved.addAndGet(batch.size());
+            return batch.size();
+        }).when(service).saveSensorDataBatch(anyList());
+        buffer = new WriteBehindBuffer(ingestConfig, service, meterRegistry);
+        buffer.start();
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService submitters = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            submitters.submit(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    try {
+                        buffer.submit(reading(i));
+                        accepted.incrementAndGet();
+                    } catch (IngestRejectedException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+            });
+        }
+
+
+        Thread.sleep(5);
+        buffer.stop();
+        submitters.shutdown();
+        assertTrue(submitters.awaitTermination(10, TimeUnit.SECONDS));
+
+
+        assertEquals(accepted.get(), saved.get(), "Every accepted reading should be flushed");
+        assertEquals(rejected.get(), meterRegistry.get("ingest.buffer.dropped").tag("reason", "shutdown").counter().count());
+        assertEquals(0, buffer.depth());
+    }
+
+    @Test
+    void testTransientFlushFailureIsRetried() throws InterruptedException {
+
+        ingestConfig.getWriteBehind().setFlushRetryBackoffMs(1);
+        CountDownLatch flushed = new CountDownLatch(1);
+        doThrow(new QueryTimeoutException("Database unavailable"))
+                .doThrow(new CannotGetJdbcConnectionException("Connection refused"))
+                .doAnswer(invocation -> {
+                    flushed.countDown();
+                    return 1;
+                })
+                .when(service).saveSensorDataBatch(anyList());
+        buffer = new WriteBehindBuffer(ingestConfig, service, meterRegistry);
+        buffer.start();
+
+
+        buffer.submit(reading(25.5));
+
+
+        assertTrue(flushed.await(5, TimeUnit.SECONDS), "The flush should succeed on the third attempt");
+        buffer.stop();
+        assertEquals(1, meterRegistry.get("ingest.buffer.flushed").counter().count());
+        assertEquals(0, meterRegistry.get("ingest.buffer.dropped").tag("reason", "flush_error").counter().count());
+    }
+
+    @Test
+    void testConstraintViolationDropsOnlyTheOffendingReading() throws InterruptedException {
+
+        ingestConfig.getWriteBehind().setFlushIntervalMs(1000);
+        doAnswer(invocation -> {
+            List<SensorData> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(data -> data.getMetricValue() < 0)) {
+                throw new DataIntegrityViolationException("Check constraint violated");
+            }
+            return batch.size();
+        }).when(service).saveSensorDataBatch(anyList());
+        buffer = new WriteBehindBuffer(ingestConfig, service, meterRegistry);
+        buffer.start();
+
+
+        buffer.submit(reading(-1.0));
+        buffer.submit(reading(25.5));
+        buffer.stop();
+
+
+        assertEquals(1, meterRegistry.get("ingest.buffer.flushed").counter().count());
+        assertEquals(1, meterRegistry.get("ingest.buffer.dropped").tag("reason", "flush_error").counter().count());
+    }
+
+    @Test
+    void testBufferDisabledByDefault() {
+
+        buffer = new WriteBehindBuffer(new IngestConfig(), service, meterRegistry);
+        buffer.start();
+
+
+        assertFalse(buffer.isEnabled());
+        assertEquals(0, meterRegistry.get("ingest.buffer.depth").gauge().value());
+    }
+
+    private SensorData reading(double value) {
+        return SensorData.builder()
+                .deviceId("device-1")
+                .metric("temperature")
+                .metricValue(value)
+                .dataTimestamp(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,78 @@
+package com.relay42.iot.stream.integration;
+
+import com.relay42.iot.stream.repository.SensorDataRepository;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "ingest.kafka.enabled=true",
+        "ingest.kafka.partitions=1",
+        "ingest.kafka.concurrency=1",
+        "simulator.enabled=false"
+})
+@EmbeddedKafka(partitions = 1, topics = {"sensor-readings", "sensor-readings-dlt"})
+class KafkaIngestIntegrationTest {
+
+    @Autowired
+    private KafkaTemplate<Object, Object> kafkaTemplate;
+
+    @Autowired
+    private SensorDataRepository repository;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void testReadingsAreSavedAndPoisonMessagesDeadLettered() {
+
+        kafkaTemplate.send("sensor-readings", "device-1",
+                "{\"deviceId\":\"device-1\",\"metric\":\"temperature\",\"metricValue\":25.5,\"dataTimestamp\":\"2025-04-10T08:00:00\"}");
+        kafkaTemplate.send("sensor-readings", "device-1", "not-json");
+        kafkaTemplate.send("sensor-readings", "device-1",
+                "{\"deviceId\":\"device-1\",\"metric\":\"temperature\",\"dataTimestamp\":\"2025-04-10T09:00:00\"}");
+        kafkaTemplate.send("sensor-readings", "device-1",
+                "{\"deviceId\":\"device-1\",\"metric\":\"temperature\",\"metricValue\":1e400,\"dataTimestamp\":\"2025-04-10T10:00:00\"}");
+        kafkaTemplate.send("sensor-readings", "device-2",
+                "{\"deviceId\":\"device-2\",\"metric\":\"humidity\",\"metricValue\":40.0,\"dataTimestamp\":\"2025-04-10T09:00:00\"}");
+        kafkaTemplate.flush();
+
+
+        await().atMost(Duration.ofSeconds(30)).until(() -> repository.count() == 2);
+
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("dlt-verifier", "false", broker);
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(consumerProps,
+                new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            broker.consumeFromAnEmbeddedTopic(consumer, "sensor-readings-dlt");
+            var deadLetters = KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(10), 3);
+
+            assertEquals(3, deadLetters.count());
+            for (ConsumerRecord<String, String> record : deadLetters) {
+                assertTrue(record.headers().lastHeader("kafka_dlt-exception-message") != null);
+            }
+        }
+        assertEquals(2, repository.count());
+    }
+}
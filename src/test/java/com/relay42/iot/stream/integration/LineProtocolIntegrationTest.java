@@ -0,0 +1,118 @@
+package com.relay42.iot.stream.integration;
+
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.repository.SensorDataRepository;
+import com.relay42.iot.stream.socket.LineProtocolServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.OutputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The line-protocol listener stores readings sent over loopback TCP and UDP sockets through the batch ingest path.
+ */
+@SpringBootTest(properties = {
+        "spring.kafka.listener.auto-startup=false",
+        "ingest.socket.enabled=true",
+        "ingest.socket.host=127.0.0.1",
+        "ingest.socket.tcp-port=0",
+        "ingest.socket.udp-port=0",
+        "ingest.socket.max-line-length=64"
+})
+class LineProtocolIntegrationTest {
+
+    @Autowired
+    private LineProtocolServer server;
+
+    @Autowired
+    private SensorDataRepository repository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+    }
+
+    private double readings(String transport, String outcome) {
+        return meterRegistry.get("ingest.socket.readings").tag("transport", transport).tag("outcome", outcome)
+                .counter().count();
+    }
+
+    @Test
+    void testTcpLinesAreStoredAndMalformedLinesCounted() throws Exception {
+
+        double storedBefore = readings("tcp", "stored");
+        double rejectedBefore = readings("tcp", "rejected");
+        String lines = "thermostat-1,temperature,21.5,1744279200000,thermostat\n"
+                + "thermostat-1,temperature,22.5,1744279201000,thermostat\r\n"
+                + "not a reading\n"
+                + "thermostat-1,temperature,1," + "9".repeat(80) + "\n"
+                + "\n"
+                + "heartrate-1,heart-rate,72,1744279202000\n";
+
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getTcpPort())) {
+            OutputStream out = socket.getOutputStream();
+            out.write(lines.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            await().atMost(Duration.ofSeconds(10)).until(() -> repository.count() == 3);
+        }
+
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> readings("tcp", "rejected") - rejectedBefore == 2);
+        assertEquals(3, readings("tcp", "stored") - storedBefore);
+        List<SensorData> stored = repository.findAll();
+        SensorData heartRate = stored.stream().filter(d -> d.getDeviceId().equals("heartrate-1")).findFirst().orElseThrow();
+        assertEquals(72.0, heartRate.getMetricValue());
+        assertEquals(LocalDateTime.of(2025, 4, 10, 10, 0, 2), heartRate.getDataTimestamp());
+    }
+
+    @Test
+    void testUdpDatagramWithSeveralLinesIsStored() throws Exception {
+
+        byte[] datagram = ("car-ecu-1,fuel-level,55.25,1744279200000,vehicle\n"
+                + "car-ecu-1,fuel-level,55.0,1744279260000,vehicle").getBytes(StandardCharsets.UTF_8);
+
+
+        try (DatagramSocket socket = new DatagramSocket()) {
+            socket.send(new DatagramPacket(datagram, datagram.length, InetAddress.getLoopbackAddress(), server.getUdpPort()));
+        }
+
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> repository.count() == 2);
+        assertEquals(2, repository.findAll().stream().filter(d -> "vehicle".equals(d.getDeviceType())).count());
+    }
+
+    @Test
+    void testConnectionsAreTracked() throws Exception {
+
+        double openedBefore = meterRegistry.get("ingest.socket.connections.opened").counter().count();
+
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getTcpPort())) {
+            await().atMost(Duration.ofSeconds(10))
+                    .until(() -> meterRegistry.get("ingest.socket.connections").gauge().value() == 1);
+        }
+
+
+        await().atMost(Duration.ofSeconds(10))
+                .until(() -> meterRegistry.get("ingest.socket.connections").gauge().value() == 0);
+        assertEquals(1, meterRegistry.get("ingest.socket.connections.opened").counter().count() - openedBefore);
+    }
+}
@@ -0,0 +1,75 @@
+package com.relay42.iot.stream.integration;
+
+import com.relay42.iot.stream.repository.SensorDataRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The ingest, aggregation, repository and connection pool meters are exported on the Prometheus endpoint.
+ * Metrics export is off in Spring Boot tests by default, so it is switched back on here.
+ */
+@SpringBootTest(properties = "spring.kafka.listener.auto-startup=false")
+@AutoConfigureObservability(tracing = false)
+class MetricsIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private SensorDataRepository repository;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        repository.deleteAll();
+    }
+
+    @Test
+    void testHotPathMetersAreExported() throws Exception {
+
+        LocalDateTime timestamp = LocalDateTime.now().minusDays(3).withNano(0);
+        mockMvc.perform(post("/api/v1/sensors/data")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"deviceId\":\"thermostat-1\",\"metric\":\"temperature\",\"metricValue\":21.5," +
+                                "\"dataTimestamp\":\"" + timestamp + "\",\"deviceType\":\"thermostat\"}"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/api/v1/sensors/data/stats/range")
+                        .param("deviceId", "thermostat-1")
+                        .param("metric", "temperature")
+                        .param("from", timestamp.minusMinutes(90).toString())
+                        .param("to", timestamp.plusMinutes(90).toString()))
+                .andExpect(status().isOk());
+
+
+        mockMvc.perform(get("/actuator/prometheus"))
+
+
+                .andExpect(status().isOk())
+                .andExpect(content().string(allOf(
+                        containsString("ingest_requests_seconds_bucket{application=\"sensor-data-processor\",device_type=\"thermostat\",mode=\"single\""),
+                        containsString("ingest_readings_total{application=\"sensor-data-processor\",device_type=\"thermostat\"}"),
+                        containsString("aggregation_duration_seconds_count{application=\"sensor-data-processor\",source=\"rollup\",strategy=\"temperature\"}"),
+                        containsString("aggregation_rows_readings_count"),
+                        containsString("repository_jdbc_invocations_seconds_count"),
+                        containsString("repository_invocations_seconds_count"),
+                        containsString("hikaricp_connections_pending"))));
+    }
+}
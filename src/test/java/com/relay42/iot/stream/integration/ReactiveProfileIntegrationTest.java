@@ -0,0 +1,295 @@
+package com.relay42.iot.stream.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.relay42.iot.stream.aggregation.RollupStore;
+import com.relay42.iot.stream.aggregation.RunningAggregateStore;
+import com.relay42.iot.stream.cache.StatsCache;
+import com.relay42.iot.stream.controller.ReactiveSensorDataControllerV1;
+import com.relay42.iot.stream.controller.SensorDataControllerV1;
+import com.relay42.iot.stream.model.SensorBatchFrame;
+import com.relay42.iot.stream.model.SensorRequest;
+import com.relay42.iot.stream.repository.SensorDataRepository;
+import com.relay42.iot.stream.storage.HotWindowStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The reactive profile serves the same API through WebFlux and R2DBC, against the database the JPA beans use.
+ */
+@SpringBootTest(properties = {"spring.kafka.listener.auto-startup=false", "ingest.batch.max-size=1500"})
+@ActiveProfiles("reactive")
+class ReactiveProfileIntegrationTest {
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private SensorDataRepository repository;
+
+    @Autowired
+    private RunningAggregateStore runningAggregates;
+
+    @Autowired
+    private RollupStore rollupStore;
+
+    @Autowired
+    private StatsCache statsCache;
+
+    @Autowired
+    private HotWindowStore hotWindow;
+
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        client = WebTestClient.bindToApplicationContext(context)
+                .configureClient()
+                .defaultHeaders(headers -> headers.setBasicAuth("admin", "password"))
+                .build();
+        repository.deleteAll();
+        runningAggregates.rebuild();
+        rollupStore.rebuild();
+        hotWindow.rebuild();
+        statsCache.invalidateAll();
+    }
+
+    @Test
+    void testOnlyReactiveControllerIsRegistered() {
+
+        assertEquals(1, context.getBeanNamesForType(ReactiveSensorDataControllerV1.class).length);
+        assertEquals(0, context.getBeanNamesForType(SensorDataControllerV1.class).length);
+    }
+
+    @Test
+    void testIngestSensorData() {
+
+        String body = "{\"deviceId\":\"device-1\",\"metric\":\"temperature\",\"metricValue\":25.5," +
+                "\"dataTimestamp\":\"" + LocalDateTime.now().minusMinutes(1).withNano(0) + "\"}";
+
+
+        client.post().uri("/api/v1/sensors/data")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isCreated();
+
+
+        assertEquals(1, repository.count());
+        client.get().uri("/api/v1/sensors/data/stats?deviceId=device-1&metric=temperature")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.avg").isEqualTo(25.5);
+    }
+
+    @Test
+    void testIngestInvalidSensorDataIsRejected() {
+
+        String body = "{\"metric\":\"temperature\",\"metricValue\":25.5}";
+
+
+        client.post().uri("/api/v1/sensors/data")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errors.deviceId").exists();
+
+
+        assertEquals(0, repository.count());
+    }
+
+    @Test
+    void testNonFiniteValuesAreRejected() throws Exception {
+
+        String infinite = "{\"deviceId\":\"device-1\",\"metric\":\"temperature\",\"metricValue\":-1e400,\"dataTimestamp\":\"2025-04-10T08:00:00\"}";
+        String finite = "{\"deviceId\":\"device-1\",\"metric\":\"temperature\",\"metricValue\":21.0,\"dataTimestamp\":\"2025-04-10T08:00:00\"}";
+        SensorBatchFrame frame = SensorBatchFrame.of(List.of(
+                SensorRequest.builder().deviceId("device-1").metric("temperature").metricValue(Double.POSITIVE_INFINITY)
+                        .dataTimestamp(LocalDateTime.of(2025, 4, 10, 8, 0)).build(),
+                SensorRequest.builder().deviceId("device-1").metric("temperature").metricValue(Double.NaN)
+                        .dataTimestamp(LocalDateTime.of(2025, 4, 10, 8, 1)).build()));
+
+
+        client.post().uri("/api/v1/sensors/data")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(infinite)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errors.metricValue").isEqualTo("must be a finite number");
+        client.post().uri("/api/v1/sensors/data/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(infinite + "\n" + finite + "\n")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.data.rejected").isEqualTo(1)
+                .jsonPath("$.data.items[0].errors.metricValue").isEqualTo("must be a finite number");
+        client.post().uri("/api/v1/sensors/data/frame")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(Jackson2ObjectMapperBuilder.cbor().build().writeValueAsBytes(frame))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.data.rejected").isEqualTo(2);
+
+
+        assertEquals(1, repository.count());
+    }
+
+    @Test
+    void testStreamingNdjsonIngestReportsRejectedLines() {
+
+        LocalDateTime start = LocalDateTime.now().minusDays(3).withNano(0);
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 1200; i++) {
+            body.append("{\"deviceId\":\"device-1\",\"metric\":\"temperature\",\"metricValue\":").append(i % 10)
+                    .append(",\"dataTimestamp\":\"").append(start.plusSeconds(i)).append("\"}\n");
+        }
+        body.append("not json\n\n");
+
+
+        client.post().uri("/api/v1/sensors/data/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body.toString())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.data.accepted").isEqualTo(1200)
+                .jsonPath("$.data.rejected").isEqualTo(1)
+                .jsonPath("$.data.items[1200].errors.body").isEqualTo("Malformed JSON line");
+
+
+        assertEquals(1200, repository.count());
+        client.get().uri(uri -> uri.path("/api/v1/sensors/data/stats/range")
+                        .queryParam("deviceId", "device-1")
+                        .queryParam("metric", "temperature")
+                        .queryParam("from", start.toString())
+                        .queryParam("to", start.plusHours(1).toString())
+                        .queryParam("precision", "exact")
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.data.min").isEqualTo(0.0)
+                .jsonPath("$.data.max").isEqualTo(9.0)
+                .jsonPath("$.data.median").isEqualTo(4.5);
+    }
+
+    @Test
+    void testBatchExceedingMaximumSizeIsRolledBack() {
+
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < 1501; i++) {
+            body.append(i > 0 ? "," : "")
+                    .append("{\"deviceId\":\"device-1\",\"metric\":\"temperature\",\"metricValue\":1.0,")
+                    .append("\"dataTimestamp\":\"2025-04-10T08:00:00\"}");
+        }
+        body.append("]");
+
+
+        client.post().uri("/api/v1/sensors/data/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body.toString())
+                .exchange()
+                .expectStatus().isBadRequest();
+
+
+        assertEquals(0, repository.count());
+    }
+
+    @Test
+    void testBinaryBatchAndFrameIngest() throws Exception {
+
+        ObjectMapper cbor = Jackson2ObjectMapperBuilder.cbor().build();
+        List<SensorRequest> requests = List.of(
+                SensorRequest.builder().deviceId("device-1").metric("temperature").metricValue(21.0)
+                        .dataTimestamp(LocalDateTime.of(2025, 4, 10, 8, 0)).build(),
+                SensorRequest.builder().deviceId("device-1").metric("temperature").metricValue(23.0)
+                        .dataTimestamp(LocalDateTime.of(2025, 4, 10, 8, 1)).build());
+        SensorBatchFrame frame = SensorBatchFrame.of(List.of(
+                SensorRequest.builder().deviceId("device-2").metric("temperature").metricValue(30.0)
+                        .dataTimestamp(LocalDateTime.of(2025, 4, 10, 8, 2)).deviceType("thermostat").build()));
+
+
+        client.post().uri("/api/v1/sensors/data/batch")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(cbor.writeValueAsBytes(requests))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.data.accepted").isEqualTo(2);
+        client.post().uri("/api/v1/sensors/data/frame")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(cbor.writeValueAsBytes(frame))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.data.accepted").isEqualTo(1);
+
+
+        assertEquals(3, repository.count());
+    }
+
+    @Test
+    void testSeriesBucketsStreamedReadings() {
+
+        LocalDateTime start = LocalDateTime.of(2025, 4, 10, 8, 0);
+        String body = "[" +
+                "{\"deviceId\":\"device-1\",\"metric\":\"temperature\",\"metricValue\":10.0,\"dataTimestamp\":\"" + start.plusMinutes(1) + "\"}," +
+                "{\"deviceId\":\"device-1\",\"metric\":\"temperature\",\"metricValue\":20.0,\"dataTimestamp\":\"" + start.plusMinutes(2) + "\"}," +
+                "{\"deviceId\":\"device-1\",\"metric\":\"temperature\",\"metricValue\":30.0,\"dataTimestamp\":\"" + start.plusMinutes(31) + "\"}]";
+        client.post().uri("/api/v1/sensors/data/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isCreated();
+
+
+        WebTestClient.BodyContentSpec response = client.get().uri(uri -> uri.path("/api/v1/sensors/data/series")
+                        .queryParam("deviceId", "device-1")
+                        .queryParam("metric", "temperature")
+                        .queryParam("from", start.toString())
+                        .queryParam("to", start.plusHours(1).toString())
+                        .queryParam("bucket", "30m")
+                        .queryParam("aggs", "max")
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody();
+
+
+        response.jsonPath("$.data.length()").isEqualTo(2)
+                .jsonPath("$.data[0].max").isEqualTo(20.0)
+                .jsonPath("$.data[1].max").isEqualTo(30.0);
+        assertEquals(3, repository.count());
+    }
+
+    @Test
+    void testRequestsRequireAuthentication() {
+
+        WebTestClient anonymous = WebTestClient.bindToApplicationContext(context).build();
+
+
+        anonymous.get().uri("/api/v1/sensors/data/stats?deviceId=device-1&metric=temperature")
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+}
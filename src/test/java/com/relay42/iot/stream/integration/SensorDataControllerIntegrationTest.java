@@ -1,26 +1,37 @@
 package com.relay42.iot.stream.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.relay42.iot.stream.aggregation.RollupStore;
+import com.relay42.iot.stream.aggregation.RunningAggregateStore;
+import com.relay42.iot.stream.cache.StatsCache;
+import com.relay42.iot.stream.config.BinaryFormatConfig;
+import com.relay42.iot.stream.config.IngestConfig;
 import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.model.SensorBatchFrame;
 import com.relay42.iot.stream.model.SensorRequest;
 import com.relay42.iot.stream.repository.SensorDataRepository;
+import com.relay42.iot.stream.storage.HotWindowStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.context.WebApplicationContext;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@SpringBootTest
+@SpringBootTest(properties = "spring.kafka.listener.auto-startup=false")
 class SensorDataControllerIntegrationTest {
 
     @Autowired
@@ -32,12 +43,31 @@ class SensorDataControllerIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private RunningAggregateStore runningAggregates;
+
+    @Autowired
+    private RollupStore rollupStore;
+
+    @Autowired
+    private StatsCache statsCache;
+
+    @Autowired
+    private HotWindowStore hotWindow;
+
+    @Autowired
+    private IngestConfig ingestConfig;
+
     private MockMvc mockMvc;
 
     @BeforeEach
     void setUp() {
         mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
         repository.deleteAll(); // Clean up the database before each test
+        runningAggregates.rebuild();
+        rollupStore.rebuild();
+        hotWindow.rebuild();
+        statsCache.invalidateAll();
     }
 
     @Test
@@ -76,6 +106,7 @@ class SensorDataControllerIntegrationTest {
                 .build();
         repository.save(data1);
         repository.save(data2);
+        runningAggregates.rebuild(); // Rows saved directly through the repository bypass the ingest path
 
 
         mockMvc.perform(get("/api/v1/sensors/data/stats")
@@ -107,6 +138,8 @@ class SensorDataControllerIntegrationTest {
                 .build();
         repository.save(data1);
         repository.save(data2);
+        rollupStore.rebuild(); // Rows saved directly through the repository bypass the ingest path
+        hotWindow.rebuild();
 
 
         mockMvc.perform(get("/api/v1/sensors/data/stats/range")
@@ -130,4 +163,397 @@ class SensorDataControllerIntegrationTest {
                         .param("metric", "temperature"))
                 .andExpect(status().isNoContent());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testIngestSensorDataBatch() throws Exception {
+
+        List<SensorRequest> requests = List.of(
+                SensorRequest.builder()
+                        .deviceId("device-1")
+                        .metric("temperature")
+                        .metricValue(25.5)
+                        .dataTimestamp(LocalDateTime.now())
+                        .build(),
+                SensorRequest.builder()
+                        .deviceId("device-1")
+                        .metric("temperature")
+                        .dataTimestamp(LocalDateTime.now())
+                        .build(),
+                SensorRequest.builder()
+                        .deviceId("device-2")
+                        .metric("humidity")
+                        .metricValue(40.0)
+                        .dataTimestamp(LocalDateTime.now())
+                        .build()
+        );
+
+
+        mockMvc.perform(post("/api/v1/sensors/data/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.accepted", is(2)))
+                .andExpect(jsonPath("$.data.rejected", is(1)))
+                .andExpect(jsonPath("$.data.items[1].accepted", is(false)))
+                .andExpect(jsonPath("$.data.items[1].errors.metricValue", notNullValue()));
+
+        assertEquals(2, repository.count());
+    }
+
+    @Test
+    void testIngestSensorDataBatchNdjson() throws Exception {
+
+        String body = "{\"deviceId\":\"device-1\",\"metric\":\"temperature\",\"metricValue\":25.5,\"dataTimestamp\":\"2025-04-10T08:00:00\"}\n"
+                + "not-json\n"
+                + "\n"
+                + "{\"deviceId\":\"device-1\",\"metric\":\"temperature\",\"metricValue\":26.0,\"dataTimestamp\":\"2025-04-10T09:00:00\"}\n";
+
+
+        mockMvc.perform(post("/api/v1/sensors/data/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.success", is(false)))
+                .andExpect(jsonPath("$.data.accepted", is(2)))
+                .andExpect(jsonPath("$.data.rejected", is(1)))
+                .andExpect(jsonPath("$.data.items[1].errors.body", is("Malformed JSON line")));
+
+        assertEquals(2, repository.count());
+    }
+
+    @Test
+    void testIngestSensorDataBatchOverLimitsIsRefused() throws Exception {
+
+        IngestConfig.Batch batch = ingestConfig.getBatch();
+        int maxSize = batch.getMaxSize();
+        DataSize maxRequestSize = batch.getMaxRequestSize();
+        String reading = "{\"deviceId\":\"device-1\",\"metric\":\"temperature\",\"metricValue\":25.5,"
+                + "\"dataTimestamp\":\"2025-04-10T08:00:00\"}";
+
+        try {
+            batch.setMaxSize(2);
+
+
+            mockMvc.perform(post("/api/v1/sensors/data/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("[" + reading + "," + reading + "," + reading))
+                    .andExpect(status().isBadRequest());
+            batch.setMaxRequestSize(DataSize.ofBytes(200));
+            mockMvc.perform(post("/api/v1/sensors/data/batch")
+                            .contentType(MediaType.APPLICATION_NDJSON)
+                            .content(reading + "\n" + reading + "\n" + reading + "\n"))
+                    .andExpect(status().isPayloadTooLarge());
+        } finally {
+            batch.setMaxSize(maxSize);
+            batch.setMaxRequestSize(maxRequestSize);
+        }
+
+        assertEquals(0, repository.count());
+    }
+
+    @Test
+    void testIngestSensorDataBatchCbor() throws Exception {
+
+        List<SensorRequest> requests = List.of(
+                SensorRequest.builder().deviceId("device-1").metric("temperature").metricValue(25.5)
+                        .dataTimestamp(LocalDateTime.of(2025, 4, 10, 8, 0)).deviceType("thermostat").build(),
+                SensorRequest.builder().deviceId("device-2").metric("humidity").metricValue(40.0)
+                        .dataTimestamp(LocalDateTime.of(2025, 4, 10, 9, 0)).build()
+        );
+
+
+        mockMvc.perform(post("/api/v1/sensors/data/batch")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(Jackson2ObjectMapperBuilder.cbor().build().writeValueAsBytes(requests)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.accepted", is(2)))
+                .andExpect(jsonPath("$.data.rejected", is(0)));
+
+        assertEquals(2, repository.count());
+    }
+
+    @Test
+    void testIngestSensorDataFrameSmile() throws Exception {
+
+        LocalDateTime timestamp = LocalDateTime.of(2025, 4, 10, 8, 0, 0, 250_000_000);
+        long millis = timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+        SensorBatchFrame frame = SensorBatchFrame.builder()
+                .deviceIds(List.of("device-1", "device-2"))
+                .deviceTypes(List.of("thermostat", "wearable"))
+                .metrics(List.of("temperature", "heart-rate"))
+                .device(new int[]{0, 1, 0})
+                .metric(new int[]{0, 1, 5})
+                .timestamp(new long[]{millis, millis, millis})
+                .value(new double[]{21.5, 72.0, 22.0})
+                .build();
+
+
+        mockMvc.perform(post("/api/v1/sensors/data/frame")
+                        .contentType(BinaryFormatConfig.APPLICATION_SMILE_VALUE)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(Jackson2ObjectMapperBuilder.smile().build().writeValueAsBytes(frame)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.accepted", is(2)))
+                .andExpect(jsonPath("$.data.rejected", is(1)))
+                .andExpect(jsonPath("$.data.items[2].errors.body", is("Unknown metric index 5")));
+
+        List<SensorData> stored = repository.findAll();
+        assertEquals(2, stored.size());
+        SensorData wearable = stored.stream().filter(d -> d.getDeviceId().equals("device-2")).findFirst().orElseThrow();
+        assertEquals("wearable", wearable.getDeviceType());
+        assertEquals("heart-rate", wearable.getMetric());
+        assertEquals(timestamp, wearable.getDataTimestamp());
+    }
+
+    @Test
+    void testNonFiniteValuesAreRejectedOnEveryBodyFormat() throws Exception {
+
+        String infinite = "{\"deviceId\":\"device-1\",\"metric\":\"temperature\",\"metricValue\":1e400,\"dataTimestamp\":\"2025-04-10T08:00:00\"}";
+        String finite = "{\"deviceId\":\"device-1\",\"metric\":\"temperature\",\"metricValue\":21.0,\"dataTimestamp\":\"2025-04-10T08:00:00\"}";
+        long millis = LocalDateTime.of(2025, 4, 10, 8, 0).toInstant(ZoneOffset.UTC).toEpochMilli();
+        SensorBatchFrame frame = SensorBatchFrame.builder()
+                .deviceIds(List.of("device-1"))
+                .metrics(List.of("temperature"))
+                .device(new int[]{0, 0, 0})
+                .metric(new int[]{0, 0, 0})
+                .timestamp(new long[]{millis, millis, millis})
+                .value(new double[]{Double.NaN, Double.NEGATIVE_INFINITY, 22.0})
+                .build();
+
+
+        mockMvc.perform(post("/api/v1/sensors/data")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(infinite))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.metricValue", is("must be a finite number")));
+        mockMvc.perform(post("/api/v1/sensors/data/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + infinite + "," + finite + "]"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.rejected", is(1)))
+                .andExpect(jsonPath("$.data.items[0].errors.metricValue", is("must be a finite number")));
+        mockMvc.perform(post("/api/v1/sensors/data/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(infinite + "\n" + finite + "\n"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.rejected", is(1)))
+                .andExpect(jsonPath("$.data.items[0].errors.metricValue", is("must be a finite number")));
+        mockMvc.perform(post("/api/v1/sensors/data/frame")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(Jackson2ObjectMapperBuilder.cbor().build().writeValueAsBytes(frame)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.accepted", is(1)))
+                .andExpect(jsonPath("$.data.rejected", is(2)));
+
+        assertEquals(3, repository.count());
+        assertEquals(22.0, runningAggregates.getSummary("device-1", "temperature").getMax());
+    }
+
+    @Test
+    void testIngestSensorDataFrameWithMismatchedColumnsIsRejected() throws Exception {
+
+        String body = "{\"deviceIds\":[\"device-1\"],\"metrics\":[\"temperature\"],"
+                + "\"device\":[0,0],\"metric\":[0],\"timestamp\":[0,0],\"value\":[1.0,2.0]}";
+
+
+        mockMvc.perform(post("/api/v1/sensors/data/frame")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(0, repository.count());
+    }
+
+    @Test
+    void testGetSensorDataStatsReflectsIngestedReadings() throws Exception {
+
+        List<SensorRequest> requests = List.of(
+                SensorRequest.builder().deviceId("device-3").metric("temperature").metricValue(20.0)
+                        .dataTimestamp(LocalDateTime.now()).build(),
+                SensorRequest.builder().deviceId("device-3").metric("temperature").metricValue(30.0)
+                        .dataTimestamp(LocalDateTime.now()).build()
+        );
+        mockMvc.perform(post("/api/v1/sensors/data/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post("/api/v1/sensors/data")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(SensorRequest.builder().deviceId("device-3")
+                                .metric("temperature").metricValue(40.0).dataTimestamp(LocalDateTime.now()).build())))
+                .andExpect(status().isCreated());
+
+
+        mockMvc.perform(get("/api/v1/sensors/data/stats")
+                        .param("deviceId", "device-3")
+                        .param("metric", "temperature"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.min", is(20.0)))
+                .andExpect(jsonPath("$.data.max", is(40.0)))
+                .andExpect(jsonPath("$.data.avg", is(30.0)))
+                .andExpect(jsonPath("$.data.median", is(30.0)));
+    }
+
+    @Test
+    void testGetSensorDataStatsByTimeRangeWithConfiguredStrategy() throws Exception {
+
+        LocalDateTime start = LocalDateTime.of(2025, 4, 10, 8, 0);
+        for (int i = 0; i <= 10; i++) {
+            repository.save(SensorData.builder()
+                    .deviceId("watch-1")
+                    .metric("heart-rate")
+                    .metricValue(60.0 + i)
+                    .dataTimestamp(start.plusSeconds(i * 10L))
+                    .build());
+        }
+        rollupStore.rebuild();
+        hotWindow.rebuild();
+
+
+        mockMvc.perform(get("/api/v1/sensors/data/stats/range")
+                        .param("deviceId", "watch-1")
+                        .param("metric", "heart-rate")
+                        .param("from", start.toString())
+                        .param("to", start.plusMinutes(5).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.count", is(11)))
+                .andExpect(jsonPath("$.data.max", is(70.0)))
+                .andExpect(jsonPath("$.data.percentiles.p90", is(69.0)))
+                .andExpect(jsonPath("$.data.rateOfChange", is(0.1)))
+                .andExpect(jsonPath("$.data.stddev", closeTo(Math.sqrt(10.0), 1e-9)));
+    }
+
+    @Test
+    void testGetSensorDataStatsByTimeRangeOddCountAndEmptyRange() throws Exception {
+
+        LocalDateTime now = LocalDateTime.now();
+        for (double value : new double[]{30.0, 10.0, 20.0}) {
+            repository.save(SensorData.builder()
+                    .deviceId("device-1")
+                    .metric("temperature")
+                    .metricValue(value)
+                    .dataTimestamp(now.minusMinutes((long) value))
+                    .build());
+        }
+        rollupStore.rebuild();
+        hotWindow.rebuild();
+
+
+        mockMvc.perform(get("/api/v1/sensors/data/stats/range")
+                        .param("deviceId", "device-1")
+                        .param("metric", "temperature")
+                        .param("from", now.minusHours(1).toString())
+                        .param("to", now.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.min", is(10.0)))
+                .andExpect(jsonPath("$.data.max", is(30.0)))
+                .andExpect(jsonPath("$.data.avg", is(20.0)))
+                .andExpect(jsonPath("$.data.median", is(20.0)));
+
+        mockMvc.perform(get("/api/v1/sensors/data/stats/range")
+                        .param("deviceId", "device-1")
+                        .param("metric", "temperature")
+                        .param("from", now.minusDays(3).toString())
+                        .param("to", now.minusDays(2).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message", is("No data found in given range")))
+                .andExpect(jsonPath("$.data", nullValue()));
+    }
+
+    @Test
+    void testGetSensorDataSeries() throws Exception {
+
+        LocalDateTime start = LocalDateTime.of(2025, 4, 10, 8, 0);
+        for (int minute = 0; minute < 15; minute++) {
+            repository.save(SensorData.builder()
+                    .deviceId("device-1")
+                    .metric("temperature")
+                    .metricValue((double) minute)
+                    .dataTimestamp(start.plusMinutes(minute).plusSeconds(30))
+                    .build());
+        }
+
+
+        mockMvc.perform(get("/api/v1/sensors/data/series")
+                        .param("deviceId", "device-1")
+                        .param("metric", "temperature")
+                        .param("from", start.toString())
+                        .param("to", start.plusHours(1).toString())
+                        .param("bucket", "5m")
+                        .param("aggs", "count,min,max,avg,p50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()", is(3)))
+                .andExpect(jsonPath("$.data[1].timestamp", is("2025-04-10T08:05:00")))
+                .andExpect(jsonPath("$.data[1].count", is(5)))
+                .andExpect(jsonPath("$.data[1].min", is(5.0)))
+                .andExpect(jsonPath("$.data[1].max", is(9.0)))
+                .andExpect(jsonPath("$.data[1].avg", is(7.0)))
+                .andExpect(jsonPath("$.data[1].percentiles.p50", is(7.0)))
+                .andExpect(jsonPath("$.data[1].median").doesNotExist());
+
+        mockMvc.perform(get("/api/v1/sensors/data/series")
+                        .param("deviceId", "device-1")
+                        .param("metric", "temperature")
+                        .param("from", start.toString())
+                        .param("to", start.plusHours(1).toString())
+                        .param("downsample", "lttb")
+                        .param("maxPoints", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()", is(5)))
+                .andExpect(jsonPath("$.data[0].value", is(0.0)))
+                .andExpect(jsonPath("$.data[4].value", is(14.0)));
+    }
+
+    @Test
+    void testGetBulkSensorDataStats() throws Exception {
+
+        LocalDateTime now = LocalDateTime.now();
+        String batch = objectMapper.writeValueAsString(List.of(
+                new SensorRequest("thermostat-1", "temperature", 20.0, now.minusHours(2), "thermostat"),
+                new SensorRequest("thermostat-1", "temperature", 30.0, now.minusMinutes(30), "thermostat"),
+                new SensorRequest("thermostat-1", "humidity", 40.0, now.minusMinutes(30), "thermostat"),
+                new SensorRequest("thermostat-2", "temperature", 10.0, now.minusMinutes(20), "thermostat"),
+                new SensorRequest("car-ecu-1", "fuel-level", 50.0, now.minusMinutes(10), "vehicle")));
+        mockMvc.perform(post("/api/v1/sensors/data/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batch))
+                .andExpect(status().isCreated());
+
+
+        mockMvc.perform(post("/api/v1/sensors/data/stats/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"deviceIds\":[\"thermostat-1\",\"thermostat-2\"],\"metrics\":[\"temperature\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data['thermostat-1'].temperature.avg", is(25.0)))
+                .andExpect(jsonPath("$.data['thermostat-1'].humidity").doesNotExist())
+                .andExpect(jsonPath("$.data['thermostat-2'].temperature.median", is(10.0)));
+
+        mockMvc.perform(post("/api/v1/sensors/data/stats/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"deviceType\":\"thermostat\",\"from\":\"" + now.minusHours(1)
+                                + "\",\"to\":\"" + now + "\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data['thermostat-1'].temperature.min", is(30.0)))
+                .andExpect(jsonPath("$.data['thermostat-1'].humidity.max", is(40.0)))
+                .andExpect(jsonPath("$.data['thermostat-2'].temperature.avg", is(10.0)))
+                .andExpect(jsonPath("$.data['car-ecu-1']").doesNotExist());
+
+        mockMvc.perform(post("/api/v1/sensors/data/stats/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"deviceIds\":[\"car-ecu-1\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data['car-ecu-1']['fuel-level'].count", is(1)))
+                .andExpect(jsonPath("$.data['car-ecu-1']['fuel-level'].max", is(50.0)))
+                .andExpect(jsonPath("$.data['car-ecu-1']['fuel-level'].median").doesNotExist());
+
+        mockMvc.perform(post("/api/v1/sensors/data/stats/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"deviceType\":\"vehicle\",\"from\":\"" + now.minusHours(1)
+                                + "\",\"to\":\"" + now + "\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data['car-ecu-1']['fuel-level'].count", is(1)))
+                .andExpect(jsonPath("$.data['car-ecu-1']['fuel-level'].avg", is(50.0)));
+    }
+}
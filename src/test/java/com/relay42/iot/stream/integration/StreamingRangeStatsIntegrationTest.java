@@ -0,0 +1,99 @@
+package com.relay42.iot.stream.integration;
+
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.repository.SensorDataBatchRepository;
+import com.relay42.iot.stream.repository.SensorDataRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Range statistics with every shortcut switched off, so the readings are folded over a database cursor.
+ */
+@SpringBootTest(properties = {
+        "spring.kafka.listener.auto-startup=false",
+        "aggregation.pushdown=disabled",
+        "aggregation.rollup.enabled=false",
+        "storage.hot-window.enabled=false",
+        "stats-cache.enabled=false"
+})
+class StreamingRangeStatsIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private SensorDataRepository repository;
+
+    @Autowired
+    private SensorDataBatchRepository batchRepository;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        repository.deleteAll(); // Clean up the database before each test
+    }
+
+    @Test
+    void testYearLongRangeIsFoldedOverCursor() throws Exception {
+
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<SensorData> readings = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            readings.add(SensorData.builder()
+                    .deviceId("device-1")
+                    .metric("temperature")
+                    .metricValue((double) i)
+                    .dataTimestamp(start.plusMinutes(i * 100L))
+                    .build());
+        }
+        batchRepository.saveAll(readings);
+
+
+        mockMvc.perform(get("/api/v1/sensors/data/stats/range")
+                        .param("deviceId", "device-1")
+                        .param("metric", "temperature")
+                        .param("from", start.toString())
+                        .param("to", start.plusYears(1).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.min", is(0.0)))
+                .andExpect(jsonPath("$.data.max", is(4999.0)))
+                .andExpect(jsonPath("$.data.avg", is(2499.5)))
+                .andExpect(jsonPath("$.data.median", closeTo(2499.5, 25.0)));
+
+        mockMvc.perform(get("/api/v1/sensors/data/stats/range")
+                        .param("deviceId", "device-1")
+                        .param("metric", "temperature")
+                        .param("from", start.toString())
+                        .param("to", start.plusYears(1).toString())
+                        .param("precision", "exact"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.median", is(2499.5)));
+    }
+
+    @Test
+    void testEmptyRange() throws Exception {
+
+        mockMvc.perform(get("/api/v1/sensors/data/stats/range")
+                        .param("deviceId", "device-1")
+                        .param("metric", "temperature")
+                        .param("from", "2024-01-01T00:00:00")
+                        .param("to", "2024-12-31T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message", is("No data found in given range")));
+    }
+}
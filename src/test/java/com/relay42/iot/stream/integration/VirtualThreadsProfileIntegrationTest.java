@@ -0,0 +1,32 @@
+package com.relay42.iot.stream.integration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The virtual-threads profile must start on any supported JDK; virtual threads are only used on Java 21 or later.
+ */
+@SpringBootTest(properties = "spring.kafka.listener.auto-startup=false")
+@ActiveProfiles("virtual-threads")
+class VirtualThreadsProfileIntegrationTest {
+
+    @Autowired
+    private Environment environment;
+
+    @Test
+    void testProfileEnablesVirtualThreadsWhereSupported() {
+
+        boolean supported = Runtime.version().feature() >= 21;
+
+
+        assertTrue(environment.getProperty("spring.threads.virtual.enabled", Boolean.class));
+        assertEquals(supported, Threading.VIRTUAL.isActive(environment));
+    }
+}
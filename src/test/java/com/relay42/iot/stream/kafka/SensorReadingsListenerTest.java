@@ -0,0 +1,125 @@
+package com.relay42.iot.stream.kafka;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.mapper.SensorDataMapper;
+import com.relay42.iot.stream.model.SensorRequest;
+import com.relay42.iot.stream.service.SensorDataService;
+import jakarta.validation.Validator;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SensorReadingsListenerTest {
+
+    @Mock
+    private SensorDataService service;
+
+    @Mock
+    private SensorDataMapper mapper;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private DeadLetterPublishingRecoverer deadLetterRecoverer;
+
+    @Mock
+    private Acknowledgment ack;
+
+    private SensorReadingsListener listener;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(validator.validate(any(SensorRequest.class))).thenReturn(Set.of());
+        when(mapper.toEntity(any(SensorRequest.class))).thenAnswer(invocation -> {
+            SensorRequest request = invocation.getArgument(0);
+            return SensorData.builder().deviceId(request.getDeviceId()).metric(request.getMetric())
+                    .metricValue(request.getMetricValue()).build();
+        });
+        listener = new SensorReadingsListener(service, mapper, validator, JsonMapper.builder().findAndAddModules().build(),
+                deadLetterRecoverer);
+    }
+
+    @Test
+    void testTransientFailureIsRethrownWithoutDeadLettering() {
+
+        List<ConsumerRecord<String, String>> records = List.of(reading(0, "device-1"), record(1, "not-json"));
+        when(service.saveSensorDataBatch(anyList())).thenThrow(new QueryTimeoutException("Database unavailable"));
+
+
+        assertThrows(QueryTimeoutException.class, () -> listener.listen(records, ack));
+
+
+        verify(deadLetterRecoverer, never()).accept(any(), any());
+        verify(ack, never()).acknowledge();
+    }
+
+    @Test
+    void testConstraintViolationReportsOnlyTheOffendingRecord() {
+
+        List<ConsumerRecord<String, String>> records = List.of(
+                reading(0, "device-1"), record(1, "not-json"), reading(2, "device-bad"), record(3, "not-json"), reading(4, "device-2"));
+        when(service.saveSensorDataBatch(anyList())).thenAnswer(invocation -> {
+            List<SensorData> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(data -> data.getDeviceId().equals("device-bad"))) {
+                throw new DataIntegrityViolationException("Value too long");
+            }
+            return batch.size();
+        });
+
+
+        BatchListenerFailedException failure = assertThrows(BatchListenerFailedException.class, () -> listener.listen(records, ack));
+
+
+        assertEquals(2, failure.getIndex());
+        verify(service).saveSensorDataBatch(argThat(batch -> batch.size() == 1 && batch.get(0).getDeviceId().equals("device-1")));
+        verify(service, never()).saveSensorDataBatch(argThat(batch -> batch.size() == 1 && batch.get(0).getDeviceId().equals("device-2")));
+        verify(deadLetterRecoverer, times(1)).accept(eq(records.get(1)), any());
+        verify(deadLetterRecoverer, never()).accept(eq(records.get(3)), any());
+        verify(ack, never()).acknowledge();
+    }
+
+    @Test
+    void testBatchIsAcknowledgedAfterPoisonRecordsAreDeadLettered() {
+
+        List<ConsumerRecord<String, String>> records = List.of(reading(0, "device-1"), record(1, "not-json"));
+        when(service.saveSensorDataBatch(anyList())).thenReturn(1);
+
+
+        listener.listen(records, ack);
+
+
+        verify(service, times(1)).saveSensorDataBatch(anyList());
+        verify(deadLetterRecoverer, times(1)).accept(eq(records.get(1)), any());
+        verify(ack, times(1)).acknowledge();
+    }
+
+    private static ConsumerRecord<String, String> reading(long offset, String deviceId) {
+        return record(offset, "{\"deviceId\":\"" + deviceId + "\",\"metric\":\"temperature\",\"metricValue\":21.0,"
+                + "\"dataTimestamp\":\"2025-04-10T08:00:00\"}");
+    }
+
+    private static ConsumerRecord<String, String> record(long offset, String value) {
+        return new ConsumerRecord<>("sensor-readings", 0, offset, "device", value);
+    }
+}
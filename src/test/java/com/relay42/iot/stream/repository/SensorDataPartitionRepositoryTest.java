@@ -0,0 +1,218 @@
+package com.relay42.iot.stream.repository;
+
+import com.relay42.iot.stream.config.IngestConfig;
+import com.relay42.iot.stream.config.StorageConfig;
+import com.relay42.iot.stream.entity.SensorData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SensorDataPartitionRepositoryTest {
+
+    private static final LocalDateTime DAY_1 = LocalDateTime.of(2025, 1, 10, 12, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private SensorDataPartitionRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        repository = newRepository();
+        repository.loadPartitions();
+    }
+
+    @Test
+    void testSaveAllRoutesRowsToDailyPartitions() {
+
+        repository.saveAll(List.of(
+                reading(DAY_1, 10.0),
+                reading(DAY_1.plusHours(1), 20.0),
+                reading(DAY_1.plusDays(1), 30.0)
+        ));
+
+
+        assertEquals(2, count("sensor_data_p20250110"));
+        assertEquals(1, count("sensor_data_p20250111"));
+    }
+
+    @Test
+    void testRangeQueryReadsOnlyOverlappingPartitions() {
+
+        repository.saveAll(List.of(
+                reading(DAY_1, 10.0),
+                reading(DAY_1.plusDays(1), 20.0),
+                reading(DAY_1.plusDays(2), 30.0)
+        ));
+
+
+        List<String> partitions = repository.partitionsOverlapping(DAY_1.plusDays(1).minusHours(1), DAY_1.plusDays(1));
+        List<SensorData> result = repository.findInRange("device-1", "temperature", DAY_1.plusDays(1).minusHours(1), DAY_1.plusDays(1));
+
+
+        assertEquals(List.of("sensor_data_p20250111"), partitions);
+        assertEquals(1, result.size());
+        assertEquals(20.0, result.get(0).getMetricValue());
+    }
+
+    @Test
+    void testScanReadingsInRangeStreamsPartitionsInTimeOrder() {
+
+        repository.saveAll(List.of(
+                reading(DAY_1.plusDays(1).plusHours(2), 40.0),
+                reading(DAY_1.plusHours(1), 20.0),
+                reading(DAY_1.plusDays(1), 30.0),
+                reading(DAY_1, 10.0),
+                reading(DAY_1.plusDays(2), 50.0)
+        ));
+        List<LocalDateTime> timestamps = new ArrayList<>();
+        List<Double> values = new ArrayList<>();
+
+
+        repository.scanReadingsInRange("device-1", "temperature", DAY_1, DAY_1.plusDays(1).plusHours(2), (timestamp, value) -> {
+            timestamps.add(timestamp);
+            values.add(value);
+        });
+
+
+        assertEquals(List.of(DAY_1, DAY_1.plusHours(1), DAY_1.plusDays(1), DAY_1.plusDays(1).plusHours(2)), timestamps);
+        assertEquals(List.of(10.0, 20.0, 30.0, 40.0), values);
+    }
+
+    @Test
+    void testFindStatsInRangeAcrossPartitions() {
+
+        repository.saveAll(List.of(
+                reading(DAY_1, 10.0),
+                reading(DAY_1.plusDays(1), 20.0),
+                reading(DAY_1.plusDays(2), 30.0),
+                reading(DAY_1.plusDays(3), 40.0)
+        ));
+
+
+        MetricStats stats = repository.findStatsInRange("device-1", "temperature", DAY_1, DAY_1.plusDays(3));
+        MetricStats empty = repository.findStatsInRange("device-1", "temperature", DAY_1.plusYears(1), DAY_1.plusYears(2));
+
+
+        assertEquals(4L, stats.getCount());
+        assertEquals(10.0, stats.getMin());
+        assertEquals(40.0, stats.getMax());
+        assertEquals(25.0, stats.getAvg());
+        assertEquals(25.0, stats.getMedian());
+        assertEquals(0L, empty.getCount());
+        assertNull(empty.getMedian());
+    }
+
+    @Test
+    void testExistingPartitionsAreLoadedOnStartup() {
+
+        repository.saveAll(List.of(reading(DAY_1, 10.0), reading(DAY_1.plusDays(1), 20.0)));
+
+
+        SensorDataPartitionRepository restarted = newRepository();
+        restarted.loadPartitions();
+
+
+        assertEquals(2, restarted.findAll("device-1", "temperature").size());
+    }
+
+    @Test
+    void testDropPartitionsBeforeCutoff() {
+
+        repository.saveAll(List.of(
+                reading(DAY_1, 10.0),
+                reading(DAY_1.plusDays(1), 20.0),
+                reading(DAY_1.plusDays(2), 30.0)
+        ));
+
+
+        int dropped = repository.dropPartitionsBefore(LocalDate.of(2025, 1, 12));
+
+
+        assertEquals(2, dropped);
+        List<SensorData> remaining = repository.findAll("device-1", "temperature");
+        assertEquals(1, remaining.size());
+        assertEquals(30.0, remaining.get(0).getMetricValue());
+        assertTrue(repository.partitionsOverlapping(DAY_1, DAY_1.plusDays(1)).isEmpty());
+    }
+
+    @Test
+    void testPartitionCreatedInRolledBackTransactionStaysUsable() {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+
+
+        assertThrows(IllegalStateException.class, () -> transaction.executeWithoutResult(status -> {
+            repository.saveAll(List.of(reading(DAY_1, 10.0)));
+            throw new IllegalStateException("batch failed");
+        }));
+        repository.saveAll(List.of(reading(DAY_1.plusHours(1), 20.0)));
+
+
+        assertEquals(1, count("sensor_data_p20250110"));
+        assertEquals(List.of("sensor_data_p20250110"), repository.partitionsOverlapping(DAY_1, DAY_1.plusHours(1)));
+    }
+
+    @Test
+    void testUnpartitionedRowsAreMovedIntoPartitionsOnStartup() {
+        SensorDimensionRepository dimensions = new SensorDimensionRepository(jdbcTemplate);
+        dimensions.load();
+        int device = dimensions.intern(SensorDimensionRepository.Dimension.DEVICE, "device-1");
+        int metric = dimensions.intern(SensorDimensionRepository.Dimension.METRIC, "temperature");
+        for (LocalDateTime timestamp : List.of(DAY_1, DAY_1.plusDays(1), DAY_1.plusDays(1).plusHours(1))) {
+            jdbcTemplate.update("INSERT INTO sensor_data (device_key, metric_key, metric_value, data_timestamp) VALUES (?, ?, ?, ?)",
+                    device, metric, 1.0, Timestamp.valueOf(timestamp));
+        }
+
+
+        SensorDataPartitionRepository restarted = newRepository();
+        restarted.loadPartitions();
+
+
+        assertEquals(0, count("sensor_data"));
+        assertEquals(1, count("sensor_data_p20250110"));
+        assertEquals(2, count("sensor_data_p20250111"));
+        assertEquals(3, restarted.findAll("device-1", "temperature").size());
+    }
+
+    private SensorDataPartitionRepository newRepository() {
+        StorageConfig storageConfig = new StorageConfig();
+        storageConfig.getPartitioning().setEnabled(true);
+        SensorDimensionRepository dimensions = new SensorDimensionRepository(jdbcTemplate);
+        dimensions.load();
+        return new SensorDataPartitionRepository(jdbcTemplate, storageConfig, new IngestConfig(), dimensions);
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+
+    private static SensorData reading(LocalDateTime timestamp, double value) {
+        return SensorData.builder()
+                .deviceId("device-1")
+                .metric("temperature")
+                .metricValue(value)
+                .dataTimestamp(timestamp)
+                .deviceType("thermostat")
+                .build();
+    }
+}
@@ -0,0 +1,85 @@
+package com.relay42.iot.stream.repository;
+
+import com.relay42.iot.stream.config.IngestConfig;
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.model.BulkStatsRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SensorDataStatsRepositoryTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 4, 10, 12, 0);
+
+    private SensorDataStatsRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        IngestConfig ingestConfig = new IngestConfig();
+        SensorDimensionRepository dimensions = new SensorDimensionRepository(new JdbcTemplate(dataSource));
+        new SensorDataBatchRepository(new JdbcTemplate(dataSource), ingestConfig, dimensions).saveAll(List.of(
+                reading("thermostat-1", "temperature", 20.0, NOW.minusHours(2), "thermostat"),
+                reading("thermostat-1", "temperature", 30.0, NOW.minusMinutes(30), "thermostat"),
+                reading("thermostat-1", "temperature", 40.0, NOW.minusMinutes(20), "thermostat"),
+                reading("thermostat-2", "temperature", 10.0, NOW.minusMinutes(20), "thermostat"),
+                reading("car-ecu-1", "fuel-level", 50.0, NOW.minusMinutes(10), "vehicle")));
+        repository = new SensorDataStatsRepository(new NamedParameterJdbcTemplate(dataSource), ingestConfig, dimensions);
+    }
+
+    @Test
+    void testFindGroupedStatsFiltersByTypeAndRange() {
+
+        BulkStatsRequest request = BulkStatsRequest.builder()
+                .deviceType("thermostat").from(NOW.minusHours(1)).to(NOW).build();
+
+
+        Map<String, Map<String, MetricStats>> stats = repository.findGroupedStats(List.of("sensor_data"), request);
+
+
+        assertEquals(2, stats.size());
+        MetricStats temperature = stats.get("thermostat-1").get("temperature");
+        assertEquals(2L, temperature.getCount());
+        assertEquals(35.0, temperature.getAvg());
+        assertEquals(35.0, temperature.getMedian());
+        assertEquals(10.0, stats.get("thermostat-2").get("temperature").getMax());
+    }
+
+    @Test
+    void testScanFiltersByDeviceIds() {
+
+        BulkStatsRequest request = BulkStatsRequest.builder()
+                .deviceIds(List.of("thermostat-2", "car-ecu-1")).build();
+        List<String> devices = new ArrayList<>();
+
+
+        repository.scan(List.of("sensor_data"), request, (deviceId, metric, timestamp, value) -> devices.add(deviceId));
+
+
+        assertEquals(List.of("car-ecu-1", "thermostat-2"), devices.stream().sorted().toList());
+    }
+
+    private static SensorData reading(String deviceId, String metric, double value, LocalDateTime timestamp, String deviceType) {
+        return SensorData.builder()
+                .deviceId(deviceId)
+                .metric(metric)
+                .metricValue(value)
+                .dataTimestamp(timestamp)
+                .deviceType(deviceType)
+                .build();
+    }
+}
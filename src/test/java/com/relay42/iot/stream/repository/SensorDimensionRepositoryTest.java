@@ -0,0 +1,195 @@
+package com.relay42.iot.stream.repository;
+
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.repository.SensorDimensionRepository.Dimension;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SensorDimensionRepositoryTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SensorDimensionRepository dimensions;
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        dimensions = newDimensions();
+    }
+
+    private SensorDimensionRepository newDimensions() {
+        SensorDimensionRepository repository = new SensorDimensionRepository(jdbcTemplate);
+        repository.load();
+        return repository;
+    }
+
+    private int rows(Dimension dimension) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + dimension.table(), Integer.class);
+    }
+
+    @Test
+    void testInternStoresEachNameOnce() {
+
+        int first = dimensions.intern(Dimension.DEVICE, "thermostat-1");
+        int again = dimensions.intern(Dimension.DEVICE, new String("thermostat-1"));
+        int other = dimensions.intern(Dimension.DEVICE, "thermostat-2");
+        int metric = dimensions.intern(Dimension.METRIC, "thermostat-1");
+
+
+        assertEquals(first, again);
+        assertNotEquals(first, other);
+        assertEquals(2, rows(Dimension.DEVICE));
+        assertEquals(1, rows(Dimension.METRIC));
+        assertEquals("thermostat-1", dimensions.nameOf(Dimension.METRIC, metric));
+        assertNull(dimensions.intern(Dimension.DEVICE_TYPE, null));
+    }
+
+    @Test
+    void testKeysAreSharedBetweenInstances() {
+
+        int key = dimensions.intern(Dimension.METRIC, "temperature");
+        SensorDimensionRepository other = newDimensions();
+        int late = dimensions.intern(Dimension.METRIC, "humidity");
+
+
+        assertEquals(key, other.keyOf(Dimension.METRIC, "temperature"));
+        assertEquals("humidity", other.nameOf(Dimension.METRIC, late));
+        assertEquals(late, other.intern(Dimension.METRIC, "humidity"));
+        assertEquals(2, rows(Dimension.METRIC));
+    }
+
+    @Test
+    void testUnknownNamesAreNotStored() {
+
+        int key = dimensions.keyOf(Dimension.DEVICE, "missing");
+        List<Integer> keys = dimensions.keysOf(Dimension.DEVICE, List.of("missing", "also-missing"));
+
+
+        assertEquals(SensorDimensionRepository.UNKNOWN_KEY, key);
+        assertEquals(List.of(SensorDimensionRepository.UNKNOWN_KEY), keys);
+        assertEquals(0, rows(Dimension.DEVICE));
+        assertThrows(IllegalStateException.class, () -> dimensions.nameOf(Dimension.DEVICE, 42));
+        assertNull(dimensions.nameOfNullable(Dimension.DEVICE_TYPE, SensorDimensionRepository.UNKNOWN_KEY));
+    }
+
+    @Test
+    void testInternAllMakesDecodedNamesShareOneInstance() {
+
+        List<SensorData> readings = List.of(reading("car-ecu-1", "vehicle"), reading("car-ecu-1", null));
+        assertFalse(dimensions.isInterned(readings));
+
+
+        dimensions.internAll(readings);
+
+
+        assertTrue(dimensions.isInterned(readings));
+        int key = dimensions.keyOf(Dimension.DEVICE, "car-ecu-1");
+        assertSame(dimensions.nameOf(Dimension.DEVICE, key), dimensions.nameOf(Dimension.DEVICE, key));
+        assertSame(readings.get(0).getDeviceId(), dimensions.nameOf(Dimension.DEVICE, key));
+        assertEquals(1, rows(Dimension.DEVICE_TYPE));
+    }
+
+    @Test
+    void testKeysStoredByARolledBackTransactionAreNotCached() {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+
+
+        int pending = transaction.execute(status -> {
+            int key = dimensions.intern(Dimension.DEVICE, "rolled-back");
+            assertEquals(key, dimensions.intern(Dimension.DEVICE, "rolled-back"));
+            assertEquals(key, dimensions.keyOf(Dimension.DEVICE, "rolled-back"));
+            status.setRollbackOnly();
+            return key;
+        });
+        int committed = transaction.execute(status -> dimensions.intern(Dimension.DEVICE, "committed"));
+
+
+        assertNotEquals(SensorDimensionRepository.UNKNOWN_KEY, pending);
+        assertEquals(SensorDimensionRepository.UNKNOWN_KEY, dimensions.keyOf(Dimension.DEVICE, "rolled-back"));
+        assertEquals(committed, dimensions.keyOf(Dimension.DEVICE, "committed"));
+        assertEquals(1, rows(Dimension.DEVICE));
+    }
+
+    @Test
+    void testKeysOfResolvesUncachedNamesAndForgetsUnknownOnesOnceStored() {
+        int temperature = dimensions.intern(Dimension.METRIC, "temperature");
+        SensorDimensionRepository other = newDimensions();
+        assertEquals(SensorDimensionRepository.UNKNOWN_KEY, other.keyOf(Dimension.METRIC, "humidity"));
+        int humidity = dimensions.intern(Dimension.METRIC, "humidity");
+
+
+        List<Integer> keys = other.keysOf(Dimension.METRIC, List.of("temperature", "humidity", "co2"));
+        int stored = other.intern(Dimension.METRIC, "humidity");
+
+
+        assertEquals(List.of(temperature), keys);
+        assertEquals(humidity, stored);
+        assertEquals(humidity, other.keyOf(Dimension.METRIC, "humidity"));
+        assertEquals(List.of(temperature, humidity), other.keysOf(Dimension.METRIC, List.of("temperature", "humidity")));
+        assertEquals(2, rows(Dimension.METRIC));
+    }
+
+    @Test
+    void testLoadMigratesTablesStoringNamesInEveryRow() {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        for (String table : List.of("sensor_data", "sensor_data_p20250410")) {
+            jdbcTemplate.execute("CREATE TABLE " + table + " (id BIGINT AUTO_INCREMENT PRIMARY KEY, device_id VARCHAR(255) NOT NULL, "
+                    + "metric VARCHAR(255) NOT NULL, metric_value DOUBLE NOT NULL, device_type VARCHAR(255), data_timestamp TIMESTAMP NOT NULL)");
+            jdbcTemplate.execute("CREATE INDEX idx_" + table + "_device_metric_ts ON " + table + " (device_id, metric, data_timestamp)");
+            jdbcTemplate.update("INSERT INTO " + table + " (device_id, metric, metric_value, device_type, data_timestamp) VALUES "
+                    + "('thermostat-1', 'temperature', 21.0, 'thermostat', TIMESTAMP '2025-04-10 08:00:00'), "
+                    + "('car-ecu-1', 'temperature', 90.0, NULL, TIMESTAMP '2025-04-10 09:00:00')");
+        }
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+
+
+        dimensions = newDimensions();
+
+
+        assertEquals(2, rows(Dimension.DEVICE));
+        assertEquals(1, rows(Dimension.METRIC));
+        assertEquals(1, rows(Dimension.DEVICE_TYPE));
+        for (String table : List.of("sensor_data", "sensor_data_p20250410")) {
+            List<String> readings = jdbcTemplate.query("SELECT device_key, metric_key, device_type_key FROM " + table + " ORDER BY id",
+                    (rs, rowNum) -> dimensions.nameOf(Dimension.DEVICE, rs.getInt(1)) + "/" + dimensions.nameOf(Dimension.METRIC, rs.getInt(2))
+                            + "/" + dimensions.nameOfNullable(Dimension.DEVICE_TYPE, rs.getInt(3)));
+            assertEquals(List.of("thermostat-1/temperature/thermostat", "car-ecu-1/temperature/null"), readings);
+            assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_NAME = ? "
+                    + "AND COLUMN_NAME IN ('DEVICE_ID', 'METRIC', 'DEVICE_TYPE')", Integer.class, table.toUpperCase()));
+            assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEX_COLUMNS WHERE TABLE_NAME = ? "
+                    + "AND INDEX_NAME = ? AND COLUMN_NAME = 'DEVICE_KEY'", Integer.class, table.toUpperCase(),
+                    ("idx_" + table + "_device_metric_ts").toUpperCase()));
+        }
+    }
+
+    private static SensorData reading(String deviceId, String deviceType) {
+        return SensorData.builder()
+                .deviceId(deviceId)
+                .metric("fuel-level")
+                .metricValue(50.0)
+                .dataTimestamp(LocalDateTime.of(2025, 4, 10, 10, 0))
+                .deviceType(deviceType)
+                .build();
+    }
+}
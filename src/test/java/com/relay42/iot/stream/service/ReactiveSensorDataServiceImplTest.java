@@ -0,0 +1,180 @@
+package com.relay42.iot.stream.service;
+
+import com.relay42.iot.stream.aggregation.AggregationMetrics;
+import com.relay42.iot.stream.aggregation.AggregationStrategyFactory;
+import com.relay42.iot.stream.aggregation.Precision;
+import com.relay42.iot.stream.aggregation.RollupStore;
+import com.relay42.iot.stream.aggregation.RunningAggregateStore;
+import com.relay42.iot.stream.cache.StatsCache;
+import com.relay42.iot.stream.config.AggregationConfig;
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.repository.DatabaseCapabilities;
+import com.relay42.iot.stream.repository.MetricStats;
+import com.relay42.iot.stream.repository.MetricStatsValue;
+import com.relay42.iot.stream.repository.ReactiveSensorDataRepository;
+import com.relay42.iot.stream.repository.ReactiveSensorDataRepository.TimedValue;
+import com.relay42.iot.stream.repository.SensorDataPartitionRepository;
+import com.relay42.iot.stream.service.impl.ReactiveSensorDataServiceImpl;
+import com.relay42.iot.stream.storage.HotWindowStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+class ReactiveSensorDataServiceImplTest {
+
+    @Mock
+    private ReactiveSensorDataRepository repository;
+
+    @Mock
+    private SensorDataService blockingService;
+
+    @Mock
+    private RunningAggregateStore runningAggregates;
+
+    @Mock
+    private RollupStore rollupStore;
+
+    @Mock
+    private DatabaseCapabilities databaseCapabilities;
+
+    @Mock
+    private SensorDataPartitionRepository partitionRepository;
+
+    @Mock
+    private StatsCache statsCache;
+
+    @Mock
+    private HotWindowStore hotWindow;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private AggregationMetrics aggregationMetrics = new AggregationMetrics(meterRegistry,
+            new AggregationStrategyFactory(List.of(), new AggregationConfig()));
+
+    @InjectMocks
+    private ReactiveSensorDataServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testSaveSensorDataStreamRecordsAfterCommit() {
+
+        List<SensorData> batch = List.of(
+                SensorData.builder().deviceId("device-1").metric("temperature").metricValue(25.5).build(),
+                SensorData.builder().deviceId("device-2").metric("temperature").metricValue(26.0).build()
+        );
+        when(repository.saveAll(any())).thenAnswer(invocation -> {
+            Flux<SensorData> readings = invocation.getArgument(0);
+            return readings.count().map(Long::intValue);
+        });
+
+
+        Mono<Integer> saved = service.saveSensorDataStream(Flux.fromIterable(batch));
+
+
+        verify(runningAggregates, never()).record(any());
+        assertEquals(2, saved.block());
+        verify(runningAggregates, times(1)).record(batch);
+        verify(hotWindow, times(1)).record(batch);
+        verify(statsCache, times(1)).invalidate(batch);
+    }
+
+    @Test
+    void testFailedStreamIsNotRecorded() {
+
+        when(repository.saveAll(any())).thenAnswer(invocation -> {
+            Flux<SensorData> readings = invocation.getArgument(0);
+            return readings.count().map(Long::intValue);
+        });
+        Flux<SensorData> readings = Flux.concat(
+                Flux.just(SensorData.builder().deviceId("device-1").metric("temperature").metricValue(25.5).build()),
+                Flux.error(new IllegalStateException("connection reset")));
+
+
+        assertThrows(IllegalStateException.class, () -> service.saveSensorDataStream(readings).block());
+
+
+        verify(runningAggregates, never()).record(any());
+        verify(statsCache, never()).invalidate(any());
+    }
+
+    @Test
+    void testGetStatsInRangeFromHotWindow() {
+
+        LocalDateTime from = LocalDateTime.now().minusHours(1);
+        LocalDateTime to = LocalDateTime.now();
+        MetricStats stats = mock(MetricStats.class);
+        when(hotWindow.getStatsInRange("device-1", "temperature", from, to)).thenReturn(stats);
+
+
+        MetricStats result = service.getStatsInRange("device-1", "temperature", from, to, Precision.APPROX).block();
+
+
+        assertSame(stats, result);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void testGetStatsInRangePushedDown() {
+
+        LocalDateTime from = LocalDateTime.now().minusDays(7);
+        LocalDateTime to = LocalDateTime.now();
+        MetricStats stats = new MetricStatsValue(3L, 10.0, 30.0, 20.0, 20.0);
+        when(databaseCapabilities.supportsAggregatePushdown()).thenReturn(true);
+        when(repository.findStatsByDeviceIdAndMetricAndTimestampRange("device-1", "temperature", from, to))
+                .thenReturn(Mono.just(stats));
+
+
+        MetricStats result = service.getStatsInRange("device-1", "temperature", from, to, Precision.APPROX).block();
+
+
+        assertSame(stats, result);
+        verify(repository, never()).findValuesInRange(any(), any(), any(), any());
+    }
+
+    @Test
+    void testGetStatsInRangeWithoutPushdownFoldsStream() {
+
+        LocalDateTime from = LocalDateTime.now().minusDays(7);
+        LocalDateTime to = LocalDateTime.now();
+        when(databaseCapabilities.supportsAggregatePushdown()).thenReturn(false);
+        when(repository.findValuesInRange("device-1", "temperature", from, to)).thenReturn(Flux.just(
+                new TimedValue(from, 20.0), new TimedValue(from.plusHours(1), 24.0), new TimedValue(to, 28.0)));
+
+
+        MetricStats result = service.getStatsInRange("device-1", "temperature", from, to, Precision.EXACT).block();
+
+
+        assertEquals(3L, result.getCount());
+        assertEquals(24.0, result.getAvg());
+        assertEquals(24.0, result.getMedian());
+    }
+
+    @Test
+    void testPartitioningIsRejected() {
+
+        when(partitionRepository.isEnabled()).thenReturn(true);
+
+
+        assertThrows(IllegalStateException.class, () -> service.checkConfiguration());
+    }
+}
@@ -1,18 +1,47 @@
 package com.relay42.iot.stream.service;
 
+import com.relay42.iot.stream.aggregation.AggregationMetrics;
+import com.relay42.iot.stream.aggregation.AggregationStrategyFactory;
+import com.relay42.iot.stream.aggregation.RollupStore;
+import com.relay42.iot.stream.aggregation.TemperatureAggregationStrategy;
+import com.relay42.iot.stream.aggregation.RunningAggregateStore;
+import com.relay42.iot.stream.cache.StatsCache;
+import com.relay42.iot.stream.config.AggregationConfig;
 import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.model.BulkStatsRequest;
+import com.relay42.iot.stream.model.MetricSummary;
+import com.relay42.iot.stream.model.SeriesPoint;
+import com.relay42.iot.stream.repository.DatabaseCapabilities;
+import com.relay42.iot.stream.repository.MetricStats;
+import com.relay42.iot.stream.repository.MetricStatsValue;
+import com.relay42.iot.stream.repository.SensorDataBatchRepository;
+import com.relay42.iot.stream.repository.SensorDataPartitionRepository;
 import com.relay42.iot.stream.repository.SensorDataRepository;
+import com.relay42.iot.stream.repository.SensorDataSeriesRepository;
+import com.relay42.iot.stream.repository.SensorDataStatsRepository;
 import com.relay42.iot.stream.service.impl.SensorDataServiceImpl;
+import com.relay42.iot.stream.storage.HotWindowStore;
+import com.relay42.iot.stream.util.DoubleList;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.ObjDoubleConsumer;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
@@ -21,9 +50,55 @@ class SensorDataServiceImplTest {
     @Mock
     private SensorDataRepository repository;
 
+    @Mock
+    private SensorDataBatchRepository batchRepository;
+
+    @Mock
+    private RunningAggregateStore runningAggregates;
+
+    @Mock
+    private RollupStore rollupStore;
+
+    @Mock
+    private DatabaseCapabilities databaseCapabilities;
+
+    @Mock
+    private SensorDataPartitionRepository partitionRepository;
+
+    @Mock
+    private SensorDataSeriesRepository seriesRepository;
+
+    @Mock
+    private StatsCache statsCache;
+
+    @Mock
+    private HotWindowStore hotWindow;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private SensorDataStatsRepository statsRepository;
+
+    @Spy
+    private AggregationStrategyFactory strategyFactory = new AggregationStrategyFactory(
+            List.of(new TemperatureAggregationStrategy()), fuelLevelAggregates());
+
+    @Spy
+    private AggregationMetrics aggregationMetrics = new AggregationMetrics(meterRegistry,
+            new AggregationStrategyFactory(List.of(), new AggregationConfig()));
+
     @InjectMocks
     private SensorDataServiceImpl service;
 
+    private static AggregationConfig fuelLevelAggregates() {
+        AggregationConfig config = new AggregationConfig();
+        config.getStrategies().getMetrics().put("fuel-level", List.of("count", "min", "max", "avg", "rate"));
+        return config;
+    }
+
     @BeforeEach
     void setUp() {
 
@@ -44,6 +119,29 @@ class SensorDataServiceImplTest {
 
 
         verify(repository, times(1)).save(sensorData);
+        verify(runningAggregates, times(1)).record(List.of(sensorData));
+        verify(hotWindow, times(1)).record(List.of(sensorData));
+        verify(statsCache, times(1)).invalidate(List.of(sensorData));
+    }
+
+    @Test
+    void testSaveSensorDataBatch() {
+
+        List<SensorData> batch = List.of(
+                SensorData.builder().deviceId("device-1").metric("temperature").metricValue(25.5).build(),
+                SensorData.builder().deviceId("device-2").metric("temperature").metricValue(26.0).build()
+        );
+        when(batchRepository.saveAll(batch)).thenReturn(2);
+
+
+        int saved = service.saveSensorDataBatch(batch);
+
+
+        assertEquals(2, saved);
+        verify(batchRepository, times(1)).saveAll(batch);
+        verify(repository, never()).save(any());
+        verify(runningAggregates, times(1)).record(batch);
+        verify(statsCache, times(1)).invalidate(batch);
     }
 
     @Test
@@ -81,4 +179,223 @@ class SensorDataServiceImplTest {
         assertTrue(result.isEmpty());
         verify(repository, times(1)).findByDeviceIdAndMetric(deviceId, metric);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetStatsInRangePushedDown() {
+
+        LocalDateTime from = LocalDateTime.now().minusDays(1);
+        LocalDateTime to = LocalDateTime.now();
+        MetricStats stats = mock(MetricStats.class);
+        when(databaseCapabilities.supportsAggregatePushdown()).thenReturn(true);
+        when(repository.findStatsByDeviceIdAndMetricAndTimestampRange("device-1", "temperature", from, to)).thenReturn(stats);
+
+
+        MetricStats result = service.getStatsInRange("device-1", "temperature", from, to);
+
+
+        assertSame(stats, result);
+    }
+
+    @Test
+    void testGetStatsInRangeWithoutPushdownFoldsCursor() {
+
+        LocalDateTime from = LocalDateTime.now().minusDays(1);
+        LocalDateTime to = LocalDateTime.now();
+        SensorData first = SensorData.builder().deviceId("device-1").metric("temperature").metricValue(20.0).dataTimestamp(from).build();
+        SensorData second = SensorData.builder().deviceId("device-1").metric("temperature").metricValue(24.0).dataTimestamp(to).build();
+        when(databaseCapabilities.supportsAggregatePushdown()).thenReturn(false);
+        when(repository.streamByDeviceIdAndMetricAndTimestampRange("device-1", "temperature", from, to))
+                .thenReturn(Stream.of(first, second));
+
+
+        MetricStats result = service.getStatsInRange("device-1", "temperature", from, to);
+
+
+        assertEquals(2L, result.getCount());
+        assertEquals(22.0, result.getAvg());
+        assertEquals(22.0, result.getMedian());
+        verify(entityManager, times(1)).detach(first);
+        verify(entityManager, times(1)).detach(second);
+        verify(repository, never()).findByDeviceIdAndMetricAndTimestampRange(any(), any(), any(), any());
+        assertEquals(1, meterRegistry.get("aggregation.duration").tag("source", "fold").tag("strategy", "configurable").timer().count());
+        assertEquals(2.0, meterRegistry.get("aggregation.rows").tag("source", "fold").summary().totalAmount());
+    }
+
+    @Test
+    void testGetBulkStatsSummarizesRunningAggregatesWithEachStrategy() {
+
+        BulkStatsRequest request = BulkStatsRequest.builder().deviceIds(List.of("device-1")).build();
+        when(runningAggregates.getStats(List.of("device-1"), null)).thenReturn(Map.of("device-1", Map.of(
+                "temperature", new MetricStatsValue(3L, 10.0, 30.0, 20.0, 20.0),
+                "humidity", new MetricStatsValue(2L, 40.0, 50.0, 45.0, 45.0))));
+
+
+        Map<String, Map<String, MetricSummary>> result = service.getBulkStats(request);
+
+
+        MetricSummary temperature = result.get("device-1").get("temperature");
+        assertEquals(20.0, temperature.getMedian());
+        assertEquals(45.0, result.get("device-1").get("humidity").getAvg());
+        verify(statsRepository, never()).scan(any(), any(), any());
+    }
+
+    @Test
+    void testGetBulkStatsScansMetricsWhoseStrategyNeedsReadings() {
+
+        LocalDateTime from = LocalDateTime.of(2025, 1, 10, 0, 0);
+        BulkStatsRequest request = BulkStatsRequest.builder()
+                .deviceType("vehicle")
+                .from(from)
+                .to(from.plusHours(1))
+                .build();
+        when(databaseCapabilities.supportsAggregatePushdown()).thenReturn(true);
+        when(statsRepository.findGroupedStats(List.of("sensor_data"), request)).thenReturn(Map.of("car-1", Map.of(
+                "temperature", new MetricStatsValue(1L, 80.0, 80.0, 80.0, 80.0),
+                "fuel-level", new MetricStatsValue(2L, 40.0, 50.0, 45.0, 45.0))));
+        doAnswer(invocation -> {
+            BulkStatsRequest scanned = invocation.getArgument(1);
+            assertEquals(List.of("fuel-level"), scanned.getMetrics());
+            assertEquals("vehicle", scanned.getDeviceType());
+            SensorDataBatchRepository.ValueConsumer consumer = invocation.getArgument(2);
+            consumer.accept("car-1", "fuel-level", from, 50.0);
+            consumer.accept("car-1", "fuel-level", from.plusSeconds(10), 40.0);
+            return null;
+        }).when(statsRepository).scan(eq(List.of("sensor_data")), any(), any());
+
+
+        Map<String, Map<String, MetricSummary>> result = service.getBulkStats(request);
+
+
+        assertEquals(80.0, result.get("car-1").get("temperature").getMax());
+        MetricSummary fuelLevel = result.get("car-1").get("fuel-level");
+        assertEquals(2L, fuelLevel.getCount());
+        assertEquals(-1.0, fuelLevel.getRateOfChange());
+        assertEquals(45.0, fuelLevel.getAvg());
+        assertNull(fuelLevel.getMedian());
+    }
+
+    @Test
+    void testGetExactStatsInRangeSkipsRollups() {
+
+        LocalDateTime from = LocalDateTime.now().minusDays(30);
+        LocalDateTime to = LocalDateTime.now();
+        MetricStats stats = new MetricStatsValue(3L, 10.0, 30.0, 20.0, 20.0);
+        when(rollupStore.isEnabled()).thenReturn(true);
+        when(databaseCapabilities.supportsAggregatePushdown()).thenReturn(true);
+        when(repository.findStatsByDeviceIdAndMetricAndTimestampRange("device-1", "temperature", from, to)).thenReturn(stats);
+
+
+        MetricStats result = service.getExactStatsInRange("device-1", "temperature", from, to);
+
+
+        assertEquals(stats, result);
+        verify(rollupStore, never()).getStatsInRange(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testGetDataInRangeReadsPartitionsWhenEnabled() {
+
+        LocalDateTime from = LocalDateTime.now().minusDays(1);
+        LocalDateTime to = LocalDateTime.now();
+        when(partitionRepository.isEnabled()).thenReturn(true);
+        when(partitionRepository.findInRange("device-1", "temperature", from, to)).thenReturn(List.of());
+
+
+        List<SensorData> result = service.getDataInRange("device-1", "temperature", from, to);
+
+
+        assertTrue(result.isEmpty());
+        verify(repository, never()).findByDeviceIdAndMetricAndTimestampRange(any(), any(), any(), any());
+    }
+
+    @Test
+    void testScanReadingsInRangeStreamsPartitionsWhenEnabled() {
+
+        LocalDateTime from = LocalDateTime.now().minusDays(3);
+        LocalDateTime to = LocalDateTime.now().minusDays(2);
+        when(partitionRepository.isEnabled()).thenReturn(true);
+        ObjDoubleConsumer<LocalDateTime> consumer = (timestamp, value) -> { };
+
+
+        service.scanReadingsInRange("device-1", "temperature", from, to, consumer);
+
+
+        verify(partitionRepository).scanReadingsInRange("device-1", "temperature", from, to, consumer);
+        verify(partitionRepository, never()).findInRange(any(), any(), any(), any());
+    }
+
+    @Test
+    void testGetValuesInRangeSelectsOnlyValues() {
+
+        LocalDateTime from = LocalDateTime.now().minusDays(3);
+        LocalDateTime to = LocalDateTime.now();
+        DoubleList values = new DoubleList();
+        values.add(21.5);
+        when(seriesRepository.findValues("device-1", "temperature", from, to)).thenReturn(values);
+
+
+        DoubleList result = service.getValuesInRange("device-1", "temperature", from, to);
+
+
+        assertSame(values, result);
+        verify(repository, never()).findByDeviceIdAndMetricAndTimestampRange(any(), any(), any(), any());
+    }
+
+    @Test
+    void testGetStatsInRangeFromHotWindow() {
+
+        LocalDateTime from = LocalDateTime.now().minusHours(1);
+        LocalDateTime to = LocalDateTime.now();
+        MetricStats stats = mock(MetricStats.class);
+        when(rollupStore.isEnabled()).thenReturn(true);
+        when(hotWindow.getStatsInRange("device-1", "temperature", from, to)).thenReturn(stats);
+
+
+        MetricStats result = service.getStatsInRange("device-1", "temperature", from, to);
+
+
+        assertSame(stats, result);
+        verify(rollupStore, never()).getStatsInRange(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testGetStatsInRangeFromRollups() {
+
+        LocalDateTime from = LocalDateTime.now().minusDays(7);
+        LocalDateTime to = LocalDateTime.now();
+        MetricStats stats = mock(MetricStats.class);
+        when(rollupStore.isEnabled()).thenReturn(true);
+        when(rollupStore.getStatsInRange(eq("device-1"), eq("temperature"), eq(from), eq(to), any())).thenReturn(stats);
+
+
+        MetricStats result = service.getStatsInRange("device-1", "temperature", from, to);
+
+
+        assertSame(stats, result);
+        verify(repository, never()).findStatsByDeviceIdAndMetricAndTimestampRange(any(), any(), any(), any());
+    }
+
+    @Test
+    void testGetSeriesBucketsStreamedReadingsWithoutPushdown() {
+
+        LocalDateTime from = LocalDateTime.of(2025, 4, 10, 8, 0);
+        LocalDateTime to = from.plusHours(1);
+        when(seriesRepository.supportsBucketPushdown()).thenReturn(false);
+        doAnswer(invocation -> {
+            SensorDataBatchRepository.ValueConsumer consumer = invocation.getArgument(4);
+            consumer.accept("device-1", "temperature", from.plusMinutes(1), 10.0);
+            consumer.accept("device-1", "temperature", from.plusMinutes(2), 20.0);
+            consumer.accept("device-1", "temperature", from.plusMinutes(31), 30.0);
+            return null;
+        }).when(seriesRepository).scanRange(eq("device-1"), eq("temperature"), eq(from), eq(to), any());
+
+
+        List<SeriesPoint> result = service.getSeries("device-1", "temperature", from, to, Duration.ofMinutes(30), List.of("max"));
+
+
+        assertEquals(2, result.size());
+        assertEquals(20.0, result.get(0).getMax());
+        assertEquals(30.0, result.get(1).getMax());
+        verify(seriesRepository, never()).findBuckets(any(), any(), any(), any(), any(), any());
+    }
+}
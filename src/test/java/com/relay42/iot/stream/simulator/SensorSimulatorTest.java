@@ -0,0 +1,173 @@
+package com.relay42.iot.stream.simulator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.relay42.iot.stream.config.IngestConfig;
+import com.relay42.iot.stream.model.SensorRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SensorSimulatorTest {
+
+    private SimulatorConfig config;
+    private SensorSimulator simulator;
+
+    @BeforeEach
+    void setUp() {
+        config = new SimulatorConfig();
+        config.setMaxRecords(60);
+        simulator = new SensorSimulator(config, new IngestConfig(), new ObjectMapper(), null,
+                new SimpleAsyncTaskExecutorBuilder());
+    }
+
+    /**
+     * Completes each send after a short delay on another thread, like a real sink, and tracks what it received.
+     */
+    private static class RecordingSink implements LoadSink {
+
+        private final List<SensorRequest> received = new CopyOnWriteArrayList<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private final boolean failing;
+
+        RecordingSink(boolean failing) {
+            this.failing = failing;
+        }
+
+        @Override
+        public CompletableFuture<?> send(SensorRequest request) {
+            received.add(request);
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            return CompletableFuture.runAsync(() -> {
+                inFlight.decrementAndGet();
+                if (failing) {
+                    throw new IllegalStateException("HTTP 503");
+                }
+            }, CompletableFuture.delayedExecutor(2, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    void testOpenLoopSendsMaxRecordsRoundRobinAcrossDevices() {
+
+        config.setRate(2000);
+        config.setDevices(6);
+        RecordingSink sink = new RecordingSink(false);
+
+
+        LatencyReport report = simulator.run(sink);
+
+
+        assertEquals(60, sink.received.size());
+        assertEquals(60, report.getSucceeded());
+        assertEquals(0, report.getFailed());
+        assertEquals(6, sink.received.stream().map(SensorRequest::getDeviceId).distinct().count());
+        assertEquals("thermostat-1", sink.received.get(0).getDeviceId());
+        assertEquals("heartrate-1", sink.received.get(1).getDeviceId());
+        assertEquals("car-ecu-2", sink.received.get(5).getDeviceId());
+        assertTrue(report.percentileMillis(50) > 0);
+    }
+
+    @Test
+    void testClosedLoopNeverExceedsConcurrency() {
+
+        config.setLoop(SimulatorConfig.Loop.CLOSED);
+        config.setConcurrency(4);
+        RecordingSink sink = new RecordingSink(false);
+
+
+        LatencyReport report = simulator.run(sink);
+
+
+        assertEquals(60, report.getSucceeded());
+        assertTrue(sink.maxInFlight.get() <= 4);
+    }
+
+    @Test
+    void testFailuresAreCountedSeparately() {
+
+        config.setLoop(SimulatorConfig.Loop.CLOSED);
+        config.setConcurrency(2);
+        RecordingSink sink = new RecordingSink(true);
+
+
+        LatencyReport report = simulator.run(sink);
+
+
+        assertEquals(0, report.getSucceeded());
+        assertEquals(60, report.getFailed());
+    }
+
+    @Test
+    void testSynchronouslyFailingSinkDoesNotRecurse() {
+
+        config.setLoop(SimulatorConfig.Loop.CLOSED);
+        config.setConcurrency(1);
+        config.setMaxRecords(100_000);
+
+
+        LatencyReport report = simulator.run(request -> CompletableFuture.failedFuture(new IllegalStateException()));
+
+
+        assertEquals(100_000, report.getFailed());
+    }
+
+    @Test
+    void testDurationStopsAnUnboundedRun() {
+
+        config.setMaxRecords(0);
+        config.setRate(200);
+        config.setAllowSpikes(true);
+        config.setDuration(Duration.ofMillis(200));
+        RecordingSink sink = new RecordingSink(false);
+
+
+        LatencyReport report = simulator.run(sink);
+
+
+        assertEquals(sink.received.size(), report.getSucceeded());
+        assertTrue(report.getSucceeded() > 0);
+    }
+
+    @Test
+    void testStopInterruptsARunOnItsOwnThread() {
+
+        config.setMaxRecords(0);
+        config.setRate(1);
+        List<String> threads = new CopyOnWriteArrayList<>();
+        CountDownLatch firstSend = new CountDownLatch(1);
+
+
+        simulator.start(request -> {
+            threads.add(Thread.currentThread().getName());
+            firstSend.countDown();
+            return CompletableFuture.completedFuture(null);
+        });
+        assertTrue(await(firstSend));
+        simulator.stop();
+
+
+        assertEquals(1, threads.size());
+        assertTrue(threads.get(0).startsWith("sensor-simulator-"));
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.relay42.iot.stream.socket;
+
+import com.relay42.iot.stream.entity.SensorData;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class LineProtocolParserTest {
+
+    private final LineProtocolParser parser = new LineProtocolParser(16);
+
+    private SensorData parse(String line) {
+        ByteBuf buf = Unpooled.copiedBuffer(line, StandardCharsets.UTF_8);
+        try {
+            return parser.parse(buf, buf.readerIndex(), buf.writerIndex());
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static double parseDouble(String field) {
+        ByteBuf buf = Unpooled.copiedBuffer(field, StandardCharsets.US_ASCII);
+        return LineProtocolParser.parseDouble(buf, 0, buf.writerIndex());
+    }
+
+    @Test
+    void testParsesAllFields() {
+
+        SensorData data = parse("thermostat-1,temperature,21.5,1744279200250,thermostat");
+
+
+        assertEquals("thermostat-1", data.getDeviceId());
+        assertEquals("temperature", data.getMetric());
+        assertEquals(21.5, data.getMetricValue());
+        assertEquals(LocalDateTime.of(2025, 4, 10, 10, 0, 0, 250_000_000), data.getDataTimestamp());
+        assertEquals("thermostat", data.getDeviceType());
+    }
+
+    @Test
+    void testDeviceTypeIsOptional() {
+
+        SensorData withoutType = parse("car-ecu-1,fuel-level,-3,0");
+        SensorData emptyType = parse("car-ecu-1,fuel-level,-3,0,");
+
+
+        assertNull(withoutType.getDeviceType());
+        assertEquals(-3.0, withoutType.getMetricValue());
+        assertEquals(LocalDateTime.of(1970, 1, 1, 0, 0), withoutType.getDataTimestamp());
+        assertNull(emptyType.getDeviceType());
+    }
+
+    @Test
+    void testRejectsMalformedLines() {
+
+        assertNull(parse("device-1,temperature,21.5"));
+        assertNull(parse(",temperature,21.5,1000"));
+        assertNull(parse("device-1,,21.5,1000"));
+        assertNull(parse("device-1,temperature,,1000"));
+        assertNull(parse("device-1,temperature,warm,1000"));
+        assertNull(parse("device-1,temperature,NaN,1000"));
+        assertNull(parse("device-1,temperature,21.5,-1000"));
+        assertNull(parse("device-1,temperature,21.5,2025-04-10T10:00:00"));
+        assertNull(parse("device-1,temperature,21.5,1000,thermostat,extra"));
+    }
+
+    @Test
+    void testDecimalParsingMatchesDoubleParseDouble() {
+
+        String[] fields = {"0", "0.1", "21.5", "-12.375", "+7", "99.99999999", "123456789.123456789",
+                "1e3", "-2.5E-4", "0.30000000000000004", "12345678901234567890"};
+
+
+        for (String field : fields) {
+            assertEquals(Double.parseDouble(field), parseDouble(field), field);
+        }
+    }
+
+    @Test
+    void testRepeatedIdentifiersAreReused() {
+
+        SensorData first = parse("thermostat-1,temperature,21.5,1000,thermostat");
+        SensorData second = parse("thermostat-1,temperature,22.0,2000,thermostat");
+
+
+        assertSame(first.getDeviceId(), second.getDeviceId());
+        assertSame(first.getMetric(), second.getMetric());
+        assertSame(first.getDeviceType(), second.getDeviceType());
+    }
+}
@@ -0,0 +1,152 @@
+package com.relay42.iot.stream.storage;
+
+import com.relay42.iot.stream.config.StorageConfig;
+import com.relay42.iot.stream.entity.SensorData;
+import com.relay42.iot.stream.repository.MetricStats;
+import com.relay42.iot.stream.repository.SensorDataBatchRepository;
+import com.relay42.iot.stream.repository.SensorDataPartitionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+class HotWindowStoreTest {
+
+    @Mock
+    private SensorDataBatchRepository batchRepository;
+
+    @Mock
+    private SensorDataPartitionRepository partitionRepository;
+
+    @Spy
+    private StorageConfig config = new StorageConfig();
+
+    @InjectMocks
+    private HotWindowStore store;
+
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    @Test
+    void testStatsInRangeAreServedFromMemory() {
+        store.rebuild();
+        store.record(List.of(
+                reading("device-1", now.minusMinutes(50), 20.0),
+                reading("device-1", now.minusMinutes(40), 26.0),
+                reading("device-1", now.minusMinutes(30), 21.0),
+                reading("device-1", now.minusMinutes(20), 23.0),
+                reading("device-2", now.minusMinutes(30), 99.0)));
+
+
+        MetricStats stats = store.getStatsInRange("device-1", "temperature", now.minusMinutes(40), now);
+        MetricStats empty = store.getStatsInRange("device-3", "temperature", now.minusMinutes(40), now);
+
+
+        assertEquals(3L, stats.getCount());
+        assertEquals(21.0, stats.getMin());
+        assertEquals(26.0, stats.getMax());
+        assertEquals(70.0 / 3, stats.getAvg(), 1e-9);
+        assertEquals(23.0, stats.getMedian());
+        assertEquals(0L, empty.getCount());
+    }
+
+    @Test
+    void testRangeOutsideWindowIsNotCovered() {
+        store.rebuild();
+
+
+        MetricStats stats = store.getStatsInRange("device-1", "temperature", now.minusDays(2), now);
+
+
+        assertNull(stats);
+        assertTrue(store.covers("device-1", "temperature", now.minusHours(23)));
+    }
+
+    @Test
+    void testNothingIsCoveredBeforeLoading() {
+        store.record(List.of(reading("device-1", now.minusMinutes(5), 20.0)));
+
+
+        boolean covered = store.covers("device-1", "temperature", now.minusMinutes(10));
+
+
+        assertFalse(covered);
+    }
+
+    @Test
+    void testFullBufferStopsCoveringItsOldestReadings() {
+        config.getHotWindow().setCapacityPerSeries(3);
+        store.rebuild();
+        for (int minute = 5; minute >= 1; minute--) {
+            store.record(List.of(reading("device-1", now.minusMinutes(minute), minute)));
+        }
+
+
+        MetricStats stats = store.getStatsInRange("device-1", "temperature", now.minusMinutes(3), now);
+
+
+        assertFalse(store.covers("device-1", "temperature", now.minusMinutes(4)));
+        assertEquals(3L, stats.getCount());
+        assertEquals(3.0, stats.getMax());
+    }
+
+    @Test
+    void testLateReadingsAreScannedInTimeOrder() {
+        store.rebuild();
+        store.record(List.of(
+                reading("device-1", now.minusMinutes(10), 1.0),
+                reading("device-1", now.minusMinutes(5), 3.0),
+                reading("device-1", now.minusMinutes(7), 2.0)));
+        List<Double> values = new ArrayList<>();
+
+
+        boolean covered = store.scanRange("device-1", "temperature", now.minusHours(1), now,
+                (timestamp, value) -> values.add(value));
+
+
+        assertTrue(covered);
+        assertEquals(List.of(1.0, 2.0, 3.0), values);
+    }
+
+    @Test
+    void testRebuildLoadsRecentRowsFromDatabase() {
+        doAnswer(invocation -> {
+            SensorDataBatchRepository.ValueConsumer consumer = invocation.getArgument(1);
+            consumer.accept("device-1", "temperature", now.minusHours(2), 20.0);
+            consumer.accept("device-1", "temperature", now.minusHours(1), 22.0);
+            return null;
+        }).when(batchRepository).scanValuesSince(any(), any());
+
+
+        store.rebuild();
+        MetricStats stats = store.getStatsInRange("device-1", "temperature", now.minusHours(3), now);
+
+
+        assertEquals(2L, stats.getCount());
+        assertEquals(21.0, stats.getAvg());
+    }
+
+    private SensorData reading(String deviceId, LocalDateTime timestamp, double value) {
+        return SensorData.builder().deviceId(deviceId).metric("temperature").metricValue(value)
+                .dataTimestamp(timestamp).build();
+    }
+}
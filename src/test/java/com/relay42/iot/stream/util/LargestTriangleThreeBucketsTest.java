@@ -0,0 +1,57 @@
+package com.relay42.iot.stream.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LargestTriangleThreeBucketsTest {
+
+    @Test
+    void testKeepsAllPointsBelowThreshold() {
+
+        double[] x = {0, 1, 2, 3};
+        double[] y = {5, 6, 7, 8};
+
+
+        int[] selected = LargestTriangleThreeBuckets.downsample(x, y, 4, 10);
+
+
+        assertArrayEquals(new int[]{0, 1, 2, 3}, selected);
+    }
+
+    @Test
+    void testKeepsEndpointsAndSpike() {
+
+        int length = 1000;
+        double[] x = new double[length];
+        double[] y = new double[length];
+        for (int i = 0; i < length; i++) {
+            x[i] = i;
+            y[i] = i == 500 ? 100 : Math.sin(i / 50.0);
+        }
+
+
+        int[] selected = LargestTriangleThreeBuckets.downsample(x, y, length, 50);
+
+
+        assertEquals(50, selected.length);
+        assertEquals(0, selected[0]);
+        assertEquals(length - 1, selected[49]);
+        assertTrue(Arrays.stream(selected).anyMatch(index -> index == 500));
+        for (int i = 1; i < selected.length; i++) {
+            assertTrue(selected[i] > selected[i - 1]);
+        }
+    }
+
+    @Test
+    void testRejectsThresholdBelowThree() {
+
+        assertThrows(IllegalArgumentException.class,
+                () -> LargestTriangleThreeBuckets.downsample(new double[5], new double[5], 5, 2));
+    }
+}
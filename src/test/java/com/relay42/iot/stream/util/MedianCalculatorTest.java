@@ -3,9 +3,14 @@ package com.relay42.iot.stream.util;
 import com.relay42.iot.stream.entity.SensorData;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class MedianCalculatorTest {
 
@@ -83,4 +88,102 @@ class MedianCalculatorTest {
 
         assertEquals(20.0, median, "Median calculation should work for unsorted lists");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSelectionMedianAgreesWithReference() {
+
+        Random random = new Random(7);
+        for (int size : new int[]{1, 2, 3, 10, 101, 1000, 1001}) {
+            double[] values = new double[size];
+            List<SensorData> sensorDataList = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                values[i] = Math.round(random.nextGaussian() * 100) / 10.0;
+                sensorDataList.add(SensorData.builder().metricValue(values[i]).build());
+            }
+
+
+            double median = MedianCalculator.median(values);
+
+
+            assertEquals(MedianCalculator.calculate(sensorDataList), median, "Selection median should match for size " + size);
+        }
+    }
+
+    @Test
+    void testSelectionMedianWithDuplicatesAndSortedInput() {
+
+        double[] duplicates = new double[500];
+        Arrays.fill(duplicates, 21.5);
+        double[] sorted = new double[1000];
+        double[] reversed = new double[1000];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = i;
+            reversed[i] = sorted.length - i;
+        }
+
+
+        assertEquals(21.5, MedianCalculator.median(duplicates));
+        assertEquals(499.5, MedianCalculator.median(sorted));
+        assertEquals(500.5, MedianCalculator.median(reversed));
+    }
+
+    @Test
+    void testSelectionMedianLeavesInputUnchanged() {
+
+        double[] values = {30.0, 10.0, 20.0, 40.0};
+
+
+        double median = MedianCalculator.median(values);
+
+
+        assertEquals(25.0, median);
+        assertArrayEquals(new double[]{30.0, 10.0, 20.0, 40.0}, values);
+    }
+
+    @Test
+    void testSelectionMedianEmptyArray() {
+
+        assertEquals(0.0, MedianCalculator.median(new double[0]), "Median should be 0 for an empty array");
+    }
+
+    @Test
+    void testStreamingMedianAgreesWithReference() {
+
+        Random random = new Random(11);
+        StreamingMedian streamingMedian = new StreamingMedian();
+        List<SensorData> sensorDataList = new ArrayList<>();
+
+        for (int i = 0; i < 2000; i++) {
+            double value = random.nextInt(1000) / 10.0;
+            streamingMedian.add(value);
+            sensorDataList.add(SensorData.builder().metricValue(value).build());
+
+            if (i % 97 == 0) {
+                assertEquals(MedianCalculator.calculate(sensorDataList), streamingMedian.median(),
+                        "Streaming median should match after " + (i + 1) + " values");
+            }
+        }
+        assertEquals(2000, streamingMedian.count());
+        assertEquals(MedianCalculator.calculate(sensorDataList), streamingMedian.median());
+    }
+
+    @Test
+    void testStreamingMedianEmpty() {
+
+        assertEquals(0.0, new StreamingMedian().median(), "Median should be 0 before any value is added");
+    }
+
+    @Test
+    void testSelectInPlaceReturnsEveryRank() {
+
+        double[] values = {5.0, -1.0, 3.0, 3.0, 9.0, 0.0, 7.5};
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+
+        for (int k = 0; k < values.length; k++) {
+            assertEquals(sorted[k], MedianCalculator.selectInPlace(values.clone(), values.length, k));
+        }
+        assertThrows(IllegalArgumentException.class, () -> MedianCalculator.selectInPlace(values, values.length, values.length));
+    }
+}